@@ -34,8 +34,9 @@ import org.slf4j.LoggerFactory;
  * <code>write-through</code> which writes data to the cache and DB in a single transaction,
  * <code>write-around</code> which writes data immediately into the DB instead of the cache,
  * <code>write-behind</code> which writes data into the cache initially whilst the data is only
- * written into the DB when the cache is full, and <code>cache-aside</code> which pushes the
- * responsibility of keeping the data synchronized in both data sources to the application itself.
+ * written into the DB later on, in batches by a background thread, and <code>cache-aside</code>
+ * which pushes the responsibility of keeping the data synchronized in both data sources to the
+ * application itself.
  * The <code>read-through</code> strategy is also included in the mentioned four strategies --
  * returns data from the cache to the caller <b>if</b> it exists <b>else</b> queries from DB and
  * stores it into the cache for future use. These strategies determine when the data in the cache
@@ -58,6 +59,8 @@ import org.slf4j.LoggerFactory;
  *
  * @see CacheStore
  * @see LruCache
+ * @see ConcurrentLruCache
+ * @see TieredCache
  * @see CachingPolicy
  *
  */
@@ -82,6 +85,7 @@ public class App {
     app.useReadThroughAndWriteAroundStrategy();
     app.useReadThroughAndWriteBehindStrategy();
     app.useCacheAsideStategy();
+    LOGGER.info(AppManager.printCacheStats());
   }
 
   /**
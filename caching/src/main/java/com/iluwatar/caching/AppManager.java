@@ -69,8 +69,12 @@ public final class AppManager {
     CacheStore.clearCache();
   }
 
+  /**
+   * Initialize cache capacity and expose the cache statistics through JMX
+   */
   public static void initCacheCapacity(int capacity) {
     CacheStore.initCapacity(capacity);
+    CacheStore.registerStatsMBean();
   }
 
   /**
@@ -106,10 +110,15 @@ public final class AppManager {
     return CacheStore.print();
   }
 
+  public static String printCacheStats() {
+    return CacheStore.stats().toString();
+  }
+
   /**
    * Cache-Aside save user account helper
    */
   private static void saveAside(UserAccount userAccount) {
+    CacheStore.cancelPendingWrite(userAccount.getUserId());
     DbManager.updateDb(userAccount);
     CacheStore.invalidate(userAccount.getUserId());
   }
@@ -123,7 +132,7 @@ public final class AppManager {
       return userAccount;
     }
 
-    userAccount = DbManager.readFromDb(userId);
+    userAccount = CacheStore.loadWithPendingWrites(userId);
     if (userAccount != null) {
       CacheStore.set(userId, userAccount);
     }
@@ -0,0 +1,79 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.List;
+
+/**
+ *
+ * Common interface of the cache implementations that {@link CacheStore} can be backed by. All
+ * methods are keyed by the user id of the cached {@link UserAccount}.
+ *
+ */
+public interface Cache {
+
+  /**
+   * Get user account, or null if it is not cached
+   */
+  UserAccount get(String userId);
+
+  /**
+   * Get user account like {@link #get(String)}, adding the entries that had to be evicted to the
+   * given list. Only caches that move entries around on a hit, like {@link TieredCache}, evict
+   * anything here.
+   */
+  default UserAccount get(String userId, List<UserAccount> evicted) {
+    return get(userId);
+  }
+
+  /**
+   * Set user account. Returns the entries that had to be evicted to make room for the new one, or
+   * an empty list.
+   */
+  List<UserAccount> set(String userId, UserAccount userAccount);
+
+  boolean contains(String userId);
+
+  /**
+   * Invalidate cache for user
+   */
+  void invalidate(String userId);
+
+  boolean isFull();
+
+  /**
+   * Clear cache
+   */
+  void clear();
+
+  /**
+   * Returns cache data in list form.
+   */
+  List<UserAccount> getCacheDataInListForm();
+
+  /**
+   * Set cache capacity. Returns the entries that had to be evicted to fit into a smaller capacity,
+   * or an empty list.
+   */
+  List<UserAccount> setCapacity(int newCapacity);
+}
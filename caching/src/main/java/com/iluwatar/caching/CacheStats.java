@@ -0,0 +1,101 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+/**
+ *
+ * Immutable snapshot of the statistics of the {@link CacheStore}, see {@link CacheStore#stats()}.
+ *
+ */
+public final class CacheStats {
+
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final long loadCount;
+  private final long totalLoadTimeNanos;
+  private final int writeBehindQueueDepth;
+
+  /**
+   * Constructor
+   */
+  public CacheStats(long hitCount, long missCount, long evictionCount, long loadCount,
+      long totalLoadTimeNanos, int writeBehindQueueDepth) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.loadCount = loadCount;
+    this.totalLoadTimeNanos = totalLoadTimeNanos;
+    this.writeBehindQueueDepth = writeBehindQueueDepth;
+  }
+
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  public long getMissCount() {
+    return missCount;
+  }
+
+  public long getRequestCount() {
+    return hitCount + missCount;
+  }
+
+  /**
+   * Returns the ratio of cache lookups that were hits, or 1 if there were no lookups yet
+   */
+  public double getHitRate() {
+    long requestCount = getRequestCount();
+    return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+  }
+
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  public long getLoadCount() {
+    return loadCount;
+  }
+
+  public long getTotalLoadTimeNanos() {
+    return totalLoadTimeNanos;
+  }
+
+  /**
+   * Returns the average time spent loading a user account from the DB after a cache miss
+   */
+  public double getAverageLoadPenaltyNanos() {
+    return loadCount == 0 ? 0.0 : (double) totalLoadTimeNanos / loadCount;
+  }
+
+  public int getWriteBehindQueueDepth() {
+    return writeBehindQueueDepth;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("CacheStats hits=%d misses=%d hitRate=%.3f evictions=%d loads=%d "
+        + "averageLoadPenalty=%.0fns writeBehindQueueDepth=%d", hitCount, missCount, getHitRate(),
+        evictionCount, loadCount, getAverageLoadPenaltyNanos(), writeBehindQueueDepth);
+  }
+}
@@ -0,0 +1,120 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ *
+ * Collects the statistics of the {@link CacheStore}. The counters are {@link LongAdder}s, which
+ * spread concurrent updates over several cells instead of letting every thread increment the same
+ * field, so recording a cache hit stays cheap even when many threads hit the cache at once. The
+ * cells are only summed up when the statistics are read.
+ *
+ */
+public class CacheStatsCounter implements CacheStatsMonitor {
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+  private final LongAdder loadCount = new LongAdder();
+  private final LongAdder totalLoadTimeNanos = new LongAdder();
+  private final IntSupplier writeBehindQueueDepth;
+
+  public CacheStatsCounter(IntSupplier writeBehindQueueDepth) {
+    this.writeBehindQueueDepth = writeBehindQueueDepth;
+  }
+
+  public void recordHit() {
+    hitCount.increment();
+  }
+
+  public void recordMiss() {
+    missCount.increment();
+  }
+
+  public void recordEviction() {
+    evictionCount.increment();
+  }
+
+  /**
+   * Records a user account loaded from the DB, and the time it took
+   */
+  public void recordLoad(long loadTimeNanos) {
+    loadCount.increment();
+    totalLoadTimeNanos.add(loadTimeNanos);
+  }
+
+  /**
+   * Returns a snapshot of the current statistics
+   */
+  public CacheStats snapshot() {
+    return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), loadCount.sum(),
+        totalLoadTimeNanos.sum(), writeBehindQueueDepth.getAsInt());
+  }
+
+  @Override
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  @Override
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  @Override
+  public double getHitRate() {
+    return snapshot().getHitRate();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  @Override
+  public long getLoadCount() {
+    return loadCount.sum();
+  }
+
+  @Override
+  public double getAverageLoadPenaltyNanos() {
+    return snapshot().getAverageLoadPenaltyNanos();
+  }
+
+  @Override
+  public int getWriteBehindQueueDepth() {
+    return writeBehindQueueDepth.getAsInt();
+  }
+
+  @Override
+  public void reset() {
+    hitCount.reset();
+    missCount.reset();
+    evictionCount.reset();
+    loadCount.reset();
+    totalLoadTimeNanos.reset();
+  }
+}
@@ -25,18 +25,41 @@ package com.iluwatar.caching;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  *
- * The caching strategies are implemented in this class.
+ * The caching strategies are implemented in this class. The backing cache is a
+ * {@link ConcurrentLruCache}, so the strategies can be used from several threads at once without
+ * any external locking.
+ * <p>
+ * Cache hits, misses, evictions and DB loads are counted instead of logged, see {@link #stats()}.
+ * Concurrent cache misses for the same user are coalesced into a single DB read by the
+ * {@link SingleFlightLoader}, which can also refresh frequently read entries ahead of time.
  *
  */
 public class CacheStore {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(CacheStore.class);
 
-  static LruCache cache;
+  static final int DEFAULT_BATCH_SIZE = 100;
+  static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+  static final int DEFAULT_MAX_DIRTY_ENTRIES = 10_000;
+
+  static Cache cache;
+  static volatile WriteBehindFlusher writeBehindFlusher;
+
+  static final CacheStatsCounter STATS = new CacheStatsCounter(CacheStore::writeBehindQueueDepth);
+
+  static final SingleFlightLoader LOADER = new SingleFlightLoader(
+      CacheStore::cached, CacheStore::loadWithPendingWrites, CacheStore::put);
 
   private CacheStore() {
   }
@@ -46,48 +69,198 @@ public class CacheStore {
    */
   public static void initCapacity(int capacity) {
     if (cache == null) {
-      cache = new LruCache(capacity);
+      cache = new ConcurrentLruCache(capacity);
     } else {
-      cache.setCapacity(capacity);
+      recordEvictions(cache.setCapacity(capacity));
     }
   }
 
   /**
-   * Get user account using read-through cache
+   * Replace the backing cache, e.g. by a {@link PolicyCache} with an eviction policy that suits the
+   * access pattern better than LRU.
    */
-  public static UserAccount readThrough(String userId) {
-    if (cache.contains(userId)) {
-      LOGGER.info("# Cache Hit!");
-      return cache.get(userId);
+  public static void initCache(Cache newCache) {
+    cache = newCache;
+  }
+
+  /**
+   * Init the write-behind engine, replacing (and draining) a previous one
+   *
+   * @param batchSize maximum number of user accounts written to the DB at once
+   * @param flushIntervalMillis maximum time a written user account waits before it is flushed
+   * @param maxDirtyEntries maximum number of pending writes before writers are blocked
+   */
+  public static synchronized void initWriteBehind(int batchSize, long flushIntervalMillis,
+      int maxDirtyEntries) {
+    if (writeBehindFlusher != null) {
+      writeBehindFlusher.shutdown();
     }
-    LOGGER.info("# Cache Miss!");
+    writeBehindFlusher = new WriteBehindFlusher(batchSize, flushIntervalMillis, maxDirtyEntries);
+  }
+
+  private static synchronized WriteBehindFlusher writeBehindFlusher() {
+    if (writeBehindFlusher == null) {
+      writeBehindFlusher = new WriteBehindFlusher(DEFAULT_BATCH_SIZE,
+          DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_MAX_DIRTY_ENTRIES);
+    }
+    return writeBehindFlusher;
+  }
+
+  private static int writeBehindQueueDepth() {
+    WriteBehindFlusher flusher = writeBehindFlusher;
+    return flusher == null ? 0 : flusher.getDirtyCount();
+  }
+
+  /**
+   * Turns on refresh-ahead for {@link #readThrough(String)}: a cache hit on an entry loaded longer
+   * than the given interval ago reloads the entry on the executor.
+   */
+  public static void enableRefreshAhead(long refreshAfterMillis, Executor executor) {
+    LOADER.enableRefreshAhead(refreshAfterMillis, executor);
+  }
+
+  /**
+   * Turns off refresh-ahead
+   */
+  public static void disableRefreshAhead() {
+    LOADER.disableRefreshAhead();
+  }
+
+  /**
+   * Returns a snapshot of the cache statistics
+   */
+  public static CacheStats stats() {
+    return STATS.snapshot();
+  }
+
+  /**
+   * Registers the cache statistics with the platform MBean server, so they can be monitored with
+   * JMX tools like JConsole. Registering them more than once has no effect.
+   */
+  public static void registerStatsMBean() {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(STATS,
+          new ObjectName("com.iluwatar.caching:type=CacheStore"));
+    } catch (InstanceAlreadyExistsException e) {
+      LOGGER.debug("Cache statistics MBean is already registered");
+    } catch (JMException e) {
+      LOGGER.error("Registering the cache statistics MBean failed", e);
+    }
+  }
+
+  /**
+   * Looks the user account up in the cache, counting the hit or miss
+   */
+  private static UserAccount lookup(String userId) {
+    UserAccount userAccount = cached(userId);
+    if (userAccount != null) {
+      STATS.recordHit();
+    } else {
+      STATS.recordMiss();
+    }
+    return userAccount;
+  }
+
+  /**
+   * Looks the user account up in the cache, counting the evictions a promotion within the cache
+   * may cause
+   */
+  private static UserAccount cached(String userId) {
+    List<UserAccount> evicted = new ArrayList<>(0);
+    UserAccount userAccount = cache.get(userId, evicted);
+    recordEvictions(evicted);
+    return userAccount;
+  }
+
+  /**
+   * Reads the user account from the DB, measuring the time it takes
+   */
+  private static UserAccount load(String userId) {
+    long start = System.nanoTime();
     UserAccount userAccount = DbManager.readFromDb(userId);
-    cache.set(userId, userAccount);
+    STATS.recordLoad(System.nanoTime() - start);
     return userAccount;
   }
 
+  /**
+   * Reads the user account from the pending write-behind writes, or from the DB if it has none
+   */
+  static UserAccount loadWithPendingWrites(String userId) {
+    WriteBehindFlusher flusher = writeBehindFlusher;
+    UserAccount userAccount = flusher == null ? null : flusher.get(userId); // evicted before it was flushed
+    return userAccount != null ? userAccount : load(userId);
+  }
+
+  /**
+   * Drops the pending write-behind write of the user account before it is written to the DB
+   * directly, so the flusher cannot overwrite the newer version later
+   */
+  static void cancelPendingWrite(String userId) {
+    WriteBehindFlusher flusher = writeBehindFlusher;
+    if (flusher != null) {
+      flusher.cancel(userId);
+    }
+  }
+
+  /**
+   * Puts the user account into the cache, counting the evictions it may cause
+   */
+  private static void put(String userId, UserAccount userAccount) {
+    recordEvictions(cache.set(userId, userAccount));
+  }
+
+  private static void recordEvictions(List<UserAccount> evicted) {
+    for (UserAccount userAccount : evicted) {
+      STATS.recordEviction();
+      LOADER.onEviction(userAccount.getUserId());
+    }
+  }
+
+  /**
+   * Puts a written user account into the cache, superseding in-flight loads of the user account
+   */
+  private static void putWritten(String userId, UserAccount userAccount) {
+    LOADER.invalidate(userId);
+    put(userId, userAccount);
+  }
+
+  /**
+   * Get user account using read-through cache
+   */
+  public static UserAccount readThrough(String userId) {
+    UserAccount userAccount = lookup(userId);
+    if (userAccount != null) {
+      LOADER.onHit(userId);
+      return userAccount;
+    }
+    return LOADER.load(userId);
+  }
+
   /**
    * Get user account using write-through cache
    */
   public static void writeThrough(UserAccount userAccount) {
+    cancelPendingWrite(userAccount.getUserId());
     if (cache.contains(userAccount.getUserId())) {
       DbManager.updateDb(userAccount);
     } else {
       DbManager.writeToDb(userAccount);
     }
-    cache.set(userAccount.getUserId(), userAccount);
+    putWritten(userAccount.getUserId(), userAccount);
   }
 
   /**
    * Get user account using write-around cache
    */
   public static void writeAround(UserAccount userAccount) {
+    cancelPendingWrite(userAccount.getUserId());
     if (cache.contains(userAccount.getUserId())) {
       DbManager.updateDb(userAccount);
-      cache.invalidate(userAccount.getUserId()); // Cache data has been updated -- remove older
-                                                 // version from cache.
+      invalidate(userAccount.getUserId()); // Cache data has been updated -- remove older version
+                                           // from cache.
     } else {
       DbManager.writeToDb(userAccount);
+      LOADER.invalidate(userAccount.getUserId());
     }
   }
 
@@ -95,53 +268,41 @@ public class CacheStore {
    * Get user account using read-through cache with write-back policy
    */
   public static UserAccount readThroughWithWriteBackPolicy(String userId) {
-    if (cache.contains(userId)) {
-      LOGGER.info("# Cache Hit!");
-      return cache.get(userId);
-    }
-    LOGGER.info("# Cache Miss!");
-    UserAccount userAccount = DbManager.readFromDb(userId);
-    if (cache.isFull()) {
-      LOGGER.info("# Cache is FULL! Writing LRU data to DB...");
-      UserAccount toBeWrittenToDb = cache.getLruData();
-      DbManager.upsertDb(toBeWrittenToDb);
+    UserAccount userAccount = lookup(userId);
+    if (userAccount != null) {
+      return userAccount;
     }
-    cache.set(userId, userAccount);
-    return userAccount;
+    return LOADER.load(userId);
   }
 
   /**
-   * Set user account
+   * Set user account. The user account is marked dirty and written to the DB in the background, so
+   * evicting it from the cache does not require a DB write anymore.
    */
   public static void writeBehind(UserAccount userAccount) {
-    if (cache.isFull() && !cache.contains(userAccount.getUserId())) {
-      LOGGER.info("# Cache is FULL! Writing LRU data to DB...");
-      UserAccount toBeWrittenToDb = cache.getLruData();
-      DbManager.upsertDb(toBeWrittenToDb);
-    }
-    cache.set(userAccount.getUserId(), userAccount);
+    writeBehindFlusher().markDirty(userAccount);
+    putWritten(userAccount.getUserId(), userAccount);
   }
 
   /**
-   * Clears cache
+   * Clears cache. Pending write-behind writes are flushed first.
    */
   public static void clearCache() {
+    flushCache();
+    LOADER.clear();
     if (cache != null) {
       cache.clear();
     }
   }
 
   /**
-   * Writes remaining content in the cache into the DB.
+   * Writes the pending write-behind writes into the DB.
    */
   public static void flushCache() {
     LOGGER.info("# flushCache...");
-    if (null == cache) {
-      return;
-    }
-    List<UserAccount> listOfUserAccounts = cache.getCacheDataInListForm();
-    for (UserAccount userAccount : listOfUserAccounts) {
-      DbManager.upsertDb(userAccount);
+    WriteBehindFlusher flusher = writeBehindFlusher;
+    if (flusher != null) {
+      flusher.flush();
     }
   }
 
@@ -163,20 +324,21 @@ public class CacheStore {
    * Delegate to backing cache store
    */
   public static UserAccount get(String userId) {
-    return cache.get(userId);
+    return lookup(userId);
   }
 
   /**
    * Delegate to backing cache store
    */
   public static void set(String userId, UserAccount userAccount) {
-    cache.set(userId, userAccount);
+    putWritten(userId, userAccount);
   }
 
   /**
    * Delegate to backing cache store
    */
   public static void invalidate(String userId) {
+    LOADER.invalidate(userId);
     cache.invalidate(userId);
   }
 }
@@ -0,0 +1,113 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *
+ * CLOCK (second chance) eviction. The keys form a ring and each of them has a reference bit which
+ * is set when the key is accessed. To find a victim the clock hand sweeps the ring, clearing the
+ * reference bits it passes, and stops at the first key that was not referenced since the last
+ * sweep. An access only sets a bit, so unlike LRU nothing has to be re-linked on a cache hit.
+ *
+ */
+public class ClockPolicy implements EvictionPolicy {
+
+  private static class Node {
+    final String userId;
+    boolean referenced;
+    Node previous;
+    Node next;
+
+    Node(String userId) {
+      this.userId = userId;
+    }
+  }
+
+  private final Map<String, Node> nodes = new HashMap<>();
+  private Node hand;
+
+  @Override
+  public void onAccess(String userId) {
+    Node node = nodes.get(userId);
+    if (node != null) {
+      node.referenced = true;
+    }
+  }
+
+  /**
+   * New keys are put right behind the hand, so they are the last ones the hand reaches.
+   */
+  @Override
+  public void onInsert(String userId) {
+    Node node = new Node(userId);
+    nodes.put(userId, node);
+    if (hand == null) {
+      node.previous = node;
+      node.next = node;
+      hand = node;
+    } else {
+      node.previous = hand.previous;
+      node.next = hand;
+      hand.previous.next = node;
+      hand.previous = node;
+    }
+  }
+
+  @Override
+  public void onRemove(String userId) {
+    Node node = nodes.remove(userId);
+    if (node == null) {
+      return;
+    }
+    if (node.next == node) {
+      hand = null;
+      return;
+    }
+    node.previous.next = node.next;
+    node.next.previous = node.previous;
+    if (hand == node) {
+      hand = node.next;
+    }
+  }
+
+  @Override
+  public String victim() {
+    if (hand == null) {
+      return null;
+    }
+    while (hand.referenced) {
+      hand.referenced = false;
+      hand = hand.next;
+    }
+    return hand.userId;
+  }
+
+  @Override
+  public void clear() {
+    nodes.clear();
+    hand = null;
+  }
+}
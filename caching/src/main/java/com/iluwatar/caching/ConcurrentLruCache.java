@@ -0,0 +1,263 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Thread-safe LRU cache that can be shared by all the threads using {@link CacheStore}. Instead of
+ * guarding one {@link LruCache} with a single lock, the key space is split (by the hash of the user
+ * id) into a number of segments. Each segment is a small {@link LruCache} of its own and is guarded
+ * by its own monitor, so threads working on different segments never contend with each other.
+ * <p>
+ * The price for this is that the LRU order is kept per segment: when a segment is full, its own
+ * least-recently-used entry is evicted, which is not necessarily the least-recently-used entry of
+ * the whole cache. Small caches are kept in a single segment and therefore behave exactly like
+ * {@link LruCache}.
+ * <p>
+ * Weights and expiry work as in {@link LruCache}. Expired entries can additionally be removed in
+ * the background, see {@link #scheduleCleanUp(ScheduledExecutorService, long, TimeUnit)}.
+ *
+ */
+public class ConcurrentLruCache implements Cache {
+
+  static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+  /**
+   * A segment is only created for every this many entries of capacity, so the LRU order of small
+   * caches does not get fragmented.
+   */
+  static final int MIN_SEGMENT_CAPACITY = 16;
+
+  final LruCache[] segments;
+  private volatile int capacity;
+
+  public ConcurrentLruCache(int capacity) {
+    this(capacity, DEFAULT_CONCURRENCY_LEVEL);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param capacity maximum number of entries in the cache
+   * @param concurrencyLevel the estimated number of concurrently accessing threads
+   */
+  public ConcurrentLruCache(int capacity, int concurrencyLevel) {
+    if (capacity < 1 || concurrencyLevel < 1) {
+      throw new IllegalArgumentException("Capacity and concurrency level must be positive");
+    }
+    int segmentCount = Integer.highestOneBit(
+        Math.min(concurrencyLevel, Math.max(1, capacity / MIN_SEGMENT_CAPACITY)));
+    this.segments = new LruCache[segmentCount];
+    this.capacity = capacity;
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new LruCache(segmentCapacity(capacity, i));
+    }
+  }
+
+  /**
+   * Spreads the capacity evenly over the segments, so that the segment capacities add up to the
+   * total capacity. Only a capacity below the number of segments leaves segments with a capacity of
+   * zero, the user accounts of those are evicted right away and read from the DB every time.
+   */
+  private int segmentCapacity(int totalCapacity, int segmentIndex) {
+    int share = totalCapacity / segments.length;
+    if (segmentIndex < totalCapacity % segments.length) {
+      share++;
+    }
+    return share;
+  }
+
+  private LruCache segmentFor(String userId) {
+    int hash = userId.hashCode();
+    hash ^= hash >>> 16;
+    return segments[hash & (segments.length - 1)];
+  }
+
+  @Override
+  public UserAccount get(String userId) {
+    LruCache segment = segmentFor(userId);
+    synchronized (segment) {
+      return segment.get(userId);
+    }
+  }
+
+  @Override
+  public List<UserAccount> set(String userId, UserAccount userAccount) {
+    LruCache segment = segmentFor(userId);
+    synchronized (segment) {
+      return segment.set(userId, userAccount);
+    }
+  }
+
+  @Override
+  public boolean contains(String userId) {
+    LruCache segment = segmentFor(userId);
+    synchronized (segment) {
+      return segment.contains(userId);
+    }
+  }
+
+  @Override
+  public void invalidate(String userId) {
+    LruCache segment = segmentFor(userId);
+    synchronized (segment) {
+      segment.invalidate(userId);
+    }
+  }
+
+  /**
+   * Set the weigher of all segments. Must be set before entries are added.
+   */
+  public void setWeigher(Weigher weigher) {
+    for (LruCache segment : segments) {
+      synchronized (segment) {
+        segment.setWeigher(weigher);
+      }
+    }
+  }
+
+  /**
+   * Set the time-to-live of the entries, zero means they never expire
+   */
+  public void setExpireAfterWrite(long duration, TimeUnit unit) {
+    for (LruCache segment : segments) {
+      synchronized (segment) {
+        segment.setExpireAfterWrite(duration, unit);
+      }
+    }
+  }
+
+  /**
+   * Set the time-to-idle of the entries, zero means they never expire
+   */
+  public void setExpireAfterAccess(long duration, TimeUnit unit) {
+    for (LruCache segment : segments) {
+      synchronized (segment) {
+        segment.setExpireAfterAccess(duration, unit);
+      }
+    }
+  }
+
+  /**
+   * Removes all expired entries. Only one segment is locked at a time.
+   */
+  public void cleanUp() {
+    for (LruCache segment : segments) {
+      synchronized (segment) {
+        segment.cleanUp();
+      }
+    }
+  }
+
+  /**
+   * Periodically removes the expired entries on the executor, so entries that are never accessed
+   * again do not stay in the cache until they are evicted.
+   */
+  public ScheduledFuture<?> scheduleCleanUp(ScheduledExecutorService executor, long period,
+      TimeUnit unit) {
+    return executor.scheduleWithFixedDelay(this::cleanUp, period, period, unit);
+  }
+
+  /**
+   * Returns the number of cached entries. The segments are counted one after another, so under
+   * concurrent modification the result is only an estimate.
+   */
+  public int size() {
+    int size = 0;
+    for (LruCache segment : segments) {
+      synchronized (segment) {
+        size += segment.cache.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Returns the total weight of the cached entries, an estimate just like {@link #size()}.
+   */
+  public long weightedSize() {
+    long weightedSize = 0;
+    for (LruCache segment : segments) {
+      synchronized (segment) {
+        weightedSize += segment.totalWeight;
+      }
+    }
+    return weightedSize;
+  }
+
+  @Override
+  public boolean isFull() {
+    return weightedSize() >= capacity;
+  }
+
+  @Override
+  public void clear() {
+    for (LruCache segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  /**
+   * Returns cache data in list form. Each segment is listed from its most-recently-used to its
+   * least-recently-used entry.
+   */
+  @Override
+  public List<UserAccount> getCacheDataInListForm() {
+    List<UserAccount> listOfCacheData = new ArrayList<>();
+    for (LruCache segment : segments) {
+      synchronized (segment) {
+        listOfCacheData.addAll(segment.getCacheDataInListForm());
+      }
+    }
+    return listOfCacheData;
+  }
+
+  /**
+   * Set cache capacity. The number of segments stays the same, the new capacity is spread over the
+   * existing segments, see {@link #segmentCapacity(int, int)}. A shrinking segment evicts just
+   * enough of its LRU data to fit, and the segments are shrunk one after another, so the others
+   * stay available meanwhile.
+   */
+  @Override
+  public List<UserAccount> setCapacity(int newCapacity) {
+    if (newCapacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    List<UserAccount> evicted = new ArrayList<>();
+    for (int i = 0; i < segments.length; i++) {
+      synchronized (segments[i]) {
+        evicted.addAll(segments[i].setCapacity(segmentCapacity(newCapacity, i)));
+      }
+    }
+    this.capacity = newCapacity;
+    return evicted;
+  }
+}
@@ -23,15 +23,19 @@
 package com.iluwatar.caching;
 
 import java.text.ParseException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bson.Document;
 
 import com.mongodb.MongoClient;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 
 /**
  *
@@ -60,7 +64,7 @@ public final class DbManager {
    */
   public static void createVirtualDb() {
     useMongoDB = false;
-    virtualDB = new HashMap<>();
+    virtualDB = new ConcurrentHashMap<>();
   }
 
   /**
@@ -161,4 +165,36 @@ public final class DbManager {
             userAccount.getUserName()).append("additionalInfo", userAccount.getAdditionalInfo())),
         new UpdateOptions().upsert(true));
   }
+
+  /**
+   * Upsert several user accounts. With MongoDB they are sent to the DB in a single bulk write
+   * instead of one round trip per user account.
+   */
+  public static void upsertDb(List<UserAccount> userAccounts) {
+    if (!useMongoDB) {
+      for (UserAccount userAccount : userAccounts) {
+        virtualDB.put(userAccount.getUserId(), userAccount);
+      }
+      return;
+    }
+    if (userAccounts.isEmpty()) {
+      return;
+    }
+    if (db == null) {
+      try {
+        connect();
+      } catch (ParseException e) {
+        e.printStackTrace();
+      }
+    }
+    List<WriteModel<Document>> upserts = new ArrayList<>(userAccounts.size());
+    for (UserAccount userAccount : userAccounts) {
+      upserts.add(new UpdateOneModel<>(
+          new Document("userID", userAccount.getUserId()),
+          new Document("$set", new Document("userID", userAccount.getUserId()).append("userName",
+              userAccount.getUserName()).append("additionalInfo", userAccount.getAdditionalInfo())),
+          new UpdateOptions().upsert(true)));
+    }
+    db.getCollection("user_accounts").bulkWrite(upserts);
+  }
 }
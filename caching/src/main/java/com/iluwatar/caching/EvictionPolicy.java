@@ -0,0 +1,68 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+/**
+ *
+ * An eviction policy decides which entry of a full {@link PolicyCache} has to make room for a new
+ * one. The cache reports every access, insertion and removal of a key to the policy, and asks the
+ * policy for a victim when it is full.
+ *
+ */
+public interface EvictionPolicy {
+
+  /**
+   * Called when a cached key is read or updated
+   */
+  void onAccess(String userId);
+
+  /**
+   * Called after a new key has been put into the cache
+   */
+  void onInsert(String userId);
+
+  /**
+   * Called after a key has been evicted or invalidated
+   */
+  void onRemove(String userId);
+
+  /**
+   * Returns the key that should be evicted next. Choosing the victim must not remove or move any
+   * key, the victim is not removed from the policy until {@link #onRemove(String)} is called for it.
+   */
+  String victim();
+
+  /**
+   * Decides whether a new key is worth caching at the price of evicting the victim. The victim is
+   * null if the cache still has room. Admission filters can use this to keep one-off keys from
+   * flushing out frequently used data.
+   */
+  default boolean admit(String candidate, String victim) {
+    return true;
+  }
+
+  /**
+   * Forget all keys
+   */
+  void clear();
+}
@@ -0,0 +1,66 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+/**
+ *
+ * The eviction policies a {@link PolicyCache} can be created with.
+ *
+ */
+public enum EvictionPolicyType {
+  LRU {
+    @Override
+    public EvictionPolicy create(int capacity) {
+      return new LruPolicy();
+    }
+  },
+  CLOCK {
+    @Override
+    public EvictionPolicy create(int capacity) {
+      return new ClockPolicy();
+    }
+  },
+  LFU {
+    @Override
+    public EvictionPolicy create(int capacity) {
+      return new LfuPolicy();
+    }
+  },
+  TINY_LFU {
+    @Override
+    public EvictionPolicy create(int capacity) {
+      return new TinyLfuPolicy(new LruPolicy(), capacity);
+    }
+  },
+  W_TINY_LFU {
+    @Override
+    public EvictionPolicy create(int capacity) {
+      return new WindowTinyLfuPolicy(capacity);
+    }
+  };
+
+  /**
+   * Creates a new instance of the policy for a cache of the given capacity
+   */
+  public abstract EvictionPolicy create(int capacity);
+}
@@ -0,0 +1,114 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Approximate access counter used by the TinyLFU admission filter. It is a count-min sketch: each
+ * key is hashed to one counter in each of four rows and its frequency is the smallest of those four
+ * counters. The counters saturate at 15 and are all halved once enough accesses were recorded, so
+ * keys that were popular a long time ago do not stay popular forever.
+ *
+ */
+public class FrequencySketch {
+
+  private static final int DEPTH = 4;
+  private static final int MAX_FREQUENCY = 15;
+  private static final int[] SEEDS = {0x97cb3127, 0xb492b66f, 0x9ae16a3b, 0xcbf29ce4};
+
+  private final byte[] table;
+  private final int width;
+  private final int sampleSize;
+  private int additions;
+
+  /**
+   * Constructor
+   *
+   * @param expectedEntries the number of entries of the cache the sketch is used for
+   */
+  public FrequencySketch(int expectedEntries) {
+    int entries = Math.max(16, expectedEntries);
+    // four counters per row and entry keep collisions rare
+    this.width = Integer.highestOneBit(entries - 1) << 3;
+    this.table = new byte[DEPTH * width];
+    this.sampleSize = 10 * entries;
+  }
+
+  /**
+   * Records an access of the key
+   */
+  public void increment(String userId) {
+    int hash = spread(userId.hashCode());
+    boolean added = false;
+    for (int row = 0; row < DEPTH; row++) {
+      int index = indexOf(hash, row);
+      if (table[index] < MAX_FREQUENCY) {
+        table[index]++;
+        added = true;
+      }
+    }
+    if (added && ++additions == sampleSize) {
+      reset();
+    }
+  }
+
+  /**
+   * Returns the estimated number of recent accesses of the key
+   */
+  public int frequency(String userId) {
+    int hash = spread(userId.hashCode());
+    int frequency = MAX_FREQUENCY;
+    for (int row = 0; row < DEPTH; row++) {
+      frequency = Math.min(frequency, table[indexOf(hash, row)]);
+    }
+    return frequency;
+  }
+
+  /**
+   * Forget all recorded accesses
+   */
+  public void clear() {
+    Arrays.fill(table, (byte) 0);
+    additions = 0;
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (byte) (table[i] >>> 1);
+    }
+    additions /= 2;
+  }
+
+  private int indexOf(int hash, int row) {
+    long value = (hash + SEEDS[row]) * (long) SEEDS[row];
+    value += value >>> 32;
+    return row * width + ((int) value & (width - 1));
+  }
+
+  private static int spread(int hash) {
+    int value = hash * 0x9e3779b9;
+    return value ^ (value >>> 16);
+  }
+}
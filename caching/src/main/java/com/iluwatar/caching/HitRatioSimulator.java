@@ -0,0 +1,133 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ *
+ * Replays a trace of user ids against a {@link PolicyCache} for every {@link EvictionPolicyType}
+ * and reports the hit ratio of each policy. Every id in the trace is read through the cache: a miss
+ * puts the user account into the cache, just like {@link CacheStore#readThrough(String)} does.
+ * <p>
+ * The trace is read from a file with one user id per line. Without a file, a synthetic trace is
+ * used in which a Zipf-distributed set of popular users is interrupted by scans over users that
+ * are read only once, an access pattern LRU is known to handle poorly.
+ *
+ */
+public final class HitRatioSimulator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HitRatioSimulator.class);
+
+  private HitRatioSimulator() {
+  }
+
+  /**
+   * Program entry point
+   *
+   * @param args optional trace file and cache capacity
+   */
+  public static void main(String[] args) throws IOException {
+    List<String> trace = args.length > 0
+        ? Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8)
+        : scanTrace(1_000, 1.0, 1_000_000, 42);
+    int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    for (Map.Entry<EvictionPolicyType, Double> result : simulate(trace, capacity).entrySet()) {
+      LOGGER.info("{}: hit ratio {}", result.getKey(), String.format("%.4f", result.getValue()));
+    }
+  }
+
+  /**
+   * Returns the hit ratio of each eviction policy for the trace
+   */
+  public static Map<EvictionPolicyType, Double> simulate(List<String> trace, int capacity) {
+    Map<EvictionPolicyType, Double> hitRatios = new LinkedHashMap<>();
+    for (EvictionPolicyType policyType : EvictionPolicyType.values()) {
+      hitRatios.put(policyType, replay(trace, new PolicyCache(capacity, policyType)));
+    }
+    return hitRatios;
+  }
+
+  /**
+   * Reads every user id of the trace through the cache and returns the ratio of cache hits
+   */
+  public static double replay(List<String> trace, Cache cache) {
+    if (trace.isEmpty()) {
+      return 0;
+    }
+    long hits = 0;
+    for (String userId : trace) {
+      if (cache.get(userId) != null) {
+        hits++;
+      } else {
+        cache.set(userId, new UserAccount(userId, null, null));
+      }
+    }
+    return (double) hits / trace.size();
+  }
+
+  /**
+   * Creates a synthetic trace of the given length. Most of the accesses pick one of the popular
+   * users with Zipf-distributed probability; every 5000 accesses a scan reads 1000 users that never
+   * show up again.
+   *
+   * @param popularUsers number of users in the popular set
+   * @param skew exponent of the Zipf distribution, larger values make the top users more popular
+   * @param length number of accesses in the trace
+   * @param seed seed of the random generator, so the trace can be reproduced
+   */
+  public static List<String> scanTrace(int popularUsers, double skew, int length, long seed) {
+    double[] cumulative = new double[popularUsers];
+    double sum = 0;
+    for (int i = 0; i < popularUsers; i++) {
+      sum += 1 / Math.pow(i + 1, skew);
+      cumulative[i] = sum;
+    }
+    Random random = new Random(seed);
+    List<String> trace = new ArrayList<>(length);
+    int scanned = 0;
+    while (trace.size() < length) {
+      if (trace.size() % 5000 == 4999) {
+        for (int i = 0; i < 1000 && trace.size() < length; i++) {
+          trace.add("scan-" + scanned++);
+        }
+      } else {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+        trace.add("user-" + (index < 0 ? -index - 1 : index));
+      }
+    }
+    return trace;
+  }
+}
@@ -0,0 +1,89 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ *
+ * Least-frequently-used eviction: the key with the fewest accesses is evicted, the oldest one among
+ * keys with the same number of accesses. The keys are kept in buckets by their access count, so
+ * neither an access nor finding the victim requires scanning the keys.
+ *
+ */
+public class LfuPolicy implements EvictionPolicy {
+
+  private final Map<String, Integer> frequencies = new HashMap<>();
+  private final TreeMap<Integer, Set<String>> buckets = new TreeMap<>();
+
+  @Override
+  public void onAccess(String userId) {
+    Integer frequency = frequencies.get(userId);
+    if (frequency != null) {
+      removeFromBucket(userId, frequency);
+      addToBucket(userId, frequency + 1);
+    }
+  }
+
+  @Override
+  public void onInsert(String userId) {
+    addToBucket(userId, 1);
+  }
+
+  @Override
+  public void onRemove(String userId) {
+    Integer frequency = frequencies.get(userId);
+    if (frequency != null) {
+      removeFromBucket(userId, frequency);
+    }
+  }
+
+  @Override
+  public String victim() {
+    return buckets.isEmpty() ? null : buckets.firstEntry().getValue().iterator().next();
+  }
+
+  @Override
+  public void clear() {
+    frequencies.clear();
+    buckets.clear();
+  }
+
+  private void addToBucket(String userId, int frequency) {
+    frequencies.put(userId, frequency);
+    buckets.computeIfAbsent(frequency, f -> new LinkedHashSet<>()).add(userId);
+  }
+
+  private void removeFromBucket(String userId, int frequency) {
+    frequencies.remove(userId);
+    Set<String> bucket = buckets.get(frequency);
+    bucket.remove(userId);
+    if (bucket.isEmpty()) {
+      buckets.remove(frequency);
+    }
+  }
+}
@@ -26,9 +26,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 /**
  *
@@ -37,17 +40,31 @@ import java.util.Map;
  * LRU data in the cache. When a data is queried (from the cache), added (to the cache), or updated,
  * the data is moved to the front of the list to depict itself as the most-recently-used data. The
  * LRU data is always at the end of the list.
+ * <p>
+ * The capacity is a total weight, see {@link Weigher}; by default every entry weighs one. Entries
+ * can also expire a fixed time after they were written (time-to-live) or last accessed
+ * (time-to-idle). Expired entries are never returned. They are removed when they are accessed, and
+ * every write checks a few entries at the end of the list, so expired entries are cleaned up bit by
+ * bit without scanning the whole cache. {@link #cleanUp()} removes all expired entries at once.
  *
  */
-public class LruCache {
+public class LruCache implements Cache {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(LruCache.class);
 
+  /**
+   * Number of entries at the end of the list checked for expiry on every write.
+   */
+  static final int EXPIRY_SCAN_LIMIT = 4;
+
   class Node {
     String userId;
     UserAccount userAccount;
     Node previous;
     Node next;
+    int weight;
+    long writeTime;
+    long accessTime;
 
     public Node(String userId, UserAccount userAccount) {
       this.userId = userId;
@@ -56,25 +73,63 @@ public class LruCache {
   }
 
   int capacity;
+  long totalWeight;
   Map<String, Node> cache = new HashMap<>();
   Node head;
   Node end;
 
+  private Weigher weigher = Weigher.ONE;
+  private long expireAfterWriteNanos;
+  private long expireAfterAccessNanos;
+  private LongSupplier ticker = System::nanoTime;
+
   public LruCache(int capacity) {
     this.capacity = capacity;
   }
 
+  /**
+   * Set the weigher computing the weight of each entry. Must be set before entries are added.
+   */
+  public void setWeigher(Weigher weigher) {
+    this.weigher = weigher;
+  }
+
+  /**
+   * Set the time-to-live of the entries, zero means they never expire
+   */
+  public void setExpireAfterWrite(long duration, TimeUnit unit) {
+    this.expireAfterWriteNanos = unit.toNanos(duration);
+  }
+
+  /**
+   * Set the time-to-idle of the entries, zero means they never expire
+   */
+  public void setExpireAfterAccess(long duration, TimeUnit unit) {
+    this.expireAfterAccessNanos = unit.toNanos(duration);
+  }
+
+  void setTicker(LongSupplier ticker) {
+    this.ticker = ticker;
+  }
+
   /**
    * Get user account
    */
+  @Override
   public UserAccount get(String userId) {
-    if (cache.containsKey(userId)) {
-      Node node = cache.get(userId);
-      remove(node);
-      setHead(node);
-      return node.userAccount;
+    Node node = cache.get(userId);
+    if (node == null) {
+      return null;
+    }
+    long now = ticker.getAsLong();
+    if (isExpired(node, now)) {
+      removeEntry(node);
+      return null;
     }
-    return null;
+    node.accessTime = now;
+    remove(node);
+    setHead(node);
+    return node.userAccount;
   }
 
   /**
@@ -109,45 +164,67 @@ public class LruCache {
   }
 
   /**
-   * Set user account
+   * Set user account. Returns the LRU data that was evicted to stay within the capacity. If the user
+   * account alone is heavier than the capacity, it is evicted itself.
    */
-  public void set(String userId, UserAccount userAccount) {
-    if (cache.containsKey(userId)) {
-      Node old = cache.get(userId);
-      old.userAccount = userAccount;
-      remove(old);
-      setHead(old);
+  @Override
+  public List<UserAccount> set(String userId, UserAccount userAccount) {
+    long now = ticker.getAsLong();
+    expireEntries(now);
+    Node node = cache.get(userId);
+    if (node != null) {
+      totalWeight -= node.weight;
+      node.userAccount = userAccount;
+      remove(node);
     } else {
-      Node newNode = new Node(userId, userAccount);
-      if (cache.size() >= capacity) {
-        LOGGER.info("# Cache is FULL! Removing {} from cache...", end.userId);
-        cache.remove(end.userId); // remove LRU data from cache.
-        remove(end);
-        setHead(newNode);
-      } else {
-        setHead(newNode);
-      }
-      cache.put(userId, newNode);
+      node = new Node(userId, userAccount);
+      cache.put(userId, node);
     }
+    node.weight = weigher.weigh(userAccount);
+    node.writeTime = now;
+    node.accessTime = now;
+    totalWeight += node.weight;
+    setHead(node);
+    return evictToCapacity();
   }
 
+  /**
+   * Evicts LRU data until the total weight fits into the capacity.
+   */
+  private List<UserAccount> evictToCapacity() {
+    if (totalWeight <= capacity) {
+      return Collections.emptyList();
+    }
+    List<UserAccount> evicted = new ArrayList<>();
+    while (totalWeight > capacity && end != null) {
+      LOGGER.debug("# Cache is FULL! Removing {} from cache...", end.userId);
+      evicted.add(end.userAccount);
+      removeEntry(end); // remove LRU data from cache.
+    }
+    return evicted;
+  }
+
+  @Override
   public boolean contains(String userId) {
-    return cache.containsKey(userId);
+    Node node = cache.get(userId);
+    return node != null && !isExpired(node, ticker.getAsLong());
   }
 
   /**
    * Invalidate cache for user
    */
+  @Override
   public void invalidate(String userId) {
-    Node toBeRemoved = cache.remove(userId);
+    Node toBeRemoved = cache.get(userId);
     if (toBeRemoved != null) {
-      LOGGER.info("# {} has been updated! Removing older version from cache...", userId);
-      remove(toBeRemoved);
+      LOGGER.debug("# {} has been updated! Removing older version from cache...", userId);
+      removeEntry(toBeRemoved);
     }
   }
 
+  @Override
   public boolean isFull() {
-    return cache.size() >= capacity;
+    return totalWeight >= capacity;
   }
 
   public UserAccount getLruData() {
@@ -157,34 +234,85 @@ public class LruCache {
   /**
    * Clear cache
    */
+  @Override
   public void clear() {
     head = null;
     end = null;
     cache.clear();
+    totalWeight = 0;
   }
 
   /**
    * Returns cache data in list form.
    */
+  @Override
   public List<UserAccount> getCacheDataInListForm() {
     List<UserAccount> listOfCacheData = new ArrayList<>();
+    long now = ticker.getAsLong();
     Node temp = head;
     while (temp != null) {
-      listOfCacheData.add(temp.userAccount);
+      if (!isExpired(temp, now)) {
+        listOfCacheData.add(temp.userAccount);
+      }
       temp = temp.next;
     }
     return listOfCacheData;
   }
 
   /**
-   * Set cache capacity
+   * Set cache capacity. When the capacity shrinks, only as much LRU data is evicted as is needed to
+   * fit into the new capacity.
    */
-  public void setCapacity(int newCapacity) {
-    if (capacity > newCapacity) {
-      clear(); // Behavior can be modified to accommodate for decrease in cache size. For now, we'll
-               // just clear the cache.
-    } else {
-      this.capacity = newCapacity;
+  @Override
+  public List<UserAccount> setCapacity(int newCapacity) {
+    this.capacity = newCapacity;
+    return evictToCapacity();
+  }
+
+  /**
+   * Removes all expired entries.
+   */
+  public void cleanUp() {
+    if (expireAfterWriteNanos == 0 && expireAfterAccessNanos == 0) {
+      return;
+    }
+    long now = ticker.getAsLong();
+    Node node = end;
+    while (node != null) {
+      Node previous = node.previous;
+      if (isExpired(node, now)) {
+        removeEntry(node);
+      }
+      node = previous;
     }
   }
+
+  /**
+   * Checks the entries at the end of the list, where the entries accessed longest ago are, and
+   * removes the expired ones.
+   */
+  private void expireEntries(long now) {
+    if (expireAfterWriteNanos == 0 && expireAfterAccessNanos == 0) {
+      return;
+    }
+    Node node = end;
+    for (int i = 0; i < EXPIRY_SCAN_LIMIT && node != null; i++) {
+      Node previous = node.previous;
+      if (isExpired(node, now)) {
+        removeEntry(node);
+      }
+      node = previous;
+    }
+  }
+
+  private boolean isExpired(Node node, long now) {
+    return expireAfterWriteNanos > 0 && now - node.writeTime >= expireAfterWriteNanos
+        || expireAfterAccessNanos > 0 && now - node.accessTime >= expireAfterAccessNanos;
+  }
+
+  private void removeEntry(Node node) {
+    cache.remove(node.userId);
+    remove(node);
+    totalWeight -= node.weight;
+  }
 }
@@ -0,0 +1,61 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *
+ * Least-recently-used eviction: the key that has not been accessed for the longest time is evicted.
+ *
+ */
+public class LruPolicy implements EvictionPolicy {
+
+  private final Map<String, Boolean> accessOrder = new LinkedHashMap<>(16, 0.75f, true);
+
+  @Override
+  public void onAccess(String userId) {
+    accessOrder.get(userId);
+  }
+
+  @Override
+  public void onInsert(String userId) {
+    accessOrder.put(userId, Boolean.TRUE);
+  }
+
+  @Override
+  public void onRemove(String userId) {
+    accessOrder.remove(userId);
+  }
+
+  @Override
+  public String victim() {
+    return accessOrder.isEmpty() ? null : accessOrder.keySet().iterator().next();
+  }
+
+  @Override
+  public void clear() {
+    accessOrder.clear();
+  }
+}
@@ -0,0 +1,291 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *
+ * Store keeping serialized user accounts outside of the Java heap, in a direct {@link ByteBuffer}
+ * or a memory-mapped file, so they do not add to the work of the garbage collector. It is used as
+ * the second tier of a {@link TieredCache}.
+ * <p>
+ * The buffer is used as a circular log: every user account is appended as a record at the head,
+ * and when the buffer is full the oldest records at the tail are overwritten (FIFO eviction).
+ * Each record consists of a type byte, the length of the record, the hash of the user id and the
+ * user account encoded with the {@link UserAccountCodec}. A record that does not fit into the rest
+ * of the buffer is written at its start, and the rest is marked as padding. Removing or replacing a
+ * user account just drops it from the index, the space of its record is reclaimed when the tail
+ * passes it.
+ * <p>
+ * The index is an open addressing hash table in two primitive arrays, holding the hash of the user
+ * id and the position of its record. Keys are compared against the record itself, so the store
+ * does not keep a single object per entry on the heap.
+ * <p>
+ * All methods are synchronized on the store.
+ *
+ */
+public class OffHeapStore {
+
+  private static final byte RECORD = 1;
+  private static final byte PADDING = 2;
+  private static final int HEADER_LENGTH = 9;
+  private static final int INITIAL_SLOTS = 16;
+
+  private final ByteBuffer buffer;
+  private final int capacity;
+
+  /**
+   * Positions are counted from the creation of the store and never wrap, the position in the
+   * buffer is the position modulo the capacity.
+   */
+  private long head;
+  private long tail;
+
+  /**
+   * Index slots, holding the position of the record plus one, or zero for free slots.
+   */
+  private long[] positions = new long[INITIAL_SLOTS];
+  private int[] hashes = new int[INITIAL_SLOTS];
+  private int size;
+
+  /**
+   * Creates a store on the given buffer.
+   */
+  public OffHeapStore(ByteBuffer buffer) {
+    this.buffer = buffer.duplicate();
+    this.capacity = buffer.capacity();
+  }
+
+  /**
+   * Creates a store in a direct buffer of the given number of bytes.
+   */
+  public static OffHeapStore allocateDirect(int capacity) {
+    return new OffHeapStore(ByteBuffer.allocateDirect(capacity));
+  }
+
+  /**
+   * Creates a store in the given file, which is mapped into memory. The file is created, or grown
+   * to the capacity if needed.
+   */
+  public static OffHeapStore mapFile(Path file, int capacity) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return new OffHeapStore(channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+    }
+  }
+
+  /**
+   * Stores the user account. Returns the user accounts whose records had to be overwritten to make
+   * room, or the user account itself if it is larger than the whole store.
+   */
+  public synchronized List<UserAccount> put(String userId, UserAccount userAccount) {
+    int hash = hash(userId);
+    int slot = find(hash, userId.getBytes(StandardCharsets.UTF_8));
+    if (slot >= 0) {
+      deleteSlot(slot);
+    }
+    byte[] encoded = UserAccountCodec.encode(userAccount);
+    int length = HEADER_LENGTH + encoded.length;
+    if (length > capacity) {
+      return Collections.singletonList(userAccount);
+    }
+    List<UserAccount> overwritten = new ArrayList<>(0);
+    int position = (int) (head % capacity);
+    if (position + length > capacity) {
+      int padding = capacity - position;
+      makeRoom(padding, overwritten);
+      buffer.put(position, PADDING);
+      head += padding;
+      position = 0;
+    }
+    makeRoom(length, overwritten);
+    buffer.put(position, RECORD);
+    buffer.putInt(position + 1, length);
+    buffer.putInt(position + 5, hash);
+    ByteBuffer view = buffer.duplicate();
+    view.position(position + HEADER_LENGTH);
+    view.put(encoded);
+    insert(hash, head);
+    head += length;
+    return overwritten;
+  }
+
+  /**
+   * Returns the stored user account, or null
+   */
+  public synchronized UserAccount get(String userId) {
+    int slot = find(hash(userId), userId.getBytes(StandardCharsets.UTF_8));
+    return slot < 0 ? null : read(positions[slot] - 1);
+  }
+
+  /**
+   * Removes the user account and returns it, or null if it is not stored
+   */
+  public synchronized UserAccount remove(String userId) {
+    int slot = find(hash(userId), userId.getBytes(StandardCharsets.UTF_8));
+    if (slot < 0) {
+      return null;
+    }
+    UserAccount userAccount = read(positions[slot] - 1);
+    deleteSlot(slot);
+    return userAccount;
+  }
+
+  public synchronized boolean contains(String userId) {
+    return find(hash(userId), userId.getBytes(StandardCharsets.UTF_8)) >= 0;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Returns all stored user accounts
+   */
+  public synchronized List<UserAccount> values() {
+    List<UserAccount> values = new ArrayList<>(size);
+    for (long position : positions) {
+      if (position != 0) {
+        values.add(read(position - 1));
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Removes all user accounts
+   */
+  public synchronized void clear() {
+    Arrays.fill(positions, 0);
+    size = 0;
+    tail = head;
+  }
+
+  private UserAccount read(long position) {
+    ByteBuffer view = buffer.duplicate();
+    view.position((int) (position % capacity) + HEADER_LENGTH);
+    return UserAccountCodec.decode(view);
+  }
+
+  /**
+   * Advances the tail until the given number of bytes is free at the head, dropping the records
+   * the tail passes from the index.
+   */
+  private void makeRoom(int length, List<UserAccount> overwritten) {
+    while (head + length - tail > capacity) {
+      int position = (int) (tail % capacity);
+      if (buffer.get(position) == PADDING) {
+        tail += capacity - position;
+        continue;
+      }
+      int slot = findPosition(buffer.getInt(position + 5), tail);
+      if (slot >= 0) {
+        overwritten.add(read(tail));
+        deleteSlot(slot);
+      }
+      tail += buffer.getInt(position + 1);
+    }
+  }
+
+  private static int hash(String userId) {
+    int hash = userId.hashCode();
+    return hash ^ hash >>> 16;
+  }
+
+  private int find(int hash, byte[] userId) {
+    int mask = positions.length - 1;
+    for (int slot = hash & mask; positions[slot] != 0; slot = slot + 1 & mask) {
+      if (hashes[slot] == hash && UserAccountCodec.hasUserId(buffer,
+          (int) ((positions[slot] - 1) % capacity) + HEADER_LENGTH, userId)) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  private int findPosition(int hash, long position) {
+    int mask = positions.length - 1;
+    for (int slot = hash & mask; positions[slot] != 0; slot = slot + 1 & mask) {
+      if (positions[slot] == position + 1) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  private void insert(int hash, long position) {
+    if ((size + 1) * 2 > positions.length) {
+      long[] oldPositions = positions;
+      int[] oldHashes = hashes;
+      positions = new long[oldPositions.length * 2];
+      hashes = new int[oldPositions.length * 2];
+      for (int slot = 0; slot < oldPositions.length; slot++) {
+        if (oldPositions[slot] != 0) {
+          insertSlot(oldHashes[slot], oldPositions[slot]);
+        }
+      }
+    }
+    insertSlot(hash, position + 1);
+    size++;
+  }
+
+  private void insertSlot(int hash, long slotValue) {
+    int mask = positions.length - 1;
+    int slot = hash & mask;
+    while (positions[slot] != 0) {
+      slot = slot + 1 & mask;
+    }
+    positions[slot] = slotValue;
+    hashes[slot] = hash;
+  }
+
+  /**
+   * Frees the slot, shifting back the following slots of the probe sequence so that lookups do not
+   * stop early at the freed slot.
+   */
+  private void deleteSlot(int slot) {
+    int mask = positions.length - 1;
+    int free = slot;
+    for (int next = free + 1 & mask; positions[next] != 0; next = next + 1 & mask) {
+      int home = hashes[next] & mask;
+      boolean reachable = free <= next ? free < home && home <= next : free < home || home <= next;
+      if (!reachable) {
+        positions[free] = positions[next];
+        hashes[free] = hashes[next];
+        free = next;
+      }
+    }
+    positions[free] = 0;
+    size--;
+  }
+}
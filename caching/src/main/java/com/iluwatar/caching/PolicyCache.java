@@ -0,0 +1,133 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ * Cache whose eviction strategy is delegated to an {@link EvictionPolicy}, so the policy that
+ * gives the best hit ratio for the access pattern at hand can be chosen (see
+ * {@link HitRatioSimulator}). All methods are synchronized on the cache.
+ *
+ */
+public class PolicyCache implements Cache {
+
+  private final Map<String, UserAccount> cache = new HashMap<>();
+  private final EvictionPolicy policy;
+  private int capacity;
+
+  public PolicyCache(int capacity, EvictionPolicyType policyType) {
+    this(capacity, policyType.create(capacity));
+  }
+
+  public PolicyCache(int capacity, EvictionPolicy policy) {
+    this.capacity = capacity;
+    this.policy = policy;
+  }
+
+  @Override
+  public synchronized UserAccount get(String userId) {
+    UserAccount userAccount = cache.get(userId);
+    if (userAccount != null) {
+      policy.onAccess(userId);
+    }
+    return userAccount;
+  }
+
+  /**
+   * Set user account. Returns the evicted data, if any. If the policy refuses to admit a new user
+   * account into the full cache, the new user account itself is returned as it was never cached.
+   */
+  @Override
+  public synchronized List<UserAccount> set(String userId, UserAccount userAccount) {
+    if (cache.containsKey(userId)) {
+      cache.put(userId, userAccount);
+      policy.onAccess(userId);
+      return Collections.emptyList();
+    }
+    String victim = cache.size() >= capacity ? policy.victim() : null;
+    if (!policy.admit(userId, victim)) {
+      return Collections.singletonList(userAccount);
+    }
+    List<UserAccount> evicted = Collections.emptyList();
+    if (victim != null) {
+      evicted = Collections.singletonList(cache.remove(victim));
+      policy.onRemove(victim);
+    }
+    cache.put(userId, userAccount);
+    policy.onInsert(userId);
+    return evicted;
+  }
+
+  @Override
+  public synchronized boolean contains(String userId) {
+    return cache.containsKey(userId);
+  }
+
+  @Override
+  public synchronized void invalidate(String userId) {
+    if (cache.remove(userId) != null) {
+      policy.onRemove(userId);
+    }
+  }
+
+  @Override
+  public synchronized boolean isFull() {
+    return cache.size() >= capacity;
+  }
+
+  @Override
+  public synchronized void clear() {
+    cache.clear();
+    policy.clear();
+  }
+
+  @Override
+  public synchronized List<UserAccount> getCacheDataInListForm() {
+    return new ArrayList<>(cache.values());
+  }
+
+  /**
+   * Set cache capacity. When the capacity shrinks, the victims chosen by the policy are evicted
+   * until the cache fits.
+   */
+  @Override
+  public synchronized List<UserAccount> setCapacity(int newCapacity) {
+    if (newCapacity < 0) {
+      throw new IllegalArgumentException("Capacity must not be negative");
+    }
+    this.capacity = newCapacity;
+    List<UserAccount> evicted = new ArrayList<>();
+    while (cache.size() > capacity) {
+      String victim = policy.victim();
+      evicted.add(cache.remove(victim));
+      policy.onRemove(victim);
+    }
+    return evicted;
+  }
+}
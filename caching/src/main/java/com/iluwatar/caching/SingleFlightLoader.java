@@ -0,0 +1,205 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ *
+ * Loads user accounts into the cache after a cache miss, making sure that concurrent misses for the
+ * same user id cause only one DB read (single flight). The first thread that misses starts the load,
+ * all others wait for the same future and get the same result.
+ * <p>
+ * In refresh-ahead mode the time of each load is remembered, and a cache hit on an entry that is
+ * older than the refresh interval triggers an asynchronous reload. Entries that keep being read
+ * are therefore refreshed in the background, and their readers never wait for the DB.
+ * <p>
+ * A write to a user account supersedes its in-flight load (see {@link #invalidate(String)}): the
+ * result of the load is still handed to the waiting readers but is not put into the cache anymore,
+ * so a slow load can not overwrite newer data in the cache.
+ *
+ */
+public class SingleFlightLoader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SingleFlightLoader.class);
+
+  private final Function<String, UserAccount> cacheReader;
+  private final Function<String, UserAccount> dbReader;
+  private final BiConsumer<String, UserAccount> cacheWriter;
+
+  private final ConcurrentHashMap<String, CompletableFuture<UserAccount>> inFlight =
+      new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Long> loadTimes = new ConcurrentHashMap<>();
+  private volatile long refreshAfterNanos = -1;
+  private volatile Executor refreshExecutor;
+
+  /**
+   * Constructor
+   *
+   * @param cacheReader looks a user account up in the cache
+   * @param dbReader reads a user account from the DB
+   * @param cacheWriter puts a loaded user account into the cache
+   */
+  public SingleFlightLoader(Function<String, UserAccount> cacheReader,
+      Function<String, UserAccount> dbReader, BiConsumer<String, UserAccount> cacheWriter) {
+    this.cacheReader = cacheReader;
+    this.dbReader = dbReader;
+    this.cacheWriter = cacheWriter;
+  }
+
+  /**
+   * Reloads entries on access once they are older than the given interval. The reloads run on the
+   * executor.
+   */
+  public void enableRefreshAhead(long refreshAfterMillis, Executor executor) {
+    this.refreshExecutor = executor;
+    this.refreshAfterNanos = TimeUnit.MILLISECONDS.toNanos(refreshAfterMillis);
+  }
+
+  /**
+   * Turns refresh-ahead mode off
+   */
+  public void disableRefreshAhead() {
+    refreshAfterNanos = -1;
+    loadTimes.clear();
+  }
+
+  /**
+   * Loads the user account after a cache miss, or waits for the load another thread started.
+   */
+  public UserAccount load(String userId) {
+    CompletableFuture<UserAccount> future = new CompletableFuture<>();
+    CompletableFuture<UserAccount> running = inFlight.putIfAbsent(userId, future);
+    if (running != null) {
+      return join(running);
+    }
+    // the previous load may have completed between the cache miss and now
+    UserAccount cached = cacheReader.apply(userId);
+    if (cached != null) {
+      inFlight.remove(userId, future);
+      future.complete(cached);
+      return cached;
+    }
+    return loadAndCache(userId, future);
+  }
+
+  /**
+   * Called on a cache hit. Starts a reload in the background if refresh-ahead mode is on and the
+   * entry is due.
+   */
+  public void onHit(String userId) {
+    long refreshAfter = refreshAfterNanos;
+    if (refreshAfter < 0) {
+      return;
+    }
+    Long loadTime = loadTimes.putIfAbsent(userId, System.nanoTime());
+    if (loadTime == null || System.nanoTime() - loadTime < refreshAfter) {
+      return; // entries that were written instead of loaded are due one interval after their first hit
+    }
+    CompletableFuture<UserAccount> future = new CompletableFuture<>();
+    if (inFlight.putIfAbsent(userId, future) == null) {
+      refreshExecutor.execute(() -> {
+        try {
+          loadAndCache(userId, future);
+        } catch (RuntimeException e) {
+          LOGGER.error("Refreshing {} failed", userId, e);
+        }
+      });
+    }
+  }
+
+  /**
+   * Called when a user account is written or removed from the cache. An in-flight load of the user
+   * account will not put its (possibly outdated) result into the cache.
+   */
+  public void invalidate(String userId) {
+    inFlight.remove(userId);
+    loadTimes.remove(userId);
+  }
+
+  /**
+   * Called when a user account is evicted from the cache
+   */
+  public void onEviction(String userId) {
+    loadTimes.remove(userId);
+  }
+
+  /**
+   * Forgets all in-flight loads and load times
+   */
+  public void clear() {
+    inFlight.clear();
+    loadTimes.clear();
+  }
+
+  /**
+   * Returns the number of loads currently in flight
+   */
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  private UserAccount loadAndCache(String userId, CompletableFuture<UserAccount> future) {
+    try {
+      UserAccount userAccount = dbReader.apply(userId);
+      // caching under the map's lock for the key, so invalidate() either supersedes this load
+      // completely or waits until the result is in the cache
+      inFlight.computeIfPresent(userId, (id, current) -> {
+        if (current == future) {
+          cacheWriter.accept(id, userAccount);
+          if (refreshAfterNanos >= 0) {
+            loadTimes.put(id, System.nanoTime());
+          }
+        }
+        return current;
+      });
+      future.complete(userAccount);
+      return userAccount;
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(userId, future);
+    }
+  }
+
+  private static UserAccount join(CompletableFuture<UserAccount> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *
+ * Two tier cache: a small on-heap cache in front of a large {@link OffHeapStore}. Entries evicted
+ * from the on-heap tier are demoted to the off-heap tier in serialized form, and promoted back to
+ * the on-heap tier when they are hit again. This lets the cache hold millions of user accounts
+ * while the garbage collector only has to trace the hot ones.
+ * <p>
+ * Each tier has its own locking: the on-heap tier must be thread-safe itself, e.g. a
+ * {@link ConcurrentLruCache}, so hits on it do not contend on any lock of the tiered cache. Every
+ * move of an entry between the tiers happens under the monitor of the off-heap tier, so an entry
+ * is always in at most one of them.
+ *
+ */
+public class TieredCache implements Cache {
+
+  private final Cache heapTier;
+  private final OffHeapStore offHeapTier;
+
+  public TieredCache(Cache heapTier, OffHeapStore offHeapTier) {
+    this.heapTier = heapTier;
+    this.offHeapTier = offHeapTier;
+  }
+
+  /**
+   * Get user account, promoting it to the on-heap tier if it was found off-heap
+   */
+  @Override
+  public UserAccount get(String userId) {
+    return get(userId, new ArrayList<>(0));
+  }
+
+  /**
+   * Get user account, promoting it to the on-heap tier if it was found off-heap. The entries that
+   * fell out of the off-heap tier to make room for the demoted ones are added to the list.
+   */
+  @Override
+  public UserAccount get(String userId, List<UserAccount> evicted) {
+    UserAccount userAccount = heapTier.get(userId);
+    if (userAccount != null) {
+      return userAccount;
+    }
+    synchronized (offHeapTier) {
+      userAccount = heapTier.get(userId); // promoted or set while waiting for the lock
+      if (userAccount != null) {
+        return userAccount;
+      }
+      userAccount = offHeapTier.remove(userId);
+      if (userAccount != null) {
+        demote(heapTier.set(userId, userAccount), evicted);
+      }
+      return userAccount;
+    }
+  }
+
+  /**
+   * Set user account in the on-heap tier. Returns the entries that fell out of the off-heap tier.
+   */
+  @Override
+  public List<UserAccount> set(String userId, UserAccount userAccount) {
+    synchronized (offHeapTier) {
+      offHeapTier.remove(userId);
+      List<UserAccount> evicted = heapTier.set(userId, userAccount);
+      if (evicted.isEmpty()) {
+        return evicted;
+      }
+      List<UserAccount> dropped = new ArrayList<>(0);
+      demote(evicted, dropped);
+      return dropped.isEmpty() ? Collections.<UserAccount>emptyList() : dropped;
+    }
+  }
+
+  private void demote(List<UserAccount> evicted, List<UserAccount> dropped) {
+    for (UserAccount userAccount : evicted) {
+      dropped.addAll(offHeapTier.put(userAccount.getUserId(), userAccount));
+    }
+  }
+
+  @Override
+  public boolean contains(String userId) {
+    if (heapTier.contains(userId)) {
+      return true;
+    }
+    synchronized (offHeapTier) {
+      return heapTier.contains(userId) || offHeapTier.contains(userId);
+    }
+  }
+
+  @Override
+  public void invalidate(String userId) {
+    synchronized (offHeapTier) {
+      heapTier.invalidate(userId);
+      offHeapTier.remove(userId);
+    }
+  }
+
+  @Override
+  public boolean isFull() {
+    return heapTier.isFull();
+  }
+
+  @Override
+  public void clear() {
+    synchronized (offHeapTier) {
+      heapTier.clear();
+      offHeapTier.clear();
+    }
+  }
+
+  /**
+   * Returns the entries of both tiers, on-heap first
+   */
+  @Override
+  public List<UserAccount> getCacheDataInListForm() {
+    synchronized (offHeapTier) {
+      List<UserAccount> listOfCacheData = new ArrayList<>(heapTier.getCacheDataInListForm());
+      listOfCacheData.addAll(offHeapTier.values());
+      return listOfCacheData;
+    }
+  }
+
+  /**
+   * Set the capacity of the on-heap tier, the size of the off-heap tier is fixed. Returns the
+   * entries that fell out of the off-heap tier.
+   */
+  @Override
+  public List<UserAccount> setCapacity(int newCapacity) {
+    synchronized (offHeapTier) {
+      List<UserAccount> dropped = new ArrayList<>(0);
+      demote(heapTier.setCapacity(newCapacity), dropped);
+      return dropped;
+    }
+  }
+
+  public int getOffHeapSize() {
+    return offHeapTier.size();
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+/**
+ *
+ * TinyLFU admission filter on top of another eviction policy. Every access is counted in a
+ * {@link FrequencySketch}, and a new key only gets into a full cache if it was accessed more often
+ * recently than the victim chosen by the underlying policy. A scan over many one-off keys therefore
+ * no longer flushes the frequently used data out of the cache.
+ *
+ */
+public class TinyLfuPolicy implements EvictionPolicy {
+
+  private final EvictionPolicy policy;
+  private final FrequencySketch sketch;
+
+  /**
+   * Constructor
+   *
+   * @param policy the policy choosing the victims
+   * @param capacity the capacity of the cache
+   */
+  public TinyLfuPolicy(EvictionPolicy policy, int capacity) {
+    this.policy = policy;
+    this.sketch = new FrequencySketch(capacity);
+  }
+
+  @Override
+  public void onAccess(String userId) {
+    sketch.increment(userId);
+    policy.onAccess(userId);
+  }
+
+  @Override
+  public void onInsert(String userId) {
+    policy.onInsert(userId);
+  }
+
+  @Override
+  public void onRemove(String userId) {
+    policy.onRemove(userId);
+  }
+
+  @Override
+  public String victim() {
+    return policy.victim();
+  }
+
+  @Override
+  public boolean admit(String candidate, String victim) {
+    sketch.increment(candidate);
+    return victim == null || sketch.frequency(candidate) > sketch.frequency(victim);
+  }
+
+  @Override
+  public void clear() {
+    sketch.clear();
+    policy.clear();
+  }
+}
@@ -0,0 +1,132 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ *
+ * Compact binary encoding of a {@link UserAccount}, used by the {@link OffHeapStore}. The three
+ * fields are written one after another, each as a variable-length integer holding the length of the
+ * UTF-8 bytes plus one (zero stands for null), followed by the bytes themselves. A typical user
+ * account thus takes less than 50 bytes instead of about 200 bytes spread over seven heap objects.
+ *
+ */
+public final class UserAccountCodec {
+
+  private UserAccountCodec() {
+  }
+
+  /**
+   * Encodes the user account
+   */
+  public static byte[] encode(UserAccount userAccount) {
+    byte[] userId = bytes(userAccount.getUserId());
+    byte[] userName = bytes(userAccount.getUserName());
+    byte[] additionalInfo = bytes(userAccount.getAdditionalInfo());
+    ByteBuffer buffer = ByteBuffer.allocate(
+        encodedLength(userId) + encodedLength(userName) + encodedLength(additionalInfo));
+    putString(buffer, userId);
+    putString(buffer, userName);
+    putString(buffer, additionalInfo);
+    return buffer.array();
+  }
+
+  /**
+   * Decodes a user account starting at the position of the buffer, and advances the position
+   * behind it.
+   */
+  public static UserAccount decode(ByteBuffer buffer) {
+    String userId = getString(buffer);
+    String userName = getString(buffer);
+    String additionalInfo = getString(buffer);
+    return new UserAccount(userId, userName, additionalInfo);
+  }
+
+  /**
+   * Returns whether the encoded user account at the given index of the buffer has the given user
+   * id, in UTF-8 bytes. Does not move the position of the buffer.
+   */
+  public static boolean hasUserId(ByteBuffer buffer, int index, byte[] userId) {
+    int length = 0;
+    int shift = 0;
+    byte next;
+    do {
+      next = buffer.get(index++);
+      length |= (next & 0x7f) << shift;
+      shift += 7;
+    } while ((next & 0x80) != 0);
+    if (length != userId.length + 1) {
+      return false;
+    }
+    for (int i = 0; i < userId.length; i++) {
+      if (buffer.get(index + i) != userId[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static byte[] bytes(String value) {
+    return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static int encodedLength(byte[] value) {
+    int length = value == null ? 0 : value.length;
+    int varIntLength = 1;
+    for (int rest = (length + 1) >>> 7; rest != 0; rest >>>= 7) {
+      varIntLength++;
+    }
+    return varIntLength + length;
+  }
+
+  private static void putString(ByteBuffer buffer, byte[] value) {
+    int rest = value == null ? 0 : value.length + 1;
+    while ((rest & ~0x7f) != 0) {
+      buffer.put((byte) (rest & 0x7f | 0x80));
+      rest >>>= 7;
+    }
+    buffer.put((byte) rest);
+    if (value != null) {
+      buffer.put(value);
+    }
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    int value = 0;
+    int shift = 0;
+    byte next;
+    do {
+      next = buffer.get();
+      value |= (next & 0x7f) << shift;
+      shift += 7;
+    } while ((next & 0x80) != 0);
+    if (value == 0) {
+      return null;
+    }
+    byte[] bytes = new byte[value - 1];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
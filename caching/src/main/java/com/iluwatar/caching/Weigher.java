@@ -0,0 +1,55 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+/**
+ *
+ * Computes the weight of a cache entry. The capacity of an {@link LruCache} is a total weight, so
+ * with a weigher other than {@link #ONE} the cache can be bounded by, for example, the memory the
+ * cached user accounts take up instead of by their number.
+ *
+ */
+@FunctionalInterface
+public interface Weigher {
+
+  /**
+   * Every entry weighs one, the capacity is a number of entries.
+   */
+  Weigher ONE = userAccount -> 1;
+
+  /**
+   * Estimated number of bytes a user account takes up on the heap: the object itself with its
+   * three fields, and the three strings with their character arrays.
+   */
+  Weigher ESTIMATED_BYTES = userAccount -> 32 + stringBytes(userAccount.getUserId())
+      + stringBytes(userAccount.getUserName()) + stringBytes(userAccount.getAdditionalInfo());
+
+  int weigh(UserAccount userAccount);
+
+  /**
+   * Estimated size of a string: the string object and its character array
+   */
+  static int stringBytes(String value) {
+    return value == null ? 0 : 40 + 2 * value.length();
+  }
+}
@@ -0,0 +1,117 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *
+ * W-TinyLFU eviction. New keys first enter a small LRU "window" (1% of the capacity), which lets
+ * bursts of recently used keys get a few hits. When the window overflows, its LRU key competes with
+ * the LRU key of the main region, and the {@link FrequencySketch} decides which of the two stays in
+ * the cache. The main region therefore only holds keys that proved to be used frequently, while the
+ * window keeps the policy responsive to recency.
+ *
+ */
+public class WindowTinyLfuPolicy implements EvictionPolicy {
+
+  private final Map<String, Boolean> window = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, Boolean> main = new LinkedHashMap<>(16, 0.75f, true);
+  private final FrequencySketch sketch;
+  private final int windowCapacity;
+  private final int mainCapacity;
+
+  /**
+   * Constructor
+   *
+   * @param capacity the capacity of the cache
+   */
+  public WindowTinyLfuPolicy(int capacity) {
+    this.windowCapacity = Math.max(1, capacity / 100);
+    this.mainCapacity = Math.max(0, capacity - windowCapacity);
+    this.sketch = new FrequencySketch(capacity);
+  }
+
+  @Override
+  public void onAccess(String userId) {
+    sketch.increment(userId);
+    if (window.get(userId) == null) {
+      main.get(userId);
+    }
+  }
+
+  /**
+   * New keys go to the window. While the main region still has room, keys overflowing the window
+   * are moved there without any competition.
+   */
+  @Override
+  public void onInsert(String userId) {
+    sketch.increment(userId);
+    window.put(userId, Boolean.TRUE);
+    if (window.size() > windowCapacity && main.size() < mainCapacity) {
+      String eldest = eldest(window);
+      window.remove(eldest);
+      main.put(eldest, Boolean.TRUE);
+    }
+  }
+
+  @Override
+  public void onRemove(String userId) {
+    if (window.remove(userId) == null) {
+      main.remove(userId);
+    }
+  }
+
+  /**
+   * If the window is about to overflow, its LRU key is the candidate for the main region. The less
+   * frequently used of the candidate and the LRU key of the main region is the victim. A winning
+   * candidate is not moved yet, {@link #onInsert(String)} promotes it into the room the victim left
+   * in the main region.
+   */
+  @Override
+  public String victim() {
+    String mainVictim = eldest(main);
+    if (window.size() < windowCapacity && mainVictim != null) {
+      return mainVictim;
+    }
+    String candidate = eldest(window);
+    if (mainVictim == null || candidate == null) {
+      return candidate == null ? mainVictim : candidate;
+    }
+    return sketch.frequency(candidate) > sketch.frequency(mainVictim) ? mainVictim : candidate;
+  }
+
+  @Override
+  public void clear() {
+    window.clear();
+    main.clear();
+    sketch.clear();
+  }
+
+  private static String eldest(Map<String, Boolean> region) {
+    Iterator<String> iterator = region.keySet().iterator();
+    return iterator.hasNext() ? iterator.next() : null;
+  }
+}
@@ -0,0 +1,330 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ *
+ * Write-behind engine of the {@link CacheStore}. User accounts written to the cache are marked as
+ * dirty here, and a background thread pushes them to the DB in batches:
+ * <ul>
+ * <li>repeated writes to the same user id are coalesced, only the latest version is written</li>
+ * <li>a batch is written as soon as it is full, or when the oldest dirty entry has waited for the
+ * flush interval</li>
+ * <li>when the number of dirty entries reaches the limit, writers block until the flusher has made
+ * room again (backpressure)</li>
+ * <li>{@link #shutdown()} stops the flusher thread after all dirty entries have been written</li>
+ * </ul>
+ * Dirty entries, including the ones of a batch that is currently being written, can be looked up
+ * with {@link #get(String)}, so a cache miss never reads stale data from the DB. A write that goes
+ * to the DB directly must {@link #cancel(String)} the pending write of the user account first, so
+ * the flusher does not overwrite it with an older version later.
+ *
+ */
+public class WriteBehindFlusher {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindFlusher.class);
+
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final int maxDirtyEntries;
+  private final Consumer<List<UserAccount>> writer;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition flushNeeded = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private final Condition batchCompleted = lock.newCondition();
+  private final Map<String, UserAccount> dirty = new LinkedHashMap<>();
+  private final Map<String, UserAccount> inFlight = new HashMap<>();
+  private long oldestDirtyNanos;
+  private boolean running = true;
+
+  /**
+   * Serializes the DB writes, so an older version of a user account can never overtake a newer one.
+   */
+  private final Object writeMonitor = new Object();
+  private final Thread flusherThread;
+
+  /**
+   * Creates a flusher writing to the {@link DbManager}.
+   *
+   * @param batchSize maximum number of user accounts written at once
+   * @param flushIntervalMillis maximum time a dirty user account waits for its batch to fill up
+   * @param maxDirtyEntries maximum number of dirty user accounts before writers are blocked
+   */
+  public WriteBehindFlusher(int batchSize, long flushIntervalMillis, int maxDirtyEntries) {
+    this(batchSize, flushIntervalMillis, maxDirtyEntries, DbManager::upsertDb);
+  }
+
+  /**
+   * Creates a flusher handing the batches to the given writer.
+   */
+  public WriteBehindFlusher(int batchSize, long flushIntervalMillis, int maxDirtyEntries,
+      Consumer<List<UserAccount>> writer) {
+    if (batchSize < 1 || maxDirtyEntries < batchSize) {
+      throw new IllegalArgumentException("Batch size must be positive and not exceed the dirty limit");
+    }
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    this.maxDirtyEntries = maxDirtyEntries;
+    this.writer = writer;
+    this.flusherThread = new Thread(this::flushInBackground, "write-behind-flusher");
+    flusherThread.setDaemon(true);
+    flusherThread.start();
+  }
+
+  /**
+   * Marks the user account as dirty. Blocks while the limit of dirty entries is reached, unless
+   * the user id is dirty already and the write can be coalesced. Throws IllegalStateException
+   * once the flusher has been shut down, also if that happens while waiting for room.
+   */
+  public void markDirty(UserAccount userAccount) {
+    String userId = userAccount.getUserId();
+    lock.lock();
+    try {
+      if (!running) {
+        throw new IllegalStateException("Write-behind flusher has been shut down");
+      }
+      while (dirty.size() >= maxDirtyEntries && !dirty.containsKey(userId) && running) {
+        flushNeeded.signal();
+        try {
+          notFull.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break; // rather exceed the limit than lose the write
+        }
+      }
+      if (!running) {
+        // shut down while waiting for room, the final flush may already be over
+        throw new IllegalStateException("Write-behind flusher has been shut down");
+      }
+      if (dirty.isEmpty()) {
+        oldestDirtyNanos = System.nanoTime();
+      }
+      dirty.put(userId, userAccount);
+      if (dirty.size() == batchSize) {
+        flushNeeded.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the dirty version of the user account, or null if there are no pending writes for it.
+   */
+  public UserAccount get(String userId) {
+    lock.lock();
+    try {
+      UserAccount userAccount = dirty.get(userId);
+      return userAccount != null ? userAccount : inFlight.get(userId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Drops the pending write of the user account, because a newer version is about to be written
+   * to the DB directly. If the user account is part of a batch that is being written, waits until
+   * that batch is done, so its write cannot land after the direct one.
+   */
+  public void cancel(String userId) {
+    lock.lock();
+    try {
+      dirty.remove(userId);
+      while (inFlight.containsKey(userId)) {
+        batchCompleted.awaitUninterruptibly();
+        dirty.remove(userId); // a failed batch puts its entries back
+      }
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of user accounts waiting to be written.
+   */
+  public int getDirtyCount() {
+    lock.lock();
+    try {
+      return dirty.size() + inFlight.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes all dirty user accounts to the DB before returning.
+   */
+  public void flush() {
+    synchronized (writeMonitor) {
+      while (writeBatch()) {
+        // keep writing until nothing is dirty anymore
+      }
+    }
+  }
+
+  /**
+   * Stops accepting writes, writes all remaining dirty user accounts and stops the flusher thread.
+   */
+  public void shutdown() {
+    lock.lock();
+    try {
+      running = false;
+      flushNeeded.signalAll();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      flusherThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flush();
+  }
+
+  private void flushInBackground() {
+    while (awaitBatch()) {
+      boolean written;
+      synchronized (writeMonitor) {
+        written = writeBatch();
+      }
+      if (!written) {
+        backOff();
+      }
+    }
+  }
+
+  /**
+   * Gives the DB one flush interval to recover after a failed write.
+   */
+  private void backOff() {
+    lock.lock();
+    try {
+      if (running) {
+        flushNeeded.awaitNanos(flushIntervalNanos);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until a batch is full or the oldest dirty entry is due. Returns false once the flusher
+   * has been shut down.
+   */
+  private boolean awaitBatch() {
+    lock.lock();
+    try {
+      while (running) {
+        if (dirty.size() >= batchSize) {
+          return true;
+        }
+        if (dirty.isEmpty()) {
+          flushNeeded.awaitUninterruptibly();
+          continue;
+        }
+        long remaining = oldestDirtyNanos + flushIntervalNanos - System.nanoTime();
+        if (remaining <= 0 || dirty.size() >= maxDirtyEntries) {
+          return true;
+        }
+        flushNeeded.awaitNanos(remaining);
+      }
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Takes the oldest dirty entries, at most a batch of them, and writes them. Must be called holding
+   * the write monitor. Returns false if there was nothing to write.
+   */
+  private boolean writeBatch() {
+    List<UserAccount> batch = new ArrayList<>(batchSize);
+    lock.lock();
+    try {
+      Iterator<UserAccount> iterator = dirty.values().iterator();
+      while (iterator.hasNext() && batch.size() < batchSize) {
+        UserAccount userAccount = iterator.next();
+        iterator.remove();
+        inFlight.put(userAccount.getUserId(), userAccount);
+        batch.add(userAccount);
+      }
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    if (batch.isEmpty()) {
+      return false;
+    }
+    boolean written = false;
+    try {
+      writer.accept(batch);
+      written = true;
+    } catch (RuntimeException e) {
+      LOGGER.error("Writing {} user accounts to the DB failed, they will be retried", batch.size(), e);
+    } finally {
+      completeBatch(batch, written);
+    }
+    return written;
+  }
+
+  private void completeBatch(List<UserAccount> batch, boolean written) {
+    lock.lock();
+    try {
+      if (!written && dirty.isEmpty()) {
+        oldestDirtyNanos = System.nanoTime();
+      }
+      for (UserAccount userAccount : batch) {
+        inFlight.remove(userAccount.getUserId());
+        if (!written) {
+          dirty.putIfAbsent(userAccount.getUserId(), userAccount);
+        }
+      }
+      batchCompleted.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
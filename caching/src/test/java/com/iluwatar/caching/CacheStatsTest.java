@@ -0,0 +1,105 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the statistics collected by {@link CacheStore}
+ */
+public class CacheStatsTest {
+
+  /**
+   * Starts every test with an empty cache of capacity 2 and zeroed statistics.
+   */
+  @BeforeEach
+  public void setUp() {
+    AppManager.initDb(false);
+    CacheStore.initCache(new ConcurrentLruCache(2));
+    CacheStore.STATS.reset();
+    DbManager.writeToDb(new UserAccount("001", "John", "He is a boy."));
+    DbManager.writeToDb(new UserAccount("002", "Jane", "She is a girl."));
+    DbManager.writeToDb(new UserAccount("003", "Adam", "He likes food."));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    CacheStore.initCache(null);
+  }
+
+  @Test
+  public void testHitsMissesLoadsAndEvictionsAreCounted() {
+    CacheStore.readThrough("001");
+    CacheStore.readThrough("001");
+    CacheStore.readThrough("002");
+    CacheStore.readThrough("003"); // evicts 001
+    CacheStore.readThrough("002");
+
+    CacheStats stats = CacheStore.stats();
+    assertEquals(2, stats.getHitCount());
+    assertEquals(3, stats.getMissCount());
+    assertEquals(5, stats.getRequestCount());
+    assertEquals(0.4, stats.getHitRate(), 1e-9);
+    assertEquals(3, stats.getLoadCount());
+    assertTrue(stats.getTotalLoadTimeNanos() > 0);
+    assertEquals(1, stats.getEvictionCount());
+  }
+
+  @Test
+  public void testWriteBehindQueueDepthIsReported() {
+    CacheStore.initWriteBehind(10, 60_000, 100);
+    CacheStore.writeBehind(new UserAccount("004", "Rita", "She hates cats."));
+    CacheStore.writeBehind(new UserAccount("005", "Isaac", "He is allergic to mustard."));
+    assertEquals(2, CacheStore.stats().getWriteBehindQueueDepth());
+
+    CacheStore.flushCache();
+    assertEquals(0, CacheStore.stats().getWriteBehindQueueDepth());
+  }
+
+  @Test
+  public void testStatsAreExposedThroughJmx() throws Exception {
+    CacheStore.registerStatsMBean();
+    CacheStore.registerStatsMBean();
+    CacheStore.readThrough("001");
+    CacheStore.readThrough("001");
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("com.iluwatar.caching:type=CacheStore");
+    assertEquals(1L, server.getAttribute(name, "HitCount"));
+    assertEquals(1L, server.getAttribute(name, "MissCount"));
+    assertEquals(0.5, (Double) server.getAttribute(name, "HitRate"), 1e-9);
+
+    server.invoke(name, "reset", new Object[0], new String[0]);
+    assertEquals(0, CacheStore.stats().getRequestCount());
+  }
+}
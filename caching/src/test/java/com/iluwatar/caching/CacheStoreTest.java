@@ -0,0 +1,137 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for the interplay of the {@link CacheStore} write strategies
+ */
+public class CacheStoreTest {
+
+  /**
+   * Starts every test with an empty cache of capacity 1 and a write-behind flusher that only
+   * writes when asked to.
+   */
+  @BeforeEach
+  public void setUp() {
+    AppManager.initDb(false);
+    CacheStore.initCache(new ConcurrentLruCache(1));
+    CacheStore.initWriteBehind(10, 60_000, 100);
+    DbManager.writeToDb(new UserAccount("001", "John", "He is a boy."));
+    DbManager.writeToDb(new UserAccount("002", "Jane", "She is a girl."));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    CacheStore.flushCache();
+    CacheStore.initCache(null);
+  }
+
+  @Test
+  public void testDirectWriteSupersedesPendingWriteBehind() {
+    CacheStore.writeBehind(new UserAccount("001", "John", "Written behind."));
+    CacheStore.writeThrough(new UserAccount("001", "John", "Written through."));
+    CacheStore.flushCache();
+    assertEquals("Written through.", DbManager.readFromDb("001").getAdditionalInfo());
+
+    CacheStore.writeBehind(new UserAccount("001", "John", "Written behind again."));
+    CacheStore.writeAround(new UserAccount("001", "John", "Written around."));
+    CacheStore.flushCache();
+    assertEquals("Written around.", DbManager.readFromDb("001").getAdditionalInfo());
+  }
+
+  @Test
+  public void testReadThroughSeesPendingWriteBehind() {
+    CacheStore.writeBehind(new UserAccount("001", "John", "Written behind."));
+    CacheStore.readThrough("002"); // evicts 001 before it is flushed
+    assertEquals("Written behind.", CacheStore.readThrough("001").getAdditionalInfo());
+  }
+
+  @Test
+  public void testShrinkingCapacityCountsEvictions() {
+    CacheStore.initCache(new ConcurrentLruCache(2));
+    CacheStore.readThrough("001");
+    CacheStore.readThrough("002");
+    long evictions = CacheStore.stats().getEvictionCount();
+    CacheStore.initCapacity(1);
+    assertEquals(evictions + 1, CacheStore.stats().getEvictionCount());
+  }
+
+  @Test
+  public void testMixedReadersOfOneUserShareOneLoad() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CacheStore.writeBehindFlusher.shutdown();
+    CacheStore.writeBehindFlusher = new WriteBehindFlusher(10, 60_000, 100) {
+      @Override
+      public UserAccount get(String userId) {
+        // holds the first load back, right before it reads the DB
+        if (loading.getCount() > 0) {
+          loading.countDown();
+          awaitUninterruptibly(release);
+        }
+        return super.get(userId);
+      }
+    };
+    CacheStore.initCache(new ConcurrentLruCache(10));
+    long loads = CacheStore.stats().getLoadCount();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<UserAccount>> results = new ArrayList<>();
+      results.add(executor.submit(() -> CacheStore.readThrough("001")));
+      loading.await();
+      results.add(executor.submit(() -> CacheStore.readThroughWithWriteBackPolicy("001")));
+      results.add(executor.submit(() -> CacheStore.readThrough("001")));
+      results.add(executor.submit(() -> CacheStore.readThroughWithWriteBackPolicy("001")));
+      Thread.sleep(100); // let the other readers join the load
+      release.countDown();
+      for (Future<UserAccount> result : results) {
+        assertEquals("John", result.get(5, TimeUnit.SECONDS).getUserName());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(loads + 1, CacheStore.stats().getLoadCount());
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link ConcurrentLruCache}
+ */
+public class ConcurrentLruCacheTest {
+
+  private static final int THREADS = 8;
+  private static final int KEYS_PER_THREAD = 200;
+  private static final int ROUNDS = 50;
+
+  @Test
+  public void testSmallCacheBehavesLikeLruCache() {
+    ConcurrentLruCache cache = new ConcurrentLruCache(3);
+    assertEquals(1, cache.segments.length);
+
+    UserAccount first = new UserAccount("001", "John", "He is a boy.");
+    assertTrue(cache.set("001", first).isEmpty());
+    cache.set("002", new UserAccount("002", "Jane", "She is a girl."));
+    cache.set("003", new UserAccount("003", "Adam", "He likes food."));
+    assertTrue(cache.isFull());
+
+    cache.get("002");
+    cache.get("003");
+    List<UserAccount> evicted = cache.set("004", new UserAccount("004", "Rita", "She hates cats."));
+    assertEquals(Collections.singletonList(first), evicted);
+    assertNull(cache.get("001"));
+    assertEquals(3, cache.size());
+  }
+
+  @Test
+  public void testCapacityIsSpreadOverSegments() {
+    ConcurrentLruCache cache = new ConcurrentLruCache(1000, 4);
+    assertEquals(4, cache.segments.length);
+    for (int i = 0; i < 5000; i++) {
+      cache.set(String.valueOf(i), new UserAccount(String.valueOf(i), "name", "info"));
+    }
+    assertEquals(1000, cache.size());
+    assertTrue(cache.isFull());
+    for (LruCache segment : cache.segments) {
+      assertEquals(250, segment.cache.size());
+    }
+  }
+
+  @Test
+  public void testShrinkingBelowTheSegmentCountKeepsTheCapacity() {
+    ConcurrentLruCache cache = new ConcurrentLruCache(1000, 8);
+    assertEquals(8, cache.segments.length);
+    for (int i = 0; i < 1000; i++) {
+      cache.set(String.valueOf(i), new UserAccount(String.valueOf(i), "name", "info"));
+    }
+    int size = cache.size(); // the keys are not spread perfectly evenly over the segments
+    assertEquals(size - 4, cache.setCapacity(4).size());
+    for (int i = 1000; i < 2000; i++) {
+      cache.set(String.valueOf(i), new UserAccount(String.valueOf(i), "name", "info"));
+    }
+    assertEquals(4, cache.size());
+    assertTrue(cache.isFull());
+    assertThrows(IllegalArgumentException.class, () -> cache.setCapacity(0));
+  }
+
+  /**
+   * Every thread keeps updating its own keys while also reading the keys of the other threads. The
+   * segments are big enough to hold all keys, so at the end the latest version of each key written
+   * must be in the cache, and every segment's linked list must still match its hash table.
+   */
+  @Test
+  public void testConcurrentUpdatesAreNotLost() throws Exception {
+    ConcurrentLruCache cache = new ConcurrentLruCache(THREADS * KEYS_PER_THREAD * 100);
+    assertEquals(ConcurrentLruCache.DEFAULT_CONCURRENCY_LEVEL, cache.segments.length);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      final int thread = t;
+      futures.add(executor.submit(() -> {
+        start.await();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int round = 0; round < ROUNDS; round++) {
+          for (int k = 0; k < KEYS_PER_THREAD; k++) {
+            String userId = thread + "-" + k;
+            cache.set(userId, new UserAccount(userId, "round " + round, "info"));
+            cache.get(random.nextInt(THREADS) + "-" + random.nextInt(KEYS_PER_THREAD));
+          }
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    for (int t = 0; t < THREADS; t++) {
+      for (int k = 0; k < KEYS_PER_THREAD; k++) {
+        UserAccount userAccount = cache.get(t + "-" + k);
+        assertNotNull(userAccount);
+        assertEquals("round " + (ROUNDS - 1), userAccount.getUserName());
+      }
+    }
+    assertEquals(THREADS * KEYS_PER_THREAD, cache.size());
+    for (LruCache segment : cache.segments) {
+      assertLinksConsistent(segment);
+    }
+  }
+
+  /**
+   * Hammers a cache that is much smaller than the key space, so that evictions happen all the time,
+   * and verifies that the capacity is never exceeded and no links get corrupted.
+   */
+  @Test
+  public void testConcurrentEvictionsKeepLinksConsistent() throws Exception {
+    ConcurrentLruCache cache = new ConcurrentLruCache(256);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      futures.add(executor.submit(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 20000; i++) {
+          String userId = String.valueOf(random.nextInt(4096));
+          int operation = random.nextInt(10);
+          if (operation < 5) {
+            cache.get(userId);
+          } else if (operation < 9) {
+            cache.set(userId, new UserAccount(userId, "name", "info"));
+          } else {
+            cache.invalidate(userId);
+          }
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertTrue(cache.size() <= 256);
+    for (LruCache segment : cache.segments) {
+      assertTrue(segment.cache.size() <= segment.capacity);
+      assertLinksConsistent(segment);
+    }
+  }
+
+  private static void assertLinksConsistent(LruCache segment) {
+    int count = 0;
+    LruCache.Node previous = null;
+    LruCache.Node node = segment.head;
+    while (node != null) {
+      assertSame(previous, node.previous);
+      assertSame(node, segment.cache.get(node.userId));
+      previous = node;
+      node = node.next;
+      count++;
+    }
+    assertSame(previous, segment.end);
+    assertEquals(segment.cache.size(), count);
+  }
+}
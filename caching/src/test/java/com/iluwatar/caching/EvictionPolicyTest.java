@@ -0,0 +1,158 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link EvictionPolicy} implementations
+ */
+public class EvictionPolicyTest {
+
+  @Test
+  public void testLruEvictsLeastRecentlyUsed() {
+    EvictionPolicy policy = new LruPolicy();
+    assertNull(policy.victim());
+    policy.onInsert("a");
+    policy.onInsert("b");
+    policy.onInsert("c");
+    policy.onAccess("a");
+    assertEquals("b", policy.victim());
+    policy.onRemove("b");
+    assertEquals("c", policy.victim());
+  }
+
+  @Test
+  public void testClockGivesReferencedKeysASecondChance() {
+    EvictionPolicy policy = new ClockPolicy();
+    assertNull(policy.victim());
+    policy.onInsert("a");
+    policy.onInsert("b");
+    policy.onInsert("c");
+    policy.onAccess("a");
+    policy.onAccess("b");
+    assertEquals("c", policy.victim());
+    policy.onRemove("c");
+    // the sweep cleared the reference bits of a and b
+    assertEquals("a", policy.victim());
+    policy.onRemove("a");
+    policy.onRemove("b");
+    assertNull(policy.victim());
+  }
+
+  @Test
+  public void testLfuEvictsLeastFrequentlyUsed() {
+    EvictionPolicy policy = new LfuPolicy();
+    policy.onInsert("a");
+    policy.onInsert("b");
+    policy.onInsert("c");
+    policy.onAccess("a");
+    policy.onAccess("a");
+    policy.onAccess("c");
+    assertEquals("b", policy.victim());
+    policy.onRemove("b");
+    assertEquals("c", policy.victim());
+    policy.onAccess("c");
+    policy.onAccess("c");
+    assertEquals("a", policy.victim());
+  }
+
+  @Test
+  public void testFrequencySketchCountsAndAges() {
+    FrequencySketch sketch = new FrequencySketch(16);
+    for (int i = 0; i < 5; i++) {
+      sketch.increment("hot");
+    }
+    sketch.increment("cold");
+    assertTrue(sketch.frequency("hot") >= 5);
+    assertTrue(sketch.frequency("hot") > sketch.frequency("cold"));
+    for (int i = 0; i < 20; i++) {
+      sketch.increment("hot");
+    }
+    assertEquals(15, sketch.frequency("hot"));
+
+    for (int i = 0; i < 160; i++) {
+      sketch.increment("other-" + i);
+    }
+    assertTrue(sketch.frequency("hot") < 15);
+  }
+
+  @Test
+  public void testTinyLfuRejectsRarelyUsedCandidates() {
+    EvictionPolicy policy = new TinyLfuPolicy(new LruPolicy(), 16);
+    assertTrue(policy.admit("a", null));
+    policy.onInsert("a");
+    policy.onAccess("a");
+    policy.onAccess("a");
+    assertFalse(policy.admit("once", "a"));
+    for (int i = 0; i < 3; i++) {
+      policy.admit("often", "a");
+    }
+    assertTrue(policy.admit("often", "a"));
+  }
+
+  @Test
+  public void testWindowTinyLfuKeepsFrequentKeysInMainRegion() {
+    EvictionPolicy policy = new WindowTinyLfuPolicy(100);
+    for (int i = 0; i < 100; i++) {
+      policy.onInsert("hot-" + i);
+      for (int j = 0; j < 4; j++) {
+        policy.onAccess("hot-" + i);
+      }
+    }
+    // a scan over one-off keys evicts (almost) only the scanned keys themselves, a few hot keys
+    // may be lost to collisions in the frequency sketch
+    int hotKeysEvicted = 0;
+    for (int i = 0; i < 300; i++) {
+      String victim = policy.victim();
+      if (victim.startsWith("hot-")) {
+        hotKeysEvicted++;
+      }
+      policy.onRemove(victim);
+      policy.onInsert("scan-" + i);
+    }
+    assertTrue(hotKeysEvicted <= 3, "hot keys evicted: " + hotKeysEvicted);
+  }
+
+  @Test
+  public void testWindowTinyLfuVictimDoesNotChangeTheRegions() {
+    EvictionPolicy policy = new WindowTinyLfuPolicy(100); // window of 1, main region of 99
+    for (int i = 0; i < 100; i++) {
+      policy.onInsert("key-" + i);
+    }
+    for (int j = 0; j < 4; j++) {
+      policy.onAccess("key-99"); // the window candidate beats the LRU key of the main region
+    }
+    assertEquals("key-0", policy.victim());
+    assertEquals("key-0", policy.victim());
+    policy.onRemove("key-0");
+    policy.onInsert("new");
+    policy.onRemove("key-1"); // key-99 was promoted to the main region
+    assertEquals("new", policy.victim());
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the expiry and weighted capacity of {@link LruCache}
+ */
+public class LruCacheTest {
+
+  private long now;
+  private LruCache cache;
+
+  /**
+   * Creates a cache of capacity 10 running on a manual clock.
+   */
+  @BeforeEach
+  public void setUp() {
+    cache = new LruCache(10);
+    cache.setTicker(() -> now);
+  }
+
+  @Test
+  public void testEntriesExpireAfterWrite() {
+    cache.setExpireAfterWrite(100, TimeUnit.NANOSECONDS);
+    cache.set("001", account("001"));
+    now = 50;
+    assertSame("001", cache.get("001").getUserId());
+    cache.set("002", account("002"));
+    now = 100;
+    assertFalse(cache.contains("001"));
+    assertNull(cache.get("001")); // reading does not extend the time-to-live
+    assertTrue(cache.contains("002"));
+    assertEquals(1, cache.cache.size());
+  }
+
+  @Test
+  public void testEntriesExpireAfterAccess() {
+    cache.setExpireAfterAccess(100, TimeUnit.NANOSECONDS);
+    cache.set("001", account("001"));
+    cache.set("002", account("002"));
+    now = 90;
+    cache.get("001");
+    now = 150;
+    assertTrue(cache.contains("001"));
+    assertFalse(cache.contains("002"));
+    assertEquals(1, cache.getCacheDataInListForm().size());
+  }
+
+  @Test
+  public void testWritesRemoveExpiredEntriesFromTheEnd() {
+    cache.setExpireAfterWrite(100, TimeUnit.NANOSECONDS);
+    for (int i = 0; i < 6; i++) {
+      cache.set(String.valueOf(i), account(String.valueOf(i)));
+    }
+    now = 100;
+    cache.set("new", account("new"));
+    assertEquals(7 - LruCache.EXPIRY_SCAN_LIMIT, cache.cache.size());
+
+    cache.cleanUp();
+    assertEquals(1, cache.cache.size());
+    assertTrue(cache.contains("new"));
+  }
+
+  @Test
+  public void testCapacityIsAWeight() {
+    cache.setWeigher(userAccount -> userAccount.getUserName().length());
+    cache.set("001", new UserAccount("001", "abcd", null));
+    cache.set("002", new UserAccount("002", "abcd", null));
+    assertFalse(cache.isFull());
+    UserAccount third = new UserAccount("003", "abcdefg", null);
+    List<UserAccount> evicted = cache.set("003", third);
+    assertEquals(Arrays.asList("001", "002"), Arrays.asList(evicted.get(0).getUserId(),
+        evicted.get(1).getUserId()));
+    assertEquals(7, cache.totalWeight);
+
+    // an update changes the weight of the entry
+    assertEquals(Collections.emptyList(), cache.set("003", new UserAccount("003", "ab", null)));
+    assertEquals(2, cache.totalWeight);
+
+    // an entry heavier than the whole cache is not kept
+    UserAccount heavy = new UserAccount("004", "abcdefghijk", null);
+    assertTrue(cache.set("004", heavy).contains(heavy));
+    assertFalse(cache.contains("004"));
+  }
+
+  @Test
+  public void testEstimatedBytesWeigher() {
+    UserAccount userAccount = new UserAccount("001", "John", "He is a boy.");
+    assertEquals(32 + 46 + 48 + 64, Weigher.ESTIMATED_BYTES.weigh(userAccount));
+  }
+
+  @Test
+  public void testShrinkingCapacityEvictsOnlyLruData() {
+    for (int i = 0; i < 10; i++) {
+      cache.set(String.valueOf(i), account(String.valueOf(i)));
+    }
+    cache.get("0");
+    List<UserAccount> evicted = cache.setCapacity(4);
+    assertEquals(6, evicted.size());
+    assertEquals("1", evicted.get(0).getUserId());
+    assertEquals(4, cache.cache.size());
+    assertTrue(cache.isFull());
+    assertTrue(cache.contains("0"));
+    assertTrue(cache.contains("9"));
+    assertFalse(cache.contains("5"));
+
+    // the new capacity holds for later writes
+    cache.set("10", account("10"));
+    assertEquals(4, cache.cache.size());
+  }
+
+  @Test
+  public void testExpiredEntriesAreCleanedUpInTheBackground() throws Exception {
+    ConcurrentLruCache concurrentCache = new ConcurrentLruCache(1000, 4);
+    concurrentCache.setExpireAfterWrite(20, TimeUnit.MILLISECONDS);
+    for (int i = 0; i < 100; i++) {
+      concurrentCache.set(String.valueOf(i), account(String.valueOf(i)));
+    }
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    concurrentCache.scheduleCleanUp(executor, 10, TimeUnit.MILLISECONDS);
+    long deadline = System.currentTimeMillis() + 5000;
+    while (concurrentCache.size() > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    executor.shutdownNow();
+    assertEquals(0, concurrentCache.size());
+    assertEquals(0, concurrentCache.weightedSize());
+  }
+
+  private static UserAccount account(String userId) {
+    return new UserAccount(userId, "name", "info");
+  }
+}
@@ -0,0 +1,96 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link PolicyCache} and {@link HitRatioSimulator}
+ */
+public class PolicyCacheTest {
+
+  @Test
+  public void testEvictedAccountIsReturned() {
+    PolicyCache cache = new PolicyCache(2, EvictionPolicyType.LRU);
+    UserAccount first = new UserAccount("001", "John", "He is a boy.");
+    assertTrue(cache.set("001", first).isEmpty());
+    assertTrue(cache.set("002", new UserAccount("002", "Jane", "She is a girl.")).isEmpty());
+    assertTrue(cache.isFull());
+    assertEquals(Collections.singletonList(first),
+        cache.set("003", new UserAccount("003", "Adam", "He likes food.")));
+    assertFalse(cache.contains("001"));
+  }
+
+  @Test
+  public void testRejectedAccountIsReturned() {
+    PolicyCache cache = new PolicyCache(1, EvictionPolicyType.TINY_LFU);
+    UserAccount popular = new UserAccount("001", "John", "He is a boy.");
+    cache.set("001", popular);
+    cache.get("001");
+    cache.get("001");
+    UserAccount rejected = new UserAccount("002", "Jane", "She is a girl.");
+    assertEquals(Collections.singletonList(rejected), cache.set("002", rejected));
+    assertSame(popular, cache.get("001"));
+    assertFalse(cache.contains("002"));
+  }
+
+  @Test
+  public void testShrinkingCapacityEvictsOnlyTheExcess() {
+    for (EvictionPolicyType policyType : EvictionPolicyType.values()) {
+      PolicyCache cache = new PolicyCache(10, policyType);
+      for (int i = 0; i < 10; i++) {
+        cache.set(String.valueOf(i), new UserAccount(String.valueOf(i), "name", "info"));
+      }
+      assertEquals(6, cache.setCapacity(4).size(), policyType.name());
+      assertEquals(4, cache.getCacheDataInListForm().size(), policyType.name());
+      assertTrue(cache.isFull());
+    }
+  }
+
+  @Test
+  public void testNegativeCapacityIsRejected() {
+    PolicyCache cache = new PolicyCache(10, EvictionPolicyType.LRU);
+    assertThrows(IllegalArgumentException.class, () -> cache.setCapacity(-1));
+  }
+
+  @Test
+  public void testFrequencyAwarePoliciesResistScans() {
+    List<String> trace = HitRatioSimulator.scanTrace(1000, 1.0, 200_000, 7);
+    Map<EvictionPolicyType, Double> hitRatios = HitRatioSimulator.simulate(trace, 100);
+    assertEquals(EvictionPolicyType.values().length, hitRatios.size());
+    double lru = hitRatios.get(EvictionPolicyType.LRU);
+    assertTrue(hitRatios.get(EvictionPolicyType.TINY_LFU) > lru);
+    assertTrue(hitRatios.get(EvictionPolicyType.W_TINY_LFU) > lru);
+    assertTrue(hitRatios.get(EvictionPolicyType.LFU) > lru);
+  }
+}
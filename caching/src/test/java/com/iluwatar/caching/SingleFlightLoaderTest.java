@@ -0,0 +1,174 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link SingleFlightLoader}
+ */
+public class SingleFlightLoaderTest {
+
+  private static final int READERS = 32;
+
+  private final Map<String, UserAccount> cache = new ConcurrentHashMap<>();
+  private final AtomicInteger dbReads = new AtomicInteger();
+
+  @Test
+  public void testConcurrentMissesCauseSingleDbRead() throws Exception {
+    CountDownLatch allWaiting = new CountDownLatch(1);
+    SingleFlightLoader loader = new SingleFlightLoader(cache::get, userId -> {
+      dbReads.incrementAndGet();
+      awaitUninterruptibly(allWaiting);
+      return new UserAccount(userId, "John", "He is a boy.");
+    }, cache::put);
+
+    ExecutorService executor = Executors.newFixedThreadPool(READERS);
+    List<Future<UserAccount>> results = new ArrayList<>();
+    for (int i = 0; i < READERS; i++) {
+      results.add(executor.submit(() -> loader.load("001")));
+    }
+    // hold the DB read back until every reader is waiting for it
+    while (loader.getInFlightCount() == 0) {
+      Thread.sleep(1);
+    }
+    Thread.sleep(100);
+    allWaiting.countDown();
+
+    UserAccount first = results.get(0).get(5, TimeUnit.SECONDS);
+    for (Future<UserAccount> result : results) {
+      assertSame(first, result.get(5, TimeUnit.SECONDS));
+    }
+    executor.shutdown();
+    assertEquals(1, dbReads.get());
+    assertSame(first, cache.get("001"));
+    assertEquals(0, loader.getInFlightCount());
+  }
+
+  @Test
+  public void testConcurrentReadThroughLoadsOnce() throws Exception {
+    AppManager.initDb(false);
+    CacheStore.initCache(new ConcurrentLruCache(10));
+    CacheStore.STATS.reset();
+    DbManager.writeToDb(new UserAccount("001", "John", "He is a boy."));
+
+    ExecutorService executor = Executors.newFixedThreadPool(READERS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<UserAccount>> results = new ArrayList<>();
+    for (int i = 0; i < READERS; i++) {
+      results.add(executor.submit(() -> {
+        start.await();
+        return CacheStore.readThrough("001");
+      }));
+    }
+    start.countDown();
+    for (Future<UserAccount> result : results) {
+      assertEquals("John", result.get(5, TimeUnit.SECONDS).getUserName());
+    }
+    executor.shutdown();
+    assertEquals(1, CacheStore.stats().getLoadCount());
+    CacheStore.initCache(null);
+  }
+
+  @Test
+  public void testFailedLoadIsReportedToAllWaiters() {
+    SingleFlightLoader loader = new SingleFlightLoader(cache::get, userId -> {
+      dbReads.incrementAndGet();
+      throw new IllegalStateException("DB is down");
+    }, cache::put);
+    assertThrows(IllegalStateException.class, () -> loader.load("001"));
+    assertEquals(0, loader.getInFlightCount());
+    assertThrows(IllegalStateException.class, () -> loader.load("001"));
+    assertEquals(2, dbReads.get());
+  }
+
+  @Test
+  public void testWriteSupersedesInFlightLoad() throws Exception {
+    CountDownLatch written = new CountDownLatch(1);
+    SingleFlightLoader loader = new SingleFlightLoader(cache::get, userId -> {
+      awaitUninterruptibly(written);
+      return new UserAccount(userId, "John", "old");
+    }, cache::put);
+
+    Thread reader = new Thread(() -> loader.load("001"));
+    reader.start();
+    while (loader.getInFlightCount() == 0) {
+      Thread.sleep(1);
+    }
+    loader.invalidate("001");
+    UserAccount newer = new UserAccount("001", "John", "new");
+    cache.put("001", newer);
+    written.countDown();
+    reader.join(5000);
+
+    assertFalse(reader.isAlive());
+    assertSame(newer, cache.get("001"));
+  }
+
+  @Test
+  public void testRefreshAheadReloadsStaleEntriesOnHit() throws Exception {
+    SingleFlightLoader loader = new SingleFlightLoader(cache::get, userId ->
+        new UserAccount(userId, "John", "version " + dbReads.incrementAndGet()), cache::put);
+    loader.onHit("001"); // refresh-ahead is off
+    assertEquals(0, dbReads.get());
+
+    loader.enableRefreshAhead(50, Runnable::run);
+    assertEquals("version 1", loader.load("001").getAdditionalInfo());
+    loader.onHit("001");
+    assertEquals(1, dbReads.get()); // still fresh
+
+    Thread.sleep(60);
+    loader.onHit("001");
+    assertEquals(2, dbReads.get());
+    assertEquals("version 2", cache.get("001").getAdditionalInfo());
+
+    loader.disableRefreshAhead();
+    Thread.sleep(60);
+    loader.onHit("001");
+    assertEquals(2, dbReads.get());
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ *
+ * Compares an on-heap {@link ConcurrentLruCache} holding all user accounts with a
+ * {@link TieredCache} that keeps only a tenth of them on the heap. For each cache it reports the
+ * read/write throughput with a skewed key distribution, the time spent in garbage collection while
+ * doing so, and the pause of a full collection with the cache populated.
+ * <p>
+ * Run it with a fixed heap, for example {@code java -Xms2g -Xmx2g -XX:MaxDirectMemorySize=1g
+ * com.iluwatar.caching.TieredCacheBenchmark 2000000}.
+ *
+ */
+public final class TieredCacheBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TieredCacheBenchmark.class);
+
+  private static final int OPERATIONS = 10_000_000;
+  private static final int BYTES_PER_ENTRY = 128;
+
+  private TieredCacheBenchmark() {
+  }
+
+  /**
+   * Program entry point, the optional argument is the number of user accounts
+   */
+  public static void main(String[] args) {
+    int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    for (int round = 0; round < 2; round++) { // the first round warms up the JIT
+      run("on-heap", new ConcurrentLruCache(entries), entries);
+      run("tiered", new TieredCache(new ConcurrentLruCache(entries / 10),
+          OffHeapStore.allocateDirect(entries * BYTES_PER_ENTRY)), entries);
+    }
+  }
+
+  private static void run(String name, Cache cache, int entries) {
+    for (int i = 0; i < entries; i++) {
+      cache.set(Integer.toString(i), account(i));
+    }
+    Random random = new Random(42);
+    long gcTime = gcTime();
+    long start = System.nanoTime();
+    long hits = 0;
+    for (int i = 0; i < OPERATIONS; i++) {
+      // squaring a uniform value skews the accesses towards the low ids
+      double uniform = random.nextDouble();
+      int id = (int) (uniform * uniform * entries);
+      if (i % 10 == 0) {
+        cache.set(Integer.toString(id), account(id));
+      } else if (cache.get(Integer.toString(id)) != null) {
+        hits++;
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    gcTime = gcTime() - gcTime;
+    long fullGcStart = System.nanoTime();
+    System.gc();
+    long fullGcPause = System.nanoTime() - fullGcStart;
+    LOGGER.info("{}: {} ops/s, {} hits, {} ms in GC, full GC pause {} ms", name,
+        OPERATIONS * 1_000_000_000L / elapsed, hits, gcTime, fullGcPause / 1_000_000);
+    cache.clear();
+  }
+
+  private static UserAccount account(int id) {
+    return new UserAccount(Integer.toString(id), "User" + id, "Account of user " + id);
+  }
+
+  private static long gcTime() {
+    long total = 0;
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      total += Math.max(0, collector.getCollectionTime());
+    }
+    return total;
+  }
+}
@@ -0,0 +1,184 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link OffHeapStore} and the {@link TieredCache} built on it
+ */
+public class TieredCacheTest {
+
+  @Test
+  public void testCodecRoundTrip() {
+    UserAccount userAccount = new UserAccount("001", "Seppälä", null);
+    byte[] encoded = UserAccountCodec.encode(userAccount);
+    assertEquals(1 + 3 + 1 + 9 + 1, encoded.length);
+    UserAccount decoded = UserAccountCodec.decode(java.nio.ByteBuffer.wrap(encoded));
+    assertEquals("001", decoded.getUserId());
+    assertEquals("Seppälä", decoded.getUserName());
+    assertNull(decoded.getAdditionalInfo());
+  }
+
+  @Test
+  public void testStoreOverwritesOldestRecordsWhenFull() {
+    OffHeapStore store = OffHeapStore.allocateDirect(120);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(store.put("00" + i, account("00" + i)).isEmpty()); // 22 bytes each
+    }
+    store.remove("001");
+    List<UserAccount> overwritten = store.put("005", account("005"));
+    assertEquals(1, overwritten.size());
+    assertEquals("000", overwritten.get(0).getUserId());
+    assertTrue(store.put("006", account("006")).isEmpty()); // reclaims the removed record
+    overwritten = store.put("007", account("007"));
+    assertEquals("002", overwritten.get(0).getUserId());
+    assertFalse(store.contains("002"));
+    for (int i = 3; i <= 7; i++) {
+      assertEquals("Name00" + i, store.get("00" + i).getUserName());
+    }
+    assertEquals(5, store.size());
+  }
+
+  @Test
+  public void testStoreReplacesRecordOfSameUser() {
+    OffHeapStore store = OffHeapStore.allocateDirect(1024);
+    store.put("001", account("001"));
+    store.put("001", new UserAccount("001", "Renamed", "Info"));
+    assertEquals(1, store.size());
+    assertEquals("Renamed", store.get("001").getUserName());
+    assertEquals("Renamed", store.remove("001").getUserName());
+    assertNull(store.get("001"));
+  }
+
+  @Test
+  public void testStoreInMappedFile() throws IOException {
+    Path file = Files.createTempFile("off-heap-store", ".bin");
+    try {
+      OffHeapStore store = OffHeapStore.mapFile(file, 4096);
+      for (int i = 0; i < 1000; i++) {
+        store.put(Integer.toString(i), account(Integer.toString(i)));
+      }
+      assertEquals("Name999", store.get("999").getUserName());
+      assertEquals(4096, Files.size(file));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testEvictedEntriesAreDemotedAndPromotedOnHit() {
+    TieredCache cache = new TieredCache(new ConcurrentLruCache(2), OffHeapStore.allocateDirect(1024));
+    cache.set("001", account("001"));
+    cache.set("002", account("002"));
+    assertTrue(cache.set("003", account("003")).isEmpty());
+    assertEquals(1, cache.getOffHeapSize());
+
+    assertEquals("Name001", cache.get("001").getUserName()); // promoted, 002 demoted instead
+    assertEquals(1, cache.getOffHeapSize());
+    assertTrue(cache.contains("002"));
+    assertEquals(3, cache.getCacheDataInListForm().size());
+  }
+
+  @Test
+  public void testWritesAndInvalidationsRemoveStaleOffHeapCopies() {
+    TieredCache cache = new TieredCache(new ConcurrentLruCache(1), OffHeapStore.allocateDirect(1024));
+    cache.set("001", account("001"));
+    cache.set("002", account("002"));
+    cache.set("001", new UserAccount("001", "Renamed", "Info"));
+    assertEquals("Name002", cache.get("002").getUserName());
+    assertEquals("Renamed", cache.get("001").getUserName());
+
+    cache.invalidate("002");
+    cache.invalidate("001");
+    assertFalse(cache.contains("001"));
+    assertFalse(cache.contains("002"));
+  }
+
+  @Test
+  public void testEntriesFallingOutOfOffHeapTierAreReturned() {
+    TieredCache cache = new TieredCache(new ConcurrentLruCache(1), OffHeapStore.allocateDirect(50));
+    cache.set("001", account("001"));
+    cache.set("002", account("002"));
+    cache.set("003", account("003"));
+    List<UserAccount> evicted = cache.set("004", account("004"));
+    assertEquals(1, evicted.size());
+    assertEquals("001", evicted.get(0).getUserId());
+  }
+
+  @Test
+  public void testEntriesFallingOutOfOffHeapTierOnPromotionAreReturned() {
+    TieredCache cache = new TieredCache(new ConcurrentLruCache(1), OffHeapStore.allocateDirect(50));
+    cache.set("001", account("001"));
+    cache.set("002", account("002"));
+    cache.set("003", new UserAccount("003", "Name003", "Info of 003")); // 001 and 002 off-heap
+    List<UserAccount> evicted = new ArrayList<>();
+    assertEquals("Name001", cache.get("001", evicted).getUserName()); // demotes the larger 003
+    assertEquals(1, evicted.size());
+    assertEquals("002", evicted.get(0).getUserId());
+  }
+
+  @Test
+  public void testOnHeapHitsDoNotWaitForTheOffHeapTier() throws Exception {
+    OffHeapStore store = OffHeapStore.allocateDirect(1024);
+    TieredCache cache = new TieredCache(new ConcurrentLruCache(1), store);
+    cache.set("001", account("001"));
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread holder = new Thread(() -> {
+      synchronized (store) {
+        locked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    holder.start();
+    try {
+      locked.await();
+      assertEquals("Name001", cache.get("001").getUserName());
+      assertTrue(cache.contains("001"));
+    } finally {
+      release.countDown();
+      holder.join();
+    }
+  }
+
+  private static UserAccount account(String userId) {
+    return new UserAccount(userId, "Name" + userId, "");
+  }
+}
@@ -0,0 +1,252 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.time.Duration.ofMillis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link WriteBehindFlusher}
+ */
+public class WriteBehindFlusherTest {
+
+  private final List<List<UserAccount>> batches = Collections.synchronizedList(new ArrayList<>());
+  private WriteBehindFlusher flusher;
+
+  @AfterEach
+  public void tearDown() {
+    flusher.shutdown();
+  }
+
+  @Test
+  public void testRepeatedWritesAreCoalesced() {
+    flusher = new WriteBehindFlusher(10, 60_000, 100, batches::add);
+    for (int i = 0; i < 50; i++) {
+      flusher.markDirty(new UserAccount("001", "John " + i, "He is a boy."));
+    }
+    assertEquals(1, flusher.getDirtyCount());
+    assertEquals("John 49", flusher.get("001").getUserName());
+
+    flusher.flush();
+    assertEquals(1, batches.size());
+    assertEquals(1, batches.get(0).size());
+    assertEquals("John 49", batches.get(0).get(0).getUserName());
+    assertEquals(0, flusher.getDirtyCount());
+  }
+
+  @Test
+  public void testFullBatchesAreWrittenInTheBackground() throws Exception {
+    CountDownLatch written = new CountDownLatch(3);
+    flusher = new WriteBehindFlusher(10, 60_000, 100, recordingWriter(written));
+    for (int i = 0; i < 35; i++) {
+      flusher.markDirty(account(i));
+    }
+    assertTrue(written.await(5, TimeUnit.SECONDS));
+    assertEquals(3, batches.size());
+    for (List<UserAccount> batch : batches) {
+      assertEquals(10, batch.size());
+    }
+    // the writer has returned, but the flusher may not have cleared the batch from in-flight yet
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (flusher.getDirtyCount() > 5 && System.nanoTime() < deadline) {
+      Thread.yield();
+    }
+    assertEquals(5, flusher.getDirtyCount()); // the last five wait for their batch to fill up
+    assertNotNull(flusher.get("34"));
+  }
+
+  @Test
+  public void testPartialBatchIsWrittenAfterFlushInterval() throws Exception {
+    CountDownLatch written = new CountDownLatch(1);
+    flusher = new WriteBehindFlusher(10, 50, 100, recordingWriter(written));
+    flusher.markDirty(account(1));
+    flusher.markDirty(account(2));
+    assertTrue(written.await(5, TimeUnit.SECONDS));
+    assertEquals(2, batches.get(0).size());
+  }
+
+  @Test
+  public void testWritersAreBlockedWhenTooManyEntriesAreDirty() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    flusher = new WriteBehindFlusher(2, 60_000, 4, batch -> {
+      awaitUninterruptibly(release);
+      batches.add(batch);
+    });
+    for (int i = 0; i < 6; i++) {
+      flusher.markDirty(account(i)); // the first batch is stuck in the writer, four more fit
+    }
+    Thread blocked = new Thread(() -> flusher.markDirty(account(6)));
+    blocked.start();
+    blocked.join(200);
+    assertTrue(blocked.isAlive());
+    assertNotNull(flusher.get("0")); // in-flight entries are still visible
+
+    // coalescing with an entry that is dirty already is not blocked
+    flusher.markDirty(account(5));
+
+    release.countDown();
+    blocked.join(5000);
+    assertFalse(blocked.isAlive());
+  }
+
+  @Test
+  public void testShutdownDrainsDirtyEntries() {
+    assertTimeout(ofMillis(5000), () -> {
+      flusher = new WriteBehindFlusher(3, 60_000, 100, batches::add);
+      for (int i = 0; i < 10; i++) {
+        flusher.markDirty(account(i));
+      }
+      flusher.shutdown();
+      int written = 0;
+      for (List<UserAccount> batch : batches) {
+        assertTrue(batch.size() <= 3);
+        written += batch.size();
+      }
+      assertEquals(10, written);
+      assertEquals(0, flusher.getDirtyCount());
+      assertThrows(IllegalStateException.class, () -> flusher.markDirty(account(10)));
+    });
+  }
+
+  @Test
+  public void testWriterBlockedDuringShutdownIsRejected() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    flusher = new WriteBehindFlusher(1, 60_000, 1, batch -> {
+      awaitUninterruptibly(release);
+      batches.add(batch);
+    });
+    flusher.markDirty(account(0)); // stuck in the writer
+    flusher.markDirty(account(1)); // fills the dirty entries up
+    RuntimeException[] thrown = new RuntimeException[1];
+    Thread blocked = new Thread(() -> {
+      try {
+        flusher.markDirty(account(2));
+      } catch (RuntimeException e) {
+        thrown[0] = e;
+      }
+    });
+    blocked.start();
+    blocked.join(200);
+    assertTrue(blocked.isAlive());
+
+    Thread shuttingDown = new Thread(flusher::shutdown);
+    shuttingDown.start();
+    blocked.join(5000);
+    assertFalse(blocked.isAlive());
+    assertTrue(thrown[0] instanceof IllegalStateException);
+
+    release.countDown();
+    shuttingDown.join(5000);
+    assertEquals(2, batches.size());
+    assertEquals(0, flusher.getDirtyCount());
+  }
+
+  @Test
+  public void testFailedBatchesAreRetried() {
+    int[] attempts = new int[1];
+    flusher = new WriteBehindFlusher(10, 60_000, 100, batch -> {
+      if (attempts[0]++ == 0) {
+        throw new IllegalStateException("DB is down");
+      }
+      batches.add(batch);
+    });
+    flusher.markDirty(account(1));
+    flusher.flush();
+    assertEquals(1, flusher.getDirtyCount());
+    flusher.flush();
+    assertEquals(0, flusher.getDirtyCount());
+    assertEquals(1, batches.size());
+  }
+
+  @Test
+  public void testCancelledWritesAreNotFlushed() {
+    flusher = new WriteBehindFlusher(10, 60_000, 100, batches::add);
+    flusher.markDirty(account(1));
+    flusher.markDirty(account(2));
+    flusher.cancel("1");
+    flusher.cancel("3");
+    assertEquals(1, flusher.getDirtyCount());
+
+    flusher.flush();
+    assertEquals(1, batches.size());
+    assertEquals("2", batches.get(0).get(0).getUserId());
+  }
+
+  @Test
+  public void testCancelWaitsForTheBatchBeingWritten() throws Exception {
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    flusher = new WriteBehindFlusher(1, 60_000, 100, batch -> {
+      writing.countDown();
+      awaitUninterruptibly(release);
+      batches.add(batch);
+    });
+    flusher.markDirty(account(1));
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+    Thread cancelling = new Thread(() -> flusher.cancel("1"));
+    cancelling.start();
+    cancelling.join(200);
+    assertTrue(cancelling.isAlive());
+
+    release.countDown();
+    cancelling.join(5000);
+    assertFalse(cancelling.isAlive());
+    assertEquals(1, batches.size());
+    assertEquals(0, flusher.getDirtyCount());
+  }
+
+  private Consumer<List<UserAccount>> recordingWriter(CountDownLatch written) {
+    return batch -> {
+      batches.add(batch);
+      written.countDown();
+    };
+  }
+
+  private static UserAccount account(int id) {
+    return new UserAccount(String.valueOf(id), "user " + id, "info");
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -28,6 +28,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
@@ -46,17 +48,20 @@ public class Audio {
 
   private static final int MAX_PENDING = 16;
 
-  private int headIndex;
-
-  private int tailIndex;
+  private static final int PRIORITIES = 4;
 
   private volatile Thread updateThread = null;
 
-  private PlayMessage[] pendingAudio = new PlayMessage[MAX_PENDING];
+  private final EventQueue pendingAudio;
 
   // Visible only for testing purposes
   Audio() {
+    this(new EventQueue(MAX_PENDING, PRIORITIES));
+  }
 
+  // Visible only for testing purposes
+  Audio(EventQueue pendingAudio) {
+    this.pendingAudio = pendingAudio;
   }
 
   public static Audio getInstance() {
@@ -69,9 +74,9 @@ public class Audio {
   public synchronized void stopService() throws InterruptedException {
     if (updateThread != null) {
       updateThread.interrupt();
+      updateThread.join();
+      updateThread = null;
     }
-    updateThread.join();
-    updateThread = null;
   }
   
   /**
@@ -84,27 +89,23 @@ public class Audio {
 
   /**
    * Starts the thread for the Update Method pattern if it was not started previously.
-   * Also when the thread is is ready initializes the indexes of the queue 
+   * The thread sleeps while the queue is empty.
    */
-  public void init() {
+  public synchronized void init() {
     if (updateThread == null) {
       updateThread = new Thread(() -> {
-        while (!Thread.currentThread().isInterrupted()) {
-          update();
+        List<PlayMessage> batch = new ArrayList<>(MAX_PENDING);
+        try {
+          while (!Thread.currentThread().isInterrupted()) {
+            update(batch);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
         }
       });
     }
-    startThread();
-  }
-  
-  /**
-   * This is a synchronized thread starter
-   */
-  private synchronized void startThread() {
     if (!updateThread.isAlive()) {
       updateThread.start();
-      headIndex = 0;
-      tailIndex = 0;
     }
   }
 
@@ -114,35 +115,45 @@ public class Audio {
    * @param volume is the level of the audio's volume 
    */
   public void playSound(AudioInputStream stream, float volume) {
-    init();
-    // Walk the pending requests.
-    for (int i = headIndex; i != tailIndex; i = (i + 1) % MAX_PENDING) {
-      if (getPendingAudio()[i].getStream() == stream) {
-        // Use the larger of the two volumes.
-        getPendingAudio()[i].setVolume(Math.max(volume, getPendingAudio()[i].getVolume()));
-
-        // Don't need to enqueue.
-        return;
-      }
+    playSound(stream, volume, 0);
+  }
+
+  /**
+   * This method adds a new audio into the queue, to be played before the audios of lower
+   * priority. If the queue is full it waits for the Update Method's thread to make room.
+   * @param stream is the AudioInputStream for the method
+   * @param volume is the level of the audio's volume
+   * @param priority is the priority of the audio, from 0 to 3
+   */
+  public void playSound(AudioInputStream stream, float volume, int priority) {
+    Thread thread = updateThread;
+    if (thread == null || !thread.isAlive()) {
+      init();
+    }
+    try {
+      // A pending request for the same stream only gets the larger of the two volumes and priorities.
+      pendingAudio.put(new PlayMessage(stream, volume, priority));
+    } catch (InterruptedException e) {
+      LOGGER.trace("Interrupted while waiting for room in the queue", e);
+      Thread.currentThread().interrupt();
     }
-    getPendingAudio()[tailIndex] = new PlayMessage(stream, volume);
-    tailIndex = (tailIndex + 1) % MAX_PENDING;
   }
   
   /**
    * This method uses the Update Method pattern.
-   * It takes the audio from the queue and plays it
+   * It waits for audios in the queue and plays them in batches
    */
-  private void update() {
-    // If there are no pending requests, do nothing.
-    if (headIndex == tailIndex) {
-      return;
+  private void update(List<PlayMessage> batch) throws InterruptedException {
+    pendingAudio.take(batch, MAX_PENDING);
+    for (PlayMessage message : batch) {
+      play(message.getStream());
     }
-    Clip clip = null;
+    batch.clear();
+  }
+
+  private void play(AudioInputStream audioStream) {
     try {
-      AudioInputStream audioStream = getPendingAudio()[headIndex].getStream();
-      headIndex++;
-      clip = AudioSystem.getClip();
+      Clip clip = AudioSystem.getClip();
       clip.open(audioStream);
       clip.start();
     } catch (LineUnavailableException e) {
@@ -167,11 +178,11 @@ public class Audio {
   }
 
   /**
-   * Returns with the message array of the queue 
+   * Returns with the pending messages of the queue, in the order they will be played
    * @return PlayMessage[]
    */
   public PlayMessage[] getPendingAudio() {
-    return pendingAudio;
+    return pendingAudio.toArray();
   }
 
 }
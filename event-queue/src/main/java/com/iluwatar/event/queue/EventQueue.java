@@ -0,0 +1,236 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.queue;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sound.sampled.AudioInputStream;
+
+/**
+ * Bounded queue of {@link PlayMessage}s shared by the threads requesting sounds and the thread
+ * playing them. Every priority has its own ring, and the rings are drained from the highest
+ * priority down, each in first-in, first-out order. A request for a stream that is still pending
+ * is merged into the pending message, found through an index of the pending streams instead of a
+ * walk of the rings. Threads waiting for room or for messages are parked, so an empty queue costs
+ * no CPU.
+ * @author mkuprivecz
+ *
+ */
+public class EventQueue {
+
+  private final PlayMessage[][] rings;
+
+  private final int[] heads;
+
+  private final int[] counts;
+
+  private final int capacity;
+
+  private int size;
+
+  private final Map<AudioInputStream, PlayMessage> pending = new IdentityHashMap<>();
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition notEmpty = lock.newCondition();
+
+  private final Condition notFull = lock.newCondition();
+
+  /**
+   * Creates an empty queue.
+   * @param capacity is the number of messages that can be pending at once
+   * @param priorities is the number of priorities, from 0 to priorities - 1
+   */
+  public EventQueue(int capacity, int priorities) {
+    if (capacity <= 0 || priorities <= 0) {
+      throw new IllegalArgumentException("Capacity and priorities must be positive");
+    }
+    this.capacity = capacity;
+    this.rings = new PlayMessage[priorities][capacity];
+    this.heads = new int[priorities];
+    this.counts = new int[priorities];
+  }
+
+  /**
+   * Adds the message to the queue, waiting for room if the queue is full. If a message for the
+   * same stream is pending, it gets the larger of the two volumes and of the two priorities, and
+   * nothing is added. A pending message that gets a higher priority moves to the end of the ring
+   * of its new priority.
+   * @param message is the message to add
+   * @return true if the message was added, false if it was merged into a pending one
+   * @throws InterruptedException when the thread is interrupted while waiting for room
+   */
+  public boolean put(PlayMessage message) throws InterruptedException {
+    lock.lock();
+    try {
+      PlayMessage existing;
+      while ((existing = pending.get(message.getStream())) == null && size == capacity) {
+        notFull.await();
+      }
+      if (existing != null) {
+        existing.setVolume(Math.max(existing.getVolume(), message.getVolume()));
+        if (message.getPriority() > existing.getPriority()) {
+          raisePriority(existing, message.getPriority());
+        }
+        return false;
+      }
+      append(level(message.getPriority()), message);
+      size++;
+      pending.put(message.getStream(), message);
+      notEmpty.signal();
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until the queue has messages and moves up to maxMessages of them to the batch, the
+   * highest priorities first.
+   * @param batch is the collection receiving the messages
+   * @param maxMessages is the largest number of messages to move
+   * @return the number of messages moved, at least one
+   * @throws InterruptedException when the thread is interrupted while waiting for messages
+   */
+  public int take(Collection<? super PlayMessage> batch, int maxMessages)
+      throws InterruptedException {
+    lock.lock();
+    try {
+      while (size == 0) {
+        notEmpty.await();
+      }
+      return drain(batch, maxMessages);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Moves up to maxMessages of the pending messages to the batch without waiting, the highest
+   * priorities first.
+   * @param batch is the collection receiving the messages
+   * @param maxMessages is the largest number of messages to move
+   * @return the number of messages moved
+   */
+  public int drainTo(Collection<? super PlayMessage> batch, int maxMessages) {
+    lock.lock();
+    try {
+      return drain(batch, maxMessages);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the pending messages in the order they will be taken.
+   * @return PlayMessage[]
+   */
+  public PlayMessage[] toArray() {
+    lock.lock();
+    try {
+      PlayMessage[] messages = new PlayMessage[size];
+      int index = 0;
+      for (int level = rings.length - 1; level >= 0; level--) {
+        for (int i = 0; i < counts[level]; i++) {
+          messages[index++] = rings[level][(heads[level] + i) % capacity];
+        }
+      }
+      return messages;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of pending messages.
+   * @return int
+   */
+  public int size() {
+    lock.lock();
+    try {
+      return size;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int drain(Collection<? super PlayMessage> batch, int maxMessages) {
+    int drained = 0;
+    for (int level = rings.length - 1; level >= 0 && drained < maxMessages; level--) {
+      PlayMessage[] ring = rings[level];
+      while (counts[level] > 0 && drained < maxMessages) {
+        PlayMessage message = ring[heads[level]];
+        ring[heads[level]] = null;
+        heads[level] = (heads[level] + 1) % capacity;
+        counts[level]--;
+        pending.remove(message.getStream());
+        batch.add(message);
+        drained++;
+      }
+    }
+    if (drained > 0) {
+      size -= drained;
+      notFull.signalAll();
+    }
+    return drained;
+  }
+
+  private void raisePriority(PlayMessage message, int priority) {
+    int from = level(message.getPriority());
+    int to = level(priority);
+    message.setPriority(priority);
+    if (from != to) {
+      remove(from, message);
+      append(to, message);
+    }
+  }
+
+  private void append(int level, PlayMessage message) {
+    rings[level][(heads[level] + counts[level]) % capacity] = message;
+    counts[level]++;
+  }
+
+  /**
+   * Removes the message from the ring, closing the gap by moving the messages behind it forward.
+   */
+  private void remove(int level, PlayMessage message) {
+    PlayMessage[] ring = rings[level];
+    int i = 0;
+    while (ring[(heads[level] + i) % capacity] != message) {
+      i++;
+    }
+    for (; i < counts[level] - 1; i++) {
+      ring[(heads[level] + i) % capacity] = ring[(heads[level] + i + 1) % capacity];
+    }
+    counts[level]--;
+    ring[(heads[level] + counts[level]) % capacity] = null;
+  }
+
+  private int level(int priority) {
+    return Math.min(Math.max(priority, 0), rings.length - 1);
+  }
+}
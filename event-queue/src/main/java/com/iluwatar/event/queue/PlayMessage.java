@@ -35,10 +35,23 @@ public class PlayMessage {
   private AudioInputStream stream;
   
   private float volume;
+
+  private int priority;
   
   public PlayMessage(AudioInputStream stream, float volume) {
+    this(stream, volume, 0);
+  }
+
+  /**
+   * Creates a message played before the pending messages of lower priority.
+   * @param stream is the AudioInputStream to play
+   * @param volume is the level of the audio's volume
+   * @param priority is the priority of the message, higher is played first
+   */
+  public PlayMessage(AudioInputStream stream, float volume, int priority) {
     setStream(stream);
     setVolume(volume);
+    this.priority = priority;
   }
 
   public AudioInputStream getStream() {
@@ -56,4 +69,12 @@ public class PlayMessage {
   public void setVolume(float volume) {
     this.volume = volume;
   }
+
+  public int getPriority() {
+    return priority;
+  }
+
+  void setPriority(int priority) {
+    this.priority = priority;
+  }
 }
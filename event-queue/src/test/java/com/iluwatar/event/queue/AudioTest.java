@@ -26,10 +26,15 @@ package com.iluwatar.event.queue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -73,15 +78,41 @@ public class AudioTest {
    */
   @Test
   public void testQueue() throws UnsupportedAudioFileException, IOException, InterruptedException {
-    audio.playSound(audio.getAudioStream("./etc/Bass-Drum-1.aif"), -10.0f);
-    audio.playSound(audio.getAudioStream("./etc/Bass-Drum-1.aif"), -10.0f);
-    audio.playSound(audio.getAudioStream("./etc/Bass-Drum-1.aif"), -10.0f);
-    assertTrue(audio.getPendingAudio().length > 0);
+    // the Update Method's thread only starts taking audios once the gate opens
+    CountDownLatch gate = new CountDownLatch(1);
+    audio = new Audio(new EventQueue(16, 4) {
+      @Override
+      public int take(Collection<? super PlayMessage> batch, int maxMessages)
+          throws InterruptedException {
+        gate.await();
+        return super.take(batch, maxMessages);
+      }
+    });
+    AudioInputStream first = audio.getAudioStream("./etc/Bass-Drum-1.aif");
+    AudioInputStream second = audio.getAudioStream("./etc/Bass-Drum-1.aif");
+    AudioInputStream hiHat = audio.getAudioStream("./etc/Closed-Hi-Hat-1.aif");
+    audio.playSound(first, -10.0f);
+    audio.playSound(second, -10.0f);
+    audio.playSound(hiHat, -10.0f);
+    // the requests for a stream that is still pending are merged, a higher priority moves it ahead
+    audio.playSound(hiHat, -8.0f, 2);
+    audio.playSound(first, -12.0f);
+
+    PlayMessage[] pending = audio.getPendingAudio();
+    assertEquals(3, pending.length);
+    assertSame(hiHat, pending[0].getStream());
+    assertEquals(-8.0f, pending[0].getVolume());
+    assertEquals(2, pending[0].getPriority());
+    assertSame(first, pending[1].getStream());
+    assertEquals(-10.0f, pending[1].getVolume());
+    assertSame(second, pending[2].getStream());
     // test that service is started
     assertTrue(audio.isServiceRunning());
-    // adding a small pause to be sure that the sound is ended
-    Thread.sleep(10000);
 
+    gate.countDown();
+    while (audio.getPendingAudio().length > 0) {
+      Thread.sleep(10);
+    }
     audio.stopService();
     // test that service is finished
     assertFalse(audio.isServiceRunning());
@@ -0,0 +1,164 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Harness for the {@link EventQueue} of the {@link Audio} service. It first measures the CPU time
+ * the idle Update Method's thread uses in a second, next to a thread polling an empty queue the
+ * way the update loop used to. It then has producers request sounds concurrently, every sound
+ * twice, while one consumer takes them one by one or in batches, and checks that every added
+ * message is taken exactly once. The optional arguments are the producers, 4 by default, and the
+ * sounds per producer, 200000 by default.
+ * @author mkuprivecz
+ *
+ */
+public final class EventQueueBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EventQueueBenchmark.class);
+
+  private static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 1, true, false);
+
+  private static final int CAPACITY = 16;
+
+  private static volatile int headIndex;
+
+  private static volatile int tailIndex;
+
+  private EventQueueBenchmark() {
+  }
+
+  /**
+   * Program entry point
+   *
+   * @param args command line args
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int producers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+    int soundsPerProducer = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+    Audio audio = new Audio();
+    audio.init();
+    LOGGER.info("idle Audio update thread: {} ms of CPU per second", idleCpuMillis());
+    audio.stopService();
+
+    Thread polling = new Thread(() -> {
+      while (!Thread.currentThread().isInterrupted()) {
+        if (headIndex != tailIndex) {
+          headIndex = tailIndex;
+        }
+      }
+    });
+    polling.start();
+    LOGGER.info("idle polling thread: {} ms of CPU per second", idleCpuMillis());
+    polling.interrupt();
+    polling.join();
+
+    for (int batchSize : new int[] {1, CAPACITY}) {
+      // warm up, then measure
+      transfer(producers, soundsPerProducer / 4, batchSize);
+      transfer(producers, soundsPerProducer, batchSize);
+    }
+  }
+
+  private static long idleCpuMillis() throws InterruptedException {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    long main = Thread.currentThread().getId();
+    long before = cpuTime(threads, main);
+    Thread.sleep(1000);
+    return (cpuTime(threads, main) - before) / 1_000_000;
+  }
+
+  private static long cpuTime(ThreadMXBean threads, long excluded) {
+    long total = 0;
+    for (long id : threads.getAllThreadIds()) {
+      long time = id == excluded ? -1 : threads.getThreadCpuTime(id);
+      total += Math.max(time, 0);
+    }
+    return total;
+  }
+
+  private static void transfer(int producers, int soundsPerProducer, int batchSize)
+      throws InterruptedException {
+    EventQueue queue = new EventQueue(CAPACITY, 2);
+    AtomicInteger added = new AtomicInteger();
+    AtomicInteger producing = new AtomicInteger(producers);
+    Map<AudioInputStream, Integer> taken = new IdentityHashMap<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      int priority = p % 2;
+      threads.add(new Thread(() -> {
+        try {
+          for (int i = 0; i < soundsPerProducer; i++) {
+            AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(new byte[0]), FORMAT, 0);
+            for (int request = 0; request < 2; request++) {
+              if (queue.put(new PlayMessage(stream, 0f, priority))) {
+                added.incrementAndGet();
+              }
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        producing.decrementAndGet();
+      }));
+    }
+    Thread consumer = new Thread(() -> {
+      List<PlayMessage> batch = new ArrayList<>(batchSize);
+      while (producing.get() > 0 || queue.size() > 0) {
+        if (queue.drainTo(batch, batchSize) == 0) {
+          Thread.yield();
+        }
+        for (PlayMessage message : batch) {
+          taken.merge(message.getStream(), 1, Integer::sum);
+        }
+        batch.clear();
+      }
+    });
+    threads.add(consumer);
+    long start = System.nanoTime();
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long elapsed = System.nanoTime() - start;
+    int total = taken.values().stream().mapToInt(Integer::intValue).sum();
+    int distinct = producers * soundsPerProducer;
+    LOGGER.info("{} producers, batches of {}: {} requests/s, {} added, {} merged, {} lost, {} duplicated",
+        producers, batchSize, 2L * distinct * 1_000_000_000L / elapsed, added.get(), 2 * distinct - added.get(),
+        distinct - taken.size(), total - added.get());
+  }
+}
@@ -0,0 +1,210 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.queue;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing the EventQueue of the Audio service
+ * @author mkuprivecz
+ *
+ */
+public class EventQueueTest {
+
+  private static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 1, true, false);
+
+  private static AudioInputStream stream() {
+    return new AudioInputStream(new ByteArrayInputStream(new byte[0]), FORMAT, 0);
+  }
+
+  @Test
+  public void testMergesPendingStream() throws InterruptedException {
+    EventQueue queue = new EventQueue(4, 1);
+    AudioInputStream stream = stream();
+    assertTrue(queue.put(new PlayMessage(stream, -10.0f)));
+    assertFalse(queue.put(new PlayMessage(stream, -8.0f)));
+    assertFalse(queue.put(new PlayMessage(stream, -12.0f)));
+    assertEquals(1, queue.size());
+    assertEquals(-8.0f, queue.toArray()[0].getVolume());
+
+    List<PlayMessage> batch = new ArrayList<>();
+    queue.drainTo(batch, 4);
+    // once taken, the stream can be queued again
+    assertTrue(queue.put(new PlayMessage(stream, -10.0f)));
+  }
+
+  @Test
+  public void testPriorityOrder() throws InterruptedException {
+    EventQueue queue = new EventQueue(4, 3);
+    PlayMessage first = new PlayMessage(stream(), 0f, 0);
+    PlayMessage urgent = new PlayMessage(stream(), 0f, 2);
+    PlayMessage second = new PlayMessage(stream(), 0f, 0);
+    PlayMessage clamped = new PlayMessage(stream(), 0f, 7);
+    queue.put(first);
+    queue.put(urgent);
+    queue.put(second);
+    queue.put(clamped);
+    assertArrayEquals(new PlayMessage[] {urgent, clamped, first, second}, queue.toArray());
+
+    List<PlayMessage> batch = new ArrayList<>();
+    assertEquals(3, queue.take(batch, 3));
+    assertEquals(1, queue.take(batch, 3));
+    assertEquals(0, queue.drainTo(batch, 3));
+    assertEquals(4, batch.size());
+    assertArrayEquals(new PlayMessage[] {urgent, clamped, first, second}, batch.toArray());
+  }
+
+  @Test
+  public void testMergeRaisesPriority() throws InterruptedException {
+    EventQueue queue = new EventQueue(4, 3);
+    AudioInputStream stream = stream();
+    PlayMessage low = new PlayMessage(stream, -10.0f, 0);
+    PlayMessage other = new PlayMessage(stream(), 0f, 0);
+    PlayMessage high = new PlayMessage(stream(), 0f, 2);
+    queue.put(low);
+    queue.put(other);
+    queue.put(high);
+    assertFalse(queue.put(new PlayMessage(stream, -12.0f, 2)));
+    assertFalse(queue.put(new PlayMessage(stream, -8.0f, 1))); // never lowers the priority
+    assertArrayEquals(new PlayMessage[] {high, low, other}, queue.toArray());
+    assertEquals(2, low.getPriority());
+    assertEquals(-8.0f, low.getVolume());
+
+    List<PlayMessage> batch = new ArrayList<>();
+    assertEquals(3, queue.drainTo(batch, 4));
+    assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void testPutWaitsForRoom() throws InterruptedException {
+    EventQueue queue = new EventQueue(2, 1);
+    queue.put(new PlayMessage(stream(), 0f));
+    queue.put(new PlayMessage(stream(), 0f));
+    Thread producer = new Thread(() -> {
+      try {
+        queue.put(new PlayMessage(stream(), 0f));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    producer.start();
+    while (producer.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    assertEquals(2, queue.size());
+
+    queue.drainTo(new ArrayList<>(), 1);
+    producer.join();
+    assertEquals(2, queue.size());
+  }
+
+  @Test
+  public void testTakeParksWhileEmpty() throws InterruptedException {
+    EventQueue queue = new EventQueue(2, 1);
+    List<PlayMessage> batch = new ArrayList<>();
+    Thread consumer = new Thread(() -> {
+      try {
+        queue.take(batch, 2);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    consumer.start();
+    while (consumer.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    PlayMessage message = new PlayMessage(stream(), 0f);
+    queue.put(message);
+    consumer.join();
+    assertEquals(1, batch.size());
+    assertEquals(message, batch.get(0));
+  }
+
+  @Test
+  public void testNoLostOrDuplicatedMessages() throws InterruptedException {
+    int producers = 4;
+    int streamsPerProducer = 2000;
+    EventQueue queue = new EventQueue(16, 2);
+    AtomicInteger added = new AtomicInteger();
+    Map<AudioInputStream, Integer> played = new IdentityHashMap<>();
+
+    Thread consumer = new Thread(() -> {
+      List<PlayMessage> batch = new ArrayList<>();
+      try {
+        while (played.size() < producers * streamsPerProducer || queue.size() > 0) {
+          queue.take(batch, 16);
+          for (PlayMessage message : batch) {
+            played.merge(message.getStream(), 1, Integer::sum);
+          }
+          batch.clear();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    consumer.start();
+
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      int priority = p % 2;
+      threads.add(new Thread(() -> {
+        try {
+          for (int i = 0; i < streamsPerProducer; i++) {
+            AudioInputStream stream = stream();
+            // the second request is merged unless the first one was already taken
+            for (int request = 0; request < 2; request++) {
+              if (queue.put(new PlayMessage(stream, 0f, priority))) {
+                added.incrementAndGet();
+              }
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    consumer.join();
+
+    assertEquals(producers * streamsPerProducer, played.size());
+    assertEquals(added.get(), played.values().stream().mapToInt(Integer::intValue).sum());
+    assertEquals(0, queue.size());
+  }
+}
@@ -0,0 +1,154 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This is the compact binary encoding of the domain events used by the
+ * {@link BinarySegmentedJournal}. An event is written as a type tag
+ * followed by its fields, big decimals as scale, length and unscaled
+ * bytes and strings as length and UTF-8 bytes.
+ */
+public final class BinaryEventCodec {
+
+  /**
+   * The type tag of account create events.
+   */
+  public static final byte ACCOUNT_CREATE = 1;
+  /**
+   * The type tag of money deposit events.
+   */
+  public static final byte MONEY_DEPOSIT = 2;
+  /**
+   * The type tag of money transfer events.
+   */
+  public static final byte MONEY_TRANSFER = 3;
+
+  private BinaryEventCodec() {
+  }
+
+  /**
+   * Encodes the event with its type tag at the position of the buffer.
+   *
+   * @param domainEvent the domain event
+   * @param buffer the buffer
+   * @throws java.nio.BufferOverflowException if the event does not fit into the buffer
+   */
+  public static void encode(DomainEvent domainEvent, ByteBuffer buffer) {
+    if (domainEvent instanceof AccountCreateEvent) {
+      AccountCreateEvent event = (AccountCreateEvent) domainEvent;
+      putHeader(buffer, ACCOUNT_CREATE, event);
+      buffer.putInt(event.getAccountNo());
+      putString(buffer, event.getOwner());
+    } else if (domainEvent instanceof MoneyDepositEvent) {
+      MoneyDepositEvent event = (MoneyDepositEvent) domainEvent;
+      putHeader(buffer, MONEY_DEPOSIT, event);
+      buffer.putInt(event.getAccountNo());
+      putDecimal(buffer, event.getMoney());
+    } else if (domainEvent instanceof MoneyTransferEvent) {
+      MoneyTransferEvent event = (MoneyTransferEvent) domainEvent;
+      putHeader(buffer, MONEY_TRANSFER, event);
+      buffer.putInt(event.getAccountNoFrom());
+      buffer.putInt(event.getAccountNoTo());
+      putDecimal(buffer, event.getMoney());
+    } else {
+      throw new RuntimeException("Journal Event not recegnized");
+    }
+  }
+
+  /**
+   * Decodes the event at the position of the buffer.
+   *
+   * @param buffer the buffer
+   * @return the domain event
+   */
+  public static DomainEvent decode(ByteBuffer buffer) {
+    byte type = buffer.get();
+    long sequenceId = buffer.getLong();
+    long createdTime = buffer.getLong();
+    switch (type) {
+      case ACCOUNT_CREATE:
+        return new AccountCreateEvent(sequenceId, createdTime, buffer.getInt(), getString(buffer));
+      case MONEY_DEPOSIT:
+        return new MoneyDepositEvent(sequenceId, createdTime, buffer.getInt(), getDecimal(buffer));
+      case MONEY_TRANSFER:
+        int accountNoFrom = buffer.getInt();
+        int accountNoTo = buffer.getInt();
+        return new MoneyTransferEvent(sequenceId, createdTime, getDecimal(buffer), accountNoFrom,
+            accountNoTo);
+      default:
+        throw new RuntimeException("Journal Event not recegnized: " + type);
+    }
+  }
+
+  /**
+   * Gets the sequence id of the event encoded at the index of the buffer.
+   *
+   * @param buffer the buffer
+   * @param index the index of the encoded event
+   * @return the sequence id
+   */
+  public static long getSequenceId(ByteBuffer buffer, int index) {
+    return buffer.getLong(index + 1);
+  }
+
+  private static void putHeader(ByteBuffer buffer, byte type, DomainEvent event) {
+    buffer.put(type);
+    buffer.putLong(event.getSequenceId());
+    buffer.putLong(event.getCreatedTime());
+  }
+
+  private static void putString(ByteBuffer buffer, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    buffer.putInt(bytes.length);
+    buffer.put(bytes);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void putDecimal(ByteBuffer buffer, BigDecimal value) {
+    byte[] unscaled = value.unscaledValue().toByteArray();
+    buffer.putInt(value.scale());
+    buffer.putInt(unscaled.length);
+    buffer.put(unscaled);
+  }
+
+  private static BigDecimal getDecimal(ByteBuffer buffer) {
+    int scale = buffer.getInt();
+    byte[] unscaled = new byte[buffer.getInt()];
+    buffer.get(unscaled);
+    return new BigDecimal(new BigInteger(unscaled), scale);
+  }
+}
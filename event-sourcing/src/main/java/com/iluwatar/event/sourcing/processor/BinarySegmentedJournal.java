@@ -0,0 +1,436 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * This is a binary implementation of event journal.
+ * The events are appended to segment files in a directory, each one as a record of
+ * the record length, the CRC32 of the record body and the body, which is the event
+ * encoded by the {@link BinaryEventCodec}. When a segment reaches the segment size,
+ * the journal rolls over to a new one.
+ *
+ * <p>Events are written through a {@link FileChannel} with a reused direct buffer,
+ * and read back by mapping one segment at a time into memory, so recovery streams
+ * the history instead of loading it into the heap. A record that is cut short or
+ * fails its CRC ends the journal, even if more segments follow: it is treated as a
+ * torn write of a crash, and when it is in the last segment it is cut off when the
+ * journal is opened again. So is a last segment whose header was never written.
+ *
+ * <p>A batch of events is collected in a direct buffer and written with as few
+ * writes as possible, which makes group commit cheap.
+ */
+public class BinarySegmentedJournal implements EventJournal {
+
+  /**
+   * The default segment size of 64 MB.
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  private static final int SEGMENT_MAGIC = 0x45564a31;
+  private static final int SEGMENT_HEADER_LENGTH = 4;
+  private static final int RECORD_HEADER_LENGTH = 8;
+  private static final String SEGMENT_SUFFIX = ".segment";
+
+  private final Path directory;
+  private final int segmentSize;
+  private final CRC32 crc = new CRC32();
+  private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(4096);
+  private final ByteBuffer batchBuffer = ByteBuffer.allocateDirect(64 * 1024);
+  private FileChannel writeChannel;
+  private long segmentNumber;
+  private long segmentPosition;
+
+  private List<Path> readSegments;
+  private int readSegmentIndex;
+  private MappedByteBuffer readBuffer;
+
+  /**
+   * Instantiates a new binary segmented journal with the default segment size.
+   *
+   * @param directory the directory of the segment files
+   */
+  public BinarySegmentedJournal(Path directory) {
+    this(directory, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Instantiates a new binary segmented journal, continuing the segments in the
+   * directory if there are any.
+   *
+   * @param directory the directory of the segment files
+   * @param segmentSize the size at which the journal rolls over to a new segment
+   */
+  public BinarySegmentedJournal(Path directory, int segmentSize) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    try {
+      Files.createDirectories(directory);
+      List<Path> segments = listSegments();
+      if (segments.isEmpty()) {
+        openSegment(0);
+      } else {
+        reopenLastSegment(segments.get(segments.size() - 1));
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Write.
+   *
+   * @param domainEvent the domain event
+   */
+  @Override
+  public synchronized void write(DomainEvent domainEvent) {
+    try {
+      append(encode(domainEvent));
+      writeBatch();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Write a batch of events, with one write per segment if the batch buffer
+   * holds them.
+   *
+   * @param domainEvents the domain events
+   */
+  @Override
+  public synchronized void write(List<DomainEvent> domainEvents) {
+    try {
+      for (DomainEvent domainEvent : domainEvents) {
+        append(encode(domainEvent));
+      }
+      writeBatch();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Adds the record to the batch buffer, writing out the batch first if the record
+   * does not fit, and rolling over to a new segment if the segment is full.
+   */
+  private void append(ByteBuffer record) throws IOException {
+    if (segmentPosition + record.remaining() > segmentSize
+        && segmentPosition > SEGMENT_HEADER_LENGTH) {
+      writeBatch();
+      writeChannel.force(false);
+      writeChannel.close();
+      openSegment(segmentNumber + 1);
+    }
+    segmentPosition += record.remaining();
+    if (batchBuffer.remaining() < record.remaining()) {
+      writeBatch();
+      if (batchBuffer.remaining() < record.remaining()) {
+        writeFully(record);
+        return;
+      }
+    }
+    batchBuffer.put(record);
+  }
+
+  private void writeBatch() throws IOException {
+    batchBuffer.flip();
+    writeFully(batchBuffer);
+    batchBuffer.clear();
+  }
+
+  private void writeFully(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      writeChannel.write(buffer);
+    }
+  }
+
+  /**
+   * Forces the written events to the storage device.
+   */
+  @Override
+  public synchronized void force() {
+    try {
+      writeChannel.force(false);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Reset.
+   */
+  @Override
+  public synchronized void reset() {
+    try {
+      writeChannel.close();
+      for (Path segment : listSegments()) {
+        Files.delete(segment);
+      }
+      openSegment(0);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    batchBuffer.clear();
+    readSegments = null;
+    readBuffer = null;
+  }
+
+  /**
+   * Read next domain event. The segments are read in order, each one mapped into
+   * memory up to its size at the time it is reached.
+   *
+   * @return the domain event
+   */
+  @Override
+  public DomainEvent readNext() {
+    Supplier<DomainEvent> record = readNextRecord();
+    return record == null ? null : record.get();
+  }
+
+  /**
+   * Read the next record, after checking its CRC, which is decoded when the supplier
+   * is called.
+   *
+   * @return the supplier of the domain event or null if all events have been read
+   */
+  @Override
+  public synchronized Supplier<DomainEvent> readNextRecord() {
+    try {
+      if (readSegments == null) {
+        readSegments = listSegments();
+        readSegmentIndex = 0;
+      }
+      while (true) {
+        int length = readBuffer == null ? -1 : nextRecordLength(readBuffer);
+        if (length > 0) {
+          int body = readBuffer.position() + RECORD_HEADER_LENGTH;
+          ByteBuffer record = readBuffer.duplicate();
+          record.position(body);
+          readBuffer.position(body + length);
+          return () -> {
+            DomainEvent domainEvent = BinaryEventCodec.decode(record);
+            domainEvent.setRealTime(false);
+            return domainEvent;
+          };
+        }
+        if (readBuffer != null && readBuffer.hasRemaining()) {
+          // a torn or corrupt record, the events after it must not be applied
+          readSegmentIndex = readSegments.size();
+          return null;
+        }
+        if (readSegmentIndex >= readSegments.size()) {
+          return null;
+        }
+        readBuffer = map(readSegments.get(readSegmentIndex++));
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Skips the segments which only hold events up to the sequence id, telling them by
+   * the sequence id of the first event of the following segment. Sequence ids are
+   * expected to increase through the journal.
+   *
+   * @param sequenceId the sequence id of the last event which is not needed
+   */
+  @Override
+  public synchronized void skipTo(long sequenceId) {
+    try {
+      readSegments = listSegments();
+      readSegmentIndex = 0;
+      readBuffer = null;
+      for (int i = 1; i < readSegments.size(); i++) {
+        long first = firstSequenceId(readSegments.get(i));
+        if (first < 0 || first > sequenceId + 1) {
+          break;
+        }
+        readSegmentIndex = i;
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Closes the segment written to.
+   */
+  public synchronized void close() {
+    try {
+      writeChannel.close();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Encodes the event into a record in the write buffer, growing the buffer if needed.
+   */
+  private ByteBuffer encode(DomainEvent domainEvent) {
+    while (true) {
+      writeBuffer.clear();
+      writeBuffer.position(RECORD_HEADER_LENGTH);
+      try {
+        BinaryEventCodec.encode(domainEvent, writeBuffer);
+        break;
+      } catch (BufferOverflowException e) {
+        writeBuffer = ByteBuffer.allocateDirect(writeBuffer.capacity() * 2);
+      }
+    }
+    writeBuffer.flip();
+    writeBuffer.position(RECORD_HEADER_LENGTH);
+    crc.reset();
+    crc.update(writeBuffer);
+    writeBuffer.putInt(0, writeBuffer.limit() - RECORD_HEADER_LENGTH);
+    writeBuffer.putInt(4, (int) crc.getValue());
+    writeBuffer.position(0);
+    return writeBuffer;
+  }
+
+  /**
+   * Returns the length of the valid record at the position of the buffer, or -1 if
+   * the buffer ends there or holds a torn or corrupt record. Does not move the position.
+   */
+  private int nextRecordLength(ByteBuffer buffer) {
+    if (buffer.remaining() < RECORD_HEADER_LENGTH) {
+      return -1;
+    }
+    int position = buffer.position();
+    int length = buffer.getInt(position);
+    if (length <= 0 || length > buffer.remaining() - RECORD_HEADER_LENGTH) {
+      return -1;
+    }
+    ByteBuffer body = buffer.duplicate();
+    body.position(position + RECORD_HEADER_LENGTH);
+    body.limit(position + RECORD_HEADER_LENGTH + length);
+    crc.reset();
+    crc.update(body);
+    return (int) crc.getValue() == buffer.getInt(position + 4) ? length : -1;
+  }
+
+  /**
+   * Returns the sequence id of the first event of the segment, or -1 if it has none.
+   */
+  private long firstSequenceId(Path segment) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_HEADER_LENGTH + RECORD_HEADER_LENGTH + 9);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+        // read the segment header and the start of the first record
+      }
+    }
+    if (buffer.hasRemaining() || buffer.getInt(0) != SEGMENT_MAGIC
+        || buffer.getInt(SEGMENT_HEADER_LENGTH) <= 0) {
+      return -1;
+    }
+    return BinaryEventCodec.getSequenceId(buffer, SEGMENT_HEADER_LENGTH + RECORD_HEADER_LENGTH);
+  }
+
+  private MappedByteBuffer map(Path segment) throws IOException {
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < SEGMENT_HEADER_LENGTH || buffer.getInt() != SEGMENT_MAGIC) {
+        throw new IOException("Not a journal segment: " + segment);
+      }
+      return buffer;
+    }
+  }
+
+  /**
+   * Tells whether the segment starts with a header, which is false for a segment cut
+   * short within the header or whose header is still all zeros.
+   */
+  private static boolean hasHeader(Path segment) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_LENGTH);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      while (header.hasRemaining() && channel.read(header) >= 0) {
+        // read the whole header
+      }
+    }
+    return !header.hasRemaining() && header.getInt(0) != 0;
+  }
+
+  private void openSegment(long number) throws IOException {
+    segmentNumber = number;
+    writeChannel = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.WRITE);
+    ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_LENGTH);
+    header.putInt(0, SEGMENT_MAGIC);
+    writeChannel.write(header);
+    segmentPosition = SEGMENT_HEADER_LENGTH;
+  }
+
+  /**
+   * Continues the last segment after its last valid record, cutting off a torn write.
+   */
+  private void reopenLastSegment(Path segment) throws IOException {
+    String name = segment.getFileName().toString();
+    segmentNumber = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    if (!hasHeader(segment)) {
+      // created right before a crash, the header never reached the disk
+      Files.delete(segment);
+      openSegment(segmentNumber);
+      return;
+    }
+    MappedByteBuffer buffer = map(segment);
+    int length;
+    while ((length = nextRecordLength(buffer)) > 0) {
+      buffer.position(buffer.position() + RECORD_HEADER_LENGTH + length);
+    }
+    segmentPosition = buffer.position();
+    writeChannel = FileChannel.open(segment, StandardOpenOption.WRITE);
+    writeChannel.truncate(segmentPosition);
+    writeChannel.position(segmentPosition);
+  }
+
+  private Path segmentPath(long number) {
+    return directory.resolve(String.format("%020d%s", number, SEGMENT_SUFFIX));
+  }
+
+  private List<Path> listSegments() throws IOException {
+    List<Path> segments = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      for (Path segment : stream) {
+        segments.add(segment);
+      }
+    }
+    Collections.sort(segments);
+    return segments;
+  }
+}
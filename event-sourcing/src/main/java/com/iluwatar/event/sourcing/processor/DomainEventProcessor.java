@@ -23,45 +23,190 @@
 package com.iluwatar.event.sourcing.processor;
 
 import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import com.iluwatar.event.sourcing.state.AccountSnapshot;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is the implementation of event processor.
  * All events are processed by this class.
  * This processor uses processorJournal to persist and recover events.
  *
+ * <p>With group commit enabled, events are handed to a {@link GroupCommitWriter} which
+ * writes and forces them in batches, so concurrent callers share a single force.
+ *
+ * <p>With snapshots enabled, the account states are snapshotted every few events into a
+ * {@link SnapshotStore}, and recovery restores the latest snapshot and replays only the
+ * events after it. Recovery can replay the events in parallel, sharded by account.
+ *
  * Created by Serdar Hamzaogullari on 06.08.2017.
  */
 public class DomainEventProcessor {
 
-  private final JsonFileJournal processorJournal = new JsonFileJournal();
+  private final EventJournal processorJournal;
+  private GroupCommitWriter groupCommitWriter;
+  private SnapshotStore snapshotStore;
+  private int snapshotInterval;
+  private int eventsSinceSnapshot;
+
+  /**
+   * Instantiates a new Domain event processor using a {@link JsonFileJournal}.
+   */
+  public DomainEventProcessor() {
+    this(new JsonFileJournal());
+  }
+
+  /**
+   * Instantiates a new Domain event processor.
+   *
+   * @param processorJournal the journal to persist and recover events with
+   */
+  public DomainEventProcessor(EventJournal processorJournal) {
+    this.processorJournal = processorJournal;
+  }
+
+  /**
+   * Enable group commit, events are written and forced in batches from now on.
+   *
+   * @param batchSize the maximum number of events written and forced at once
+   * @param lingerMillis the time to wait for a batch to fill up
+   */
+  public synchronized void enableGroupCommit(int batchSize, long lingerMillis) {
+    if (groupCommitWriter == null) {
+      groupCommitWriter = new GroupCommitWriter(processorJournal, batchSize, lingerMillis,
+          TimeUnit.MILLISECONDS, Math.max(batchSize * 4, 1024));
+    }
+  }
+
+  /**
+   * Enable snapshots, the account states are snapshotted in the background every
+   * snapshot interval events.
+   *
+   * @param snapshotStore the store to write the snapshots to and recover from
+   * @param snapshotInterval the number of events between snapshots
+   */
+  public synchronized void enableSnapshots(SnapshotStore snapshotStore, int snapshotInterval) {
+    this.snapshotStore = snapshotStore;
+    this.snapshotInterval = snapshotInterval;
+    this.eventsSinceSnapshot = 0;
+  }
+
+  /**
+   * Disable group commit, waiting for the events still waiting to be written.
+   *
+   * @throws InterruptedException if interrupted while waiting for the writer
+   */
+  public void disableGroupCommit() throws InterruptedException {
+    GroupCommitWriter writer;
+    synchronized (this) {
+      writer = groupCommitWriter;
+      groupCommitWriter = null;
+    }
+    if (writer != null) {
+      writer.close();
+    }
+  }
 
   /**
-   * Process.
+   * Process, returning once the event is written to the journal.
    *
    * @param domainEvent the domain event
    */
   public void process(DomainEvent domainEvent) {
+    CompletableFuture<Void> written = processAsync(domainEvent);
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          written.get();
+          return;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Process the event and return a future which completes once the event is durable.
+   * Without group commit the event is written before this method returns.
+   *
+   * @param domainEvent the domain event
+   * @return the future completed when the event is written
+   */
+  public synchronized CompletableFuture<Void> processAsync(DomainEvent domainEvent) {
     domainEvent.process();
-    processorJournal.write(domainEvent);
+    CompletableFuture<Void> written;
+    if (groupCommitWriter != null) {
+      // appending under the same lock keeps the journal order equal to the processing order
+      written = groupCommitWriter.append(domainEvent);
+    } else {
+      processorJournal.write(domainEvent);
+      written = CompletableFuture.completedFuture(null);
+    }
+    if (snapshotStore != null && ++eventsSinceSnapshot >= snapshotInterval
+        && !snapshotStore.isSaving()) {
+      snapshotStore.saveAsync(AccountAggregate.snapshot(domainEvent.getSequenceId()), written);
+      eventsSinceSnapshot = 0;
+    }
+    return written;
   }
 
   /**
    * Reset.
    */
-  public void reset() {
+  public synchronized void reset() {
     processorJournal.reset();
+    if (snapshotStore != null) {
+      snapshotStore.reset();
+    }
   }
 
   /**
-   * Recover.
+   * Recover, from the latest snapshot and the events after it if snapshots are enabled.
    */
-  public void recover() {
+  public synchronized void recover() {
+    recover(1);
+  }
+
+  /**
+   * Recover, replaying the events in parallel over the number of account shards, see
+   * {@link ParallelReplayer}. The result is the same as of a sequential replay.
+   *
+   * @param parallelism the number of shards, 1 replays the events on the calling thread
+   */
+  public synchronized void recover(int parallelism) {
+    AccountSnapshot snapshot = snapshotStore == null ? null : snapshotStore.loadLatest();
+    if (snapshot != null) {
+      AccountAggregate.restore(snapshot);
+      processorJournal.skipTo(snapshot.getSequenceId());
+    }
+    if (parallelism > 1) {
+      ParallelReplayer replayer = new ParallelReplayer(parallelism);
+      if (snapshot == null) {
+        replayer.replay(processorJournal);
+      } else {
+        replayer.replayAfter(processorJournal, snapshot.getSequenceId());
+      }
+      return;
+    }
     DomainEvent domainEvent;
     while (true) {
       domainEvent = processorJournal.readNext();
       if (domainEvent == null) {
         break;
-      } else {
+      } else if (snapshot == null || domainEvent.getSequenceId() > snapshot.getSequenceId()) {
         domainEvent.process();
       }
     }
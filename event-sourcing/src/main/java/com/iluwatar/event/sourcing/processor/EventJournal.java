@@ -0,0 +1,98 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * This is the interface of event journals.
+ * A journal persists the processed events in order
+ * and reads them back one by one for recovery.
+ *
+ * @see JsonFileJournal
+ * @see BinarySegmentedJournal
+ */
+public interface EventJournal {
+
+  /**
+   * Write.
+   *
+   * @param domainEvent the domain event
+   */
+  void write(DomainEvent domainEvent);
+
+  /**
+   * Write a batch of events, by default one by one.
+   *
+   * @param domainEvents the domain events
+   */
+  default void write(List<DomainEvent> domainEvents) {
+    for (DomainEvent domainEvent : domainEvents) {
+      write(domainEvent);
+    }
+  }
+
+  /**
+   * Force the written events to the storage device. Does nothing by default.
+   */
+  default void force() {
+    // nothing to force
+  }
+
+  /**
+   * Reset.
+   */
+  void reset();
+
+  /**
+   * Skip the events up to the sequence id as far as the journal can do so cheaply,
+   * before reading. Events up to the sequence id may still be read afterwards, by
+   * default the journal is read from the start.
+   *
+   * @param sequenceId the sequence id of the last event which is not needed
+   */
+  default void skipTo(long sequenceId) {
+    // read from the start
+  }
+
+  /**
+   * Read next domain event.
+   *
+   * @return the domain event or null if all events have been read
+   */
+  DomainEvent readNext();
+
+  /**
+   * Read the next record without decoding it. The returned supplier decodes the event
+   * and may be called on another thread, so that decoding can be spread over a pool.
+   * By default the event is decoded right away.
+   *
+   * @return the supplier of the domain event or null if all events have been read
+   */
+  default Supplier<DomainEvent> readNextRecord() {
+    DomainEvent domainEvent = readNext();
+    return domainEvent == null ? null : () -> domainEvent;
+  }
+}
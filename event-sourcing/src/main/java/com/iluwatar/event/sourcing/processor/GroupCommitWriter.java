@@ -0,0 +1,192 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This is the group commit pipeline of the event processor.
+ * Producers append events to a bounded ring buffer, and a single writer thread
+ * takes everything that has accumulated, up to the batch size, writes it to the
+ * journal at once and forces the journal a single time for the whole batch. The
+ * future returned for each event completes once its batch is durable.
+ *
+ * <p>When fewer events than the batch size are waiting, the writer lingers for up
+ * to the linger time to let the batch fill up. A linger time of zero writes
+ * whatever is waiting right away, so batches still grow naturally while a force
+ * is in progress.
+ */
+public class GroupCommitWriter {
+
+  private final EventJournal journal;
+  private final int batchSize;
+  private final long lingerNanos;
+
+  private final DomainEvent[] events;
+  private final List<CompletableFuture<Void>> futures;
+  private int head;
+  private int count;
+  private boolean closed;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition eventsWaiting = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private final Thread writerThread;
+
+  /**
+   * Instantiates a new group commit writer and starts its writer thread.
+   *
+   * @param journal the journal to write the batches to
+   * @param batchSize the maximum number of events written and forced at once
+   * @param linger the time to wait for a batch to fill up
+   * @param unit the unit of the linger time
+   * @param capacity the capacity of the ring buffer, appending blocks while it is full
+   */
+  public GroupCommitWriter(EventJournal journal, int batchSize, long linger, TimeUnit unit,
+      int capacity) {
+    if (batchSize <= 0 || capacity < batchSize) {
+      throw new IllegalArgumentException("Invalid batch size or capacity");
+    }
+    this.journal = journal;
+    this.batchSize = batchSize;
+    this.lingerNanos = unit.toNanos(linger);
+    this.events = new DomainEvent[capacity];
+    this.futures = new ArrayList<>(capacity);
+    for (int i = 0; i < capacity; i++) {
+      futures.add(null);
+    }
+    this.writerThread = new Thread(this::writeBatches, "group-commit-writer");
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  /**
+   * Append an event, waiting while the ring buffer is full.
+   *
+   * @param domainEvent the domain event
+   * @return the future completed when the event is durable
+   */
+  public CompletableFuture<Void> append(DomainEvent domainEvent) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    lock.lock();
+    try {
+      while (count == events.length && !closed) {
+        notFull.awaitUninterruptibly();
+      }
+      if (closed) {
+        throw new IllegalStateException("Group commit writer is closed");
+      }
+      int tail = (head + count) % events.length;
+      events[tail] = domainEvent;
+      futures.set(tail, future);
+      count++;
+      // the writer only needs to wake up for the first event and for a full batch
+      if (count == 1 || count == batchSize) {
+        eventsWaiting.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+    return future;
+  }
+
+  /**
+   * Writes the events still waiting and stops the writer thread.
+   *
+   * @throws InterruptedException if interrupted while waiting for the writer thread
+   */
+  public void close() throws InterruptedException {
+    lock.lock();
+    try {
+      closed = true;
+      eventsWaiting.signal();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    writerThread.join();
+  }
+
+  private void writeBatches() {
+    List<DomainEvent> batch = new ArrayList<>(batchSize);
+    List<CompletableFuture<Void>> batchFutures = new ArrayList<>(batchSize);
+    while (takeBatch(batch, batchFutures)) {
+      try {
+        journal.write(batch);
+        journal.force();
+        for (CompletableFuture<Void> future : batchFutures) {
+          future.complete(null);
+        }
+      } catch (RuntimeException e) {
+        for (CompletableFuture<Void> future : batchFutures) {
+          future.completeExceptionally(e);
+        }
+      }
+      batch.clear();
+      batchFutures.clear();
+    }
+  }
+
+  /**
+   * Waits for events, lingers for the batch to fill up and moves it out of the ring
+   * buffer. Returns false once the writer is closed and all events are written.
+   */
+  private boolean takeBatch(List<DomainEvent> batch, List<CompletableFuture<Void>> batchFutures) {
+    lock.lock();
+    try {
+      while (count == 0) {
+        if (closed) {
+          return false;
+        }
+        eventsWaiting.awaitUninterruptibly();
+      }
+      long remaining = lingerNanos;
+      while (count < batchSize && remaining > 0 && !closed) {
+        remaining = eventsWaiting.awaitNanos(remaining);
+      }
+      int size = Math.min(count, batchSize);
+      for (int i = 0; i < size; i++) {
+        int index = (head + i) % events.length;
+        batch.add(events[index]);
+        batchFutures.add(futures.get(index));
+        events[index] = null;
+        futures.set(index, null);
+      }
+      head = (head + size) % events.length;
+      count -= size;
+      notFull.signalAll();
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
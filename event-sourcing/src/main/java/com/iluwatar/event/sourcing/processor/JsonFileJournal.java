@@ -40,6 +40,7 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * This is the implementation of event journal.
@@ -48,7 +49,7 @@ import java.util.List;
  *
  * Created by Serdar Hamzaogullari on 06.08.2017.
  */
-public class JsonFileJournal {
+public class JsonFileJournal implements EventJournal {
 
   private final File aFile;
   private final List<String> events = new ArrayList<>();
@@ -80,6 +81,7 @@ public class JsonFileJournal {
    *
    * @param domainEvent the domain event
    */
+  @Override
   public void write(DomainEvent domainEvent) {
     Gson gson = new Gson();
     JsonElement jsonElement;
@@ -106,6 +108,7 @@ public class JsonFileJournal {
   /**
    * Reset.
    */
+  @Override
   public void reset() {
     aFile.delete();
   }
@@ -116,13 +119,32 @@ public class JsonFileJournal {
    *
    * @return the domain event
    */
+  @Override
   public DomainEvent readNext() {
     if (index >= events.size()) {
       return null;
     }
     String event = events.get(index);
     index++;
+    return parse(event);
+  }
+
+  /**
+   * Read the next line, which is parsed when the supplier is called.
+   *
+   * @return the supplier of the domain event or null if all events have been read
+   */
+  @Override
+  public Supplier<DomainEvent> readNextRecord() {
+    if (index >= events.size()) {
+      return null;
+    }
+    String event = events.get(index);
+    index++;
+    return () -> parse(event);
+  }
 
+  private static DomainEvent parse(String event) {
     JsonParser parser = new JsonParser();
     JsonElement jsonElement = parser.parse(event);
     String eventClassName = jsonElement.getAsJsonObject().get("eventClassName").getAsString();
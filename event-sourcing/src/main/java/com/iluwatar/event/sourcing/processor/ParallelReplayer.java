@@ -0,0 +1,331 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * This is the parallel replay engine of the event processor.
+ * The journal is read on the calling thread in chunks of undecoded records, which are
+ * decoded on a pool. The decoded chunks are taken back in journal order and the events
+ * are sharded by account number over the shard workers, so each shard applies the
+ * events of its accounts in journal order.
+ *
+ * <p>An event touching accounts of several shards, a transfer between them, is queued
+ * on all of them. Each shard waits there until all of them have reached it, the last
+ * one to arrive applies the event and the others go on once it is applied. Since every
+ * shard sees the events in journal order, they always meet at the earliest such event
+ * and the final state is the same as of a sequential replay. Events of unknown types
+ * are queued on all shards.
+ */
+public class ParallelReplayer {
+
+  private static final int CHUNK_SIZE = 1024;
+  private static final int SHARD_QUEUE_CAPACITY = 64;
+  private static final int ARRIVAL_SPINS = 64;
+  private static final Object[] END = new Object[0];
+
+  private final int shards;
+
+  /**
+   * Instantiates a new parallel replayer.
+   *
+   * @param shards the number of shard workers, which is also the size of the decoding pool
+   */
+  public ParallelReplayer(int shards) {
+    if (shards <= 0) {
+      throw new IllegalArgumentException("Invalid number of shards " + shards);
+    }
+    this.shards = shards;
+  }
+
+  /**
+   * Replays all events of the journal.
+   *
+   * @param journal the journal
+   * @return the number of events replayed
+   */
+  public long replay(EventJournal journal) {
+    return run(journal, false, 0);
+  }
+
+  /**
+   * Replays the events of the journal after the sequence id.
+   *
+   * @param journal the journal
+   * @param sequenceId the sequence id of the last event not to replay
+   * @return the number of events replayed
+   */
+  public long replayAfter(EventJournal journal, long sequenceId) {
+    return run(journal, true, sequenceId);
+  }
+
+  private long run(EventJournal journal, boolean skip, long sequenceId) {
+    AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    ExecutorService decoders = Executors.newFixedThreadPool(shards, runnable -> {
+      Thread thread = new Thread(runnable, "replay-decoder");
+      thread.setDaemon(true);
+      return thread;
+    });
+    Shard[] workers = new Shard[shards];
+    for (int i = 0; i < shards; i++) {
+      workers[i] = new Shard(i, failure);
+      workers[i].start();
+    }
+    long replayed = 0;
+    try {
+      ArrayDeque<Future<DomainEvent[]>> decoding = new ArrayDeque<>();
+      boolean more = true;
+      while (failure.get() == null && (more || !decoding.isEmpty())) {
+        if (more) {
+          List<Supplier<DomainEvent>> chunk = readChunk(journal);
+          more = chunk.size() == CHUNK_SIZE;
+          if (!chunk.isEmpty()) {
+            decoding.add(decoders.submit(() -> decode(chunk)));
+          }
+        }
+        // keep a few chunks decoding ahead of the one dispatched
+        if (!decoding.isEmpty() && (!more || decoding.size() > 2 * shards)) {
+          replayed += dispatch(decoding.poll().get(), workers, skip, sequenceId);
+        }
+      }
+    } catch (ExecutionException e) {
+      failure.compareAndSet(null, e.getCause() instanceof RuntimeException
+          ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      failure.compareAndSet(null, new RuntimeException(e));
+    } catch (RuntimeException e) {
+      failure.compareAndSet(null, e);
+    } finally {
+      decoders.shutdownNow();
+      for (Shard worker : workers) {
+        worker.enqueue(END);
+      }
+      for (Shard worker : workers) {
+        worker.awaitEnd();
+      }
+    }
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+    return replayed;
+  }
+
+  private static List<Supplier<DomainEvent>> readChunk(EventJournal journal) {
+    List<Supplier<DomainEvent>> chunk = new ArrayList<>(CHUNK_SIZE);
+    Supplier<DomainEvent> record;
+    while (chunk.size() < CHUNK_SIZE && (record = journal.readNextRecord()) != null) {
+      chunk.add(record);
+    }
+    return chunk;
+  }
+
+  private static DomainEvent[] decode(List<Supplier<DomainEvent>> chunk) {
+    DomainEvent[] events = new DomainEvent[chunk.size()];
+    for (int i = 0; i < events.length; i++) {
+      events[i] = chunk.get(i).get();
+    }
+    return events;
+  }
+
+  /**
+   * Splits the chunk into one batch per shard and queues the batches.
+   */
+  private long dispatch(DomainEvent[] events, Shard[] workers, boolean skip, long sequenceId) {
+    List<List<Object>> batches = new ArrayList<>(shards);
+    for (int i = 0; i < shards; i++) {
+      batches.add(new ArrayList<>());
+    }
+    long dispatched = 0;
+    for (DomainEvent domainEvent : events) {
+      if (skip && domainEvent.getSequenceId() <= sequenceId) {
+        continue;
+      }
+      dispatched++;
+      if (domainEvent instanceof AccountCreateEvent) {
+        batches.get(shardOf(((AccountCreateEvent) domainEvent).getAccountNo())).add(domainEvent);
+      } else if (domainEvent instanceof MoneyDepositEvent) {
+        batches.get(shardOf(((MoneyDepositEvent) domainEvent).getAccountNo())).add(domainEvent);
+      } else if (domainEvent instanceof MoneyTransferEvent) {
+        MoneyTransferEvent transfer = (MoneyTransferEvent) domainEvent;
+        int from = shardOf(transfer.getAccountNoFrom());
+        int to = shardOf(transfer.getAccountNoTo());
+        if (from == to) {
+          batches.get(from).add(domainEvent);
+        } else {
+          CrossShardEvent crossShardEvent = new CrossShardEvent(domainEvent, 2);
+          batches.get(from).add(crossShardEvent);
+          batches.get(to).add(crossShardEvent);
+        }
+      } else {
+        CrossShardEvent crossShardEvent = new CrossShardEvent(domainEvent, shards);
+        for (List<Object> batch : batches) {
+          batch.add(crossShardEvent);
+        }
+      }
+    }
+    for (int i = 0; i < shards; i++) {
+      if (!batches.get(i).isEmpty()) {
+        workers[i].enqueue(batches.get(i).toArray());
+      }
+    }
+    return dispatched;
+  }
+
+  private int shardOf(int accountNo) {
+    return Math.floorMod(accountNo, shards);
+  }
+
+  private static void apply(DomainEvent domainEvent, AtomicReference<RuntimeException> failure) {
+    // after a failure the events are only passed through, so no shard waits forever
+    if (failure.get() == null) {
+      try {
+        domainEvent.process();
+      } catch (RuntimeException e) {
+        failure.compareAndSet(null, e);
+      }
+    }
+  }
+
+  /**
+   * An event queued on several shards, applied by the last of them to arrive.
+   */
+  private static final class CrossShardEvent {
+
+    private final DomainEvent domainEvent;
+    private final AtomicInteger arriving;
+    private final CountDownLatch applied = new CountDownLatch(1);
+
+    CrossShardEvent(DomainEvent domainEvent, int parties) {
+      this.domainEvent = domainEvent;
+      this.arriving = new AtomicInteger(parties);
+    }
+
+    void arrive(AtomicReference<RuntimeException> failure) {
+      if (arriving.decrementAndGet() == 0) {
+        apply(domainEvent, failure);
+        applied.countDown();
+        return;
+      }
+      // the other shards are usually close behind, so yield for a while before blocking
+      for (int i = 0; i < ARRIVAL_SPINS && applied.getCount() > 0; i++) {
+        Thread.yield();
+      }
+      boolean interrupted = false;
+      while (true) {
+        try {
+          applied.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * A shard worker applying the events of its accounts in order.
+   */
+  private static final class Shard extends Thread {
+
+    private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(SHARD_QUEUE_CAPACITY);
+    private final AtomicReference<RuntimeException> failure;
+
+    Shard(int index, AtomicReference<RuntimeException> failure) {
+      super("replay-shard-" + index);
+      this.failure = failure;
+      setDaemon(true);
+    }
+
+    void enqueue(Object[] batch) {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          queue.put(batch);
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    void awaitEnd() {
+      boolean interrupted = false;
+      while (isAlive()) {
+        try {
+          join();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        Object[] batch;
+        try {
+          batch = queue.take();
+        } catch (InterruptedException e) {
+          continue;
+        }
+        if (batch == END) {
+          return;
+        }
+        for (Object item : batch) {
+          if (item instanceof CrossShardEvent) {
+            ((CrossShardEvent) item).arrive(failure);
+          } else {
+            apply((DomainEvent) item, failure);
+          }
+        }
+      }
+    }
+  }
+}
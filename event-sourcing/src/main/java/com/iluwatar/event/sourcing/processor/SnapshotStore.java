@@ -0,0 +1,255 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.state.AccountSnapshot;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This is the store of the account snapshots.
+ * Each snapshot is a file in a directory named by the sequence id of its last event,
+ * holding the accounts followed by a CRC32 of them. A snapshot is written to a temporary
+ * file, forced and then renamed, so a crash leaves either the whole snapshot or none.
+ * Only the latest few snapshots are kept.
+ *
+ * <p>Snapshots are written by a background thread. A snapshot is only written once the
+ * journal holds its last event, so it never contains an event that recovery could lose,
+ * and while one snapshot is being written, further ones are skipped.
+ */
+public class SnapshotStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotStore.class);
+
+  private static final int SNAPSHOT_MAGIC = 0x45565331;
+  private static final String SNAPSHOT_SUFFIX = ".snapshot";
+  private static final int RETAINED_SNAPSHOTS = 2;
+
+  private final Path directory;
+  private final ExecutorService executor;
+  private final AtomicBoolean saving = new AtomicBoolean();
+
+  /**
+   * Instantiates a new snapshot store.
+   *
+   * @param directory the directory of the snapshot files
+   */
+  public SnapshotStore(Path directory) {
+    this.directory = directory;
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    this.executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "snapshot-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Is a snapshot being written in the background.
+   *
+   * @return true if a snapshot is being written
+   */
+  public boolean isSaving() {
+    return saving.get();
+  }
+
+  /**
+   * Writes the snapshot in the background once its last event is written to the journal.
+   *
+   * @param snapshot the snapshot
+   * @param written the future completed when the last event of the snapshot is written
+   * @return false if the snapshot is skipped because another one is being written
+   */
+  public boolean saveAsync(AccountSnapshot snapshot, CompletableFuture<Void> written) {
+    if (!saving.compareAndSet(false, true)) {
+      return false;
+    }
+    written.thenRunAsync(() -> save(snapshot), executor).whenComplete((result, e) -> {
+      saving.set(false);
+      if (e != null) {
+        LOGGER.error("Snapshot " + snapshot.getSequenceId() + " could not be written", e);
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Writes the snapshot and deletes the older ones beyond the retained few.
+   *
+   * @param snapshot the snapshot
+   */
+  public void save(AccountSnapshot snapshot) {
+    Path file = snapshotPath(snapshot.getSequenceId());
+    Path temporary = directory.resolve(file.getFileName() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel));
+        write(snapshot, stream);
+        stream.flush();
+        channel.force(true);
+      }
+      Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+      List<Path> snapshots = listSnapshots();
+      for (int i = 0; i < snapshots.size() - RETAINED_SNAPSHOTS; i++) {
+        Files.delete(snapshots.get(i));
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Loads the latest snapshot, falling back to an older one if it is corrupt.
+   *
+   * @return the latest snapshot or null if there is none
+   */
+  public AccountSnapshot loadLatest() {
+    try {
+      List<Path> snapshots = listSnapshots();
+      for (int i = snapshots.size() - 1; i >= 0; i--) {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(snapshots.get(i)))) {
+          return read(stream);
+        } catch (IOException e) {
+          LOGGER.warn("Skipping corrupt snapshot " + snapshots.get(i), e);
+        }
+      }
+      return null;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Deletes all snapshots.
+   */
+  public void reset() {
+    try {
+      for (Path snapshot : listSnapshots()) {
+        Files.delete(snapshot);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Waits for the snapshot being written and stops the background thread.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void close() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+  }
+
+  private static void write(AccountSnapshot snapshot, OutputStream stream) throws IOException {
+    CheckedOutputStream checked = new CheckedOutputStream(stream, new CRC32());
+    DataOutputStream data = new DataOutputStream(checked);
+    data.writeInt(SNAPSHOT_MAGIC);
+    data.writeLong(snapshot.getSequenceId());
+    data.writeInt(snapshot.getAccounts().size());
+    for (Account account : snapshot.getAccounts()) {
+      data.writeInt(account.getAccountNo());
+      data.writeUTF(account.getOwner());
+      byte[] unscaled = account.getMoney().unscaledValue().toByteArray();
+      data.writeInt(account.getMoney().scale());
+      data.writeInt(unscaled.length);
+      data.write(unscaled);
+    }
+    data.flush();
+    new DataOutputStream(stream).writeLong(checked.getChecksum().getValue());
+  }
+
+  private static AccountSnapshot read(InputStream stream) throws IOException {
+    CheckedInputStream checked = new CheckedInputStream(stream, new CRC32());
+    DataInputStream data = new DataInputStream(checked);
+    if (data.readInt() != SNAPSHOT_MAGIC) {
+      throw new IOException("Not a snapshot");
+    }
+    long sequenceId = data.readLong();
+    int count = data.readInt();
+    List<Account> accounts = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Account account = new Account(data.readInt(), data.readUTF());
+      int scale = data.readInt();
+      byte[] unscaled = new byte[data.readInt()];
+      data.readFully(unscaled);
+      account.setMoney(new BigDecimal(new BigInteger(unscaled), scale));
+      accounts.add(account);
+    }
+    long checksum = checked.getChecksum().getValue();
+    if (new DataInputStream(stream).readLong() != checksum) {
+      throw new IOException("Snapshot checksum mismatch");
+    }
+    return new AccountSnapshot(sequenceId, accounts);
+  }
+
+  private Path snapshotPath(long sequenceId) {
+    return directory.resolve(String.format("%020d%s", sequenceId, SNAPSHOT_SUFFIX));
+  }
+
+  private List<Path> listSnapshots() throws IOException {
+    List<Path> snapshots = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+        "*" + SNAPSHOT_SUFFIX)) {
+      for (Path snapshot : stream) {
+        snapshots.add(snapshot);
+      }
+    }
+    Collections.sort(snapshots);
+    return snapshots;
+  }
+}
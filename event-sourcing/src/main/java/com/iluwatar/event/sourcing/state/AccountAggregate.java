@@ -23,18 +23,20 @@
 package com.iluwatar.event.sourcing.state;
 
 import com.iluwatar.event.sourcing.domain.Account;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This is the static accounts map holder class.
- * This class holds the state of the accounts.
+ * This class holds the state of the accounts. The map is concurrent, so that events on
+ * different accounts can be replayed in parallel.
  *
  * Created by Serdar Hamzaogullari on 06.08.2017.
  */
 public class AccountAggregate {
 
-  private static Map<Integer, Account> accounts = new HashMap<>();
+  private static Map<Integer, Account> accounts = new ConcurrentHashMap<>();
 
   private AccountAggregate() {
   }
@@ -62,10 +64,34 @@ public class AccountAggregate {
     return account.copy();
   }
 
+  /**
+   * Takes a snapshot of the accounts. The accounts are not copied one by one, an account
+   * in the map is never changed but replaced by a changed copy, see {@link #getAccount(int)}.
+   *
+   * @param sequenceId the sequence id of the last processed event
+   * @return the snapshot
+   */
+  public static AccountSnapshot snapshot(long sequenceId) {
+    return new AccountSnapshot(sequenceId, new ArrayList<>(accounts.values()));
+  }
+
+  /**
+   * Restores the accounts of the snapshot, replacing the current state.
+   *
+   * @param snapshot the snapshot
+   */
+  public static void restore(AccountSnapshot snapshot) {
+    Map<Integer, Account> restored = new ConcurrentHashMap<>();
+    for (Account account : snapshot.getAccounts()) {
+      restored.put(account.getAccountNo(), account.copy());
+    }
+    accounts = restored;
+  }
+
   /**
    * Reset state.
    */
   public static void resetState() {
-    accounts = new HashMap<>();
+    accounts = new ConcurrentHashMap<>();
   }
 }
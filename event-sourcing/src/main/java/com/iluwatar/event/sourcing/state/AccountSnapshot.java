@@ -0,0 +1,67 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.state;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This is a snapshot of the account states.
+ * It holds the accounts as they were after the event with the sequence id was processed,
+ * so recovery only needs to replay the events after it.
+ */
+public class AccountSnapshot {
+
+  private final long sequenceId;
+  private final List<Account> accounts;
+
+  /**
+   * Instantiates a new Account snapshot.
+   *
+   * @param sequenceId the sequence id of the last event in the snapshot
+   * @param accounts the accounts, which must not be changed afterwards
+   */
+  public AccountSnapshot(long sequenceId, List<Account> accounts) {
+    this.sequenceId = sequenceId;
+    this.accounts = Collections.unmodifiableList(accounts);
+  }
+
+  /**
+   * Gets sequence id.
+   *
+   * @return the sequence id of the last event in the snapshot
+   */
+  public long getSequenceId() {
+    return sequenceId;
+  }
+
+  /**
+   * Gets accounts.
+   *
+   * @return the accounts
+   */
+  public List<Account> getAccounts() {
+    return accounts;
+  }
+}
@@ -0,0 +1,223 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for the binary segmented journal.
+ */
+public class BinarySegmentedJournalTest {
+
+  private Path directory;
+
+  /**
+   * Create the journal directory.
+   */
+  @BeforeEach
+  public void createDirectory() throws IOException {
+    directory = Files.createTempDirectory("journal");
+  }
+
+  /**
+   * Delete the journal directory.
+   */
+  @AfterEach
+  public void deleteDirectory() throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  /**
+   * Test that events are read back in order over several segments.
+   */
+  @Test
+  public void testEventsAreReadBackAcrossSegments() throws IOException {
+    BinarySegmentedJournal journal = new BinarySegmentedJournal(directory, 256);
+    journal.write(new AccountCreateEvent(0, 10, 1, "Daenerys Targaryen"));
+    for (int i = 1; i < 100; i++) {
+      journal.write(new MoneyDepositEvent(i, 10 + i, 1, new BigDecimal("1000.25")));
+    }
+    journal.write(new MoneyTransferEvent(100, 110, new BigDecimal("-12.5"), 1, 2));
+    journal.close();
+    assertTrue(segments().size() > 10);
+
+    BinarySegmentedJournal reader = new BinarySegmentedJournal(directory, 256);
+    AccountCreateEvent create = (AccountCreateEvent) reader.readNext();
+    assertEquals("Daenerys Targaryen", create.getOwner());
+    assertEquals(false, create.isRealTime());
+    for (int i = 1; i < 100; i++) {
+      MoneyDepositEvent deposit = (MoneyDepositEvent) reader.readNext();
+      assertEquals(i, deposit.getSequenceId());
+      assertEquals(10 + i, deposit.getCreatedTime());
+      assertEquals(new BigDecimal("1000.25"), deposit.getMoney());
+    }
+    MoneyTransferEvent transfer = (MoneyTransferEvent) reader.readNext();
+    assertEquals(new BigDecimal("-12.5"), transfer.getMoney());
+    assertEquals(1, transfer.getAccountNoFrom());
+    assertEquals(2, transfer.getAccountNoTo());
+    assertNull(reader.readNext());
+  }
+
+  /**
+   * Test that a torn record at the end of the journal is cut off when it is reopened.
+   */
+  @Test
+  public void testTornRecordIsCutOff() throws IOException {
+    BinarySegmentedJournal journal = new BinarySegmentedJournal(directory);
+    journal.write(new AccountCreateEvent(0, 10, 1, "Jon Snow"));
+    journal.write(new MoneyDepositEvent(1, 11, 1, BigDecimal.TEN));
+    journal.close();
+    Path segment = segments().get(0);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3);
+    }
+
+    journal = new BinarySegmentedJournal(directory);
+    journal.write(new MoneyDepositEvent(2, 12, 1, BigDecimal.ONE));
+    journal.close();
+
+    BinarySegmentedJournal reader = new BinarySegmentedJournal(directory);
+    assertEquals(0, reader.readNext().getSequenceId());
+    assertEquals(2, reader.readNext().getSequenceId());
+    assertNull(reader.readNext());
+  }
+
+  /**
+   * Test that a corrupt record ends the replay, even with more segments after it.
+   */
+  @Test
+  public void testCorruptRecordEndsReplay() throws IOException {
+    BinarySegmentedJournal journal = new BinarySegmentedJournal(directory, 256);
+    for (int i = 0; i < 50; i++) {
+      journal.write(new MoneyDepositEvent(i, 10 + i, 1, BigDecimal.TEN));
+    }
+    journal.close();
+    List<Path> segments = segments();
+    assertTrue(segments.size() > 3);
+    try (FileChannel channel = FileChannel.open(segments.get(1), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xff}), 20);
+    }
+
+    BinarySegmentedJournal reader = new BinarySegmentedJournal(directory, 256);
+    long last = -1;
+    DomainEvent event;
+    while ((event = reader.readNext()) != null) {
+      assertEquals(last + 1, event.getSequenceId());
+      last = event.getSequenceId();
+    }
+    assertTrue(last < 49);
+    assertNull(reader.readNext());
+  }
+
+  /**
+   * Test that a last segment created right before a crash, without its header, is
+   * started over instead of making the journal impossible to open.
+   */
+  @Test
+  public void testHeaderlessLastSegmentIsRewritten() throws IOException {
+    BinarySegmentedJournal journal = new BinarySegmentedJournal(directory);
+    journal.write(new AccountCreateEvent(0, 10, 1, "Jon Snow"));
+    journal.close();
+    Path empty = directory.resolve(String.format("%020d.segment", 1));
+    Files.createFile(empty);
+
+    journal = new BinarySegmentedJournal(directory);
+    journal.write(new MoneyDepositEvent(1, 11, 1, BigDecimal.ONE));
+    journal.close();
+    Files.write(directory.resolve(String.format("%020d.segment", 2)), new byte[3]);
+
+    BinarySegmentedJournal reader = new BinarySegmentedJournal(directory);
+    assertEquals(0, reader.readNext().getSequenceId());
+    assertEquals(1, reader.readNext().getSequenceId());
+    assertNull(reader.readNext());
+  }
+
+  /**
+   * Test that big decimals of more than 255 bytes are encoded without loss.
+   */
+  @Test
+  public void testLargeDecimalIsReadBack() {
+    BigDecimal large = new BigDecimal(BigInteger.ONE.shiftLeft(2100).negate(), 2);
+    BinarySegmentedJournal journal = new BinarySegmentedJournal(directory);
+    journal.write(new MoneyDepositEvent(0, 10, 1, large));
+    journal.close();
+
+    MoneyDepositEvent deposit = (MoneyDepositEvent) new BinarySegmentedJournal(directory).readNext();
+    assertEquals(large, deposit.getMoney());
+  }
+
+  /**
+   * Test state recovery through the domain event processor.
+   */
+  @Test
+  public void testStateRecovery() {
+    DomainEventProcessor eventProcessor =
+        new DomainEventProcessor(new BinarySegmentedJournal(directory, 1024));
+    eventProcessor.reset();
+    AccountAggregate.resetState();
+    eventProcessor.process(new AccountCreateEvent(0, 0, 1, "Daenerys Targaryen"));
+    eventProcessor.process(new AccountCreateEvent(1, 0, 2, "Jon Snow"));
+    eventProcessor.process(new MoneyDepositEvent(2, 0, 1, new BigDecimal("100000")));
+    eventProcessor.process(new MoneyTransferEvent(3, 0, new BigDecimal("10000"), 1, 2));
+    AccountAggregate.resetState();
+
+    new DomainEventProcessor(new BinarySegmentedJournal(directory, 1024)).recover();
+    assertEquals(new BigDecimal("90000"), AccountAggregate.getAccount(1).getMoney());
+    assertEquals(new BigDecimal("10000"), AccountAggregate.getAccount(2).getMoney());
+    DomainEvent first = new BinarySegmentedJournal(directory, 1024).readNext();
+    assertEquals(0, first.getSequenceId());
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> paths = Files.list(directory)) {
+      return paths.sorted().collect(Collectors.toList());
+    }
+  }
+}
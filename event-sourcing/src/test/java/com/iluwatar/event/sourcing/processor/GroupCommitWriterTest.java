@@ -0,0 +1,204 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for the group commit pipeline.
+ */
+public class GroupCommitWriterTest {
+
+  /**
+   * Journal keeping the events in memory and counting the batches and forces.
+   */
+  private static class RecordingJournal implements EventJournal {
+
+    private final List<DomainEvent> events = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger forces = new AtomicInteger();
+    private volatile boolean failing;
+
+    @Override
+    public void write(DomainEvent domainEvent) {
+      write(Collections.singletonList(domainEvent));
+    }
+
+    @Override
+    public void write(List<DomainEvent> domainEvents) {
+      if (failing) {
+        throw new RuntimeException("disk full");
+      }
+      batchSizes.add(domainEvents.size());
+      events.addAll(domainEvents);
+    }
+
+    @Override
+    public void force() {
+      forces.incrementAndGet();
+    }
+
+    @Override
+    public void reset() {
+      events.clear();
+    }
+
+    @Override
+    public DomainEvent readNext() {
+      return null;
+    }
+  }
+
+  private static DomainEvent event(long sequenceId) {
+    return new MoneyDepositEvent(sequenceId, sequenceId, 1, BigDecimal.ONE);
+  }
+
+  /**
+   * Test that concurrent producers share forces and every producer's events stay in order.
+   */
+  @Test
+  public void testConcurrentProducersShareForces() throws Exception {
+    RecordingJournal journal = new RecordingJournal();
+    GroupCommitWriter writer = new GroupCommitWriter(journal, 64, 1, TimeUnit.MILLISECONDS, 256);
+    int producers = 4;
+    int perProducer = 2000;
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      int producer = p;
+      threads.add(new Thread(() -> {
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < perProducer; i++) {
+          last = writer.append(event((long) producer * perProducer + i));
+        }
+        last.join();
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    writer.close();
+
+    assertEquals(producers * perProducer, journal.events.size());
+    assertTrue(journal.forces.get() < producers * perProducer / 4);
+    assertTrue(journal.batchSizes.stream().allMatch(size -> size <= 64));
+    long[] lastSeen = new long[producers];
+    Arrays.fill(lastSeen, -1);
+    for (DomainEvent event : journal.events) {
+      int producer = (int) (event.getSequenceId() / perProducer);
+      assertTrue(event.getSequenceId() > lastSeen[producer]);
+      lastSeen[producer] = event.getSequenceId();
+    }
+  }
+
+  /**
+   * Test that a single producer's events are batched during the linger time.
+   */
+  @Test
+  public void testLingerFillsBatch() throws Exception {
+    RecordingJournal journal = new RecordingJournal();
+    GroupCommitWriter writer = new GroupCommitWriter(journal, 10, 1, TimeUnit.SECONDS, 10);
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      futures.add(writer.append(event(i)));
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+    writer.close();
+
+    assertEquals(Collections.singletonList(10), journal.batchSizes);
+    assertEquals(1, journal.forces.get());
+  }
+
+  /**
+   * Test that a failed write fails the futures of its batch.
+   */
+  @Test
+  public void testFailureIsPropagated() throws Exception {
+    RecordingJournal journal = new RecordingJournal();
+    journal.failing = true;
+    GroupCommitWriter writer = new GroupCommitWriter(journal, 8, 0, TimeUnit.MILLISECONDS, 8);
+    CompletableFuture<Void> future = writer.append(event(1));
+    ExecutionException e = assertThrows(ExecutionException.class, future::get);
+    assertEquals("disk full", e.getCause().getMessage());
+    writer.close();
+    assertThrows(IllegalStateException.class, () -> writer.append(event(2)));
+  }
+
+  /**
+   * Test that events processed with group commit are recovered from the journal.
+   */
+  @Test
+  public void testGroupCommittedEventsAreRecovered() throws Exception {
+    Path directory = Files.createTempDirectory("journal");
+    AccountAggregate.resetState();
+    try {
+      BinarySegmentedJournal journal = new BinarySegmentedJournal(directory, 4096);
+      DomainEventProcessor processor = new DomainEventProcessor(journal);
+      processor.enableGroupCommit(16, 1);
+      processor.process(new AccountCreateEvent(0, 1, 1, "Daenerys"));
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+      for (int i = 1; i <= 500; i++) {
+        futures.add(processor.processAsync(event(i)));
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+      processor.disableGroupCommit();
+      journal.close();
+
+      AccountAggregate.resetState();
+      BinarySegmentedJournal reopened = new BinarySegmentedJournal(directory, 4096);
+      new DomainEventProcessor(reopened).recover();
+      reopened.close();
+
+      assertEquals(0, BigDecimal.valueOf(500).compareTo(AccountAggregate.getAccount(1).getMoney()));
+    } finally {
+      AccountAggregate.resetState();
+      try (Stream<Path> paths = Files.walk(directory)) {
+        for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+}
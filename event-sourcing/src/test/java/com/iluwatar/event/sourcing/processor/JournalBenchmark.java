@@ -0,0 +1,115 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark comparing the append throughput and the recovery time of the
+ * {@link JsonFileJournal} and the {@link BinarySegmentedJournal}.
+ * The optional argument is the number of events, 10M by default. Note that the
+ * json journal is written to Journal.json in the working directory.
+ */
+public final class JournalBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JournalBenchmark.class);
+
+  private static final int ACCOUNTS = 1000;
+
+  private JournalBenchmark() {
+  }
+
+  /**
+   * The entry point of the benchmark.
+   *
+   * @param args the input arguments
+   */
+  public static void main(String[] args) throws IOException {
+    int events = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+    Path directory = Files.createTempDirectory("journal");
+    try {
+      run("binary", events, () -> new BinarySegmentedJournal(directory));
+      run("json", events, JsonFileJournal::new);
+    } finally {
+      new JsonFileJournal().reset();
+      try (Stream<Path> paths = Files.walk(directory)) {
+        List<Path> all = paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        for (Path path : all) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
+  private static void run(String name, int events, Supplier<EventJournal> journals) {
+    EventJournal journal = journals.get();
+    journal.reset();
+    long start = System.nanoTime();
+    for (int i = 0; i < events; i++) {
+      journal.write(event(i));
+    }
+    if (journal instanceof BinarySegmentedJournal) {
+      ((BinarySegmentedJournal) journal).close();
+    }
+    long appendNanos = System.nanoTime() - start;
+
+    AccountAggregate.resetState();
+    start = System.nanoTime();
+    new DomainEventProcessor(journals.get()).recover();
+    long recoveryNanos = System.nanoTime() - start;
+    LOGGER.info("{}: {} events appended/s, recovery of {} events in {} ms", name,
+        events * 1_000_000_000L / appendNanos, events, recoveryNanos / 1_000_000);
+  }
+
+  /**
+   * Creates the accounts first, then mostly deposits and from the third round on every
+   * tenth event a transfer.
+   */
+  private static DomainEvent event(int sequenceId) {
+    long now = System.currentTimeMillis();
+    if (sequenceId < ACCOUNTS) {
+      return new AccountCreateEvent(sequenceId, now, sequenceId, "Owner " + sequenceId);
+    }
+    int accountNo = sequenceId % ACCOUNTS;
+    if (sequenceId % 10 == 0 && sequenceId >= 2 * ACCOUNTS) {
+      // the account after a multiple of ten has received a deposit in the round before
+      return new MoneyTransferEvent(sequenceId, now, BigDecimal.ONE, accountNo + 1, accountNo);
+    }
+    return new MoneyDepositEvent(sequenceId, now, accountNo, new BigDecimal("10.50"));
+  }
+}
@@ -0,0 +1,159 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for the parallel replay engine.
+ */
+public class ParallelReplayerTest {
+
+  private static final int ACCOUNTS = 16;
+
+  private Path directory;
+
+  /**
+   * Create the journal directory.
+   */
+  @BeforeEach
+  public void createDirectory() throws IOException {
+    directory = Files.createTempDirectory("replay");
+    AccountAggregate.resetState();
+  }
+
+  /**
+   * Delete the journal directory.
+   */
+  @AfterEach
+  public void deleteDirectory() throws IOException {
+    AccountAggregate.resetState();
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  /**
+   * Writes a journal of deposits and transfers, each transfer moving a random part of the
+   * whole balance, so they only succeed when applied in order.
+   */
+  private void writeJournal(int events) {
+    BinarySegmentedJournal journal = new BinarySegmentedJournal(directory, 64 * 1024);
+    Random random = new Random(42);
+    long[] balances = new long[ACCOUNTS];
+    for (int i = 0; i < events; i++) {
+      int accountNo = i % ACCOUNTS;
+      if (i < ACCOUNTS) {
+        journal.write(new AccountCreateEvent(i, i, accountNo, "Owner " + accountNo));
+      } else if (random.nextInt(3) == 0) {
+        balances[accountNo] += 5;
+        journal.write(new MoneyDepositEvent(i, i, accountNo, BigDecimal.valueOf(5)));
+      } else {
+        int to = random.nextInt(ACCOUNTS);
+        long money = balances[accountNo] == 0 ? 0 : 1 + random.nextInt((int) balances[accountNo]);
+        balances[accountNo] -= money;
+        balances[to] += money;
+        journal.write(new MoneyTransferEvent(i, i, BigDecimal.valueOf(money), accountNo, to));
+      }
+    }
+    journal.close();
+  }
+
+  private Map<Integer, BigDecimal> recover(int parallelism) {
+    AccountAggregate.resetState();
+    BinarySegmentedJournal journal = new BinarySegmentedJournal(directory, 64 * 1024);
+    new DomainEventProcessor(journal).recover(parallelism);
+    journal.close();
+    Map<Integer, BigDecimal> balances = new HashMap<>();
+    for (int accountNo = 0; accountNo < ACCOUNTS; accountNo++) {
+      Account account = AccountAggregate.getAccount(accountNo);
+      balances.put(accountNo, account.getMoney());
+    }
+    return balances;
+  }
+
+  /**
+   * Test that parallel replay gives the same state as sequential replay.
+   */
+  @Test
+  public void testParallelReplayMatchesSequentialReplay() {
+    writeJournal(50_000);
+    Map<Integer, BigDecimal> sequential = recover(1);
+    for (int parallelism : new int[] {2, 3, 4, 8}) {
+      assertEquals(sequential, recover(parallelism), "parallelism " + parallelism);
+    }
+  }
+
+  /**
+   * Test that the replayer counts the events replayed, skipping those up to the sequence id.
+   */
+  @Test
+  public void testReplayAfterSequenceId() {
+    writeJournal(10_000);
+    BinarySegmentedJournal journal = new BinarySegmentedJournal(directory, 64 * 1024);
+    assertEquals(10_000, new ParallelReplayer(4).replay(journal));
+    journal.close();
+    journal = new BinarySegmentedJournal(directory, 64 * 1024);
+    assertEquals(0, new ParallelReplayer(4).replayAfter(journal, 9_999));
+    journal.close();
+  }
+
+  /**
+   * Test that a failing event fails the replay.
+   */
+  @Test
+  public void testFailureIsThrown() {
+    BinarySegmentedJournal journal = new BinarySegmentedJournal(directory, 64 * 1024);
+    journal.write(new AccountCreateEvent(0, 0, 1, "Daenerys"));
+    journal.write(new AccountCreateEvent(1, 1, 2, "Jon"));
+    journal.write(new MoneyTransferEvent(2, 2, BigDecimal.ONE, 1, 2));
+    journal.close();
+    BinarySegmentedJournal reopened = new BinarySegmentedJournal(directory, 64 * 1024);
+    RuntimeException e = assertThrows(RuntimeException.class,
+        () -> new ParallelReplayer(2).replay(reopened));
+    reopened.close();
+    assertEquals("Insufficient Account Balance", e.getMessage());
+  }
+}
@@ -0,0 +1,136 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark comparing sequential recovery with the parallel replay of the
+ * {@link ParallelReplayer} on a {@link BinarySegmentedJournal}.
+ * The optional arguments are the number of events, 5M by default, and the number
+ * of shards, the number of processors by default.
+ */
+public final class ReplayBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplayBenchmark.class);
+
+  private static final int ACCOUNTS = 1000;
+
+  private ReplayBenchmark() {
+  }
+
+  /**
+   * The entry point of the benchmark.
+   *
+   * @param args the input arguments
+   */
+  public static void main(String[] args) throws IOException {
+    int events = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+    int shards = args.length > 1 ? Integer.parseInt(args[1])
+        : Math.max(2, Runtime.getRuntime().availableProcessors());
+    Path directory = Files.createTempDirectory("journal");
+    try {
+      BinarySegmentedJournal journal = new BinarySegmentedJournal(directory);
+      List<DomainEvent> batch = new ArrayList<>();
+      for (int i = 0; i < events; i++) {
+        batch.add(event(i));
+        if (batch.size() == 1024) {
+          journal.write(batch);
+          batch.clear();
+        }
+      }
+      journal.write(batch);
+      journal.close();
+
+      for (int round = 0; round < 3; round++) {
+        long sequentialNanos = recover(directory, 1);
+        List<BigDecimal> sequential = balances();
+        long parallelNanos = recover(directory, shards);
+        if (!sequential.equals(balances())) {
+          throw new IllegalStateException("Parallel replay differs from sequential replay");
+        }
+        LOGGER.info("{} events: sequential recovery in {} ms, parallel over {} shards in {} ms",
+            events, sequentialNanos / 1_000_000, shards, parallelNanos / 1_000_000);
+      }
+    } finally {
+      try (Stream<Path> paths = Files.walk(directory)) {
+        List<Path> all = paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        for (Path path : all) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
+  private static long recover(Path directory, int parallelism) {
+    AccountAggregate.resetState();
+    BinarySegmentedJournal journal = new BinarySegmentedJournal(directory);
+    long start = System.nanoTime();
+    new DomainEventProcessor(journal).recover(parallelism);
+    long nanos = System.nanoTime() - start;
+    journal.close();
+    return nanos;
+  }
+
+  private static List<BigDecimal> balances() {
+    List<BigDecimal> balances = new ArrayList<>(ACCOUNTS);
+    for (int accountNo = 0; accountNo < ACCOUNTS; accountNo++) {
+      Account account = AccountAggregate.getAccount(accountNo);
+      balances.add(account.getMoney());
+    }
+    return balances;
+  }
+
+  /**
+   * Creates the accounts first, then mostly deposits and from the third round on every
+   * tenth event a transfer, which mostly crosses shards.
+   */
+  private static DomainEvent event(int sequenceId) {
+    long now = System.currentTimeMillis();
+    if (sequenceId < ACCOUNTS) {
+      return new AccountCreateEvent(sequenceId, now, sequenceId, "Owner " + sequenceId);
+    }
+    int accountNo = sequenceId % ACCOUNTS;
+    if (sequenceId % 10 == 0 && sequenceId >= 2 * ACCOUNTS) {
+      // the account after a multiple of ten has received a deposit in the round before
+      return new MoneyTransferEvent(sequenceId, now, BigDecimal.ONE, accountNo + 1, accountNo);
+    }
+    return new MoneyDepositEvent(sequenceId, now, accountNo, new BigDecimal("10.50"));
+  }
+}
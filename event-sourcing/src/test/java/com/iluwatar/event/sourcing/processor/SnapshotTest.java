@@ -0,0 +1,204 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import com.iluwatar.event.sourcing.state.AccountSnapshot;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for recovery from snapshots.
+ */
+public class SnapshotTest {
+
+  private static final int ACCOUNTS = 10;
+  private static final int EVENTS = 2000;
+
+  private Path directory;
+
+  /**
+   * Create the journal directory.
+   */
+  @BeforeEach
+  public void createDirectory() throws IOException {
+    directory = Files.createTempDirectory("snapshot");
+    AccountAggregate.resetState();
+  }
+
+  /**
+   * Delete the journal directory.
+   */
+  @AfterEach
+  public void deleteDirectory() throws IOException {
+    AccountAggregate.resetState();
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  /**
+   * Journal counting the events read from the binary journal.
+   */
+  private static class CountingJournal extends BinarySegmentedJournal {
+
+    private int read;
+
+    CountingJournal(Path directory) {
+      super(directory, 4096);
+    }
+
+    @Override
+    public synchronized DomainEvent readNext() {
+      DomainEvent domainEvent = super.readNext();
+      if (domainEvent != null) {
+        read++;
+      }
+      return domainEvent;
+    }
+  }
+
+  private void processEvents() throws InterruptedException {
+    BinarySegmentedJournal journal = new BinarySegmentedJournal(directory.resolve("journal"), 4096);
+    SnapshotStore snapshotStore = new SnapshotStore(directory.resolve("snapshots"));
+    DomainEventProcessor processor = new DomainEventProcessor(journal);
+    processor.enableSnapshots(snapshotStore, 100);
+    for (int i = 0; i < EVENTS; i++) {
+      processor.process(event(i));
+    }
+    snapshotStore.close();
+    journal.close();
+  }
+
+  private static DomainEvent event(int sequenceId) {
+    int accountNo = sequenceId % ACCOUNTS + 1;
+    if (sequenceId < ACCOUNTS) {
+      return new AccountCreateEvent(sequenceId, sequenceId, accountNo, "Owner " + accountNo);
+    } else if (sequenceId < 2 * ACCOUNTS || sequenceId % 3 != 0) {
+      return new MoneyDepositEvent(sequenceId, sequenceId, accountNo, new BigDecimal("10.5"));
+    }
+    return new MoneyTransferEvent(sequenceId, sequenceId, new BigDecimal("7.25"), accountNo,
+        accountNo % ACCOUNTS + 1);
+  }
+
+  private static Map<Integer, BigDecimal> balances() {
+    Map<Integer, BigDecimal> balances = new HashMap<>();
+    for (int accountNo = 1; accountNo <= ACCOUNTS; accountNo++) {
+      Account account = AccountAggregate.getAccount(accountNo);
+      balances.put(accountNo, account == null ? null : account.getMoney());
+    }
+    return balances;
+  }
+
+  /**
+   * Test that recovery from the latest snapshot and the events after it gives the same
+   * state as replaying all events.
+   */
+  @Test
+  public void testSnapshotAndTailMatchFullReplay() throws InterruptedException {
+    processEvents();
+    Map<Integer, BigDecimal> processed = balances();
+
+    AccountAggregate.resetState();
+    BinarySegmentedJournal journal = new BinarySegmentedJournal(directory.resolve("journal"), 4096);
+    new DomainEventProcessor(journal).recover();
+    journal.close();
+    Map<Integer, BigDecimal> replayed = balances();
+
+    AccountAggregate.resetState();
+    journal = new BinarySegmentedJournal(directory.resolve("journal"), 4096);
+    SnapshotStore snapshotStore = new SnapshotStore(directory.resolve("snapshots"));
+    DomainEventProcessor processor = new DomainEventProcessor(journal);
+    processor.enableSnapshots(snapshotStore, 100);
+    processor.recover();
+    snapshotStore.close();
+    journal.close();
+
+    assertEquals(processed, replayed);
+    assertEquals(replayed, balances());
+  }
+
+  /**
+   * Test that recovery only reads the segments after the latest snapshot.
+   */
+  @Test
+  public void testRecoveryReadsOnlyTheTail() throws InterruptedException {
+    processEvents();
+    SnapshotStore snapshotStore = new SnapshotStore(directory.resolve("snapshots"));
+    AccountSnapshot snapshot = snapshotStore.loadLatest();
+    assertNotNull(snapshot);
+    assertTrue(snapshot.getSequenceId() >= 100);
+    assertEquals(ACCOUNTS, snapshot.getAccounts().size());
+
+    AccountAggregate.resetState();
+    CountingJournal journal = new CountingJournal(directory.resolve("journal"));
+    DomainEventProcessor processor = new DomainEventProcessor(journal);
+    processor.enableSnapshots(snapshotStore, 100);
+    processor.recover();
+    snapshotStore.close();
+    journal.close();
+
+    assertTrue(journal.read < EVENTS - snapshot.getSequenceId() + 200,
+        "read " + journal.read + " events");
+  }
+
+  /**
+   * Test that the older snapshots are deleted.
+   */
+  @Test
+  public void testOnlyLatestSnapshotsAreKept() throws InterruptedException, IOException {
+    SnapshotStore snapshotStore = new SnapshotStore(directory);
+    for (int i = 1; i <= 5; i++) {
+      snapshotStore.save(new AccountSnapshot(i, Collections.emptyList()));
+    }
+    snapshotStore.close();
+    try (Stream<Path> paths = Files.list(directory)) {
+      List<Path> snapshots = paths.collect(Collectors.toList());
+      assertEquals(2, snapshots.size());
+    }
+    assertEquals(5, snapshotStore.loadLatest().getSequenceId());
+  }
+}
@@ -36,13 +36,18 @@ public class ArrayInput extends Input<int[][]> {
   public ArrayInput(int[][] data) {
     super(data);
   }
+
+  @Override
+  public int size() {
+    return this.data == null ? 0 : this.data.length;
+  }
   
-  static int[] makeDivisions(int[][] data, int num) {
-    int initialDivision = data.length / num; //equally dividing
+  static int[] makeDivisions(int length, int num) {
+    int initialDivision = length / num; //equally dividing
     int[] divisions = new int[num];
     Arrays.fill(divisions, initialDivision);
-    if (initialDivision * num != data.length) {
-      int extra = data.length - initialDivision * num;
+    if (initialDivision * num != length) {
+      int extra = length - initialDivision * num;
       int l = 0;
       //equally dividing extra among all parts
       while (extra > 0) {
@@ -63,13 +68,13 @@ public class ArrayInput extends Input<int[][]> {
     if (this.data == null) {
       return null;
     } else {
-      int[] divisions = makeDivisions(this.data, num);
+      int[] divisions = makeDivisions(this.data.length, num);
       ArrayList<Input> result = new ArrayList<Input>(num);
       int rowsDone = 0; //number of rows divided so far
       for (int i = 0; i < num; i++) {
         int rows = divisions[i];
         if (rows != 0) {
-          int[][] divided = new int[rows][this.data[0].length];
+          int[][] divided = new int[rows][]; //rows are shared, not copied
           for (int j = 0; j < rows; j++) {
             divided[j] = this.data[rowsDone + j];
           }
@@ -0,0 +1,66 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.iluwatar.masterworker;
+
+import java.util.ArrayList;
+
+/**
+ *Class FlatArrayInput extends abstract class {@link Input} and contains data
+ *of type {@link IntMatrix}, along with the target matrix its transpose is to be
+ *written into. Dividing it hands out row views of the data and the matching
+ *column views of the target, so no values are copied.
+ */
+
+public class FlatArrayInput extends Input<IntMatrix> {
+
+  public final IntMatrix target;
+
+  public FlatArrayInput(IntMatrix data) {
+    this(data, new IntMatrix(data.getColumns(), data.getRows()));
+  }
+
+  public FlatArrayInput(IntMatrix data, IntMatrix target) {
+    super(data);
+    this.target = target;
+  }
+
+  @Override
+  public int size() {
+    return this.data.getRows();
+  }
+
+  @Override
+  public ArrayList<Input> divideData(int num) {
+    int[] divisions = ArrayInput.makeDivisions(this.data.getRows(), num);
+    ArrayList<Input> result = new ArrayList<Input>(num);
+    int rowsDone = 0; //number of rows divided so far
+    for (int i = 0; i < num && divisions[i] != 0; i++) {
+      int rows = divisions[i];
+      result.add(new FlatArrayInput(this.data.view(rowsDone, 0, rows, this.data.getColumns()),
+          this.target.view(0, rowsDone, this.target.getRows(), rows)));
+      rowsDone += rows;
+    }
+    return result;
+  }
+}
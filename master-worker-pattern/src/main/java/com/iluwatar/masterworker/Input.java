@@ -39,5 +39,39 @@ public abstract class Input<T> {
     this.data = data;
   }
   
+  /**
+   *Size of the data in units of work, used to decide when it is small enough to stop dividing.
+   */
+
+  public abstract int size();
+
   public abstract ArrayList<Input> divideData(int num);
+
+  /**
+   *Divides the data into num parts and then keeps halving every part larger than grainSize,
+   *returning the parts in their original order.
+   */
+
+  public ArrayList<Input> divideData(int num, int grainSize) {
+    ArrayList<Input> parts = divideData(num);
+    if (parts == null) {
+      return null;
+    }
+    ArrayList<Input> result = new ArrayList<Input>(parts.size());
+    for (Input part : parts) {
+      addParts(part, grainSize, result);
+    }
+    return result;
+  }
+
+  private static void addParts(Input part, int grainSize, ArrayList<Input> result) {
+    ArrayList<Input> halves = part.size() > grainSize ? part.divideData(2) : null;
+    if (halves != null && halves.size() > 1) {
+      for (Input half : halves) {
+        addParts(half, grainSize, result);
+      }
+    } else {
+      result.add(part);
+    }
+  }
 }
@@ -0,0 +1,186 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.iluwatar.masterworker;
+
+import java.util.Arrays;
+
+/**
+ *Class IntMatrix is a matrix of ints stored row-major in a flat int[], as a view
+ *with an offset and a row stride. Sub-matrices are views over the same array, so
+ *slicing a matrix never copies its values.
+ */
+
+public class IntMatrix {
+
+  /**
+   *Side of the square tiles the transpose works on, 32 x 32 ints being 4 KB, so
+   *a source tile and a target tile stay in the L1 cache together.
+   */
+  static final int BLOCK = 32;
+
+  private final int[] values;
+  private final int offset;
+  private final int rows;
+  private final int columns;
+  private final int stride;
+
+  public IntMatrix(int rows, int columns) {
+    this(new int[Math.multiplyExact(rows, columns)], 0, rows, columns, columns);
+  }
+
+  /**
+   *Creates a view of rows x columns values in the array values, the value at
+   *(row, column) being values[offset + row * stride + column].
+   */
+
+  public IntMatrix(int[] values, int offset, int rows, int columns, int stride) {
+    if (rows < 0 || columns < 0 || offset < 0 || stride < columns
+        || rows > 0 && columns > 0 && offset + (long) (rows - 1) * stride + columns > values.length) {
+      throw new IllegalArgumentException("View of " + rows + "x" + columns + " at offset " + offset
+          + " with stride " + stride + " does not fit in " + values.length + " values");
+    }
+    this.values = values;
+    this.offset = offset;
+    this.rows = rows;
+    this.columns = columns;
+    this.stride = stride;
+  }
+
+  /**
+   *Method fromArray copies the jagged matrix @param matrix into a new flat
+   *matrix and @return it (IntMatrix).
+   */
+
+  public static IntMatrix fromArray(int[][] matrix) {
+    int columns = matrix.length == 0 ? 0 : matrix[0].length;
+    IntMatrix result = new IntMatrix(matrix.length, columns);
+    for (int i = 0; i < matrix.length; i++) {
+      System.arraycopy(matrix[i], 0, result.values, i * columns, columns);
+    }
+    return result;
+  }
+
+  /**
+   *Method toArray copies this matrix into a new jagged matrix and @return it
+   *(int[][]).
+   */
+
+  public int[][] toArray() {
+    int[][] matrix = new int[rows][];
+    for (int i = 0; i < rows; i++) {
+      int start = offset + i * stride;
+      matrix[i] = Arrays.copyOfRange(values, start, start + columns);
+    }
+    return matrix;
+  }
+
+  public int[] getValues() {
+    return values;
+  }
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public int getRows() {
+    return rows;
+  }
+
+  public int getColumns() {
+    return columns;
+  }
+
+  public int getStride() {
+    return stride;
+  }
+
+  public int get(int row, int column) {
+    return values[index(row, column)];
+  }
+
+  public void set(int row, int column, int value) {
+    values[index(row, column)] = value;
+  }
+
+  private int index(int row, int column) {
+    if (row < 0 || row >= rows || column < 0 || column >= columns) {
+      throw new IndexOutOfBoundsException("(" + row + ", " + column + ") outside " + rows + "x" + columns);
+    }
+    return offset + row * stride + column;
+  }
+
+  /**
+   *Method view @return the sub-matrix of numRows rows and numColumns columns
+   *starting at (row, column), sharing this matrix's values.
+   */
+
+  public IntMatrix view(int row, int column, int numRows, int numColumns) {
+    if (row < 0 || column < 0 || numRows < 0 || numColumns < 0 || row + numRows > rows
+        || column + numColumns > columns) {
+      throw new IndexOutOfBoundsException("View of " + numRows + "x" + numColumns + " at (" + row + ", "
+          + column + ") outside " + rows + "x" + columns);
+    }
+    return new IntMatrix(values, offset + row * stride + column, numRows, numColumns, stride);
+  }
+
+  /**
+   *Method transpose @return the transpose of this matrix as a new matrix.
+   */
+
+  public IntMatrix transpose() {
+    IntMatrix target = new IntMatrix(columns, rows);
+    transposeInto(target);
+    return target;
+  }
+
+  /**
+   *Method transposeInto writes the transpose of this matrix into the target
+   *matrix, which must have as many rows as this matrix has columns and vice versa. The
+   *matrix is walked in BLOCK x BLOCK tiles, so that the strided writes to the
+   *target hit cache lines that were loaded for the previous row of the tile.
+   */
+
+  public void transposeInto(IntMatrix target) {
+    if (target.rows != columns || target.columns != rows) {
+      throw new IllegalArgumentException("Cannot transpose " + rows + "x" + columns + " into "
+          + target.rows + "x" + target.columns);
+    }
+    int[] source = this.values;
+    int[] dest = target.values;
+    int targetStride = target.stride;
+    for (int i0 = 0; i0 < rows; i0 += BLOCK) {
+      int iMax = Math.min(i0 + BLOCK, rows);
+      for (int j0 = 0; j0 < columns; j0 += BLOCK) {
+        int jMax = Math.min(j0 + BLOCK, columns);
+        for (int i = i0; i < iMax; i++) {
+          int from = offset + i * stride;
+          int to = target.offset + i;
+          for (int j = j0; j < jMax; j++) {
+            dest[to + j * targetStride] = source[from + j];
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.iluwatar.masterworker.system;
+
+import com.iluwatar.masterworker.system.systemmaster.FlatArrayTransposeMaster;
+import com.iluwatar.masterworker.system.systemmaster.Master;
+
+/**
+ *Class FlatArrayTransposeMasterWorker extends abstract class {@link MasterWorker} and
+ *finds the transpose of a flat {@link com.iluwatar.masterworker.IntMatrix}.
+ */
+
+public class FlatArrayTransposeMasterWorker extends MasterWorker {
+
+  public FlatArrayTransposeMasterWorker() {
+    super(4);
+  }
+
+  @Override
+  Master setMaster(int numOfWorkers) {
+    return new FlatArrayTransposeMaster(numOfWorkers);
+  }
+}
@@ -23,6 +23,7 @@
 
 package com.iluwatar.masterworker.system;
 
+import java.util.concurrent.ForkJoinPool;
 import com.iluwatar.masterworker.Input;
 import com.iluwatar.masterworker.Result;
 import com.iluwatar.masterworker.system.systemmaster.Master;
@@ -40,6 +41,15 @@ public abstract class MasterWorker {
 
   abstract Master setMaster(int numOfWorkers);
 
+  /**
+   *Makes the master run its workers in parallel on pool, see
+   *{@link Master#enableParallelism(ForkJoinPool, int)}.
+   */
+
+  public void enableParallelism(ForkJoinPool pool, int grainSize) {
+    this.master.enableParallelism(pool, grainSize);
+  }
+
   public Result getResult(Input input) {
     this.master.doWork(input);
     return this.master.getFinalResult();
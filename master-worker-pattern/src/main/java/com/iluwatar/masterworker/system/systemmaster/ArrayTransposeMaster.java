@@ -24,7 +24,6 @@
 package com.iluwatar.masterworker.system.systemmaster;
 
 import java.util.ArrayList;
-import java.util.Enumeration;
 import com.iluwatar.masterworker.ArrayResult;
 import com.iluwatar.masterworker.system.systemworkers.ArrayTransposeWorker;
 import com.iluwatar.masterworker.system.systemworkers.Worker;
@@ -52,25 +51,24 @@ public class ArrayTransposeMaster extends Master {
   
   @Override
   ArrayResult aggregateData() {
-    //number of rows in final result is number of rows in any of obtained results obtained from workers
-    int rows = ((ArrayResult) this.getAllResultData().get(this.getAllResultData().keys().nextElement())).data.length;
-    int columns = 0; //number of columns is sum of number of columns in all results obtained from workers
-    for (Enumeration<Integer> e = this.getAllResultData().keys(); e.hasMoreElements();) {
-      columns += ((ArrayResult) this.getAllResultData().get(e.nextElement())).data[0].length;
+    int parts = this.getExpectedNumResults();
+    int[][][] works = new int[parts][][];
+    //columnsDone[i] = columns aggregated before the result of the ith worker
+    int[] columnsDone = new int[parts + 1];
+    for (int i = 0; i < parts; i++) {
+      works[i] = ((ArrayResult) this.getAllResultData().get(this.getWorkers().get(i).getWorkerId())).data;
+      columnsDone[i + 1] = columnsDone[i] + works[i][0].length;
     }
-    int[][] resultData = new int[rows][columns];
-    int columnsDone = 0; //columns aggregated so far
-    for (int i = 0; i < this.getExpectedNumResults(); i++) {
-      //result obtained from ith worker
-      int[][] work = ((ArrayResult) this.getAllResultData().get(this.getWorkers().get(i).getWorkerId())).data;
+    //number of rows in final result is number of rows in any of obtained results obtained from workers
+    int[][] resultData = new int[works[0].length][columnsDone[parts]];
+    //every worker result fills its own columns, so the parts are copied independently
+    this.forEachPart(parts, i -> {
+      int[][] work = works[i];
       for (int m = 0; m < work.length; m++) {
-        //m = row number, n = columns number
-        for (int n = 0; n < work[0].length; n++) {
-          resultData[m][columnsDone + n] = work[m][n];
-        }
+        //m = row number
+        System.arraycopy(work[m], 0, resultData[m], columnsDone[i], work[m].length);
       }
-      columnsDone += work[0].length;
-    }
+    });
     return new ArrayResult(resultData);
   }
   
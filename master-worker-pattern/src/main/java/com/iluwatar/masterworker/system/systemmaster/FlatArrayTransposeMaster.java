@@ -0,0 +1,69 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.iluwatar.masterworker.system.systemmaster;
+
+import java.util.ArrayList;
+import com.iluwatar.masterworker.FlatArrayResult;
+import com.iluwatar.masterworker.IntMatrix;
+import com.iluwatar.masterworker.system.systemworkers.FlatArrayTransposeWorker;
+import com.iluwatar.masterworker.system.systemworkers.Worker;
+
+/**
+ *Class FlatArrayTransposeMaster extends abstract class {@link Master} for the
+ *transpose of a {@link IntMatrix}. The workers write their column blocks of the
+ *target in place, so aggregateData only widens the first block to the whole
+ *target without copying.
+ */
+
+public class FlatArrayTransposeMaster extends Master {
+  public FlatArrayTransposeMaster(int numOfWorkers) {
+    super(numOfWorkers);
+  }
+
+  @Override
+  ArrayList<Worker> setWorkers(int num) {
+    ArrayList<Worker> ws = new ArrayList<Worker>(num);
+    for (int i = 0; i < num ; i++) {
+      ws.add(new FlatArrayTransposeWorker(this, i + 1));
+      //i+1 will be id
+    }
+    return ws;
+  }
+
+  @Override
+  FlatArrayResult aggregateData() {
+    int columns = 0; //number of columns is sum of number of columns in all results obtained from workers
+    for (int i = 0; i < this.getExpectedNumResults(); i++) {
+      columns += result(i).getColumns();
+    }
+    //the result of the first worker starts at the first column of the target
+    IntMatrix first = result(0);
+    return new FlatArrayResult(new IntMatrix(first.getValues(), first.getOffset(), first.getRows(), columns,
+        first.getStride()));
+  }
+
+  private IntMatrix result(int i) {
+    return ((FlatArrayResult) this.getAllResultData().get(this.getWorkers().get(i).getWorkerId())).data;
+  }
+}
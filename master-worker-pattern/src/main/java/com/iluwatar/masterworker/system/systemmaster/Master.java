@@ -24,7 +24,12 @@
 package com.iluwatar.masterworker.system.systemmaster;
 
 import java.util.ArrayList;
-import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 import com.iluwatar.masterworker.Input;
 import com.iluwatar.masterworker.Result;
 import com.iluwatar.masterworker.system.systemworkers.Worker;
@@ -33,30 +38,57 @@ import com.iluwatar.masterworker.system.systemworkers.Worker;
  *The abstract Master class which contains private fields numOfWorkers
  *(number of workers), workers (arraylist of workers), expectedNumResults
  *(number of divisions of input data, same as expected number of results), 
- *allResultData (hashtable of results obtained from workers, mapped by 
- *their ids) and finalResult (aggregated from allResultData).
+ *allResultData (concurrent map of results obtained from workers, mapped by 
+ *their ids) and finalResult (aggregated from allResultData). By default the
+ *workers run one after another on the calling thread; enableParallelism makes
+ *them run on a fork join pool, with the input divided down to a grain size.
  */
 
 public abstract class Master {
   private final int numOfWorkers;
   private final ArrayList<Worker> workers;
   private int expectedNumResults;
-  private Hashtable<Integer, Result> allResultData;
+  private final ConcurrentHashMap<Integer, Result> allResultData;
+  private final AtomicInteger pendingResults;
   private Result finalResult;
+  private ForkJoinPool pool;
+  private int grainSize;
   
   Master(int numOfWorkers) {
     this.numOfWorkers = numOfWorkers;
     this.workers = setWorkers(numOfWorkers);
     this.expectedNumResults = 0;
-    this.allResultData = new Hashtable<Integer, Result>(numOfWorkers);
+    this.allResultData = new ConcurrentHashMap<Integer, Result>(numOfWorkers);
+    this.pendingResults = new AtomicInteger();
     this.finalResult = null;
   }
+
+  /**
+   *Runs the workers in parallel on pool, dividing the input until no part is
+   *larger than grainSize.
+   */
+
+  public void enableParallelism(ForkJoinPool pool, int grainSize) {
+    if (grainSize < 1) {
+      throw new IllegalArgumentException("grainSize must be positive: " + grainSize);
+    }
+    this.pool = pool;
+    this.grainSize = grainSize;
+  }
+
+  public void disableParallelism() {
+    this.pool = null;
+  }
+
+  boolean isParallel() {
+    return this.pool != null;
+  }
    
   public Result getFinalResult() {
     return this.finalResult;
   }
    
-  Hashtable<Integer, Result> getAllResultData() {
+  ConcurrentHashMap<Integer, Result> getAllResultData() {
     return this.allResultData;
   }
   
@@ -75,17 +107,45 @@ public abstract class Master {
   }
   
   private void divideWork(Input input) {
-    ArrayList<Input> dividedInput = input.divideData(numOfWorkers);
+    ArrayList<Input> dividedInput = isParallel() ? input.divideData(numOfWorkers, grainSize)
+        : input.divideData(numOfWorkers);
     if (dividedInput != null) {
       this.expectedNumResults = dividedInput.size();
-      for (int i = 0; i < this.expectedNumResults; i++) {  
+      this.allResultData.clear();
+      this.pendingResults.set(this.expectedNumResults);
+      if (this.workers.size() < this.expectedNumResults) {
+        //one worker per part, the parts may outnumber numOfWorkers after dividing down to grainSize
+        this.workers.clear();
+        this.workers.addAll(setWorkers(this.expectedNumResults));
+      }
+      forEachPart(this.expectedNumResults, i -> {
         //ith division given to ith worker in this.workers
         this.workers.get(i).setReceivedData(this, dividedInput.get(i));
         this.workers.get(i).run();
+      });
+    }
+  }
+
+  /**
+   *Calls action for every part index below parts, on the calling thread or,
+   *when parallelism is enabled, split in halves across the fork join pool.
+   */
+
+  void forEachPart(int parts, IntConsumer action) {
+    if (!isParallel()) {
+      for (int i = 0; i < parts; i++) {
+        action.accept(i);
+      }
+    } else if (parts > 0) {
+      PartAction task = new PartAction(action, 0, parts);
+      if (ForkJoinTask.getPool() == this.pool) {
+        task.invoke();
+      } else {
+        this.pool.invoke(task);
       }
     }
   }
-  
+
   public void receiveData(Result data, Worker w) {
     //check if can receive..if yes:
     collectResult(data, w.getWorkerId());
@@ -93,11 +153,38 @@ public abstract class Master {
   
   private void collectResult(Result data, int workerId) {
     this.allResultData.put(workerId, data);
-    if (this.allResultData.size() == this.expectedNumResults) {
-      //all data received
+    if (this.pendingResults.decrementAndGet() == 0) {
+      //all data received, the last worker to respond aggregates
       this.finalResult = aggregateData();
     }
   }
   
   abstract Result aggregateData();
+
+  /**
+   *Fork join task calling the action for the part indices from lo up to hi.
+   */
+
+  private static final class PartAction extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final transient IntConsumer action;
+    private final int lo;
+    private final int hi;
+
+    PartAction(IntConsumer action, int lo, int hi) {
+      this.action = action;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected void compute() {
+      if (hi - lo == 1) {
+        action.accept(lo);
+      } else {
+        int mid = (lo + hi) >>> 1;
+        invokeAll(new PartAction(action, lo, mid), new PartAction(action, mid, hi));
+      }
+    }
+  }
 }
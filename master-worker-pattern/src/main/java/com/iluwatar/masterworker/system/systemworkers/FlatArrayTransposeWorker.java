@@ -0,0 +1,48 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.iluwatar.masterworker.system.systemworkers;
+
+import com.iluwatar.masterworker.FlatArrayInput;
+import com.iluwatar.masterworker.FlatArrayResult;
+import com.iluwatar.masterworker.system.systemmaster.Master;
+
+/**
+ *Class FlatArrayTransposeWorker extends abstract class {@link Worker} and transposes
+ *the rows it receives from master straight into their columns of the target matrix,
+ *using the cache-blocked kernel of {@link com.iluwatar.masterworker.IntMatrix}.
+ */
+
+public class FlatArrayTransposeWorker extends Worker {
+
+  public FlatArrayTransposeWorker(Master master, int id) {
+    super(master, id);
+  }
+
+  @Override
+  FlatArrayResult executeOperation() {
+    FlatArrayInput input = (FlatArrayInput) this.getReceivedData();
+    input.data.transposeInto(input.target);
+    return new FlatArrayResult(input.target);
+  }
+}
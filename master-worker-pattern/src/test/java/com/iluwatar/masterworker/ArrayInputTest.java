@@ -57,4 +57,21 @@ class ArrayInputTest {
             && ArrayUtilityMethods.matricesSame((int[][]) table.get(3).data, division4));
   }
 
+  @Test
+  void divideDataGrainSizeTest() {
+    int[][] inputMatrix = ArrayUtilityMethods.createRandomIntMatrix(10, 3);
+    ArrayInput i = new ArrayInput(inputMatrix);
+    ArrayList<Input> table = i.divideData(2, 2);
+    int rowsDone = 0;
+    for (Input part : table) {
+      int[][] rows = (int[][]) part.data;
+      assertTrue(rows.length > 0 && rows.length <= 2);
+      for (int[] row : rows) {
+        assertSame(inputMatrix[rowsDone++], row);
+      }
+    }
+    assertEquals(10, rowsDone);
+    assertEquals(6, table.size());
+  }
+
 }
@@ -0,0 +1,56 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.iluwatar.masterworker;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+/**
+* Testing divideData method in {@link FlatArrayInput} class.
+*/
+
+class FlatArrayInputTest {
+
+  @Test
+  void divideDataTest() {
+    IntMatrix matrix = IntMatrix.fromArray(ArrayUtilityMethods.createRandomIntMatrix(10, 4));
+    FlatArrayInput i = new FlatArrayInput(matrix);
+    ArrayList<Input> table = i.divideData(4);
+    assertEquals(4, table.size());
+    int rowsDone = 0;
+    for (Input part : table) {
+      FlatArrayInput flat = (FlatArrayInput) part;
+      //views over the same arrays, nothing copied
+      assertSame(matrix.getValues(), flat.data.getValues());
+      assertSame(i.target.getValues(), flat.target.getValues());
+      assertEquals(matrix.get(rowsDone, 3), flat.data.get(0, 3));
+      assertEquals(flat.data.getRows(), flat.target.getColumns());
+      assertEquals(rowsDone, flat.target.getOffset());
+      rowsDone += flat.data.getRows();
+    }
+    assertEquals(10, rowsDone);
+  }
+
+}
@@ -0,0 +1,74 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.iluwatar.masterworker;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+* Testing views and transpose in {@link IntMatrix} class.
+*/
+
+class IntMatrixTest {
+
+  @Test
+  void viewSharesValuesTest() {
+    IntMatrix matrix = IntMatrix.fromArray(new int[][] {{1,2,3}, {4,5,6}, {7,8,9}});
+    IntMatrix view = matrix.view(1, 1, 2, 2);
+    assertSame(matrix.getValues(), view.getValues());
+    assertTrue(ArrayUtilityMethods.matricesSame(view.toArray(), new int[][] {{5,6}, {8,9}}));
+    view.set(0, 0, 0);
+    assertEquals(0, matrix.get(1, 1));
+    assertThrows(IndexOutOfBoundsException.class, () -> view.get(2, 0));
+    assertThrows(IndexOutOfBoundsException.class, () -> matrix.view(2, 0, 2, 1));
+  }
+
+  @Test
+  void transposeTest() {
+    //sizes around multiples of the tile side
+    int[] sizes = {1, IntMatrix.BLOCK - 1, IntMatrix.BLOCK, IntMatrix.BLOCK + 1, 3 * IntMatrix.BLOCK + 5};
+    for (int rows : sizes) {
+      for (int columns : sizes) {
+        int[][] matrix = ArrayUtilityMethods.createRandomIntMatrix(rows, columns);
+        int[][] transposed = IntMatrix.fromArray(matrix).transpose().toArray();
+        for (int i = 0; i < rows; i++) {
+          for (int j = 0; j < columns; j++) {
+            assertEquals(matrix[i][j], transposed[j][i]);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void transposeIntoViewTest() {
+    IntMatrix matrix = IntMatrix.fromArray(new int[][] {{1,2}, {3,4}, {5,6}});
+    IntMatrix target = new IntMatrix(4, 5);
+    matrix.transposeInto(target.view(1, 2, 2, 3));
+    int[][] expected = new int[][] {{0,0,0,0,0}, {0,0,1,3,5}, {0,0,2,4,6}, {0,0,0,0,0}};
+    assertTrue(ArrayUtilityMethods.matricesSame(target.toArray(), expected));
+    assertThrows(IllegalArgumentException.class, () -> matrix.transposeInto(new IntMatrix(3, 2)));
+  }
+
+}
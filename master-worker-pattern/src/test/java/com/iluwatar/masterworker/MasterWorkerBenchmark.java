@@ -0,0 +1,74 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.iluwatar.masterworker;
+
+import java.util.concurrent.ForkJoinPool;
+import com.iluwatar.masterworker.system.ArrayTransposeMasterWorker;
+
+/**
+ *Benchmark of {@link ArrayTransposeMasterWorker} on large square matrices, run
+ *sequentially and then in parallel on fork join pools of 1 up to the number of
+ *available cores. The optional arguments are the matrix sizes, 2048 and 4096 by
+ *default.
+ */
+
+public class MasterWorkerBenchmark {
+
+  private static final int WARMUP_RUNS = 3;
+  private static final int MEASURED_RUNS = 5;
+  private static final int GRAIN_SIZE = 64;
+
+  /**
+   * Program entry point.
+   * @param args command line args
+   */
+
+  public static void main(String[] args) {
+    String[] sizes = args.length > 0 ? args : new String[] {"2048", "4096"};
+    int cores = Runtime.getRuntime().availableProcessors();
+    for (String size : sizes) {
+      int n = Integer.parseInt(size);
+      ArrayInput input = new ArrayInput(ArrayUtilityMethods.createRandomIntMatrix(n, n));
+      System.out.println(n + "x" + n + " sequential: " + measure(new ArrayTransposeMasterWorker(), input) + " ms");
+      for (int parallelism = 1; parallelism <= cores; parallelism *= 2) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        ArrayTransposeMasterWorker mw = new ArrayTransposeMasterWorker();
+        mw.enableParallelism(pool, GRAIN_SIZE);
+        System.out.println(n + "x" + n + " parallel on " + parallelism + " threads: " + measure(mw, input) + " ms");
+        pool.shutdown();
+      }
+    }
+  }
+
+  private static double measure(ArrayTransposeMasterWorker mw, ArrayInput input) {
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      mw.getResult(input);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_RUNS; i++) {
+      mw.getResult(input);
+    }
+    return (System.nanoTime() - start) / MEASURED_RUNS / 1000 / 1000.0;
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.iluwatar.masterworker;
+
+import com.iluwatar.masterworker.system.ArrayTransposeMasterWorker;
+import com.iluwatar.masterworker.system.FlatArrayTransposeMasterWorker;
+
+/**
+ *Benchmark comparing the transpose of square matrices by the jagged int[][]
+ *{@link ArrayTransposeMasterWorker} and the flat, cache-blocked
+ *{@link FlatArrayTransposeMasterWorker}, along with the bare kernels of both. The
+ *optional arguments are the matrix sizes, 1024 to 4096 by default; 16384 needs a
+ *heap of about 3 GB.
+ */
+
+public class TransposeBenchmark {
+
+  private static final int WARMUP_RUNS = 3;
+  private static final int MEASURED_RUNS = 5;
+
+  /**
+   * Program entry point.
+   * @param args command line args
+   */
+
+  public static void main(String[] args) {
+    String[] sizes = args.length > 0 ? args : new String[] {"1024", "2048", "4096"};
+    for (String size : sizes) {
+      int n = Integer.parseInt(size);
+      int[][] jagged = ArrayUtilityMethods.createRandomIntMatrix(n, n);
+      ArrayInput jaggedInput = new ArrayInput(jagged);
+      ArrayTransposeMasterWorker jaggedMw = new ArrayTransposeMasterWorker();
+      double jaggedTime = measure(() -> jaggedMw.getResult(jaggedInput));
+      int[][] jaggedTarget = new int[n][n];
+      double naiveTime = measure(() -> naiveTranspose(jagged, jaggedTarget));
+      IntMatrix flat = IntMatrix.fromArray(jagged);
+      FlatArrayInput flatInput = new FlatArrayInput(flat);
+      FlatArrayTransposeMasterWorker flatMw = new FlatArrayTransposeMasterWorker();
+      double flatTime = measure(() -> flatMw.getResult(flatInput));
+      double kernelTime = measure(() -> flat.transposeInto(flatInput.target));
+      System.out.println(n + "x" + n + " master-worker: jagged " + jaggedTime + " ms, flat " + flatTime
+          + " ms; kernel: jagged " + naiveTime + " ms, blocked " + kernelTime + " ms");
+    }
+  }
+
+  private static void naiveTranspose(int[][] matrix, int[][] result) {
+    for (int i = 0; i < matrix.length; i++) {
+      for (int j = 0; j < matrix[0].length; j++) {
+        result[j][i] = matrix[i][j];
+      }
+    }
+  }
+
+  private static double measure(Runnable run) {
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      run.run();
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_RUNS; i++) {
+      run.run();
+    }
+    return (System.nanoTime() - start) / MEASURED_RUNS / 1000 / 1000.0;
+  }
+}
@@ -24,6 +24,7 @@
 package com.iluwatar.masterworker.system;
 
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.jupiter.api.Test;
 import com.iluwatar.masterworker.ArrayUtilityMethods;
 import com.iluwatar.masterworker.ArrayInput;
@@ -44,4 +45,26 @@ class ArrayTransposeMasterWorkerTest {
     ArrayResult r = (ArrayResult) atmw.getResult(i);
     assertTrue(ArrayUtilityMethods.matricesSame(r.data, matrixTranspose));
   } 
+
+  @Test
+  void getResultInParallelTest() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      ArrayTransposeMasterWorker atmw = new ArrayTransposeMasterWorker();
+      atmw.enableParallelism(pool, 3);
+      for (int run = 0; run < 3; run++) {
+        int[][] matrix = ArrayUtilityMethods.createRandomIntMatrix(37, 23);
+        int[][] matrixTranspose = new int[23][37];
+        for (int i = 0; i < 37; i++) {
+          for (int j = 0; j < 23; j++) {
+            matrixTranspose[j][i] = matrix[i][j];
+          }
+        }
+        ArrayResult r = (ArrayResult) atmw.getResult(new ArrayInput(matrix));
+        assertTrue(ArrayUtilityMethods.matricesSame(r.data, matrixTranspose));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
 }
@@ -0,0 +1,68 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.iluwatar.masterworker.system;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import com.iluwatar.masterworker.ArrayUtilityMethods;
+import com.iluwatar.masterworker.FlatArrayInput;
+import com.iluwatar.masterworker.FlatArrayResult;
+import com.iluwatar.masterworker.IntMatrix;
+
+/**
+* Testing getResult method in {@link FlatArrayTransposeMasterWorker} class.
+*/
+
+class FlatArrayTransposeMasterWorkerTest {
+
+  @Test
+  void getResultTest() {
+    FlatArrayTransposeMasterWorker mw = new FlatArrayTransposeMasterWorker();
+    int[][] matrix = new int[][] {{1,2,3,4,5}, {1,2,3,4,5}, {1,2,3,4,5}, {1,2,3,4,5}, {1,2,3,4,5}};
+    int[][] matrixTranspose = new int[][] {{1,1,1,1,1}, {2,2,2,2,2}, {3,3,3,3,3}, {4,4,4,4,4}, {5,5,5,5,5}};
+    FlatArrayResult r = (FlatArrayResult) mw.getResult(new FlatArrayInput(IntMatrix.fromArray(matrix)));
+    assertTrue(ArrayUtilityMethods.matricesSame(r.data.toArray(), matrixTranspose));
+  }
+
+  @Test
+  void getResultInParallelTest() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      FlatArrayTransposeMasterWorker mw = new FlatArrayTransposeMasterWorker();
+      mw.enableParallelism(pool, 16);
+      int[][] matrix = ArrayUtilityMethods.createRandomIntMatrix(101, 67);
+      FlatArrayResult r = (FlatArrayResult) mw.getResult(new FlatArrayInput(IntMatrix.fromArray(matrix)));
+      assertEquals(67, r.data.getRows());
+      assertEquals(101, r.data.getColumns());
+      for (int i = 0; i < 101; i++) {
+        for (int j = 0; j < 67; j++) {
+          assertEquals(matrix[i][j], r.data.get(j, i));
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
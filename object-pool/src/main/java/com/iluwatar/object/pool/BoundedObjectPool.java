@@ -0,0 +1,539 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded object pool for concurrent use.
+ * <p>
+ * Unlike {@link ObjectPool}, checking out and in does not lock the pool. Each thread keeps the
+ * objects it returned last in a small thread local cache and takes them from there again, so a
+ * thread reusing the same objects only touches their own state. All idle objects are also kept
+ * on a lock-free stack shared by the threads. Which thread gets an idle object is decided by a
+ * compare-and-set on the object's state, the caches and the stack may hold stale references
+ * which are skipped.
+ * <p>
+ * At most max size objects exist, when all of them are in use {@link #checkOut()} waits for
+ * one to be checked in. A background timer destroys objects idle for longer than the idle
+ * timeout, keeping min idle objects, which {@link #prewarm()} creates up front. Objects are
+ * validated when checked out and in, invalid ones are destroyed. Like {@link ObjectPool}, the
+ * pool tells objects apart by their equals and hashCode.
+ * <p>
+ * The timer is shared by all pools and only keeps a weak reference to each of them, so a pool that
+ * is dropped without being closed can still be garbage collected.
+ *
+ * @param <T> Type T of Object in the Pool
+ */
+public abstract class BoundedObjectPool<T> {
+
+  private static final int LOCAL_CACHE_SIZE = 4;
+
+  private static final ScheduledExecutorService EVICTOR =
+      Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "object-pool-evictor");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final int maxSize;
+  private final int minIdle;
+  private final long idleTimeoutNanos;
+
+  private final Map<T, Entry<T>> entries = new ConcurrentHashMap<>();
+  private final AtomicReference<Node<T>> idleStack = new AtomicReference<>();
+  private final AtomicInteger size = new AtomicInteger();
+  private final ThreadLocal<LocalCache<T>> localCache = ThreadLocal.withInitial(LocalCache::new);
+
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final AtomicLong releases = new AtomicLong();
+  private final ReentrantLock waitLock = new ReentrantLock();
+  private final Condition released = waitLock.newCondition();
+
+  private final Eviction eviction;
+  private volatile boolean closed;
+
+  /**
+   * Constructor.
+   *
+   * @param maxSize the maximum number of objects
+   * @param minIdle the number of idle objects kept by the eviction and created by prewarming
+   * @param idleTimeout the time after which idle objects are destroyed, 0 to keep them
+   * @param unit the unit of the idle timeout
+   */
+  public BoundedObjectPool(int maxSize, int minIdle, long idleTimeout, TimeUnit unit) {
+    if (maxSize <= 0 || minIdle < 0 || minIdle > maxSize || idleTimeout < 0) {
+      throw new IllegalArgumentException("Invalid pool configuration");
+    }
+    this.maxSize = maxSize;
+    this.minIdle = minIdle;
+    this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+    if (idleTimeoutNanos > 0) {
+      long interval = Math.max(idleTimeoutNanos / 2, TimeUnit.MILLISECONDS.toNanos(1));
+      eviction = new Eviction(this);
+      eviction.future = EVICTOR.scheduleWithFixedDelay(eviction, interval, interval,
+          TimeUnit.NANOSECONDS);
+    } else {
+      eviction = null;
+    }
+  }
+
+  protected abstract T create();
+
+  /**
+   * Tells whether the object may still be used, checked when it is checked out and in.
+   *
+   * @param instance the object
+   * @return false if the object is to be destroyed
+   */
+  protected boolean validate(T instance) {
+    return true;
+  }
+
+  /**
+   * Releases the resources of an object removed from the pool.
+   *
+   * @param instance the object
+   */
+  protected void destroy(T instance) {
+    // nothing to release by default
+  }
+
+  /**
+   * Checkout object from pool, waiting while all objects are in use.
+   *
+   * @return the object
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public T checkOut() throws InterruptedException {
+    return checkOut(false, 0);
+  }
+
+  /**
+   * Checkout object from pool, waiting up to the timeout while all objects are in use.
+   *
+   * @param timeout the time to wait
+   * @param unit the unit of the timeout
+   * @return the object or null if the timeout elapsed
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public T checkOut(long timeout, TimeUnit unit) throws InterruptedException {
+    return checkOut(true, unit.toNanos(timeout));
+  }
+
+  private T checkOut(boolean timed, long timeoutNanos) throws InterruptedException {
+    T instance = tryCheckOut();
+    if (instance != null) {
+      return instance;
+    }
+    long deadline = System.nanoTime() + timeoutNanos;
+    waiters.incrementAndGet();
+    try {
+      while (true) {
+        // an object checked in after reading the version changes it, so it is not missed
+        long version = releases.get();
+        instance = tryCheckOut();
+        if (instance != null) {
+          return instance;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (timed && remaining <= 0) {
+          return null;
+        }
+        waitLock.lock();
+        try {
+          while (releases.get() == version) {
+            if (!timed) {
+              released.await();
+            } else if (remaining > 0) {
+              remaining = released.awaitNanos(remaining);
+            } else {
+              return null;
+            }
+          }
+        } finally {
+          waitLock.unlock();
+        }
+      }
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Checkin object to pool. Objects not checked out from this pool are ignored, objects checked
+   * in after the pool has been closed are destroyed.
+   *
+   * @param instance the object
+   */
+  public void checkIn(T instance) {
+    LocalCache<T> cache = localCache.get();
+    Entry<T> entry = cache.lastCheckedOut;
+    if (entry == null || entry.value != instance) {
+      entry = entries.get(instance);
+      if (entry == null) {
+        return;
+      }
+    }
+    if (cache.lastCheckedOut == entry) {
+      cache.lastCheckedOut = null;
+    }
+    if (!validate(instance)) {
+      if (entry.compareAndSetState(Entry.IN_USE, Entry.REMOVED)) {
+        remove(entry);
+      }
+      return;
+    }
+    if (idleTimeoutNanos > 0) {
+      entry.idleSince = System.nanoTime();
+    }
+    if (!entry.compareAndSetState(Entry.IN_USE, Entry.IDLE) || destroyIfClosed(entry)) {
+      return;
+    }
+    cache.push(entry);
+    if (entry.compareAndSetQueued(0, 1)) {
+      push(entry);
+    }
+    if (waiters.get() > 0) {
+      signalWaiter();
+    }
+  }
+
+  /**
+   * Creates idle objects up to min idle.
+   */
+  public void prewarm() {
+    int idle = countIdle();
+    while (idle < minIdle && !closed && reserve()) {
+      T instance = create();
+      Entry<T> entry = new Entry<>(instance, Entry.IDLE);
+      entry.idleSince = System.nanoTime();
+      entries.put(instance, entry);
+      if (destroyIfClosed(entry)) {
+        return;
+      }
+      entry.queued = 1;
+      push(entry);
+      idle++;
+    }
+    if (waiters.get() > 0) {
+      signalWaiter();
+    }
+  }
+
+  /**
+   * Stops the eviction and destroys the idle objects. The objects still in use are destroyed when
+   * they are checked in, checking objects out is no longer possible.
+   */
+  public void close() {
+    closed = true;
+    if (eviction != null) {
+      eviction.future.cancel(false);
+    }
+    for (Entry<T> entry : entries.values()) {
+      if (entry.compareAndSetState(Entry.IDLE, Entry.REMOVED)) {
+        remove(entry);
+      }
+    }
+  }
+
+  /**
+   * Gets the number of objects in the pool, idle or in use.
+   *
+   * @return the number of objects
+   */
+  public int size() {
+    return size.get();
+  }
+
+  @Override
+  public String toString() {
+    int available = countIdle();
+    return String.format("Pool available=%d inUse=%d", available, entries.size() - available);
+  }
+
+  /**
+   * Takes an idle object from the thread local cache or the shared stack, or creates one if
+   * the pool is not full.
+   */
+  private T tryCheckOut() {
+    if (closed) {
+      throw new IllegalStateException("Pool is closed");
+    }
+    LocalCache<T> cache = localCache.get();
+    Entry<T> entry;
+    while ((entry = cache.pop()) != null) {
+      if (entry.compareAndSetState(Entry.IDLE, Entry.IN_USE)) {
+        T instance = checkedOut(entry, cache);
+        if (instance != null) {
+          return instance;
+        }
+      }
+    }
+    while ((entry = pop()) != null) {
+      if (entry.compareAndSetState(Entry.IDLE, Entry.IN_USE)) {
+        T instance = checkedOut(entry, cache);
+        if (instance != null) {
+          return instance;
+        }
+      }
+    }
+    if (!reserve()) {
+      return null;
+    }
+    T instance;
+    try {
+      instance = create();
+    } catch (RuntimeException e) {
+      size.decrementAndGet();
+      throw e;
+    }
+    entry = new Entry<>(instance, Entry.IN_USE);
+    entries.put(instance, entry);
+    cache.lastCheckedOut = entry;
+    return instance;
+  }
+
+  private T checkedOut(Entry<T> entry, LocalCache<T> cache) {
+    if (!validate(entry.value)) {
+      entry.state = Entry.REMOVED;
+      remove(entry);
+      return null;
+    }
+    cache.lastCheckedOut = entry;
+    return entry.value;
+  }
+
+  /**
+   * Destroys an idle object if the pool has been closed. Called after making an object idle, so
+   * either this or {@link #close()} sees the other one's write and destroys the object.
+   */
+  private boolean destroyIfClosed(Entry<T> entry) {
+    if (!closed) {
+      return false;
+    }
+    if (entry.compareAndSetState(Entry.IDLE, Entry.REMOVED)) {
+      remove(entry);
+    }
+    return true;
+  }
+
+  private boolean reserve() {
+    while (true) {
+      int current = size.get();
+      if (current >= maxSize) {
+        return false;
+      }
+      if (size.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private void remove(Entry<T> entry) {
+    entries.remove(entry.value, entry);
+    size.decrementAndGet();
+    try {
+      destroy(entry.value);
+    } finally {
+      if (waiters.get() > 0) {
+        signalWaiter();
+      }
+    }
+  }
+
+  private void signalWaiter() {
+    releases.incrementAndGet();
+    waitLock.lock();
+    try {
+      released.signal();
+    } finally {
+      waitLock.unlock();
+    }
+  }
+
+  private void push(Entry<T> entry) {
+    Node<T> node = new Node<>(entry);
+    do {
+      node.next = idleStack.get();
+    } while (!idleStack.compareAndSet(node.next, node));
+  }
+
+  private Entry<T> pop() {
+    while (true) {
+      Node<T> head = idleStack.get();
+      if (head == null) {
+        return null;
+      }
+      if (idleStack.compareAndSet(head, head.next)) {
+        head.entry.queued = 0;
+        return head.entry;
+      }
+    }
+  }
+
+  private int countIdle() {
+    int idle = 0;
+    for (Entry<T> entry : entries.values()) {
+      if (entry.state == Entry.IDLE) {
+        idle++;
+      }
+    }
+    return idle;
+  }
+
+  /**
+   * Destroys the objects idle for longer than the idle timeout beyond min idle, then creates
+   * objects up to min idle.
+   */
+  private void evict() {
+    long now = System.nanoTime();
+    int idle = countIdle();
+    for (Entry<T> entry : entries.values()) {
+      if (idle <= minIdle) {
+        break;
+      }
+      if (entry.state == Entry.IDLE && now - entry.idleSince > idleTimeoutNanos
+          && entry.compareAndSetState(Entry.IDLE, Entry.REMOVED)) {
+        remove(entry);
+        idle--;
+      }
+    }
+    prewarm();
+  }
+
+  /**
+   * The periodic eviction of a pool. Only weakly references the pool and cancels itself once the
+   * pool has been garbage collected.
+   */
+  private static final class Eviction implements Runnable {
+
+    private final WeakReference<BoundedObjectPool<?>> pool;
+    volatile ScheduledFuture<?> future;
+
+    Eviction(BoundedObjectPool<?> pool) {
+      this.pool = new WeakReference<>(pool);
+    }
+
+    @Override
+    public void run() {
+      BoundedObjectPool<?> target = pool.get();
+      if (target != null) {
+        target.evict();
+      } else if (future != null) {
+        future.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * A pooled object with its state.
+   */
+  private static final class Entry<T> {
+
+    static final int IDLE = 0;
+    static final int IN_USE = 1;
+    static final int REMOVED = 2;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Entry> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Entry> QUEUED =
+        AtomicIntegerFieldUpdater.newUpdater(Entry.class, "queued");
+
+    final T value;
+    volatile int state;
+    /**
+     * 1 while the entry is on the shared stack, so it is pushed at most once.
+     */
+    volatile int queued;
+    volatile long idleSince;
+
+    Entry(T value, int state) {
+      this.value = value;
+      this.state = state;
+    }
+
+    boolean compareAndSetState(int expect, int update) {
+      return STATE.compareAndSet(this, expect, update);
+    }
+
+    boolean compareAndSetQueued(int expect, int update) {
+      return QUEUED.compareAndSet(this, expect, update);
+    }
+  }
+
+  /**
+   * Node of the shared stack, a new one for every push so there is no ABA problem.
+   */
+  private static final class Node<T> {
+
+    final Entry<T> entry;
+    Node<T> next;
+
+    Node(Entry<T> entry) {
+      this.entry = entry;
+    }
+  }
+
+  /**
+   * The objects last checked in by a thread, and the one it checked out last.
+   */
+  private static final class LocalCache<T> {
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Entry<T>[] entries = new Entry[LOCAL_CACHE_SIZE];
+    private int count;
+    Entry<T> lastCheckedOut;
+
+    void push(Entry<T> entry) {
+      if (count == entries.length) {
+        System.arraycopy(entries, 1, entries, 0, count - 1);
+        count--;
+      }
+      entries[count++] = entry;
+    }
+
+    Entry<T> pop() {
+      if (count == 0) {
+        return null;
+      }
+      Entry<T> entry = entries[--count];
+      entries[count] = null;
+      return entry;
+    }
+  }
+}
@@ -0,0 +1,238 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.time.Duration.ofMillis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link BoundedObjectPool}
+ */
+public class BoundedObjectPoolTest {
+
+  /**
+   * A cheap pooled object which records whether it is in use.
+   */
+  private static class Resource {
+    private final AtomicBoolean inUse = new AtomicBoolean();
+    private volatile boolean valid = true;
+    private volatile boolean destroyed;
+  }
+
+  /**
+   * Pool of resources counting the created ones.
+   */
+  private static class ResourcePool extends BoundedObjectPool<Resource> {
+    private final AtomicInteger created = new AtomicInteger();
+
+    ResourcePool(int maxSize, int minIdle, long idleTimeoutMillis) {
+      super(maxSize, minIdle, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Resource create() {
+      created.incrementAndGet();
+      return new Resource();
+    }
+
+    @Override
+    protected boolean validate(Resource instance) {
+      return instance.valid;
+    }
+
+    @Override
+    protected void destroy(Resource instance) {
+      instance.destroyed = true;
+    }
+  }
+
+  @Test
+  public void testSubsequentCheckinCheckout() throws InterruptedException {
+    final ResourcePool pool = new ResourcePool(4, 0, 0);
+    final Resource expected = pool.checkOut();
+    assertEquals("Pool available=0 inUse=1", pool.toString());
+    pool.checkIn(expected);
+    assertEquals("Pool available=1 inUse=0", pool.toString());
+
+    for (int i = 0; i < 100; i++) {
+      final Resource resource = pool.checkOut();
+      assertSame(expected, resource);
+      pool.checkIn(resource);
+    }
+    assertEquals(1, pool.created.get());
+    pool.close();
+  }
+
+  @Test
+  public void testCheckOutTimesOutWhenPoolIsExhausted() throws InterruptedException {
+    final ResourcePool pool = new ResourcePool(2, 0, 0);
+    final Resource first = pool.checkOut();
+    final Resource second = pool.checkOut();
+    assertNotSame(first, second);
+    assertNull(pool.checkOut(50, TimeUnit.MILLISECONDS));
+    assertEquals(2, pool.size());
+    pool.close();
+  }
+
+  @Test
+  public void testWaitingCheckOutGetsCheckedInObject() {
+    assertTimeout(ofMillis(5000), () -> {
+      final ResourcePool pool = new ResourcePool(1, 0, 0);
+      final Resource resource = pool.checkOut();
+      final CountDownLatch waiting = new CountDownLatch(1);
+      final Resource[] borrowed = new Resource[1];
+      final Thread borrower = new Thread(() -> {
+        waiting.countDown();
+        try {
+          borrowed[0] = pool.checkOut();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      borrower.start();
+      waiting.await();
+      Thread.sleep(50);
+      pool.checkIn(resource);
+      borrower.join();
+      assertSame(resource, borrowed[0]);
+      pool.close();
+    });
+  }
+
+  @Test
+  public void testInvalidObjectsAreDestroyed() throws InterruptedException {
+    final ResourcePool pool = new ResourcePool(1, 0, 0);
+    final Resource invalid = pool.checkOut();
+    pool.checkIn(invalid);
+    invalid.valid = false;
+
+    final Resource resource = pool.checkOut();
+    assertNotSame(invalid, resource);
+    assertTrue(invalid.destroyed);
+
+    resource.valid = false;
+    pool.checkIn(resource);
+    assertTrue(resource.destroyed);
+    assertEquals(0, pool.size());
+    pool.close();
+  }
+
+  @Test
+  public void testPrewarmAndIdleEviction() {
+    assertTimeout(ofMillis(5000), () -> {
+      final ResourcePool pool = new ResourcePool(10, 2, 20);
+      pool.prewarm();
+      assertEquals("Pool available=2 inUse=0", pool.toString());
+
+      final List<Resource> resources = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        resources.add(pool.checkOut());
+      }
+      resources.forEach(pool::checkIn);
+      assertEquals("Pool available=10 inUse=0", pool.toString());
+
+      while (pool.size() > 2) {
+        Thread.sleep(10);
+      }
+      assertEquals("Pool available=2 inUse=0", pool.toString());
+      assertEquals(8, resources.stream().filter(resource -> resource.destroyed).count());
+      pool.close();
+    });
+  }
+
+  @Test
+  public void testConcurrentCheckOutNeverSharesObjects() {
+    assertTimeout(ofMillis(10000), () -> {
+      final ResourcePool pool = new ResourcePool(4, 0, 0);
+      final AtomicBoolean shared = new AtomicBoolean();
+      final List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        threads.add(new Thread(() -> {
+          try {
+            for (int i = 0; i < 20000; i++) {
+              final Resource resource = pool.checkOut();
+              if (!resource.inUse.compareAndSet(false, true)) {
+                shared.set(true);
+              }
+              resource.inUse.set(false);
+              pool.checkIn(resource);
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }));
+      }
+      threads.forEach(Thread::start);
+      for (final Thread thread : threads) {
+        thread.join();
+      }
+      assertFalse(shared.get());
+      assertTrue(pool.created.get() <= 4);
+      assertEquals("Pool available=" + pool.size() + " inUse=0", pool.toString());
+      pool.close();
+    });
+  }
+
+  @Test
+  public void testObjectsCheckedInAfterCloseAreDestroyed() throws InterruptedException {
+    final ResourcePool pool = new ResourcePool(2, 0, 0);
+    final Resource idle = pool.checkOut();
+    final Resource inUse = pool.checkOut();
+    pool.checkIn(idle);
+    pool.close();
+    assertTrue(idle.destroyed);
+    assertFalse(inUse.destroyed);
+
+    pool.checkIn(inUse);
+    assertTrue(inUse.destroyed);
+    assertEquals(0, pool.size());
+    assertThrows(IllegalStateException.class, pool::checkOut);
+  }
+
+  @Test
+  public void testUnclosedPoolCanBeGarbageCollected() throws InterruptedException {
+    final WeakReference<ResourcePool> pool = new WeakReference<>(new ResourcePool(4, 1, 10));
+    for (int i = 0; i < 500 && pool.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(pool.get());
+  }
+}
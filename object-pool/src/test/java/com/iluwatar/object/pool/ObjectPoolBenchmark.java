@@ -0,0 +1,140 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark of the check out and check in throughput of {@link ObjectPool} and
+ * {@link BoundedObjectPool} at 1 to 64 threads. The optional argument is the duration of
+ * each run in milliseconds, 1000 by default.
+ */
+public final class ObjectPoolBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ObjectPoolBenchmark.class);
+
+  private ObjectPoolBenchmark() {
+  }
+
+  /**
+   * A pool of plain objects for {@link ObjectPool}.
+   */
+  private static class SynchronizedPool extends ObjectPool<Object> {
+    @Override
+    protected Object create() {
+      return new Object();
+    }
+  }
+
+  /**
+   * A pool of plain objects for {@link BoundedObjectPool}.
+   */
+  private static class LockFreePool extends BoundedObjectPool<Object> {
+    LockFreePool() {
+      super(64, 0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object create() {
+      return new Object();
+    }
+  }
+
+  /**
+   * Check out and in of one pool.
+   */
+  private interface Pool {
+    Object checkOut() throws InterruptedException;
+
+    void checkIn(Object instance);
+  }
+
+  /**
+   * Program entry point
+   *
+   * @param args command line args
+   */
+  public static void main(String[] args) throws InterruptedException {
+    long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+    for (int threads = 1; threads <= 64; threads *= 2) {
+      SynchronizedPool synchronizedPool = new SynchronizedPool();
+      long synchronizedOps = run(threads, millis, new Pool() {
+        @Override
+        public Object checkOut() {
+          return synchronizedPool.checkOut();
+        }
+
+        @Override
+        public void checkIn(Object instance) {
+          synchronizedPool.checkIn(instance);
+        }
+      });
+      LockFreePool lockFreePool = new LockFreePool();
+      long lockFreeOps = run(threads, millis, new Pool() {
+        @Override
+        public Object checkOut() throws InterruptedException {
+          return lockFreePool.checkOut();
+        }
+
+        @Override
+        public void checkIn(Object instance) {
+          lockFreePool.checkIn(instance);
+        }
+      });
+      lockFreePool.close();
+      LOGGER.info("{} threads: ObjectPool {} ops/s, BoundedObjectPool {} ops/s", threads,
+          synchronizedOps * 1000 / millis, lockFreeOps * 1000 / millis);
+    }
+  }
+
+  private static long run(int threads, long millis, Pool pool) throws InterruptedException {
+    LongAdder operations = new LongAdder();
+    long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    List<Thread> workers = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      workers.add(new Thread(() -> {
+        long count = 0;
+        try {
+          while ((count & 0xff) != 0 || System.nanoTime() < end) {
+            pool.checkIn(pool.checkOut());
+            count++;
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        operations.add(count);
+      }));
+    }
+    workers.forEach(Thread::start);
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return operations.sum();
+  }
+}
@@ -0,0 +1,61 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * {@link ItemBuffer} backed by a {@link BlockingQueue}.
+ */
+public class BlockingQueueItemBuffer implements ItemBuffer {
+
+  private final BlockingQueue<Item> queue;
+
+  public BlockingQueueItemBuffer(BlockingQueue<Item> queue) {
+    this.queue = queue;
+  }
+
+  @Override
+  public void put(Item item) throws InterruptedException {
+    queue.put(item);
+  }
+
+  @Override
+  public void putAll(List<Item> items) throws InterruptedException {
+    for (Item item : items) {
+      queue.put(item);
+    }
+  }
+
+  @Override
+  public Item take() throws InterruptedException {
+    return queue.take();
+  }
+
+  @Override
+  public int drainTo(Collection<? super Item> items, int maxItems) {
+    return queue.drainTo(items, maxItems);
+  }
+}
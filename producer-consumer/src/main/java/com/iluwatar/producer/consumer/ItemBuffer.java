@@ -0,0 +1,55 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bounded storage behind an {@link ItemQueue}.
+ */
+public interface ItemBuffer {
+
+  /**
+   * Adds the item, waiting for space if the buffer is full.
+   */
+  void put(Item item) throws InterruptedException;
+
+  /**
+   * Adds the items in order, waiting for space as needed.
+   */
+  void putAll(List<Item> items) throws InterruptedException;
+
+  /**
+   * Removes the oldest item, waiting for one if the buffer is empty.
+   */
+  Item take() throws InterruptedException;
+
+  /**
+   * Removes up to maxItems of the available items without waiting, and adds them to the
+   * collection.
+   *
+   * @return the number of items removed
+   */
+  int drainTo(Collection<? super Item> items, int maxItems);
+}
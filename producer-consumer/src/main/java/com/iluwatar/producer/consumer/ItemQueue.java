@@ -22,29 +22,52 @@
  */
 package com.iluwatar.producer.consumer;
 
-import java.util.concurrent.BlockingQueue;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
- * Class as a channel for {@link Producer}-{@link Consumer} exchange.
+ * Class as a channel for {@link Producer}-{@link Consumer} exchange. By default the items go
+ * through a {@link LinkedBlockingQueue} of capacity 5; an {@link SpscRingBuffer} or an
+ * {@link MpmcRingBuffer} can be given instead for higher throughput.
  */
 public class ItemQueue {
 
-  private BlockingQueue<Item> queue;
+  private final ItemBuffer buffer;
 
   public ItemQueue() {
 
-    queue = new LinkedBlockingQueue<>(5);
+    this(new BlockingQueueItemBuffer(new LinkedBlockingQueue<>(5)));
+  }
+
+  public ItemQueue(ItemBuffer buffer) {
+
+    this.buffer = buffer;
   }
 
   public void put(Item item) throws InterruptedException {
 
-    queue.put(item);
+    buffer.put(item);
+  }
+
+  public void putAll(List<Item> items) throws InterruptedException {
+
+    buffer.putAll(items);
   }
 
   public Item take() throws InterruptedException {
 
-    return queue.take();
+    return buffer.take();
+  }
+
+  /**
+   * Moves up to maxItems of the items already in the queue to the collection, without waiting
+   *
+   * @return the number of items moved
+   */
+  public int drainTo(Collection<? super Item> items, int maxItems) {
+
+    return buffer.drainTo(items, maxItems);
   }
 
 }
@@ -0,0 +1,163 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Preallocated ring {@link ItemBuffer} for any number of producers and consumers. Every slot
+ * has a sequence number telling whether it is free for the producer of a given round or holds
+ * an item for the consumer of that round. Producers and consumers claim slots by a CAS on the
+ * tail and head counters, which are padded onto cache lines of their own. Batches claim a whole
+ * run of ready slots with a single CAS.
+ */
+public class MpmcRingBuffer implements ItemBuffer {
+
+  private static final int PADDING = 16;
+  private static final int TAIL = PADDING;
+  private static final int HEAD = 2 * PADDING;
+
+  private final Item[] items;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLongArray counters = new AtomicLongArray(3 * PADDING);
+  private final WaitStrategy waitStrategy;
+
+  /**
+   * Creates a ring of at least the given capacity, rounded up to a power of two.
+   */
+  public MpmcRingBuffer(int capacity, WaitStrategy waitStrategy) {
+    int size = RingBuffers.powerOfTwo(capacity);
+    this.items = new Item[size];
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+    this.mask = size - 1;
+    this.waitStrategy = waitStrategy;
+  }
+
+  @Override
+  public void put(Item item) throws InterruptedException {
+    int attempts = 0;
+    while (!offer(item)) {
+      attempts = waitStrategy.await(attempts);
+    }
+  }
+
+  private boolean offer(Item item) {
+    for (;;) {
+      long tail = counters.get(TAIL);
+      int index = (int) tail & mask;
+      long difference = sequences.get(index) - tail;
+      if (difference < 0) {
+        return false;
+      }
+      if (difference == 0 && counters.compareAndSet(TAIL, tail, tail + 1)) {
+        items[index] = item;
+        sequences.lazySet(index, tail + 1);
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public void putAll(List<Item> batch) throws InterruptedException {
+    int done = 0;
+    int attempts = 0;
+    while (done < batch.size()) {
+      long tail = counters.get(TAIL);
+      int free = 0;
+      int wanted = Math.min(batch.size() - done, items.length);
+      while (free < wanted && sequences.get((int) (tail + free) & mask) == tail + free) {
+        free++;
+      }
+      if (free == 0) {
+        if (sequences.get((int) tail & mask) < tail) {
+          attempts = waitStrategy.await(attempts);
+        }
+        continue;
+      }
+      if (counters.compareAndSet(TAIL, tail, tail + free)) {
+        for (int i = 0; i < free; i++) {
+          int index = (int) (tail + i) & mask;
+          items[index] = batch.get(done + i);
+          sequences.lazySet(index, tail + i + 1);
+        }
+        done += free;
+        attempts = 0;
+      }
+    }
+  }
+
+  @Override
+  public Item take() throws InterruptedException {
+    int attempts = 0;
+    for (;;) {
+      long head = counters.get(HEAD);
+      int index = (int) head & mask;
+      long difference = sequences.get(index) - (head + 1);
+      if (difference < 0) {
+        attempts = waitStrategy.await(attempts);
+      } else if (difference == 0 && counters.compareAndSet(HEAD, head, head + 1)) {
+        return release(index, head);
+      }
+    }
+  }
+
+  @Override
+  public int drainTo(Collection<? super Item> batch, int maxItems) {
+    if (maxItems <= 0) {
+      return 0;
+    }
+    for (;;) {
+      long head = counters.get(HEAD);
+      int ready = 0;
+      while (ready < maxItems && sequences.get((int) (head + ready) & mask) == head + ready + 1) {
+        ready++;
+      }
+      if (ready == 0) {
+        if (sequences.get((int) head & mask) <= head) {
+          return 0;
+        }
+      } else if (counters.compareAndSet(HEAD, head, head + ready)) {
+        for (int i = 0; i < ready; i++) {
+          batch.add(release((int) (head + i) & mask, head + i));
+        }
+        return ready;
+      }
+    }
+  }
+
+  /**
+   * Takes the item out of a claimed slot and frees the slot for the producer of the next round.
+   */
+  private Item release(int index, long position) {
+    Item item = items[index];
+    items[index] = null;
+    sequences.lazySet(index, position + items.length);
+    return item;
+  }
+}
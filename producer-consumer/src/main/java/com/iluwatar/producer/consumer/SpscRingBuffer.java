@@ -0,0 +1,135 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Preallocated ring {@link ItemBuffer} for exactly one producer thread and one consumer thread.
+ * The producer only writes the tail and the consumer only writes the head, so neither needs a
+ * CAS, and each side keeps the last value it read of the other's counter to touch the shared
+ * cache line only when the ring looks full or empty. The counters live in a padded
+ * {@link AtomicLongArray} so that they sit on cache lines of their own.
+ */
+public class SpscRingBuffer implements ItemBuffer {
+
+  /**
+   * Longs between counters, 128 bytes, which covers adjacent line prefetching.
+   */
+  private static final int PADDING = 16;
+  private static final int TAIL = PADDING;
+  private static final int CACHED_HEAD = TAIL + 1;
+  private static final int HEAD = 2 * PADDING;
+  private static final int CACHED_TAIL = HEAD + 1;
+
+  private final Item[] items;
+  private final int mask;
+  private final AtomicLongArray counters = new AtomicLongArray(3 * PADDING);
+  private final WaitStrategy waitStrategy;
+
+  /**
+   * Creates a ring of at least the given capacity, rounded up to a power of two.
+   */
+  public SpscRingBuffer(int capacity, WaitStrategy waitStrategy) {
+    int size = RingBuffers.powerOfTwo(capacity);
+    this.items = new Item[size];
+    this.mask = size - 1;
+    this.waitStrategy = waitStrategy;
+  }
+
+  @Override
+  public void put(Item item) throws InterruptedException {
+    long tail = counters.get(TAIL);
+    awaitSpace(tail, 1);
+    items[(int) tail & mask] = item;
+    counters.lazySet(TAIL, tail + 1);
+  }
+
+  @Override
+  public void putAll(List<Item> batch) throws InterruptedException {
+    int done = 0;
+    while (done < batch.size()) {
+      long tail = counters.get(TAIL);
+      int free = awaitSpace(tail, batch.size() - done);
+      for (int i = 0; i < free; i++) {
+        items[(int) (tail + i) & mask] = batch.get(done + i);
+      }
+      done += free;
+      counters.lazySet(TAIL, tail + free);
+    }
+  }
+
+  /**
+   * Waits until at least one slot is free, returning how many of the wanted slots are.
+   */
+  private int awaitSpace(long tail, int wanted) throws InterruptedException {
+    long free = items.length - (tail - counters.get(CACHED_HEAD));
+    int attempts = 0;
+    while (free < wanted) {
+      long head = counters.get(HEAD);
+      counters.lazySet(CACHED_HEAD, head);
+      free = items.length - (tail - head);
+      if (free > 0) {
+        break;
+      }
+      attempts = waitStrategy.await(attempts);
+    }
+    return (int) Math.min(free, wanted);
+  }
+
+  @Override
+  public Item take() throws InterruptedException {
+    long head = counters.get(HEAD);
+    int attempts = 0;
+    while (head >= counters.get(CACHED_TAIL)) {
+      long tail = counters.get(TAIL);
+      counters.lazySet(CACHED_TAIL, tail);
+      if (head < tail) {
+        break;
+      }
+      attempts = waitStrategy.await(attempts);
+    }
+    int index = (int) head & mask;
+    Item item = items[index];
+    items[index] = null;
+    counters.lazySet(HEAD, head + 1);
+    return item;
+  }
+
+  @Override
+  public int drainTo(Collection<? super Item> batch, int maxItems) {
+    long head = counters.get(HEAD);
+    long tail = counters.get(TAIL);
+    counters.lazySet(CACHED_TAIL, tail);
+    int count = (int) Math.min(tail - head, Math.max(maxItems, 0));
+    for (int i = 0; i < count; i++) {
+      int index = (int) (head + i) & mask;
+      batch.add(items[index]);
+      items[index] = null;
+    }
+    counters.lazySet(HEAD, head + count);
+    return count;
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a thread waits for space or items in a ring buffer. The rings never signal, so a waiting
+ * thread checks again after every {@link #idle(int)}.
+ */
+public enum WaitStrategy {
+
+  /**
+   * Busy spins, lowest latency but burns a core per waiting thread.
+   */
+  SPIN {
+    @Override
+    int idle(int attempts) {
+      return attempts + 1;
+    }
+  },
+
+  /**
+   * Yields the processor between checks.
+   */
+  YIELD {
+    @Override
+    int idle(int attempts) {
+      Thread.yield();
+      return attempts + 1;
+    }
+  },
+
+  /**
+   * Spins, then yields, then parks for {@link #PARK_NANOS} between checks.
+   */
+  PARK {
+    @Override
+    int idle(int attempts) {
+      if (attempts < SPINS) {
+        return attempts + 1;
+      }
+      if (attempts < SPINS + YIELDS) {
+        Thread.yield();
+        return attempts + 1;
+      }
+      LockSupport.parkNanos(PARK_NANOS);
+      return attempts;
+    }
+  };
+
+  private static final int SPINS = 100;
+  private static final int YIELDS = 100;
+  private static final long PARK_NANOS = 50_000;
+
+  /**
+   * Waits once.
+   *
+   * @param attempts the number of times the caller has waited so far for the same condition
+   * @return the number to pass on the next call
+   */
+  abstract int idle(int attempts);
+
+  /**
+   * Waits once, failing if the thread was interrupted.
+   */
+  int await(int attempts) throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+    return idle(attempts);
+  }
+}
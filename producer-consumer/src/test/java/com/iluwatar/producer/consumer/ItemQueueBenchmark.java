@@ -0,0 +1,177 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Harness measuring throughput and latency percentiles of the {@link ItemQueue} backends for 1:1,
+ * N:1 and N:M producer and consumer topologies. Producers put items as fast as they can, and the
+ * latency of an item is the time from just before its put until its consumer has it. Consumers
+ * either take items one by one or take one and drain up to {@link #BATCH_SIZE} - 1 more that are
+ * already queued. The
+ * optional arguments are the items per producer, 200000 by default, and N and M, 4 by default.
+ */
+public final class ItemQueueBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ItemQueueBenchmark.class);
+
+  private static final int CAPACITY = 1024;
+  private static final int BATCH_SIZE = 64;
+
+  private ItemQueueBenchmark() {
+  }
+
+  /**
+   * Program entry point
+   *
+   * @param args command line args
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int itemsPerProducer = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+    int n = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+    int m = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+    int[][] topologies = {{1, 1}, {n, 1}, {n, m}};
+    for (int[] topology : topologies) {
+      int producers = topology[0];
+      int consumers = topology[1];
+      run("LinkedBlockingQueue", () -> new BlockingQueueItemBuffer(new LinkedBlockingQueue<>(CAPACITY)),
+          producers, consumers, itemsPerProducer, 1);
+      if (producers == 1 && consumers == 1) {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+          run("SpscRingBuffer " + waitStrategy, () -> new SpscRingBuffer(CAPACITY, waitStrategy),
+              producers, consumers, itemsPerProducer, 1);
+        }
+        run("SpscRingBuffer PARK batched", () -> new SpscRingBuffer(CAPACITY, WaitStrategy.PARK),
+            producers, consumers, itemsPerProducer, BATCH_SIZE);
+      }
+      for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+        run("MpmcRingBuffer " + waitStrategy, () -> new MpmcRingBuffer(CAPACITY, waitStrategy),
+            producers, consumers, itemsPerProducer, 1);
+      }
+      run("MpmcRingBuffer PARK batched", () -> new MpmcRingBuffer(CAPACITY, WaitStrategy.PARK),
+          producers, consumers, itemsPerProducer, BATCH_SIZE);
+    }
+  }
+
+  private static void run(String name, Supplier<ItemBuffer> buffers, int producers, int consumers,
+      int itemsPerProducer, int batchSize) throws InterruptedException {
+    // warm up, then measure
+    transfer(new ItemQueue(buffers.get()), producers, consumers, itemsPerProducer / 4, batchSize);
+    long[] result = transfer(new ItemQueue(buffers.get()), producers, consumers, itemsPerProducer,
+        batchSize);
+    LOGGER.info("{}:{} {}: {} items/s, latency p50 {} us, p99 {} us, p99.9 {} us", producers, consumers,
+        name, result[0], result[1] / 1000, result[2] / 1000, result[3] / 1000);
+  }
+
+  /**
+   * Returns the throughput and the 50th, 99th and 99.9th latency percentiles in nanoseconds.
+   */
+  private static long[] transfer(ItemQueue queue, int producers, int consumers, int itemsPerProducer,
+      int batchSize) throws InterruptedException {
+    int total = producers * itemsPerProducer;
+    long[] putTimes = new long[total];
+    long[][] latencies = new long[consumers][total];
+    int[] latencyCounts = new int[consumers];
+    AtomicInteger remaining = new AtomicInteger(total);
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      int first = p * itemsPerProducer;
+      String producer = "producer " + p;
+      threads.add(new Thread(() -> {
+        try {
+          for (int id = first; id < first + itemsPerProducer; id++) {
+            putTimes[id] = System.nanoTime();
+            queue.put(new Item(producer, id));
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }));
+    }
+    for (int c = 0; c < consumers; c++) {
+      int consumer = c;
+      threads.add(new Thread(() -> {
+        List<Item> batch = new ArrayList<>(batchSize);
+        long[] samples = latencies[consumer];
+        int count = 0;
+        try {
+          // stop taking once the items still to come are all claimed by other consumers
+          while (remaining.getAndDecrement() > 0) {
+            batch.clear();
+            batch.add(queue.take());
+            int extra = claim(remaining, batchSize - 1);
+            if (extra > 0) {
+              // hand back the claimed items that were not there yet
+              remaining.addAndGet(extra - queue.drainTo(batch, extra));
+            }
+            long now = System.nanoTime();
+            for (Item item : batch) {
+              samples[count++] = now - putTimes[item.getId()];
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        latencyCounts[consumer] = count;
+      }));
+    }
+    long start = System.nanoTime();
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long elapsed = System.nanoTime() - start;
+    long[] all = new long[total];
+    int merged = 0;
+    for (int c = 0; c < consumers; c++) {
+      System.arraycopy(latencies[c], 0, all, merged, latencyCounts[c]);
+      merged += latencyCounts[c];
+    }
+    Arrays.sort(all, 0, merged);
+    return new long[] {total * 1_000_000_000L / elapsed, percentile(all, merged, 0.5),
+        percentile(all, merged, 0.99), percentile(all, merged, 0.999)};
+  }
+
+  private static int claim(AtomicInteger remaining, int wanted) {
+    for (;;) {
+      int left = remaining.get();
+      int claimed = Math.max(0, Math.min(wanted, left));
+      if (claimed == 0 || remaining.compareAndSet(left, left - claimed)) {
+        return claimed;
+      }
+    }
+  }
+
+  private static long percentile(long[] sorted, int count, double fraction) {
+    return count == 0 ? 0 : sorted[Math.min(count - 1, (int) (count * fraction))];
+  }
+}
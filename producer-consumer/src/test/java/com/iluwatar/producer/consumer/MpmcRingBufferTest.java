@@ -0,0 +1,175 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link MpmcRingBuffer}
+ */
+public class MpmcRingBufferTest {
+
+  private static final int ITEMS_PER_PRODUCER = 5000;
+
+  @Test
+  public void testItemsComeOutInOrder() throws Exception {
+    final MpmcRingBuffer buffer = new MpmcRingBuffer(3, WaitStrategy.SPIN);
+    final Item[] items = new Item[4];
+    for (int i = 0; i < items.length; i++) {
+      items[i] = new Item("producer", i);
+      buffer.put(items[i]);
+    }
+
+    assertSame(items[0], buffer.take());
+    final List<Item> drained = new ArrayList<>();
+    assertEquals(2, buffer.drainTo(drained, 2));
+    assertEquals(Arrays.asList(items[1], items[2]), drained);
+
+    buffer.putAll(Arrays.asList(new Item("producer", 4), new Item("producer", 5)));
+    drained.clear();
+    assertEquals(3, buffer.drainTo(drained, 10));
+    assertEquals(0, buffer.drainTo(drained, 10));
+    assertEquals(5, drained.get(2).getId());
+  }
+
+  @Test
+  public void testFullBufferWaitsForConsumer() throws Exception {
+    final MpmcRingBuffer buffer = new MpmcRingBuffer(2, WaitStrategy.PARK);
+    buffer.put(new Item("producer", 0));
+    buffer.put(new Item("producer", 1));
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final Future<?> put = executor.submit(() -> {
+        buffer.put(new Item("producer", 2));
+        return null;
+      });
+      Thread.sleep(50);
+      assertFalse(put.isDone());
+      assertEquals(0, buffer.take().getId());
+      put.get(1, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testConcurrentTransferWithEachWaitStrategy() throws Exception {
+    for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+      transfer(new MpmcRingBuffer(64, waitStrategy), 3, 2);
+    }
+  }
+
+  @Test
+  public void testConcurrentBatchTransfer() throws Exception {
+    transfer(new MpmcRingBuffer(64, WaitStrategy.YIELD), 3, 2, 16);
+  }
+
+  private static void transfer(ItemBuffer buffer, int producers, int consumers) throws Exception {
+    transfer(buffer, producers, consumers, 1);
+  }
+
+  /**
+   * Every item must be taken exactly once, and in the order its producer put them.
+   */
+  private static void transfer(ItemBuffer buffer, int producers, int consumers, int batchSize)
+      throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+    try {
+      final List<Future<int[]>> results = new ArrayList<>();
+      for (int p = 0; p < producers; p++) {
+        final String name = String.valueOf(p);
+        executor.submit(() -> {
+          final List<Item> batch = new ArrayList<>(batchSize);
+          for (int id = 0; id < ITEMS_PER_PRODUCER; id++) {
+            batch.add(new Item(name, id));
+            if (batch.size() == batchSize) {
+              buffer.putAll(batch);
+              batch.clear();
+            }
+          }
+          buffer.putAll(batch);
+          return null;
+        });
+      }
+      final int total = producers * ITEMS_PER_PRODUCER;
+      final int[] remaining = {total};
+      for (int c = 0; c < consumers; c++) {
+        results.add(executor.submit(() -> {
+          final int[] lastIds = new int[producers];
+          Arrays.fill(lastIds, -1);
+          final List<Item> batch = new ArrayList<>(batchSize);
+          while (true) {
+            synchronized (remaining) {
+              if (remaining[0] == 0) {
+                return lastIds;
+              }
+              remaining[0]--;
+            }
+            batch.clear();
+            batch.add(buffer.take());
+            final int extra = Math.min(batchSize - 1, claim(remaining, batchSize - 1));
+            int drained = 0;
+            while (drained < extra) {
+              drained += buffer.drainTo(batch, extra - drained);
+            }
+            for (Item item : batch) {
+              final int producer = Integer.parseInt(item.getProducer());
+              assertTrue(item.getId() > lastIds[producer]);
+              lastIds[producer] = item.getId();
+            }
+          }
+        }));
+      }
+      for (Future<int[]> result : results) {
+        result.get(30, TimeUnit.SECONDS);
+      }
+      assertEquals(0, buffer.drainTo(new ArrayList<>(), 1));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Claims up to wanted of the items still expected, so consumers only drain items that will come.
+   */
+  private static int claim(int[] remaining, int wanted) {
+    synchronized (remaining) {
+      final int claimed = Math.min(wanted, remaining[0]);
+      remaining[0] -= claimed;
+      return claimed;
+    }
+  }
+}
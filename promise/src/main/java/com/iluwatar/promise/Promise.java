@@ -25,6 +25,11 @@ package com.iluwatar.promise;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -35,58 +40,115 @@ import java.util.function.Function;
  * of the final value, the asynchronous method returns a promise of having a value at some point 
  * in the future.
  * 
+ * <p>Any number of dependent promises and error handlers can be attached, and they never block:
+ * they run when this promise is fulfilled, on the fulfilling thread or on the callback executor
+ * the promise was created with, which the dependent promises inherit.
+ * 
  * @param <T> type of result.
  */
 public class Promise<T> extends PromiseSupport<T> {
 
-  private Runnable fulfillmentAction;
-  private Consumer<? super Throwable> exceptionHandler;
+  private Thread runner;
 
   /**
    * Creates a promise that will be fulfilled in future.
    */
   public Promise() {
+    super(null);
+  }
+
+  /**
+   * Creates a promise that will be fulfilled in future, running its callbacks and those of its
+   * dependent promises on the executor provided.
+   * @param callbackExecutor the executor in which the callbacks should be run.
+   */
+  public Promise(Executor callbackExecutor) {
+    super(callbackExecutor);
+  }
+
+  /**
+   * Returns a new promise that is fulfilled when all the promises provided are fulfilled, or
+   * fails as soon as any of them fails.
+   * @param promises the promises to wait for.
+   * @return a new promise.
+   */
+  public static Promise<Void> allOf(Promise<?>... promises) {
+    Promise<Void> all = new Promise<>();
+    if (promises.length == 0) {
+      all.fulfill(null);
+      return all;
+    }
+    AtomicInteger remaining = new AtomicInteger(promises.length);
+    for (Promise<?> promise : promises) {
+      promise.whenDone(() -> {
+        if (promise.isFailed()) {
+          all.fail(promise.failure());
+        } else if (remaining.decrementAndGet() == 0) {
+          all.fulfill(null);
+        }
+      });
+    }
+    return all;
+  }
+
+  /**
+   * Returns a new promise that is completed like the first of the promises provided to be
+   * fulfilled, normally or exceptionally.
+   * @param promises the promises to wait for.
+   * @return a new promise.
+   */
+  public static Promise<Object> anyOf(Promise<?>... promises) {
+    Promise<Object> any = new Promise<>();
+    for (Promise<?> promise : promises) {
+      promise.whenDone(() -> any.completeFrom(promise));
+    }
+    return any;
   }
 
   /**
-   * Fulfills the promise with the provided value.
+   * Fulfills the promise with the provided value, unless it is already fulfilled.
    * @param value the fulfilled value that can be accessed using {@link #get()}.
    */
   @Override
   public void fulfill(T value) {
     super.fulfill(value);
-    postFulfillment();
   }
 
   /**
-   * Fulfills the promise with exception due to error in execution.
+   * Fulfills the promise with exception due to error in execution, unless it is already
+   * fulfilled.
    * @param exception the exception will be wrapped in {@link ExecutionException}
    *        when accessing the value using {@link #get()}.
    */
   @Override
   public void fulfillExceptionally(Exception exception) {
     super.fulfillExceptionally(exception);
-    handleException(exception);
-    postFulfillment();
   }
 
-  private void handleException(Exception exception) {
-    if (exceptionHandler == null) {
-      return;
-    }
-    exceptionHandler.accept(exception);
-  }
-
-  private void postFulfillment() {
-    if (fulfillmentAction == null) {
-      return;
+  /**
+   * Cancels the promise, failing its dependent promises with a
+   * {@link java.util.concurrent.CancellationException}.
+   * @param mayInterruptIfRunning whether the thread running the task given to
+   *        {@link #fulfillInAsync(Callable, Executor)} should be interrupted.
+   * @return true if this call cancelled the promise.
+   */
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    boolean cancelled = super.cancel(mayInterruptIfRunning);
+    if (cancelled && mayInterruptIfRunning) {
+      synchronized (this) {
+        if (runner != null) {
+          runner.interrupt();
+        }
+      }
     }
-    fulfillmentAction.run();
+    return cancelled;
   }
 
   /**
    * Executes the task using the executor in other thread and fulfills the promise returned
-   * once the task completes either successfully or with an exception.
+   * once the task completes either successfully or with an exception. The task is not run if
+   * the promise is cancelled before it starts.
    * 
    * @param task the task that will provide the value to fulfill the promise.
    * @param executor the executor in which the task should be run.
@@ -94,15 +156,45 @@ public class Promise<T> extends PromiseSupport<T> {
    */
   public Promise<T> fulfillInAsync(final Callable<T> task, Executor executor) {
     executor.execute(() -> {
+      synchronized (this) {
+        if (isDone()) {
+          return;
+        }
+        runner = Thread.currentThread();
+      }
       try {
         fulfill(task.call());
       } catch (Exception ex) {
         fulfillExceptionally(ex);
+      } finally {
+        synchronized (this) {
+          runner = null;
+          if (isCancelled()) {
+            // the interrupt was meant for the task, not for whatever the executor runs next
+            Thread.interrupted();
+          }
+        }
       }
     });
     return this;
   }
 
+  /**
+   * Fails the promise with a {@link TimeoutException} if it is not fulfilled within the timeout.
+   * @param timeout the maximum time to wait.
+   * @param unit the time unit of the timeout argument.
+   * @return this
+   */
+  public Promise<T> orTimeout(long timeout, TimeUnit unit) {
+    if (!isDone()) {
+      ScheduledFuture<?> timer = Delayer.SCHEDULER.schedule(() ->
+          fail(new TimeoutException("Promise not fulfilled within " + timeout + " " + unit)),
+          timeout, unit);
+      whenDone(() -> timer.cancel(false));
+    }
+    return this;
+  }
+
   /**
    * Returns a new promise that, when this promise is fulfilled normally, is fulfilled with 
    * result of this promise as argument to the action provided.
@@ -110,19 +202,23 @@ public class Promise<T> extends PromiseSupport<T> {
    * @return a new promise.
    */
   public Promise<Void> thenAccept(Consumer<? super T> action) {
-    Promise<Void> dest = new Promise<>();
-    fulfillmentAction = new ConsumeAction(this, dest, action);
+    Promise<Void> dest = new Promise<>(callbackExecutor());
+    whenDone(new ConsumeAction(this, dest, action));
     return dest;
   }
   
   /**
-   * Set the exception handler on this promise.
+   * Adds an exception handler to this promise.
    * @param exceptionHandler a consumer that will handle the exception occurred while fulfilling
    *            the promise.
    * @return this
    */
   public Promise<T> onError(Consumer<? super Throwable> exceptionHandler) {
-    this.exceptionHandler = exceptionHandler;
+    whenDone(() -> {
+      if (isFailed()) {
+        exceptionHandler.accept(failure());
+      }
+    });
     return this;
   }
 
@@ -133,14 +229,26 @@ public class Promise<T> extends PromiseSupport<T> {
    * @return a new promise.
    */
   public <V> Promise<V> thenApply(Function<? super T, V> func) {
-    Promise<V> dest = new Promise<>();
-    fulfillmentAction = new TransformAction<V>(this, dest, func);
+    Promise<V> dest = new Promise<>(callbackExecutor());
+    whenDone(new TransformAction<V>(this, dest, func));
     return dest;
   }
 
   /**
-   * Accesses the value from source promise and calls the consumer, then fulfills the
-   * destination promise.
+   * Returns a new promise that, when this promise is fulfilled normally, is completed like the
+   * promise returned by the function provided given the result of this promise.
+   * @param func function returning the next promise.
+   * @return a new promise.
+   */
+  public <V> Promise<V> thenCompose(Function<? super T, ? extends Promise<V>> func) {
+    Promise<V> dest = new Promise<>(callbackExecutor());
+    whenDone(new ComposeAction<V>(this, dest, func));
+    return dest;
+  }
+
+  /**
+   * Passes the value from source promise to the consumer, then fulfills the destination
+   * promise.
    */
   private class ConsumeAction implements Runnable {
 
@@ -156,18 +264,22 @@ public class Promise<T> extends PromiseSupport<T> {
 
     @Override
     public void run() {
+      if (src.isFailed()) {
+        dest.fail(src.failure());
+        return;
+      }
       try {
-        action.accept(src.get());
+        action.accept(src.value());
         dest.fulfill(null);
       } catch (Throwable throwable) {
-        dest.fulfillExceptionally((Exception) throwable.getCause());
+        dest.fail(throwable);
       }
     }
   }
 
   /**
-   * Accesses the value from source promise, then fulfills the destination promise using the
-   * transformed value. The source value is transformed using the transformation function.
+   * Fulfills the destination promise using the transformed value from source promise. The
+   * source value is transformed using the transformation function.
    */
   private class TransformAction<V> implements Runnable {
 
@@ -183,11 +295,62 @@ public class Promise<T> extends PromiseSupport<T> {
 
     @Override
     public void run() {
+      if (src.isFailed()) {
+        dest.fail(src.failure());
+        return;
+      }
       try {
-        dest.fulfill(func.apply(src.get()));
+        dest.fulfill(func.apply(src.value()));
       } catch (Throwable throwable) {
-        dest.fulfillExceptionally((Exception) throwable.getCause());
+        dest.fail(throwable);
       }
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Completes the destination promise like the promise the function returns for the value from
+   * source promise.
+   */
+  private class ComposeAction<V> implements Runnable {
+
+    private final Promise<T> src;
+    private final Promise<V> dest;
+    private final Function<? super T, ? extends Promise<V>> func;
+
+    private ComposeAction(Promise<T> src, Promise<V> dest,
+        Function<? super T, ? extends Promise<V>> func) {
+      this.src = src;
+      this.dest = dest;
+      this.func = func;
+    }
+
+    @Override
+    public void run() {
+      if (src.isFailed()) {
+        dest.fail(src.failure());
+        return;
+      }
+      try {
+        Promise<V> next = func.apply(src.value());
+        next.whenDone(() -> dest.completeFrom(next));
+      } catch (Throwable throwable) {
+        dest.fail(throwable);
+      }
+    }
+  }
+
+  /**
+   * Holder of the daemon thread failing the promises that time out.
+   */
+  private static final class Delayer {
+    private static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, r -> {
+      Thread thread = new Thread(r, "promise-delayer");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    static {
+      SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+  }
+}
@@ -22,97 +22,343 @@
  */
 package com.iluwatar.promise;
 
+import java.util.ArrayDeque;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A really simplified implementation of future that allows completing it successfully with a value 
- * or exceptionally with an exception.
+ * A lock-free implementation of future that allows completing it successfully with a value, 
+ * exceptionally with an exception or by cancelling it. The result is set once with a CAS, and
+ * dependent callbacks and waiting threads are kept in a Treiber stack that is swapped for a
+ * marker when the result is set, so a callback added concurrently is either run by the
+ * completing thread or, finding the marker, by the thread adding it. A thread that stops waiting
+ * because of a timeout or an interrupt marks its node as abandoned, and abandoned nodes are
+ * popped off the top of the stack when the next node is pushed.
  */
 class PromiseSupport<T> implements Future<T> {
   
   private static final Logger LOGGER = LoggerFactory.getLogger(PromiseSupport.class);
 
-  private static final int RUNNING = 1;
-  private static final int FAILED = 2;
-  private static final int COMPLETED = 3;
+  /**
+   * Result of a promise fulfilled with {@code null}.
+   */
+  private static final Object NIL = new Object();
 
-  private final Object lock;
+  /**
+   * Head of the stack once the promise is done.
+   */
+  private static final Node DONE = new Node(null, null);
 
-  private volatile int state = RUNNING;
-  private T value;
-  private Exception exception;
+  /**
+   * Callbacks completing further promises run nested up to this depth, deeper ones are deferred
+   * to the outermost callback on the thread so that long chains do not overflow the stack.
+   */
+  private static final int MAX_INLINE_DEPTH = 32;
 
-  PromiseSupport() {
-    this.lock = new Object();
+  private static final ThreadLocal<Trampoline> TRAMPOLINE = ThreadLocal.withInitial(Trampoline::new);
+
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<PromiseSupport, Object> RESULT =
+      AtomicReferenceFieldUpdater.newUpdater(PromiseSupport.class, Object.class, "result");
+
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<PromiseSupport, Node> STACK =
+      AtomicReferenceFieldUpdater.newUpdater(PromiseSupport.class, Node.class, "stack");
+
+  private final Executor callbackExecutor;
+
+  private volatile Object result;
+  private volatile Node stack;
+
+  PromiseSupport(Executor callbackExecutor) {
+    this.callbackExecutor = callbackExecutor;
+  }
+
+  Executor callbackExecutor() {
+    return callbackExecutor;
   }
 
   void fulfill(T value) {
-    this.value = value;
-    this.state = COMPLETED;
-    synchronized (lock) {
-      lock.notifyAll();
-    }
+    complete(value == null ? NIL : value);
   }
 
   void fulfillExceptionally(Exception exception) {
-    this.exception = exception;
-    this.state = FAILED;
-    synchronized (lock) {
-      lock.notifyAll();
+    fail(exception);
+  }
+
+  boolean fail(Throwable throwable) {
+    return complete(new Failure(throwable, false));
+  }
+
+  /**
+   * Completes this promise the way the source promise was completed, a cancelled source failing
+   * this one with the {@link CancellationException}. The source must have been fulfilled with a
+   * value assignable to {@code T}, or have failed.
+   */
+  boolean completeFrom(PromiseSupport<?> source) {
+    Object outcome = source.result;
+    if (outcome instanceof Failure) {
+      return fail(((Failure) outcome).cause);
+    }
+    return complete(outcome);
+  }
+
+  private boolean complete(Object outcome) {
+    if (RESULT.compareAndSet(this, null, outcome)) {
+      postComplete();
+      return true;
+    }
+    return false;
+  }
+
+  private void postComplete() {
+    Node head = STACK.getAndSet(this, DONE);
+    Node reversed = null;
+    while (head != null) {
+      Node next = head.next;
+      head.next = reversed;
+      reversed = head;
+      head = next;
+    }
+    // registration order
+    for (Node node = reversed; node != null; node = node.next) {
+      Thread waiter = node.waiter;
+      if (waiter != null) {
+        LockSupport.unpark(waiter);
+      } else if (node.action != null) {
+        fire(node.action);
+      }
+    }
+  }
+
+  /**
+   * Runs the action once this promise is done, right away if it already is.
+   */
+  void whenDone(Runnable action) {
+    if (!push(new Node(action, null))) {
+      fire(action);
+    }
+  }
+
+  private boolean push(Node node) {
+    for (;;) {
+      Node head = pruneAbandoned();
+      if (head == DONE) {
+        return false;
+      }
+      node.next = head;
+      if (STACK.compareAndSet(this, head, node)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Pops the abandoned nodes off the top of the stack. Only the head is swapped with a CAS, so this
+   * never races with {@link #postComplete()} relinking the nodes it took.
+   *
+   * @return the new head of the stack
+   */
+  private Node pruneAbandoned() {
+    for (;;) {
+      Node head = stack;
+      if (head == null || head == DONE || !head.isAbandoned()) {
+        return head;
+      }
+      STACK.compareAndSet(this, head, head.next);
+    }
+  }
+
+  private void fire(Runnable action) {
+    if (callbackExecutor != null) {
+      callbackExecutor.execute(() -> runSafely(action));
+      return;
+    }
+    Trampoline trampoline = TRAMPOLINE.get();
+    if (trampoline.depth >= MAX_INLINE_DEPTH) {
+      trampoline.deferred.add(action);
+      return;
+    }
+    trampoline.depth++;
+    try {
+      runSafely(action);
+    } finally {
+      trampoline.depth--;
+    }
+    if (trampoline.depth == 0) {
+      for (Runnable deferred; (deferred = trampoline.deferred.poll()) != null;) {
+        trampoline.depth++;
+        try {
+          runSafely(deferred);
+        } finally {
+          trampoline.depth--;
+        }
+      }
+    }
+  }
+
+  private static void runSafely(Runnable action) {
+    try {
+      action.run();
+    } catch (RuntimeException e) {
+      LOGGER.error("Promise callback failed", e);
     }
   }
 
+  boolean isFailed() {
+    return result instanceof Failure;
+  }
+
+  /**
+   * The value of a promise fulfilled normally.
+   */
+  @SuppressWarnings("unchecked")
+  T value() {
+    Object outcome = result;
+    return outcome == NIL ? null : (T) outcome;
+  }
+
+  /**
+   * The reason a failed promise failed.
+   */
+  Throwable failure() {
+    Object outcome = result;
+    return outcome instanceof Failure ? ((Failure) outcome).cause : null;
+  }
+
   @Override
   public boolean cancel(boolean mayInterruptIfRunning) {
-    return false;
+    return complete(new Failure(new CancellationException("Promise was cancelled"), true));
   }
 
   @Override
   public boolean isCancelled() {
-    return false;
+    Object outcome = result;
+    return outcome instanceof Failure && ((Failure) outcome).cancelled;
   }
 
   @Override
   public boolean isDone() {
-    return state > RUNNING;
+    return result != null;
   }
 
   @Override
   public T get() throws InterruptedException, ExecutionException {
-    synchronized (lock) {
-      while (state == RUNNING) {
-        lock.wait();
-      }
+    Object outcome = result;
+    if (outcome == null) {
+      outcome = await(false, 0L);
     }
-    if (state == COMPLETED) {
-      return value;
-    } 
-    throw new ExecutionException(exception);
+    return report(outcome);
   }
 
   @Override
   public T get(long timeout, TimeUnit unit)
-      throws  ExecutionException, TimeoutException {
-    synchronized (lock) {
-      while (state == RUNNING) {
-        try {
-          lock.wait(unit.toMillis(timeout));
-        } catch (InterruptedException e) {
-          LOGGER.warn("Interrupted!", e);
-          Thread.currentThread().interrupt();
+      throws InterruptedException, ExecutionException, TimeoutException {
+    Object outcome = result;
+    if (outcome == null) {
+      outcome = await(true, unit.toNanos(timeout));
+      if (outcome == null) {
+        throw new TimeoutException("Promise not fulfilled within " + timeout + " " + unit);
+      }
+    }
+    return report(outcome);
+  }
+
+  private Object await(boolean timed, long nanos) throws InterruptedException {
+    long deadline = timed ? System.nanoTime() + nanos : 0L;
+    Node node = null;
+    Object outcome;
+    while ((outcome = result) == null) {
+      if (node == null) {
+        node = new Node(null, Thread.currentThread());
+        if (!push(node)) {
+          continue;
         }
+      } else if (Thread.interrupted()) {
+        abandon(node);
+        throw new InterruptedException();
+      } else if (timed) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          abandon(node);
+          return null;
+        }
+        LockSupport.parkNanos(this, remaining);
+      } else {
+        LockSupport.park(this);
+      }
+    }
+    return outcome;
+  }
+
+  /**
+   * Marks the node of a thread that stopped waiting, so it no longer keeps the thread reachable,
+   * and prunes it right away if nothing was pushed on top of it since.
+   */
+  private void abandon(Node node) {
+    node.waiter = null;
+    pruneAbandoned();
+  }
+
+  private T report(Object outcome) throws ExecutionException {
+    if (outcome instanceof Failure) {
+      Failure failure = (Failure) outcome;
+      if (failure.cancelled) {
+        throw (CancellationException) failure.cause;
       }
+      throw new ExecutionException(failure.cause);
     }
-    
-    if (state == COMPLETED) {
-      return value;
-    } 
-    throw new ExecutionException(exception);
+    @SuppressWarnings("unchecked")
+    T value = outcome == NIL ? null : (T) outcome;
+    return value;
+  }
+
+  /**
+   * Result of a promise that failed or was cancelled.
+   */
+  private static final class Failure {
+    private final Throwable cause;
+    private final boolean cancelled;
+
+    Failure(Throwable cause, boolean cancelled) {
+      this.cause = cause;
+      this.cancelled = cancelled;
+    }
+  }
+
+  /**
+   * Entry of the stack, either a dependent callback or a thread waiting in {@link #get()}. The
+   * waiter is cleared when the thread stops waiting before the promise is done.
+   */
+  private static final class Node {
+    private final Runnable action;
+    private volatile Thread waiter;
+    private Node next;
+
+    Node(Runnable action, Thread waiter) {
+      this.action = action;
+      this.waiter = waiter;
+    }
+
+    boolean isAbandoned() {
+      return action == null && waiter == null;
+    }
+  }
+
+  /**
+   * Nesting depth of callbacks on a thread, and the callbacks deferred past the maximum depth.
+   */
+  private static final class Trampoline {
+    private int depth;
+    private final ArrayDeque<Runnable> deferred = new ArrayDeque<>();
   }
-}
\ No newline at end of file
+}
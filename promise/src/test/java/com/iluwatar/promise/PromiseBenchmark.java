@@ -0,0 +1,116 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.promise;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Benchmark comparing {@link Promise} with {@link CompletableFuture} on a long chain of
+ * dependent stages, and on a wide fan-out of dependents of one promise. The dependents are
+ * attached first, then the source is completed, and the time to attach and complete them all
+ * is reported as stages per second. The optional arguments are the chain depth and the fan-out
+ * width, 1000 and 10000 by default.
+ */
+public final class PromiseBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PromiseBenchmark.class);
+
+  private static final int ROUNDS = 2000;
+
+  private PromiseBenchmark() {
+  }
+
+  /**
+   * Program entry point
+   *
+   * @param args command line args
+   */
+  public static void main(String[] args) throws Exception {
+    int depth = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int width = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+    for (int run = 0; run < 3; run++) {
+      LOGGER.info("Chain of {}: Promise {} stages/s, CompletableFuture {} stages/s", depth,
+          measure(depth, () -> promiseChain(depth)), measure(depth, () -> futureChain(depth)));
+      LOGGER.info("Fan-out of {}: Promise {} stages/s, CompletableFuture {} stages/s", width,
+          measure(width, () -> promiseFanOut(width)), measure(width, () -> futureFanOut(width)));
+    }
+  }
+
+  private static long measure(int stages, Runnable round) {
+    int rounds = Math.max(1, ROUNDS * 1000 / stages);
+    long start = System.nanoTime();
+    for (int i = 0; i < rounds; i++) {
+      round.run();
+    }
+    return (long) rounds * stages * 1_000_000_000L / (System.nanoTime() - start);
+  }
+
+  private static void promiseChain(int depth) {
+    Promise<Integer> source = new Promise<>();
+    Promise<Integer> last = source;
+    for (int i = 0; i < depth; i++) {
+      last = last.thenApply(value -> value + 1);
+    }
+    source.fulfill(0);
+    check(last.value(), depth);
+  }
+
+  private static void futureChain(int depth) {
+    CompletableFuture<Integer> source = new CompletableFuture<>();
+    CompletableFuture<Integer> last = source;
+    for (int i = 0; i < depth; i++) {
+      last = last.thenApply(value -> value + 1);
+    }
+    source.complete(0);
+    check(last.join(), depth);
+  }
+
+  private static void promiseFanOut(int width) {
+    Promise<Integer> source = new Promise<>();
+    int[] sum = new int[1];
+    for (int i = 0; i < width; i++) {
+      source.thenAccept(value -> sum[0] += value);
+    }
+    source.fulfill(1);
+    check(sum[0], width);
+  }
+
+  private static void futureFanOut(int width) {
+    CompletableFuture<Integer> source = new CompletableFuture<>();
+    int[] sum = new int[1];
+    for (int i = 0; i < width; i++) {
+      source.thenAccept(value -> sum[0] += value);
+    }
+    source.complete(1);
+    check(sum[0], width);
+  }
+
+  private static void check(int actual, int expected) {
+    if (actual != expected) {
+      throw new IllegalStateException("Expected " + expected + " but got " + actual);
+    }
+  }
+}
@@ -25,7 +25,12 @@ package com.iluwatar.promise;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.lang.ref.WeakReference;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
@@ -36,6 +41,9 @@ import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Matchers.eq;
@@ -231,6 +239,154 @@ public class PromiseTest {
     verify(exceptionHandler).accept(eq(exception));
   }
 
+  @Test
+  public void allDependentPromisesAreFulfilled() throws InterruptedException, ExecutionException {
+    Promise<String> first = promise.thenApply(value -> "first " + value);
+    Promise<String> second = promise.thenApply(value -> "second " + value);
+    List<Throwable> errors = new CopyOnWriteArrayList<>();
+    promise.onError(errors::add);
+
+    promise.fulfillInAsync(() -> 1, executor);
+
+    assertEquals("first 1", first.get());
+    assertEquals("second 1", second.get());
+    assertTrue(errors.isEmpty());
+  }
+
+  @Test
+  public void composedPromiseIsFulfilledWithTheResultOfTheReturnedPromise() 
+      throws InterruptedException, ExecutionException {
+    Promise<String> composed = promise
+        .fulfillInAsync(new NumberCrunchingTask(), executor)
+        .thenCompose(value -> new Promise<String>().fulfillInAsync(() -> "got " + value, executor));
+
+    assertEquals("got " + NumberCrunchingTask.CRUNCHED_NUMBER, composed.get());
+  }
+
+  @Test
+  public void dependentPromisesFailWithTheExceptionOfThisPromise() throws InterruptedException {
+    Exception exception = new Exception("barf!");
+    Promise<String> dependentPromise = promise.thenApply(String::valueOf);
+    Promise<Void> accepting = dependentPromise.thenAccept(value -> fail("should not be called"));
+
+    promise.fulfillExceptionally(exception);
+
+    ExecutionException ex = assertThrows(ExecutionException.class, accepting::get);
+    assertSame(exception, ex.getCause());
+  }
+
+  @Test
+  public void allOfIsFulfilledOnceEveryPromiseIs() throws InterruptedException, ExecutionException {
+    Promise<Integer> other = new Promise<>();
+    Promise<Void> all = Promise.allOf(promise, other);
+
+    promise.fulfill(1);
+    assertFalse(all.isDone());
+    other.fulfill(2);
+
+    all.get();
+    assertTrue(Promise.allOf().isDone());
+
+    Promise<Integer> failing = new Promise<>();
+    Promise<Void> failed = Promise.allOf(new Promise<Integer>(), failing);
+    failing.fulfillExceptionally(new Exception("barf!"));
+    assertThrows(ExecutionException.class, failed::get);
+  }
+
+  @Test
+  public void anyOfIsFulfilledLikeTheFirstPromise() throws InterruptedException, ExecutionException {
+    Promise<String> other = new Promise<>();
+    Promise<Object> any = Promise.anyOf(promise, other);
+
+    other.fulfill("other");
+    promise.fulfill(1);
+
+    assertEquals("other", any.get());
+  }
+
+  @Test
+  public void waitingWithATimeoutThrowsTimeoutException() {
+    assertThrows(TimeoutException.class, () -> promise.get(10, TimeUnit.MILLISECONDS));
+
+    Promise<Integer> timingOut = new Promise<Integer>().orTimeout(10, TimeUnit.MILLISECONDS);
+    ExecutionException ex = assertThrows(ExecutionException.class, timingOut::get);
+    assertTrue(ex.getCause() instanceof TimeoutException);
+  }
+
+  @Test
+  public void threadsThatStopWaitingAreNotRetained() throws Exception {
+    Promise<Integer> pending = new Promise<>();
+    Thread waiter = new Thread(() -> {
+      try {
+        pending.get(1, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException | ExecutionException | TimeoutException e) {
+        // expected to time out
+      }
+    });
+    waiter.start();
+    waiter.join();
+    WeakReference<Thread> reference = new WeakReference<>(waiter);
+    waiter = null;
+    for (int i = 0; i < 500 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(reference.get());
+    pending.fulfill(1);
+    assertEquals(Integer.valueOf(1), pending.get());
+  }
+
+  @Test
+  public void cancellingInterruptsTheTaskAndFailsDependentPromises() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    promise.fulfillInAsync(() -> {
+      started.countDown();
+      try {
+        Thread.sleep(10000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return 1;
+    }, executor);
+    Promise<String> dependentPromise = promise.thenApply(String::valueOf);
+    started.await();
+
+    assertTrue(promise.cancel(true));
+
+    assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    assertTrue(promise.isCancelled());
+    assertTrue(promise.isDone());
+    assertThrows(CancellationException.class, promise::get);
+    ExecutionException ex = assertThrows(ExecutionException.class, dependentPromise::get);
+    assertTrue(ex.getCause() instanceof CancellationException);
+    assertFalse(promise.cancel(true));
+  }
+
+  @Test
+  public void callbacksRunOnTheCallbackExecutor() throws InterruptedException, ExecutionException {
+    Promise<Integer> promise = new Promise<>(executor);
+    Promise<Thread> dependentPromise = promise
+        .thenApply(value -> value + 1)
+        .thenApply(value -> Thread.currentThread());
+
+    promise.fulfill(1);
+
+    assertFalse(Thread.currentThread() == dependentPromise.get());
+  }
+
+  @Test
+  public void longChainsDoNotOverflowTheStack() throws InterruptedException, ExecutionException {
+    Promise<Integer> last = promise;
+    for (int i = 0; i < 100000; i++) {
+      last = last.thenApply(value -> value + 1);
+    }
+
+    promise.fulfill(0);
+
+    assertEquals(Integer.valueOf(100000), last.get());
+  }
+
   private static class NumberCrunchingTask implements Callable<Integer> {
 
     private static final Integer CRUNCHED_NUMBER = Integer.MAX_VALUE;
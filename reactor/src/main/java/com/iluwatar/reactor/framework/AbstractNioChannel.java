@@ -23,13 +23,17 @@
 package com.iluwatar.reactor.framework;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This represents the <i>Handle</i> of Reactor pattern. These are resources managed by OS which can
@@ -41,14 +45,22 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  * concrete implementation. It provides a block writing mechanism wherein when any
  * {@link ChannelHandler} wants to write data back, it queues the data in pending write queue and
  * clears it in block manner. This provides better throughput.
+ * 
+ * <p>
+ * Only the first write to an idle connection asks the reactor to wait for writability, further
+ * writes just join the queue until it has been flushed. The bytes pending for a connection are
+ * counted, and when they exceed the high water mark the {@link ChannelHandler} is told the
+ * connection is no longer writable, until they fall below the low water mark again.
  */
 public abstract class AbstractNioChannel {
 
   private final SelectableChannel channel;
   private final ChannelHandler handler;
-  private final Map<SelectableChannel, Queue<Object>> channelToPendingWrites =
+  private final Map<SelectableChannel, PendingWrites> channelToPendingWrites =
       new ConcurrentHashMap<>();
   private NioReactor reactor;
+  private volatile long lowWaterMark = 32 * 1024;
+  private volatile long highWaterMark = 64 * 1024;
 
   /**
    * Creates a new channel.
@@ -68,6 +80,30 @@ public abstract class AbstractNioChannel {
     this.reactor = reactor;
   }
 
+  /**
+   * Sets the number of pending bytes per connection at which the handler is told that the
+   * connection is no longer writable, and below which it is told that it is writable again.
+   * 
+   * @param lowWaterMark the low water mark in bytes.
+   * @param highWaterMark the high water mark in bytes.
+   */
+  public void setWriteBufferWaterMarks(long lowWaterMark, long highWaterMark) {
+    if (lowWaterMark > highWaterMark) {
+      throw new IllegalArgumentException("Low water mark above high water mark");
+    }
+    this.lowWaterMark = lowWaterMark;
+    this.highWaterMark = highWaterMark;
+  }
+
+  /**
+   * @param key the key of a connection.
+   * @return false while the bytes pending for the connection are above the water marks.
+   */
+  public boolean isWritable(SelectionKey key) {
+    PendingWrites pendingWrites = channelToPendingWrites.get(key.channel());
+    return pendingWrites == null || pendingWrites.writable.get();
+  }
+
   /**
    * @return the wrapped NIO channel.
    */
@@ -101,6 +137,32 @@ public abstract class AbstractNioChannel {
    */
   public abstract Object read(SelectionKey key) throws IOException;
 
+  /**
+   * Reads the messages available on the key, which the reactor dispatches one by one. By default
+   * this is the single object returned by {@link #read(SelectionKey)}, channels with a
+   * {@link Framer} may complete none or several messages with one read.
+   * 
+   * @param key the key on which read event occurred.
+   * @param messages the list the messages read are added to.
+   * @throws IOException if any I/O error occurs.
+   */
+  public void readMessages(SelectionKey key, List<Object> messages) throws IOException {
+    messages.add(read(key));
+  }
+
+  /**
+   * Called from the context of reactor thread after the connection of the key has been closed.
+   * Releases the writes still pending for the connection.
+   * 
+   * @param key the key of the closed connection.
+   */
+  protected void onClose(SelectionKey key) {
+    PendingWrites pendingWrites = channelToPendingWrites.remove(key.channel());
+    if (pendingWrites != null) {
+      pendingWrites.queue.forEach(ReferenceCounted::releaseIfCounted);
+    }
+  }
+
   /**
    * @return the handler associated with this channel.
    */
@@ -109,22 +171,60 @@ public abstract class AbstractNioChannel {
   }
 
   /*
-   * Called from the context of reactor thread when the key becomes writable. The channel writes the
-   * whole pending block of data at once.
+   * Called from the context of reactor thread when the key becomes writable. The channel writes as
+   * much of the pending data as it takes, and keeps waiting for writability while data is left.
    */
   void flush(SelectionKey key) throws IOException {
-    Queue<Object> pendingWrites = channelToPendingWrites.get(key.channel());
-    while (true) {
-      Object pendingWrite = pendingWrites.poll();
-      if (pendingWrite == null) {
-        // We don't have anything more to write so channel is interested in reading more data
-        reactor.changeOps(key, SelectionKey.OP_READ);
-        break;
-      }
+    PendingWrites pendingWrites = channelToPendingWrites.get(key.channel());
+    if (pendingWrites == null) {
+      key.interestOps(SelectionKey.OP_READ);
+      return;
+    }
+    long pendingBytes = pendingWrites.bytes.addAndGet(-doFlush(pendingWrites.queue, key));
+    if (pendingBytes < lowWaterMark && pendingWrites.writable.compareAndSet(false, true)) {
+      handler.handleWritabilityChanged(this, key, true);
+    }
+    if (!pendingWrites.queue.isEmpty()) {
+      return;
+    }
+    /*
+     * We don't have anything more to write so channel is interested in reading more data. A write
+     * racing with this either sees the cleared flag and asks for writability itself, or has
+     * already queued its data, which the second check finds.
+     */
+    pendingWrites.writeScheduled.set(false);
+    if (pendingWrites.queue.isEmpty()) {
+      key.interestOps(SelectionKey.OP_READ);
+    } else {
+      pendingWrites.writeScheduled.set(true);
+    }
+  }
 
+  /**
+   * Writes as much of the pending data as the channel takes. Data written completely is removed
+   * from the queue and released, data written partially stays at the head of the queue with its
+   * position advanced. By default the data is written one by one with {@link #doWrite(Object,
+   * SelectionKey)}, stream channels can write it at once.
+   * 
+   * @param pendingWrites the data pending for the connection of the key.
+   * @param key the key which is writable.
+   * @return the number of bytes written.
+   * @throws IOException if any I/O error occurs.
+   */
+  protected long doFlush(Queue<Object> pendingWrites, SelectionKey key) throws IOException {
+    long written = 0;
+    Object pendingWrite;
+    while ((pendingWrite = pendingWrites.peek()) != null) {
+      int size = sizeOf(pendingWrite);
       // ask the concrete channel to make sense of data and write it to java channel
-      doWrite(pendingWrite, key);
+      boolean complete = doWrite(pendingWrite, key);
+      written += size - sizeOf(pendingWrite);
+      if (!complete) {
+        break;
+      }
+      ReferenceCounted.releaseIfCounted(pendingWrites.poll());
     }
+    return written;
   }
 
   /**
@@ -132,9 +232,28 @@ public abstract class AbstractNioChannel {
    * 
    * @param pendingWrite the data to be written on channel.
    * @param key the key which is writable.
+   * @return true if the data has been written completely, false if the channel did not take all
+   *         of it, in which case the rest is written when the channel is writable again.
    * @throws IOException if any I/O error occurs.
    */
-  protected abstract void doWrite(Object pendingWrite, SelectionKey key) throws IOException;
+  protected abstract boolean doWrite(Object pendingWrite, SelectionKey key) throws IOException;
+
+  /**
+   * Returns the number of bytes of the data still to be written, counted against the water marks.
+   * Knows {@link ByteBuffer}s and {@link PooledBuffer}s.
+   * 
+   * @param data the data queued for writing.
+   * @return the number of bytes not yet written.
+   */
+  protected int sizeOf(Object data) {
+    if (data instanceof PooledBuffer) {
+      return ((PooledBuffer) data).getBuffer().remaining();
+    }
+    if (data instanceof ByteBuffer) {
+      return ((ByteBuffer) data).remaining();
+    }
+    return 0;
+  }
 
   /**
    * Queues the data for writing. The data is not guaranteed to be written on underlying channel
@@ -148,28 +267,42 @@ public abstract class AbstractNioChannel {
    * <code>
    * {@literal @}Override
    * public void handleChannelRead(AbstractNioChannel channel, Object readObject, SelectionKey key) {
-   *   byte[] data = ((ByteBuffer)readObject).array();
+   *   ByteBuffer data = ((PooledBuffer) readObject).getBuffer();
    *   ByteBuffer buffer = ByteBuffer.wrap("Server reply".getBytes());
    *   channel.write(buffer, key);
    * }
    * </code>
    * </pre>
    * 
+   * <p>
+   * Reference counted data is retained until it has been written, so the handler may write the
+   * object it has been handed by the dispatcher.
+   * 
    * @param data the data to be written on underlying channel.
    * @param key the key which is writable.
    */
   public void write(Object data, SelectionKey key) {
-    Queue<Object> pendingWrites = this.channelToPendingWrites.get(key.channel());
-    if (pendingWrites == null) {
-      synchronized (this.channelToPendingWrites) {
-        pendingWrites = this.channelToPendingWrites.get(key.channel());
-        if (pendingWrites == null) {
-          pendingWrites = new ConcurrentLinkedQueue<>();
-          this.channelToPendingWrites.put(key.channel(), pendingWrites);
-        }
-      }
+    PendingWrites pendingWrites =
+        channelToPendingWrites.computeIfAbsent(key.channel(), channel -> new PendingWrites());
+    ReferenceCounted.retainIfCounted(data);
+    pendingWrites.queue.add(data);
+    long pendingBytes = pendingWrites.bytes.addAndGet(sizeOf(data));
+    if (pendingBytes > highWaterMark && pendingWrites.writable.compareAndSet(true, false)) {
+      handler.handleWritabilityChanged(this, key, false);
     }
-    pendingWrites.add(data);
-    reactor.changeOps(key, SelectionKey.OP_WRITE);
+    // the reactor is already waiting for writability if an earlier write is still pending
+    if (pendingWrites.writeScheduled.compareAndSet(false, true)) {
+      reactor.changeOps(key, SelectionKey.OP_WRITE);
+    }
+  }
+
+  /**
+   * The writes pending for one connection.
+   */
+  private static class PendingWrites {
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private final AtomicBoolean writable = new AtomicBoolean(true);
   }
 }
@@ -0,0 +1,204 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Allocator of direct {@link PooledBuffer}s, so that the channels neither produce garbage on every
+ * read nor pay for allocating direct memory each time.
+ * 
+ * <p>
+ * Buffers come in size classes of powers of two from 64 bytes to 64 KB, and a request is served
+ * from the smallest class that fits it. Every thread caches a few free buffers of each class, so
+ * the reactor thread usually borrows and returns its read buffer without any synchronization.
+ * Buffers beyond the thread caches go to a shared free list per class. When a class runs out of
+ * buffers, a chunk of direct memory is allocated and sliced into buffers of that class.
+ * 
+ * <p>
+ * Requests larger than the biggest size class are served by unpooled direct buffers, which are
+ * left to the garbage collector on release.
+ */
+public class BufferPool {
+
+  /**
+   * The pool used by the channels unless another one is provided.
+   */
+  public static final BufferPool DEFAULT = new BufferPool(32, 1024);
+
+  /**
+   * Size of the largest size class, which is also large enough for any UDP datagram.
+   */
+  public static final int MAX_POOLED_SIZE = 1 << 16;
+
+  private static final int MIN_SIZE_SHIFT = 6;
+  private static final int MAX_SIZE_SHIFT = 16;
+  private static final int CHUNK_SIZE = 1 << 18;
+
+  private final SizeClass[] sizeClasses = new SizeClass[MAX_SIZE_SHIFT - MIN_SIZE_SHIFT + 1];
+  private final int maxPooledPerClass;
+  private final ThreadLocal<ThreadCache> threadCaches;
+  private final AtomicInteger allocatedChunks = new AtomicInteger();
+
+  /**
+   * Creates a pool.
+   * 
+   * @param maxCachedPerThread the number of free buffers each thread keeps per size class.
+   * @param maxPooledPerClass the number of free buffers kept in the shared free list of each size
+   *        class, additional buffers are left to the garbage collector.
+   */
+  public BufferPool(int maxCachedPerThread, int maxPooledPerClass) {
+    this.maxPooledPerClass = maxPooledPerClass;
+    for (int i = 0; i < sizeClasses.length; i++) {
+      sizeClasses[i] = new SizeClass(1 << (MIN_SIZE_SHIFT + i));
+    }
+    this.threadCaches =
+        ThreadLocal.withInitial(() -> new ThreadCache(sizeClasses.length, maxCachedPerThread));
+  }
+
+  /**
+   * Borrows a buffer with at least the given capacity, positioned at zero and limited to the
+   * capacity. The returned buffer holds one reference.
+   */
+  public PooledBuffer allocate(int capacity) {
+    if (capacity > MAX_POOLED_SIZE) {
+      return new PooledBuffer(this, -1, ByteBuffer.allocateDirect(capacity)).reset(capacity);
+    }
+    int sizeClass = sizeClassOf(capacity);
+    PooledBuffer buffer = threadCaches.get().pop(sizeClass);
+    if (buffer == null) {
+      buffer = sizeClasses[sizeClass].poll();
+    }
+    if (buffer == null) {
+      buffer = allocateChunk(sizeClass);
+    }
+    return buffer.reset(capacity);
+  }
+
+  /**
+   * Returns a buffer whose last reference has been released.
+   */
+  void recycle(PooledBuffer buffer) {
+    int sizeClass = buffer.getSizeClass();
+    if (sizeClass >= 0 && !threadCaches.get().push(buffer)) {
+      sizeClasses[sizeClass].offer(buffer, maxPooledPerClass);
+    }
+  }
+
+  /**
+   * @return the number of chunks of direct memory allocated for the size classes.
+   */
+  public int getAllocatedChunks() {
+    return allocatedChunks.get();
+  }
+
+  private static int sizeClassOf(int capacity) {
+    if (capacity <= 1 << MIN_SIZE_SHIFT) {
+      return 0;
+    }
+    return Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SIZE_SHIFT;
+  }
+
+  private PooledBuffer allocateChunk(int sizeClass) {
+    int size = sizeClasses[sizeClass].size;
+    int count = Math.max(1, CHUNK_SIZE / size);
+    ByteBuffer chunk = ByteBuffer.allocateDirect(size * count);
+    allocatedChunks.incrementAndGet();
+    PooledBuffer first = null;
+    for (int i = 0; i < count; i++) {
+      chunk.limit(size * (i + 1));
+      chunk.position(size * i);
+      PooledBuffer buffer = new PooledBuffer(this, sizeClass, chunk.slice());
+      if (first == null) {
+        first = buffer;
+      } else {
+        sizeClasses[sizeClass].offer(buffer, Integer.MAX_VALUE);
+      }
+    }
+    return first;
+  }
+
+  /**
+   * The shared free list of one size class.
+   */
+  private static class SizeClass {
+    private final int size;
+    private final Queue<PooledBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger freeCount = new AtomicInteger();
+
+    SizeClass(int size) {
+      this.size = size;
+    }
+
+    PooledBuffer poll() {
+      PooledBuffer buffer = free.poll();
+      if (buffer != null) {
+        freeCount.decrementAndGet();
+      }
+      return buffer;
+    }
+
+    void offer(PooledBuffer buffer, int maxFree) {
+      if (freeCount.incrementAndGet() > maxFree) {
+        freeCount.decrementAndGet();
+        return;
+      }
+      free.offer(buffer);
+    }
+  }
+
+  /**
+   * The free buffers cached by one thread, a small stack per size class.
+   */
+  private static class ThreadCache {
+    private final PooledBuffer[][] stacks;
+    private final int[] sizes;
+
+    ThreadCache(int sizeClasses, int maxCached) {
+      this.stacks = new PooledBuffer[sizeClasses][maxCached];
+      this.sizes = new int[sizeClasses];
+    }
+
+    PooledBuffer pop(int sizeClass) {
+      if (sizes[sizeClass] == 0) {
+        return null;
+      }
+      int top = --sizes[sizeClass];
+      PooledBuffer buffer = stacks[sizeClass][top];
+      stacks[sizeClass][top] = null;
+      return buffer;
+    }
+
+    boolean push(PooledBuffer buffer) {
+      int sizeClass = buffer.getSizeClass();
+      if (sizes[sizeClass] == stacks[sizeClass].length) {
+        return false;
+      }
+      stacks[sizeClass][sizes[sizeClass]++] = buffer;
+      return true;
+    }
+  }
+}
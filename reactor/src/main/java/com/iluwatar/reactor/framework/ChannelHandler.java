@@ -42,4 +42,21 @@ public interface ChannelHandler {
    * @param key the key on which read event occurred.
    */
   void handleChannelRead(AbstractNioChannel channel, Object readObject, SelectionKey key);
+
+  /**
+   * Called when the data pending for writing on a connection rises above the high water mark of
+   * the {@code channel}, and when it falls below the low water mark again. A handler producing
+   * data faster than the peer reads it should hold back while the connection is not writable.
+   * The first notification comes from the thread writing, the second from the reactor thread.
+   * 
+   * @param channel the channel of the connection.
+   * @param key the key of the connection.
+   * @param writable false when the high water mark has been exceeded, true when the pending data
+   *        has fallen below the low water mark.
+   * @see AbstractNioChannel#setWriteBufferWaterMarks(long, long)
+   */
+  default void handleWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+      boolean writable) {
+    // ignored by default
+  }
 }
@@ -0,0 +1,60 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Framer} for messages terminated by a delimiter byte, such as lines of text. The
+ * delimiter is not part of the messages handed to the handler.
+ */
+public class DelimiterFramer extends Framer {
+
+  private final byte delimiter;
+
+  /**
+   * Creates a framer.
+   * 
+   * @param delimiter the byte terminating each message.
+   * @param maxFrameLength the maximum length of a message including its delimiter.
+   */
+  public DelimiterFramer(byte delimiter, int maxFrameLength) {
+    super(0, 1, maxFrameLength);
+    this.delimiter = delimiter;
+  }
+
+  @Override
+  protected int frameLength(ByteBuffer data) throws IOException {
+    int end = Math.min(data.limit(), data.position() + getMaxFrameLength());
+    for (int i = data.position(); i < end; i++) {
+      if (data.get(i) == delimiter) {
+        return i - data.position() + 1;
+      }
+    }
+    if (data.remaining() >= getMaxFrameLength()) {
+      throw new IOException("No delimiter within " + getMaxFrameLength() + " bytes");
+    }
+    return -1;
+  }
+}
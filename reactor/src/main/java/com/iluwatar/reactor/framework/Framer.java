@@ -0,0 +1,161 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Framing layer of a stream connection, which reassembles the messages sent by the peer from the
+ * bytes of the reads, however the stream has split them. Every complete message is handed to the
+ * {@link ChannelHandler} as a {@link PooledBuffer} holding just its payload.
+ * 
+ * <p>
+ * The bytes of an incomplete message are kept in a pooled buffer of this framer until the rest
+ * arrives, so a framer holds the state of one connection and is only used by the reactor thread
+ * of that connection.
+ * 
+ * @see LengthFieldFramer
+ * @see DelimiterFramer
+ */
+public abstract class Framer {
+
+  private final int headerLength;
+  private final int trailerLength;
+  private final int maxFrameLength;
+  /**
+   * The bytes of an incomplete frame, in write mode, or null.
+   */
+  private PooledBuffer cumulation;
+
+  /**
+   * Creates a framer.
+   * 
+   * @param headerLength the number of bytes preceding the payload in a frame.
+   * @param trailerLength the number of bytes following the payload in a frame.
+   * @param maxFrameLength the maximum length of a frame, longer frames close the connection.
+   */
+  protected Framer(int headerLength, int trailerLength, int maxFrameLength) {
+    this.headerLength = headerLength;
+    this.trailerLength = trailerLength;
+    this.maxFrameLength = maxFrameLength;
+  }
+
+  /**
+   * Returns the length of the frame starting at the position of the data, if the data holds all of
+   * it, or -1 if more data is needed. Does not move the position of the data.
+   * 
+   * @throws IOException if the frame is longer than the maximum frame length.
+   */
+  protected abstract int frameLength(ByteBuffer data) throws IOException;
+
+  /**
+   * Returns the expected length of the frame starting at the position of the data when it is known
+   * before the frame is complete, which saves growing the buffer of incomplete frames.
+   */
+  protected int expectedFrameLength(ByteBuffer data) {
+    return 0;
+  }
+
+  protected int getMaxFrameLength() {
+    return maxFrameLength;
+  }
+
+  /**
+   * Consumes the bytes of one read and adds all messages completed by them.
+   * 
+   * @param data the bytes read from the connection.
+   * @param pool the pool the buffers of messages are borrowed from.
+   * @param messages the list the completed messages are added to.
+   * @throws IOException if the data violates the framing.
+   */
+  public void decode(ByteBuffer data, BufferPool pool, List<Object> messages) throws IOException {
+    if (cumulation == null) {
+      extractFrames(data, pool, messages);
+      if (data.hasRemaining()) {
+        cumulation = pool.allocate(Math.max(data.remaining(), expectedFrameLength(data)));
+        cumulation.getBuffer().put(data);
+      }
+      return;
+    }
+    if (cumulation.getBuffer().remaining() < data.remaining()) {
+      grow(pool, Math.max(cumulation.getBuffer().position() + data.remaining(),
+          expectedFrameLength(flipped(cumulation.getBuffer()))));
+    }
+    ByteBuffer buffer = cumulation.getBuffer();
+    buffer.put(data);
+    buffer.flip();
+    try {
+      extractFrames(buffer, pool, messages);
+    } finally {
+      buffer.compact();
+    }
+    if (buffer.position() == 0) {
+      cumulation.release();
+      cumulation = null;
+    }
+  }
+
+  /**
+   * Releases the bytes of an incomplete message, when the connection is closed.
+   */
+  public void close() {
+    if (cumulation != null) {
+      cumulation.release();
+      cumulation = null;
+    }
+  }
+
+  private void extractFrames(ByteBuffer data, BufferPool pool, List<Object> messages)
+      throws IOException {
+    int frameLength;
+    while (data.hasRemaining() && (frameLength = frameLength(data)) >= 0) {
+      int frameEnd = data.position() + frameLength;
+      int limit = data.limit();
+      data.position(data.position() + headerLength);
+      data.limit(frameEnd - trailerLength);
+      PooledBuffer message = pool.allocate(data.remaining());
+      message.getBuffer().put(data);
+      message.getBuffer().flip();
+      messages.add(message);
+      data.limit(limit);
+      data.position(frameEnd);
+    }
+  }
+
+  private void grow(BufferPool pool, int capacity) {
+    PooledBuffer grown = pool.allocate(capacity);
+    ByteBuffer buffer = cumulation.getBuffer();
+    buffer.flip();
+    grown.getBuffer().put(buffer);
+    cumulation.release();
+    cumulation = grown;
+  }
+
+  private static ByteBuffer flipped(ByteBuffer buffer) {
+    ByteBuffer duplicate = buffer.duplicate();
+    duplicate.flip();
+    return duplicate;
+  }
+}
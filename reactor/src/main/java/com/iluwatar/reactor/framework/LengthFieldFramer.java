@@ -0,0 +1,81 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Framer} for messages preceded by their length, as a 4 byte big-endian integer.
+ */
+public class LengthFieldFramer extends Framer {
+
+  private static final int LENGTH_FIELD_LENGTH = 4;
+
+  /**
+   * Creates a framer.
+   * 
+   * @param maxFrameLength the maximum length of a message including its length field.
+   */
+  public LengthFieldFramer(int maxFrameLength) {
+    super(LENGTH_FIELD_LENGTH, 0, maxFrameLength);
+  }
+
+  /**
+   * Frames a message for sending it to a peer using this framing.
+   * 
+   * @param message the payload of the message.
+   * @return a new buffer holding the length field followed by the message.
+   */
+  public static ByteBuffer frame(ByteBuffer message) {
+    ByteBuffer frame = ByteBuffer.allocate(LENGTH_FIELD_LENGTH + message.remaining());
+    frame.putInt(message.remaining());
+    frame.put(message.duplicate());
+    frame.flip();
+    return frame;
+  }
+
+  @Override
+  protected int frameLength(ByteBuffer data) throws IOException {
+    if (data.remaining() < LENGTH_FIELD_LENGTH) {
+      return -1;
+    }
+    int length = data.getInt(data.position());
+    if (length < 0 || length > getMaxFrameLength() - LENGTH_FIELD_LENGTH) {
+      throw new IOException("Invalid frame length: " + length);
+    }
+    return data.remaining() - LENGTH_FIELD_LENGTH >= length ? LENGTH_FIELD_LENGTH + length : -1;
+  }
+
+  @Override
+  protected int expectedFrameLength(ByteBuffer data) {
+    if (data.remaining() < LENGTH_FIELD_LENGTH) {
+      return 0;
+    }
+    int length = data.getInt(data.position());
+    if (length < 0 || length > getMaxFrameLength() - LENGTH_FIELD_LENGTH) {
+      return 0;
+    }
+    return LENGTH_FIELD_LENGTH + length;
+  }
+}
@@ -41,6 +41,7 @@ public class NioDatagramChannel extends AbstractNioChannel {
   private static final Logger LOGGER = LoggerFactory.getLogger(NioDatagramChannel.class);
 
   private final int port;
+  private final BufferPool bufferPool;
 
   /**
    * Creates a {@link DatagramChannel} which will bind at provided port and use <code>handler</code>
@@ -54,8 +55,23 @@ public class NioDatagramChannel extends AbstractNioChannel {
    * @throws IOException if any I/O error occurs.
    */
   public NioDatagramChannel(int port, ChannelHandler handler) throws IOException {
+    this(port, handler, BufferPool.DEFAULT);
+  }
+
+  /**
+   * Creates a {@link DatagramChannel} which will bind at provided port, use <code>handler</code>
+   * to handle incoming events on this channel, and borrow its buffers from the given pool.
+   * 
+   * @param port the port to be bound to listen for incoming datagram requests.
+   * @param handler the handler to be used for handling incoming requests on this channel.
+   * @param bufferPool the pool of the buffers for receiving datagrams.
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioDatagramChannel(int port, ChannelHandler handler, BufferPool bufferPool)
+      throws IOException {
     super(handler, DatagramChannel.open());
     this.port = port;
+    this.bufferPool = bufferPool;
   }
 
   @Override
@@ -67,24 +83,32 @@ public class NioDatagramChannel extends AbstractNioChannel {
   }
 
   /**
-   * Reads and returns a {@link DatagramPacket} from the underlying channel.
+   * Reads and returns a {@link DatagramPacket} from the underlying channel. The datagram is
+   * received into a pooled buffer large enough for any datagram, and copied into a pooled buffer
+   * of its own size.
    * 
    * @return the datagram packet read having the sender address.
    */
   @Override
   public DatagramPacket read(SelectionKey key) throws IOException {
-    ByteBuffer buffer = ByteBuffer.allocate(1024);
-    SocketAddress sender = ((DatagramChannel) key.channel()).receive(buffer);
-
-    /*
-     * It is required to create a DatagramPacket because we need to preserve which socket address
-     * acts as destination for sending reply packets.
-     */
-    buffer.flip();
-    DatagramPacket packet = new DatagramPacket(buffer);
-    packet.setSender(sender);
-
-    return packet;
+    PooledBuffer receiveBuffer = bufferPool.allocate(BufferPool.MAX_POOLED_SIZE);
+    try {
+      SocketAddress sender = ((DatagramChannel) key.channel()).receive(receiveBuffer.getBuffer());
+      receiveBuffer.getBuffer().flip();
+      PooledBuffer data = bufferPool.allocate(receiveBuffer.getBuffer().remaining());
+      data.getBuffer().put(receiveBuffer.getBuffer());
+      data.getBuffer().flip();
+
+      /*
+       * It is required to create a DatagramPacket because we need to preserve which socket address
+       * acts as destination for sending reply packets.
+       */
+      DatagramPacket packet = new DatagramPacket(data);
+      packet.setSender(sender);
+      return packet;
+    } finally {
+      receiveBuffer.release();
+    }
   }
 
   /**
@@ -109,12 +133,22 @@ public class NioDatagramChannel extends AbstractNioChannel {
 
   /**
    * Writes the pending {@link DatagramPacket} to the underlying channel sending data to the
-   * intended receiver of the packet.
+   * intended receiver of the packet. A datagram is sent completely or not at all, when the socket
+   * buffer is full it is retried once the channel is writable again.
    */
   @Override
-  protected void doWrite(Object pendingWrite, SelectionKey key) throws IOException {
+  protected boolean doWrite(Object pendingWrite, SelectionKey key) throws IOException {
     DatagramPacket pendingPacket = (DatagramPacket) pendingWrite;
-    getJavaChannel().send(pendingPacket.getData(), pendingPacket.getReceiver());
+    return getJavaChannel().send(pendingPacket.getData(), pendingPacket.getReceiver()) > 0
+        || !pendingPacket.getData().hasRemaining();
+  }
+
+  /**
+   * Counts the data of a {@link DatagramPacket} against the water marks.
+   */
+  @Override
+  protected int sizeOf(Object data) {
+    return data instanceof DatagramPacket ? ((DatagramPacket) data).getData().remaining() : 0;
   }
 
   /**
@@ -128,11 +162,14 @@ public class NioDatagramChannel extends AbstractNioChannel {
   }
 
   /**
-   * Container of data used for {@link NioDatagramChannel} to communicate with remote peer.
+   * Container of data used for {@link NioDatagramChannel} to communicate with remote peer. Packets
+   * read from the channel hold a {@link PooledBuffer}, which is retained and released along with
+   * the packet.
    */
-  public static class DatagramPacket {
+  public static class DatagramPacket implements ReferenceCounted {
     private SocketAddress sender;
     private ByteBuffer data;
+    private PooledBuffer pooledData;
     private SocketAddress receiver;
 
     /**
@@ -144,6 +181,29 @@ public class NioDatagramChannel extends AbstractNioChannel {
       this.data = data;
     }
 
+    /**
+     * Creates a container with underlying pooled data, taking over its reference.
+     * 
+     * @param pooledData the underlying message to be written on channel.
+     */
+    public DatagramPacket(PooledBuffer pooledData) {
+      this.data = pooledData.getBuffer();
+      this.pooledData = pooledData;
+    }
+
+    @Override
+    public DatagramPacket retain() {
+      if (pooledData != null) {
+        pooledData.retain();
+      }
+      return this;
+    }
+
+    @Override
+    public boolean release() {
+      return pooledData != null && pooledData.release();
+    }
+
     /**
      * @return the sender address.
      */
@@ -26,11 +26,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -50,6 +53,11 @@ import java.util.concurrent.TimeUnit;
  * {@link NioReactor} uses {@link Selector} for realizing Synchronous Event De-multiplexing.
  * 
  * <p>
+ * Boss/worker mode: A reactor created with sub-reactors only accepts connections itself and hands each accepted
+ * {@link SocketChannel} round-robin to one of its sub-reactors. Every sub-reactor runs its own {@link Selector} in its
+ * own thread, so reading and writing of the connections is spread over multiple event loops.
+ * 
+ * <p>
  * NOTE: This is one of the ways to implement NIO reactor and it does not take care of all possible edge cases which are
  * required in a real application. This implementation is meant to demonstrate the fundamental concepts that lie behind
  * Reactor pattern.
@@ -67,6 +75,15 @@ public class NioReactor {
    */
   private final Queue<Runnable> pendingCommands = new ConcurrentLinkedQueue<>();
   private final ExecutorService reactorMain = Executors.newSingleThreadExecutor();
+  private final NioReactor[] subReactors;
+  /**
+   * Index of the sub-reactor the next accepted connection is handed to. Only used by the event loop.
+   */
+  private int nextSubReactor;
+  /**
+   * The messages of the current read event. Only used by the event loop.
+   */
+  private final List<Object> readMessages = new ArrayList<>();
 
   /**
    * Creates a reactor which will use provided {@code dispatcher} to dispatch events. The application can provide
@@ -78,14 +95,36 @@ public class NioReactor {
    *           if any I/O error occurs.
    */
   public NioReactor(Dispatcher dispatcher) throws IOException {
+    this(dispatcher, 0);
+  }
+
+  /**
+   * Creates a reactor in boss/worker mode, which accepts connections in its own event loop and hands them to
+   * {@code subReactorCount} sub-reactors. All reactors use the provided {@code dispatcher} to dispatch events.
+   * 
+   * @param dispatcher
+   *          a non-null dispatcher used to dispatch events on registered channels.
+   * @param subReactorCount
+   *          the number of sub-reactors, zero to handle accepted connections in this reactor.
+   * @throws IOException
+   *           if any I/O error occurs.
+   */
+  public NioReactor(Dispatcher dispatcher, int subReactorCount) throws IOException {
     this.dispatcher = dispatcher;
     this.selector = Selector.open();
+    this.subReactors = new NioReactor[subReactorCount];
+    for (int i = 0; i < subReactorCount; i++) {
+      subReactors[i] = new NioReactor(dispatcher);
+    }
   }
 
   /**
    * Starts the reactor event loop in a new thread.
    */
   public void start() {
+    for (NioReactor subReactor : subReactors) {
+      subReactor.start();
+    }
     reactorMain.execute(() -> {
       try {
         LOGGER.info("Reactor started, waiting for events...");
@@ -109,6 +148,9 @@ public class NioReactor {
     selector.wakeup();
     reactorMain.awaitTermination(4, TimeUnit.SECONDS);
     selector.close();
+    for (NioReactor subReactor : subReactors) {
+      subReactor.stop();
+    }
     LOGGER.info("Reactor stopped");
   }
 
@@ -195,18 +237,25 @@ public class NioReactor {
   }
 
   private void onChannelReadable(SelectionKey key) {
+    AbstractNioChannel channel = (AbstractNioChannel) key.attachment();
     try {
-      // reads the incoming data in context of reactor main loop. Can this be improved?
-      Object readObject = ((AbstractNioChannel) key.attachment()).read(key);
-
-      dispatchReadEvent(key, readObject);
+      // reads the incoming data in context of reactor main loop, which is one of the sub-reactors in boss/worker mode
+      channel.readMessages(key, readMessages);
     } catch (IOException e) {
+      readMessages.forEach(ReferenceCounted::releaseIfCounted);
+      readMessages.clear();
       try {
         key.channel().close();
       } catch (IOException e1) {
         LOGGER.error("error closing channel", e1);
       }
+      channel.onClose(key);
+      return;
     }
+    for (Object readObject : readMessages) {
+      dispatchReadEvent(key, readObject);
+    }
+    readMessages.clear();
   }
 
   /*
@@ -220,8 +269,29 @@ public class NioReactor {
     ServerSocketChannel serverSocketChannel = (ServerSocketChannel) key.channel();
     SocketChannel socketChannel = serverSocketChannel.accept();
     socketChannel.configureBlocking(false);
-    SelectionKey readKey = socketChannel.register(selector, SelectionKey.OP_READ);
-    readKey.attach(key.attachment());
+    if (subReactors.length == 0) {
+      SelectionKey readKey = socketChannel.register(selector, SelectionKey.OP_READ);
+      readKey.attach(key.attachment());
+      return;
+    }
+    NioReactor subReactor = subReactors[nextSubReactor];
+    nextSubReactor = (nextSubReactor + 1) % subReactors.length;
+    subReactor.registerAccepted(socketChannel, (AbstractNioChannel) key.attachment());
+  }
+
+  /*
+   * Registers a connection accepted by the boss reactor. The selector of this reactor may be blocked in a select, so
+   * the registration is queued as a command for the event loop.
+   */
+  private void registerAccepted(SocketChannel socketChannel, AbstractNioChannel channel) {
+    pendingCommands.add(() -> {
+      try {
+        socketChannel.register(selector, SelectionKey.OP_READ, channel);
+      } catch (ClosedChannelException e) {
+        LOGGER.error("accepted channel closed before registration", e);
+      }
+    });
+    selector.wakeup();
   }
 
   /**
@@ -236,8 +306,21 @@ public class NioReactor {
    *          the new interest operations.
    */
   public void changeOps(SelectionKey key, int interestedOps) {
-    pendingCommands.add(new ChangeKeyOpsCommand(key, interestedOps));
-    selector.wakeup();
+    NioReactor owner = ownerOf(key);
+    owner.pendingCommands.add(new ChangeKeyOpsCommand(key, interestedOps));
+    owner.selector.wakeup();
+  }
+
+  /*
+   * Channels know the boss reactor only, but the keys of accepted connections belong to the selector of a sub-reactor.
+   */
+  private NioReactor ownerOf(SelectionKey key) {
+    for (NioReactor subReactor : subReactors) {
+      if (key.selector() == subReactor.selector) {
+        return subReactor;
+      }
+    }
+    return this;
   }
 
   /**
@@ -253,7 +336,10 @@ public class NioReactor {
     }
 
     public void run() {
-      key.interestOps(interestedOps);
+      // the connection may have been closed since the command was queued
+      if (key.isValid()) {
+        key.interestOps(interestedOps);
+      }
     }
 
     @Override
@@ -29,19 +29,46 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * A wrapper over {@link NioServerSocketChannel} which can read and write data on a
  * {@link SocketChannel}.
+ * 
+ * <p>
+ * Reads go into a buffer borrowed from a {@link BufferPool}. Without a {@link Framer} every read
+ * is handed to the handler as a {@link PooledBuffer} of its own. With a framer, every accepted
+ * connection gets a framer of its own, which reassembles the messages of the connection.
  */
 public class NioServerSocketChannel extends AbstractNioChannel {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(NioServerSocketChannel.class);
 
+  /**
+   * The maximum number of pending buffers gathered into one write.
+   */
+  private static final int MAX_GATHERED_WRITES = 64;
+
+  /**
+   * The array of buffers for gathering writes, one per reactor thread as the channel is shared by
+   * the sub-reactors.
+   */
+  private static final ThreadLocal<ByteBuffer[]> GATHERED_WRITES =
+      ThreadLocal.withInitial(() -> new ByteBuffer[MAX_GATHERED_WRITES]);
+
   private final int port;
+  private final Supplier<? extends Framer> framerFactory;
+  private final BufferPool bufferPool;
+  private final Map<SelectableChannel, Framer> framers = new ConcurrentHashMap<>();
 
   /**
    * Creates a {@link ServerSocketChannel} which will bind at provided port and use
@@ -55,8 +82,26 @@ public class NioServerSocketChannel extends AbstractNioChannel {
    * @throws IOException if any I/O error occurs.
    */
   public NioServerSocketChannel(int port, ChannelHandler handler) throws IOException {
+    this(port, handler, null, BufferPool.DEFAULT);
+  }
+
+  /**
+   * Creates a {@link ServerSocketChannel} which will bind at provided port and use
+   * <code>handler</code> to handle the messages reassembled by the framers of the connections.
+   * 
+   * @param port the port on which channel will be bound to accept incoming connection requests.
+   * @param handler the handler that will handle incoming messages on this channel.
+   * @param framerFactory creates the framer of each accepted connection, or null to hand every read
+   *        to the handler as it is.
+   * @param bufferPool the pool of the buffers for reading and for the messages.
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioServerSocketChannel(int port, ChannelHandler handler,
+      Supplier<? extends Framer> framerFactory, BufferPool bufferPool) throws IOException {
     super(handler, ServerSocketChannel.open());
     this.port = port;
+    this.framerFactory = framerFactory;
+    this.bufferPool = bufferPool;
   }
 
 
@@ -75,24 +120,75 @@ public class NioServerSocketChannel extends AbstractNioChannel {
   }
 
   /**
-   * Reads and returns {@link ByteBuffer} from the underlying {@link SocketChannel} represented by
-   * the <code>key</code>. Due to the fact that there is a dedicated channel for each client
-   * connection we don't need to store the sender.
+   * Reads and returns a {@link PooledBuffer} from the underlying {@link SocketChannel} represented
+   * by the <code>key</code>, sized to the bytes read. Due to the fact that there is a dedicated
+   * channel for each client connection we don't need to store the sender. The framer is not used.
    */
   @Override
-  public ByteBuffer read(SelectionKey key) throws IOException {
+  public PooledBuffer read(SelectionKey key) throws IOException {
+    PooledBuffer readBuffer = readFully(key);
+    try {
+      PooledBuffer message = bufferPool.allocate(readBuffer.getBuffer().remaining());
+      message.getBuffer().put(readBuffer.getBuffer());
+      message.getBuffer().flip();
+      return message;
+    } finally {
+      readBuffer.release();
+    }
+  }
+
+  /**
+   * Reads the available bytes, and hands them to the framer of the connection if there is a
+   * framer factory.
+   */
+  @Override
+  public void readMessages(SelectionKey key, List<Object> messages) throws IOException {
+    if (framerFactory == null) {
+      super.readMessages(key, messages);
+      return;
+    }
+    PooledBuffer readBuffer = readFully(key);
+    try {
+      framers.computeIfAbsent(key.channel(), channel -> framerFactory.get())
+          .decode(readBuffer.getBuffer(), bufferPool, messages);
+    } finally {
+      readBuffer.release();
+    }
+  }
+
+  private PooledBuffer readFully(SelectionKey key) throws IOException {
     SocketChannel socketChannel = (SocketChannel) key.channel();
-    ByteBuffer buffer = ByteBuffer.allocate(1024);
-    int read = socketChannel.read(buffer);
-    buffer.flip();
+    PooledBuffer readBuffer = bufferPool.allocate(BufferPool.MAX_POOLED_SIZE);
+    int read;
+    try {
+      read = socketChannel.read(readBuffer.getBuffer());
+    } catch (IOException e) {
+      readBuffer.release();
+      throw e;
+    }
     if (read == -1) {
+      readBuffer.release();
       throw new IOException("Socket closed");
     }
-    return buffer;
+    readBuffer.getBuffer().flip();
+    return readBuffer;
   }
 
   /**
-   * Binds TCP socket on the provided <code>port</code>.
+   * Releases the framer of the closed connection, besides its pending writes.
+   */
+  @Override
+  protected void onClose(SelectionKey key) {
+    super.onClose(key);
+    Framer framer = framers.remove(key.channel());
+    if (framer != null) {
+      framer.close();
+    }
+  }
+
+  /**
+   * Binds TCP socket on the provided <code>port</code>, or on a free port chosen by the system if
+   * the port is 0.
    * 
    * @throws IOException if any I/O error occurs.
    */
@@ -101,7 +197,50 @@ public class NioServerSocketChannel extends AbstractNioChannel {
     getJavaChannel().socket().bind(
         new InetSocketAddress(InetAddress.getLocalHost(), port));
     getJavaChannel().configureBlocking(false);
-    LOGGER.info("Bound TCP socket at port: {}", port);
+    LOGGER.info("Bound TCP socket at port: {}", getLocalPort());
+  }
+
+  /**
+   * @return the port the socket is bound to, or -1 if it is not bound yet.
+   */
+  public int getLocalPort() {
+    return getJavaChannel().socket().getLocalPort();
+  }
+
+  /**
+   * Gathers the pending buffers into writes of up to {@value #MAX_GATHERED_WRITES} buffers at once,
+   * until the socket does not take all of them or nothing is left.
+   */
+  @Override
+  protected long doFlush(Queue<Object> pendingWrites, SelectionKey key) throws IOException {
+    SocketChannel socketChannel = (SocketChannel) key.channel();
+    ByteBuffer[] buffers = GATHERED_WRITES.get();
+    long written = 0;
+    try {
+      while (true) {
+        int count = 0;
+        for (Object pendingWrite : pendingWrites) {
+          if (count == buffers.length) {
+            break;
+          }
+          buffers[count++] = bufferOf(pendingWrite);
+        }
+        if (count == 0) {
+          return written;
+        }
+        written += socketChannel.write(buffers, 0, count);
+        int completed = 0;
+        while (completed < count && !buffers[completed].hasRemaining()) {
+          ReferenceCounted.releaseIfCounted(pendingWrites.poll());
+          completed++;
+        }
+        if (completed < count) {
+          return written;
+        }
+      }
+    } finally {
+      Arrays.fill(buffers, null);
+    }
   }
 
   /**
@@ -109,8 +248,14 @@ public class NioServerSocketChannel extends AbstractNioChannel {
    * receiver of the packet.
    */
   @Override
-  protected void doWrite(Object pendingWrite, SelectionKey key) throws IOException {
-    ByteBuffer pendingBuffer = (ByteBuffer) pendingWrite;
+  protected boolean doWrite(Object pendingWrite, SelectionKey key) throws IOException {
+    ByteBuffer pendingBuffer = bufferOf(pendingWrite);
     ((SocketChannel) key.channel()).write(pendingBuffer);
+    return !pendingBuffer.hasRemaining();
+  }
+
+  private static ByteBuffer bufferOf(Object pendingWrite) {
+    return pendingWrite instanceof PooledBuffer
+        ? ((PooledBuffer) pendingWrite).getBuffer() : (ByteBuffer) pendingWrite;
   }
 }
@@ -0,0 +1,101 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A direct {@link ByteBuffer} borrowed from a {@link BufferPool}, which goes back to the pool when
+ * its last reference is released.
+ * 
+ * <p>
+ * The buffer must not be used after it has been released, as it will be handed out again.
+ */
+public final class PooledBuffer implements ReferenceCounted {
+
+  private final BufferPool pool;
+  private final int sizeClass;
+  private final ByteBuffer buffer;
+  private final AtomicInteger refCount = new AtomicInteger();
+
+  PooledBuffer(BufferPool pool, int sizeClass, ByteBuffer buffer) {
+    this.pool = pool;
+    this.sizeClass = sizeClass;
+    this.buffer = buffer;
+  }
+
+  /**
+   * Prepares the buffer for a new borrower, with the limit at the requested capacity.
+   */
+  PooledBuffer reset(int capacity) {
+    buffer.clear();
+    buffer.limit(capacity);
+    refCount.set(1);
+    return this;
+  }
+
+  int getSizeClass() {
+    return sizeClass;
+  }
+
+  /**
+   * @return the underlying direct buffer.
+   */
+  public ByteBuffer getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * @return the number of references held to this buffer.
+   */
+  public int refCount() {
+    return refCount.get();
+  }
+
+  @Override
+  public PooledBuffer retain() {
+    int count;
+    do {
+      count = refCount.get();
+      if (count <= 0) {
+        throw new IllegalStateException("Buffer has already been released");
+      }
+    } while (!refCount.compareAndSet(count, count + 1));
+    return this;
+  }
+
+  @Override
+  public boolean release() {
+    int count = refCount.decrementAndGet();
+    if (count < 0) {
+      refCount.incrementAndGet();
+      throw new IllegalStateException("Buffer has already been released");
+    }
+    if (count > 0) {
+      return false;
+    }
+    pool.recycle(this);
+    return true;
+  }
+}
@@ -0,0 +1,70 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+/**
+ * An object whose resources are returned to a pool when the last reference to it is released, like
+ * the {@link PooledBuffer}s read by the channels.
+ * 
+ * <p>
+ * The reactor hands every read object to the {@link Dispatcher} with one reference, which the
+ * dispatcher releases after the {@link ChannelHandler} has handled it. A handler that keeps the
+ * object beyond that has to {@link #retain()} it. {@link AbstractNioChannel#write(Object,
+ * java.nio.channels.SelectionKey)} retains the data itself until it has been written.
+ */
+public interface ReferenceCounted {
+
+  /**
+   * Adds a reference.
+   * 
+   * @return this object.
+   * @throws IllegalStateException if the object has already been released.
+   */
+  ReferenceCounted retain();
+
+  /**
+   * Releases a reference, freeing the object when it was the last one.
+   * 
+   * @return true if the object has been freed.
+   * @throws IllegalStateException if the object has already been released.
+   */
+  boolean release();
+
+  /**
+   * Retains the object if it is reference counted.
+   */
+  static void retainIfCounted(Object object) {
+    if (object instanceof ReferenceCounted) {
+      ((ReferenceCounted) object).retain();
+    }
+  }
+
+  /**
+   * Releases the object if it is reference counted.
+   */
+  static void releaseIfCounted(Object object) {
+    if (object instanceof ReferenceCounted) {
+      ((ReferenceCounted) object).release();
+    }
+  }
+}
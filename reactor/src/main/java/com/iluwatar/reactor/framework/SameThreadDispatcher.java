@@ -39,7 +39,7 @@ public class SameThreadDispatcher implements Dispatcher {
   /**
    * Dispatches the read event in the context of caller thread. <br>
    * Note this is a blocking call. It returns only after the associated handler has handled the read
-   * event.
+   * event, and releases the read object afterwards.
    */
   @Override
   public void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key) {
@@ -47,7 +47,11 @@ public class SameThreadDispatcher implements Dispatcher {
      * Calls the associated handler to notify the read event where application specific code
      * resides.
      */
-    channel.getHandler().handleChannelRead(channel, readObject, key);
+    try {
+      channel.getHandler().handleChannelRead(channel, readObject, key);
+    } finally {
+      ReferenceCounted.releaseIfCounted(readObject);
+    }
   }
 
   /**
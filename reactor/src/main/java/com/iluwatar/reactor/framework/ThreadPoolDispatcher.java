@@ -49,11 +49,18 @@ public class ThreadPoolDispatcher implements Dispatcher {
    * Submits the work of dispatching the read event to worker pool, where it gets picked up by
    * worker threads. <br>
    * Note that this is a non-blocking call and returns immediately. It is not guaranteed that the
-   * event has been handled by associated handler.
+   * event has been handled by associated handler. The read object is released by the worker after
+   * it has been handled.
    */
   @Override
   public void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key) {
-    executorService.execute(() -> channel.getHandler().handleChannelRead(channel, readObject, key));
+    executorService.execute(() -> {
+      try {
+        channel.getHandler().handleChannelRead(channel, readObject, key);
+      } finally {
+        ReferenceCounted.releaseIfCounted(readObject);
+      }
+    });
   }
 
   /**
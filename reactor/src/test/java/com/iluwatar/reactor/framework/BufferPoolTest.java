@@ -0,0 +1,103 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 
+ * Tests for the {@link BufferPool} and the reference counting of {@link PooledBuffer}s.
+ */
+public class BufferPoolTest {
+
+  @Test
+  public void testBuffersAreSizeClassedAndRecycled() {
+    BufferPool pool = new BufferPool(4, 16);
+    PooledBuffer buffer = pool.allocate(100);
+    assertTrue(buffer.getBuffer().isDirect());
+    assertEquals(128, buffer.getBuffer().capacity());
+    assertEquals(100, buffer.getBuffer().limit());
+    assertTrue(buffer.release());
+
+    PooledBuffer again = pool.allocate(120);
+    assertSame(buffer, again);
+    assertEquals(120, again.getBuffer().limit());
+    assertEquals(0, again.getBuffer().position());
+    assertEquals(1, pool.getAllocatedChunks());
+  }
+
+  @Test
+  public void testBufferIsRecycledWithLastReference() {
+    BufferPool pool = new BufferPool(4, 16);
+    PooledBuffer buffer = pool.allocate(64);
+    buffer.retain();
+    assertFalse(buffer.release());
+    assertEquals(1, buffer.refCount());
+    assertTrue(buffer.release());
+    assertThrows(IllegalStateException.class, buffer::release);
+    assertThrows(IllegalStateException.class, buffer::retain);
+  }
+
+  @Test
+  public void testLargeBuffersAreNotPooled() {
+    BufferPool pool = new BufferPool(4, 16);
+    PooledBuffer buffer = pool.allocate(BufferPool.MAX_POOLED_SIZE + 1);
+    assertTrue(buffer.release());
+    assertNotSame(buffer, pool.allocate(BufferPool.MAX_POOLED_SIZE + 1));
+    assertEquals(0, pool.getAllocatedChunks());
+  }
+
+  @Test
+  public void testBuffersReleasedByOtherThreadsAreShared() throws Exception {
+    BufferPool pool = new BufferPool(1, 1024);
+    PooledBuffer[] buffers = new PooledBuffer[100];
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = pool.allocate(BufferPool.MAX_POOLED_SIZE);
+    }
+    ExecutorService releaser = Executors.newSingleThreadExecutor();
+    releaser.submit(() -> {
+      for (PooledBuffer buffer : buffers) {
+        buffer.release();
+      }
+    }).get();
+    releaser.shutdown();
+    releaser.awaitTermination(1, TimeUnit.SECONDS);
+
+    int chunks = pool.getAllocatedChunks();
+    for (int i = 0; i < buffers.length - 1; i++) {
+      pool.allocate(BufferPool.MAX_POOLED_SIZE);
+    }
+    assertEquals(chunks, pool.getAllocatedChunks());
+  }
+}
@@ -0,0 +1,149 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 
+ * Tests for the {@link Framer}s, which reassemble messages split over several reads.
+ */
+public class FramerTest {
+
+  private final BufferPool pool = new BufferPool(4, 64);
+  private final List<Object> messages = new ArrayList<>();
+
+  @Test
+  public void testLengthFieldFramerReassemblesSplitMessages() throws IOException {
+    Framer framer = new LengthFieldFramer(1 << 20);
+    ByteBuffer stream = ByteBuffer.allocate(100);
+    stream.put(LengthFieldFramer.frame(utf8("first")));
+    stream.put(LengthFieldFramer.frame(utf8("second")));
+    stream.put(LengthFieldFramer.frame(utf8("third")));
+    stream.flip();
+
+    for (int split : new int[] {3, 6, 15, stream.limit()}) {
+      ByteBuffer read = stream.duplicate();
+      read.limit(split);
+      framer.decode(read, pool, messages);
+      stream.position(split);
+    }
+    assertEquals(3, messages.size());
+    assertEquals("first", text(messages.get(0)));
+    assertEquals("second", text(messages.get(1)));
+    assertEquals("third", text(messages.get(2)));
+  }
+
+  @Test
+  public void testMessagesLargerThanPooledBuffers() throws IOException {
+    Framer framer = new LengthFieldFramer(1 << 20);
+    byte[] payload = new byte[3 * BufferPool.MAX_POOLED_SIZE];
+    payload[payload.length - 1] = 42;
+    ByteBuffer frame = LengthFieldFramer.frame(ByteBuffer.wrap(payload));
+    while (frame.hasRemaining()) {
+      ByteBuffer read = frame.duplicate();
+      read.limit(Math.min(frame.limit(), frame.position() + 10_000));
+      framer.decode(read, pool, messages);
+      frame.position(read.limit());
+    }
+    assertEquals(1, messages.size());
+    ByteBuffer message = ((PooledBuffer) messages.get(0)).getBuffer();
+    assertEquals(payload.length, message.remaining());
+    assertEquals(42, message.get(payload.length - 1));
+  }
+
+  @Test
+  public void testDelimiterFramer() throws IOException {
+    Framer framer = new DelimiterFramer((byte) '\n', 16);
+    framer.decode(utf8("one\ntw"), pool, messages);
+    framer.decode(utf8("o\n\nthree"), pool, messages);
+    assertEquals(3, messages.size());
+    assertEquals("two", text(messages.get(1)));
+    assertEquals("", text(messages.get(2)));
+    assertThrows(IOException.class, () -> framer.decode(utf8("-too-long-line"), pool, messages));
+  }
+
+  @Test
+  public void testInvalidLengthIsRejected() {
+    Framer framer = new LengthFieldFramer(100);
+    ByteBuffer frame = ByteBuffer.allocate(4);
+    frame.putInt(0, 1000);
+    assertThrows(IOException.class, () -> framer.decode(frame, pool, messages));
+  }
+
+  @Test
+  public void testFramedMessagesOverLoopback() throws Exception {
+    List<Integer> lengths = new ArrayList<>();
+    NioServerSocketChannel channel = new NioServerSocketChannel(16_676, (ch, readObject, key) -> {
+      lengths.add(((PooledBuffer) readObject).getBuffer().remaining());
+      ch.write(ByteBuffer.wrap(new byte[] {1}), key);
+    }, () -> new LengthFieldFramer(1 << 20), BufferPool.DEFAULT);
+    channel.bind();
+    NioReactor reactor = new NioReactor(new SameThreadDispatcher());
+    reactor.registerChannel(channel).start();
+    try (SocketChannel client =
+        SocketChannel.open(new InetSocketAddress(InetAddress.getLocalHost(), 16_676))) {
+      for (int length : new int[] {200_000, 10, 5_000}) {
+        ByteBuffer frame = LengthFieldFramer.frame(ByteBuffer.allocate(length));
+        while (frame.hasRemaining()) {
+          client.write(frame);
+        }
+        ByteBuffer ack = ByteBuffer.allocate(1);
+        while (ack.hasRemaining()) {
+          assertTrue(client.read(ack) >= 0);
+        }
+      }
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+    assertEquals(3, lengths.size());
+    assertEquals(200_000, (int) lengths.get(0));
+    assertEquals(10, (int) lengths.get(1));
+    assertEquals(5_000, (int) lengths.get(2));
+  }
+
+  private static ByteBuffer utf8(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String text(Object message) {
+    ByteBuffer buffer = ((PooledBuffer) message).getBuffer().duplicate();
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
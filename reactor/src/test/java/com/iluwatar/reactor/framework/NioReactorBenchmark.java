@@ -0,0 +1,129 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Loopback benchmark of the boss/worker mode of {@link NioReactor}. Concurrent clients run echo
+ * round trips against reactors with an increasing number of sub-reactors, and the throughput of
+ * each configuration is logged. How well it scales depends on the number of cores of the machine.
+ * <p>
+ * Run it with {@code java com.iluwatar.reactor.framework.NioReactorBenchmark}.
+ *
+ */
+public final class NioReactorBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(NioReactorBenchmark.class);
+
+  private static final int CLIENTS = 8;
+  private static final int ROUND_TRIPS = 20_000;
+  private static final int MESSAGE_SIZE = 128;
+
+  private NioReactorBenchmark() {
+  }
+
+  /**
+   * Program entry point
+   */
+  public static void main(String[] args) throws Exception {
+    for (int round = 0; round < 2; round++) { // the first round warms up the JIT
+      for (int subReactorCount : new int[] {0, 1, 2, 4}) {
+        long roundTripsPerSecond = run(subReactorCount, CLIENTS, ROUND_TRIPS);
+        LOGGER.info("{} sub-reactors: {} round trips/s", subReactorCount, roundTripsPerSecond);
+      }
+    }
+  }
+
+  /**
+   * Runs the echo round trips of the clients against a reactor bound to a free port, failing if a
+   * message does not come back intact.
+   *
+   * @return the round trips per second
+   */
+  static long run(int subReactorCount, int clientCount, int roundTrips) throws Exception {
+    NioReactor reactor = new NioReactor(new SameThreadDispatcher(), subReactorCount);
+    NioServerSocketChannel channel = new NioServerSocketChannel(0,
+        (echoChannel, readObject, key) -> echoChannel.write(readObject, key));
+    channel.bind();
+    int port = channel.getLocalPort();
+    reactor.registerChannel(channel).start();
+    ExecutorService clients = Executors.newFixedThreadPool(clientCount);
+    try {
+      long start = System.nanoTime();
+      List<Future<Void>> results = new ArrayList<>();
+      for (int i = 0; i < clientCount; i++) {
+        results.add(clients.submit(() -> {
+          echo(port, roundTrips);
+          return null;
+        }));
+      }
+      for (Future<Void> result : results) {
+        result.get(30, TimeUnit.SECONDS);
+      }
+      return clientCount * roundTrips * 1_000_000_000L / (System.nanoTime() - start);
+    } finally {
+      clients.shutdownNow();
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  private static void echo(int port, int roundTrips) throws IOException {
+    try (SocketChannel socket =
+        SocketChannel.open(new InetSocketAddress(InetAddress.getLocalHost(), port))) {
+      ByteBuffer request = ByteBuffer.allocate(MESSAGE_SIZE);
+      ByteBuffer response = ByteBuffer.allocate(MESSAGE_SIZE);
+      for (int i = 0; i < roundTrips; i++) {
+        request.clear();
+        request.putInt(0, i);
+        while (request.hasRemaining()) {
+          socket.write(request);
+        }
+        response.clear();
+        while (response.hasRemaining()) {
+          if (socket.read(response) < 0) {
+            throw new IOException("Connection closed by reactor");
+          }
+        }
+        if (response.getInt(0) != i) {
+          throw new IOException("Round trip " + i + " came back as " + response.getInt(0));
+        }
+      }
+    }
+  }
+}
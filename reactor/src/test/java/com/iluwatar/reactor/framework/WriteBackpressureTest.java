@@ -0,0 +1,97 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 
+ * Tests the write path of {@link AbstractNioChannel}: replies far larger than the socket buffers
+ * are written partially and gathered, must arrive completely and in order, and must signal
+ * backpressure through the water marks.
+ */
+public class WriteBackpressureTest {
+
+  private static final int PORT = 16_686;
+  private static final int REPLIES = 200;
+  private static final int REPLY_SIZE = 64 * 1024;
+
+  private final List<Boolean> writabilityChanges = new CopyOnWriteArrayList<>();
+
+  @Test
+  public void testLargeRepliesArriveCompletelyAndSignalBackpressure() throws Exception {
+    NioServerSocketChannel channel = new NioServerSocketChannel(PORT, new ChannelHandler() {
+      @Override
+      public void handleChannelRead(AbstractNioChannel channel, Object readObject,
+          SelectionKey key) {
+        for (int i = 0; i < REPLIES; i++) {
+          byte[] reply = new byte[REPLY_SIZE];
+          Arrays.fill(reply, (byte) i);
+          channel.write(ByteBuffer.wrap(reply), key);
+        }
+      }
+
+      @Override
+      public void handleWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+          boolean writable) {
+        writabilityChanges.add(writable);
+      }
+    });
+    channel.setWriteBufferWaterMarks(256 * 1024, 1024 * 1024);
+    channel.bind();
+    NioReactor reactor = new NioReactor(new SameThreadDispatcher());
+    reactor.registerChannel(channel).start();
+    try (SocketChannel client =
+        SocketChannel.open(new InetSocketAddress(InetAddress.getLocalHost(), PORT))) {
+      client.write(ByteBuffer.wrap(new byte[] {1}));
+      Thread.sleep(200); // let the replies pile up while the client is not reading
+
+      ByteBuffer received = ByteBuffer.allocate(REPLY_SIZE);
+      for (int i = 0; i < REPLIES; i++) {
+        received.clear();
+        while (received.hasRemaining()) {
+          assertTrue(client.read(received) >= 0);
+        }
+        assertEquals((byte) i, received.get(0));
+        assertEquals((byte) i, received.get(REPLY_SIZE - 1));
+      }
+      Thread.sleep(100);
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+    assertEquals(Arrays.asList(false, true), writabilityChanges);
+  }
+}
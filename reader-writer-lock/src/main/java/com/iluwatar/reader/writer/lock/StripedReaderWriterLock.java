@@ -0,0 +1,473 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reader.writer.lock;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Scalable reader writer lock with the full {@link Lock} API.
+ * <p>
+ * Readers do not share a counter. Each reader counts itself in one of several stripes, chosen by
+ * its thread, and each stripe sits on a cache line of its own, so readers of different threads
+ * do not touch the same line as long as no writer is around. A reader checks the number of
+ * writers after counting itself, a writer announces itself before it waits for the stripes to
+ * drain, so either the reader sees the writer and backs off, or the writer sees the reader.
+ * <p>
+ * The lock prefers writers: while a writer holds or waits for the lock, new readers wait, so
+ * writers are not starved by a steady stream of readers. Because of that, a thread must not
+ * take the read lock again while it holds it. The write lock is reentrant and supports
+ * conditions, the read lock does not support conditions.
+ * <p>
+ * Short reads can be done without the lock: {@link #tryOptimisticRead()} returns a stamp which
+ * {@link #validate(long)} checks after reading, the read has to be retried under the read lock if
+ * a writer came in between.
+ */
+public class StripedReaderWriterLock implements ReadWriteLock {
+
+  /**
+   * Longs between two stripes, so that each stripe has a cache line of its own.
+   */
+  private static final int PADDING = 16;
+
+  private final int stripeMask;
+  private final AtomicLongArray readers;
+  private final AtomicInteger writers = new AtomicInteger();
+  private final ReentrantLock writerMutex = new ReentrantLock();
+  private volatile long version = 2;
+
+  private final ReentrantLock waitLock = new ReentrantLock();
+  private final Condition noWriters = waitLock.newCondition();
+  private final Condition readersDrained = waitLock.newCondition();
+
+  private final ReadLock readerLock = new ReadLock();
+  private final WriteLock writerLock = new WriteLock();
+
+  /**
+   * Create a lock with two reader stripes for every processor.
+   */
+  public StripedReaderWriterLock() {
+    this(Runtime.getRuntime().availableProcessors() * 2);
+  }
+
+  /**
+   * Create a lock with the number of reader stripes rounded up to a power of two.
+   *
+   * @param stripes - the number of reader stripes
+   */
+  public StripedReaderWriterLock(int stripes) {
+    int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+    stripeMask = size - 1;
+    readers = new AtomicLongArray(size * PADDING);
+  }
+
+  @Override
+  public Lock readLock() {
+    return readerLock;
+  }
+
+  @Override
+  public Lock writeLock() {
+    return writerLock;
+  }
+
+  /**
+   * Returns a stamp for an optimistic read, or zero if a writer holds the lock.
+   *
+   * @return the stamp
+   */
+  public long tryOptimisticRead() {
+    long stamp = version;
+    return (stamp & 1) == 0 ? stamp : 0;
+  }
+
+  /**
+   * Tells whether no writer took the lock since the stamp was returned.
+   *
+   * @param stamp - the stamp of {@link #tryOptimisticRead()}
+   * @return true if the values read since then are consistent
+   */
+  public boolean validate(long stamp) {
+    // an atomic update of the own stripe is a full fence, so the reads before cannot move past
+    // the version check, without touching a line shared with other threads
+    readers.addAndGet(stripe(), 0);
+    return stamp != 0 && version == stamp;
+  }
+
+  private int stripe() {
+    long id = Thread.currentThread().getId();
+    int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    return ((hash ^ (hash >>> 16)) & stripeMask) * PADDING;
+  }
+
+  private long readerCount() {
+    long count = 0;
+    for (int i = 0; i <= stripeMask; i++) {
+      count += readers.get(i * PADDING);
+    }
+    return count;
+  }
+
+  /**
+   * Counts the reader in, unless there are writers.
+   */
+  private boolean tryAcquireRead(int stripe) {
+    if (writers.get() != 0) {
+      return false;
+    }
+    readers.incrementAndGet(stripe);
+    if (writers.get() == 0) {
+      return true;
+    }
+    releaseRead(stripe);
+    return false;
+  }
+
+  private void releaseRead(int stripe) {
+    readers.decrementAndGet(stripe);
+    if (writers.get() != 0) {
+      waitLock.lock();
+      try {
+        readersDrained.signal();
+      } finally {
+        waitLock.unlock();
+      }
+    }
+  }
+
+  private void writerLeft(int count) {
+    if (writers.addAndGet(-count) == 0) {
+      waitLock.lock();
+      try {
+        noWriters.signalAll();
+      } finally {
+        waitLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Waits until there are no writers, interruptibly and up to the deadline if timed, which
+   * always is interruptible.
+   */
+  private boolean awaitNoWriters(boolean interruptible, boolean timed, long deadline)
+      throws InterruptedException {
+    waitLock.lock();
+    try {
+      while (writers.get() != 0) {
+        if (!await(noWriters, interruptible, timed, deadline)) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      waitLock.unlock();
+    }
+  }
+
+  private boolean awaitReadersDrained(boolean interruptible, boolean timed, long deadline)
+      throws InterruptedException {
+    if (readerCount() == 0) {
+      return true;
+    }
+    waitLock.lock();
+    try {
+      while (readerCount() != 0) {
+        if (!await(readersDrained, interruptible, timed, deadline)) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      waitLock.unlock();
+    }
+  }
+
+  private static boolean await(Condition condition, boolean interruptible, boolean timed,
+      long deadline) throws InterruptedException {
+    if (timed) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      condition.awaitNanos(remaining);
+    } else if (interruptible) {
+      condition.await();
+    } else {
+      condition.awaitUninterruptibly();
+    }
+    return true;
+  }
+
+  /**
+   * Reader Lock, can be access for more than one reader concurrently if no writer holds or waits
+   * for the lock
+   */
+  private class ReadLock implements Lock {
+
+    @Override
+    public void lock() {
+      try {
+        acquire(false, false, 0);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+      acquire(true, false, 0);
+    }
+
+    @Override
+    public boolean tryLock() {
+      return tryAcquireRead(stripe());
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+      return acquire(true, true, System.nanoTime() + unit.toNanos(time));
+    }
+
+    private boolean acquire(boolean interruptible, boolean timed, long deadline)
+        throws InterruptedException {
+      int stripe = stripe();
+      while (!tryAcquireRead(stripe)) {
+        if (interruptible && Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+        if (!awaitNoWriters(interruptible, timed, deadline)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public void unlock() {
+      releaseRead(stripe());
+    }
+
+    @Override
+    public Condition newCondition() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * Writer Lock, can only be accessed by one writer concurrently
+   */
+  private class WriteLock implements Lock {
+
+    @Override
+    public void lock() {
+      writers.incrementAndGet();
+      writerMutex.lock();
+      try {
+        acquired(false, false, 0);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+      writers.incrementAndGet();
+      try {
+        writerMutex.lockInterruptibly();
+      } catch (InterruptedException e) {
+        writerLeft(1);
+        throw e;
+      }
+      acquired(true, false, 0);
+    }
+
+    @Override
+    public boolean tryLock() {
+      writers.incrementAndGet();
+      if (!writerMutex.tryLock()) {
+        writerLeft(1);
+        return false;
+      }
+      if (writerMutex.getHoldCount() == 1 && readerCount() != 0) {
+        writerMutex.unlock();
+        writerLeft(1);
+        return false;
+      }
+      enter();
+      return true;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+      long deadline = System.nanoTime() + unit.toNanos(time);
+      writers.incrementAndGet();
+      boolean locked;
+      try {
+        locked = writerMutex.tryLock(time, unit);
+      } catch (InterruptedException e) {
+        writerLeft(1);
+        throw e;
+      }
+      if (!locked) {
+        writerLeft(1);
+        return false;
+      }
+      return acquired(true, true, deadline);
+    }
+
+    /**
+     * Waits for the readers to drain once the writer mutex is held, undoing the locking if
+     * that fails.
+     */
+    private boolean acquired(boolean interruptible, boolean timed, long deadline)
+        throws InterruptedException {
+      if (writerMutex.getHoldCount() > 1) {
+        return true;
+      }
+      boolean drained = false;
+      try {
+        drained = awaitReadersDrained(interruptible, timed, deadline);
+      } finally {
+        if (!drained) {
+          writerMutex.unlock();
+          writerLeft(1);
+        }
+      }
+      if (drained) {
+        enter();
+      }
+      return drained;
+    }
+
+    private void enter() {
+      if (writerMutex.getHoldCount() == 1) {
+        version++;
+      }
+    }
+
+    @Override
+    public void unlock() {
+      if (!writerMutex.isHeldByCurrentThread()) {
+        throw new IllegalMonitorStateException();
+      }
+      if (writerMutex.getHoldCount() == 1) {
+        version++;
+      }
+      writerMutex.unlock();
+      writerLeft(1);
+    }
+
+    @Override
+    public Condition newCondition() {
+      return new WriteCondition(writerMutex.newCondition());
+    }
+  }
+
+  /**
+   * A wait on the condition of the writer mutex.
+   */
+  private interface Wait<T> {
+    T await() throws InterruptedException;
+  }
+
+  /**
+   * Condition of the write lock, which lets readers in while waiting.
+   */
+  private class WriteCondition implements Condition {
+
+    private final Condition condition;
+
+    WriteCondition(Condition condition) {
+      this.condition = condition;
+    }
+
+    private <T> T releaseAndAwait(Wait<T> wait) throws InterruptedException {
+      if (!writerMutex.isHeldByCurrentThread()) {
+        throw new IllegalMonitorStateException();
+      }
+      int holds = writerMutex.getHoldCount();
+      version++;
+      writerLeft(holds);
+      try {
+        return wait.await();
+      } finally {
+        // the writer mutex is held again, wait for the readers let in meanwhile
+        writers.addAndGet(holds);
+        awaitReadersDrained(false, false, 0);
+        version++;
+      }
+    }
+
+    @Override
+    public void await() throws InterruptedException {
+      releaseAndAwait(() -> {
+        condition.await();
+        return null;
+      });
+    }
+
+    @Override
+    public boolean await(long time, TimeUnit unit) throws InterruptedException {
+      return releaseAndAwait(() -> condition.await(time, unit));
+    }
+
+    @Override
+    public void awaitUninterruptibly() {
+      try {
+        releaseAndAwait(() -> {
+          condition.awaitUninterruptibly();
+          return null;
+        });
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public long awaitNanos(long nanosTimeout) throws InterruptedException {
+      return releaseAndAwait(() -> condition.awaitNanos(nanosTimeout));
+    }
+
+    @Override
+    public boolean awaitUntil(Date deadline) throws InterruptedException {
+      return releaseAndAwait(() -> condition.awaitUntil(deadline));
+    }
+
+    @Override
+    public void signal() {
+      condition.signal();
+    }
+
+    @Override
+    public void signalAll() {
+      condition.signalAll();
+    }
+  }
+}
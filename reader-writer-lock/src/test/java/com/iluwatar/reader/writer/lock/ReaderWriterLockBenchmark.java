@@ -0,0 +1,136 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reader.writer.lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Benchmark of 95/5 and 50/50 read/write mixes on the {@link ReaderWriterLock}, the
+ * {@link ReentrantReadWriteLock} and the {@link StripedReaderWriterLock}, the latter also with
+ * optimistic reads. The optional arguments are the number of threads, 4 by default, and the
+ * duration of each run in milliseconds, 1000 by default.
+ */
+public final class ReaderWriterLockBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReaderWriterLockBenchmark.class);
+
+  private final long[] values = new long[4];
+
+  private ReaderWriterLockBenchmark() {
+  }
+
+  /**
+   * Program entry point
+   *
+   * @param args command line args
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+    long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+    for (int readPercent : new int[] {95, 50}) {
+      long monitor = run(new ReaderWriterLock(), false, readPercent, threads, millis);
+      long reentrant = run(new ReentrantReadWriteLock(), false, readPercent, threads, millis);
+      long striped = run(new StripedReaderWriterLock(), false, readPercent, threads, millis);
+      long optimistic = run(new StripedReaderWriterLock(), true, readPercent, threads, millis);
+      LOGGER.info("{}/{} on {} threads in ops/s: ReaderWriterLock {}, ReentrantReadWriteLock {}, "
+          + "StripedReaderWriterLock {}, with optimistic reads {}", readPercent, 100 - readPercent,
+          threads, monitor, reentrant, striped, optimistic);
+    }
+  }
+
+  private static long run(ReadWriteLock lock, boolean optimistic, int readPercent, int threads,
+      long millis) throws InterruptedException {
+    ReaderWriterLockBenchmark state = new ReaderWriterLockBenchmark();
+    LongAdder operations = new LongAdder();
+    long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      workers.add(new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long count = 0;
+        long sum = 0;
+        while ((count & 0xff) != 0 || System.nanoTime() < end) {
+          if (random.nextInt(100) < readPercent) {
+            sum += optimistic ? state.readOptimistic((StripedReaderWriterLock) lock)
+                : state.read(lock);
+          } else {
+            state.write(lock);
+          }
+          count++;
+        }
+        operations.add(count + (sum & 0));
+      }));
+    }
+    workers.forEach(Thread::start);
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return operations.sum() * 1000 / millis;
+  }
+
+  private long read(ReadWriteLock lock) {
+    lock.readLock().lock();
+    try {
+      return sum();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private long readOptimistic(StripedReaderWriterLock lock) {
+    long stamp = lock.tryOptimisticRead();
+    long sum = sum();
+    if (lock.validate(stamp)) {
+      return sum;
+    }
+    return read(lock);
+  }
+
+  private void write(ReadWriteLock lock) {
+    lock.writeLock().lock();
+    try {
+      for (int i = 0; i < values.length; i++) {
+        values[i]++;
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private long sum() {
+    long sum = 0;
+    for (long value : values) {
+      sum += value;
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,230 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reader.writer.lock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+import static java.time.Duration.ofMillis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link StripedReaderWriterLock}
+ */
+public class StripedReaderWriterLockTest {
+
+  private static boolean tryLockOnOtherThread(Lock lock) throws InterruptedException {
+    final AtomicBoolean locked = new AtomicBoolean();
+    final Thread thread = new Thread(() -> {
+      if (lock.tryLock()) {
+        locked.set(true);
+        lock.unlock();
+      }
+    });
+    thread.start();
+    thread.join();
+    return locked.get();
+  }
+
+  @Test
+  public void testReadersShareAndWritersExclude() throws InterruptedException {
+    final StripedReaderWriterLock lock = new StripedReaderWriterLock(4);
+    lock.readLock().lock();
+    assertTrue(tryLockOnOtherThread(lock.readLock()));
+    assertFalse(tryLockOnOtherThread(lock.writeLock()));
+    lock.readLock().unlock();
+
+    lock.writeLock().lock();
+    assertFalse(tryLockOnOtherThread(lock.readLock()));
+    assertFalse(tryLockOnOtherThread(lock.writeLock()));
+    // the write lock is reentrant
+    assertTrue(lock.writeLock().tryLock());
+    lock.writeLock().unlock();
+    lock.writeLock().unlock();
+    assertTrue(tryLockOnOtherThread(lock.writeLock()));
+    assertThrows(IllegalMonitorStateException.class, () -> lock.writeLock().unlock());
+    assertThrows(UnsupportedOperationException.class, () -> lock.readLock().newCondition());
+  }
+
+  @Test
+  public void testWaitingWriterBlocksNewReaders() {
+    assertTimeout(ofMillis(5000), () -> {
+      final StripedReaderWriterLock lock = new StripedReaderWriterLock(4);
+      lock.readLock().lock();
+      final CountDownLatch writerLocked = new CountDownLatch(1);
+      final Thread writer = new Thread(() -> {
+        lock.writeLock().lock();
+        writerLocked.countDown();
+        lock.writeLock().unlock();
+      });
+      writer.start();
+      while (writer.getState() != Thread.State.WAITING) {
+        Thread.sleep(1);
+      }
+      // a new reader does not get in ahead of the waiting writer
+      assertFalse(tryLockOnOtherThread(lock.readLock()));
+      assertFalse(lock.readLock().tryLock(20, TimeUnit.MILLISECONDS));
+      lock.readLock().unlock();
+      assertTrue(writerLocked.await(1, TimeUnit.SECONDS));
+      writer.join();
+      assertTrue(tryLockOnOtherThread(lock.readLock()));
+    });
+  }
+
+  @Test
+  public void testTimedAndInterruptibleLocking() {
+    assertTimeout(ofMillis(5000), () -> {
+      final StripedReaderWriterLock lock = new StripedReaderWriterLock(4);
+      lock.readLock().lock();
+      final AtomicBoolean timedOut = new AtomicBoolean();
+      final AtomicBoolean interrupted = new AtomicBoolean();
+      final Thread writer = new Thread(() -> {
+        try {
+          timedOut.set(!lock.writeLock().tryLock(20, TimeUnit.MILLISECONDS));
+          lock.writeLock().lockInterruptibly();
+        } catch (InterruptedException e) {
+          interrupted.set(true);
+        }
+      });
+      writer.start();
+      Thread.sleep(100);
+      writer.interrupt();
+      writer.join();
+      assertTrue(timedOut.get());
+      assertTrue(interrupted.get());
+      // the writers gave up, so readers are let in again
+      assertTrue(tryLockOnOtherThread(lock.readLock()));
+      lock.readLock().unlock();
+      assertTrue(tryLockOnOtherThread(lock.writeLock()));
+    });
+  }
+
+  @Test
+  public void testConditionLetsReadersInWhileWaiting() {
+    assertTimeout(ofMillis(5000), () -> {
+      final StripedReaderWriterLock lock = new StripedReaderWriterLock(4);
+      final Condition ready = lock.writeLock().newCondition();
+      final AtomicBoolean flag = new AtomicBoolean();
+      final CountDownLatch waiting = new CountDownLatch(1);
+      final Thread waiter = new Thread(() -> {
+        lock.writeLock().lock();
+        try {
+          waiting.countDown();
+          while (!flag.get()) {
+            ready.awaitUninterruptibly();
+          }
+        } finally {
+          lock.writeLock().unlock();
+        }
+      });
+      waiter.start();
+      waiting.await();
+      // the waiting writer has released the lock
+      lock.readLock().lock();
+      lock.readLock().unlock();
+      lock.writeLock().lock();
+      flag.set(true);
+      ready.signal();
+      lock.writeLock().unlock();
+      waiter.join();
+      assertTrue(tryLockOnOtherThread(lock.writeLock()));
+    });
+  }
+
+  @Test
+  public void testOptimisticRead() {
+    final StripedReaderWriterLock lock = new StripedReaderWriterLock(4);
+    final long stamp = lock.tryOptimisticRead();
+    assertTrue(stamp != 0);
+    assertTrue(lock.validate(stamp));
+
+    lock.writeLock().lock();
+    assertEquals(0, lock.tryOptimisticRead());
+    assertFalse(lock.validate(stamp));
+    lock.writeLock().unlock();
+    assertFalse(lock.validate(stamp));
+    assertTrue(lock.validate(lock.tryOptimisticRead()));
+  }
+
+  @Test
+  public void testConcurrentReadersAndWriters() {
+    assertTimeout(ofMillis(10000), () -> {
+      final StripedReaderWriterLock lock = new StripedReaderWriterLock(4);
+      final AtomicInteger readers = new AtomicInteger();
+      final AtomicInteger writers = new AtomicInteger();
+      final AtomicBoolean violated = new AtomicBoolean();
+      final long[] values = new long[2];
+      final List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < 6; t++) {
+        final boolean writer = t < 2;
+        threads.add(new Thread(() -> {
+          for (int i = 0; i < 20000; i++) {
+            if (writer) {
+              lock.writeLock().lock();
+              if (writers.incrementAndGet() != 1 || readers.get() != 0) {
+                violated.set(true);
+              }
+              values[0]++;
+              values[1]++;
+              writers.decrementAndGet();
+              lock.writeLock().unlock();
+            } else if (i % 2 == 0) {
+              lock.readLock().lock();
+              readers.incrementAndGet();
+              if (writers.get() != 0 || values[0] != values[1]) {
+                violated.set(true);
+              }
+              readers.decrementAndGet();
+              lock.readLock().unlock();
+            } else {
+              final long stamp = lock.tryOptimisticRead();
+              final long first = values[0];
+              final long second = values[1];
+              if (lock.validate(stamp) && first != second) {
+                violated.set(true);
+              }
+            }
+          }
+        }));
+      }
+      threads.forEach(Thread::start);
+      for (final Thread thread : threads) {
+        thread.join();
+      }
+      assertFalse(violated.get());
+      assertEquals(40000, values[0]);
+    });
+  }
+}
@@ -0,0 +1,203 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.Arrays;
+
+/**
+ * The LooseQuadTree class is a quadtree of fixed depth laid out in flat arrays, level after
+ * level, so no node is ever created or removed. Every node's loose bounds are its cell widened by
+ * half a cell on every side, and an object lives in the deepest node whose cell holds its centre
+ * and whose loose bounds hold all of it. An object therefore stays in its node until its centre
+ * leaves the cell, however it overlaps the neighbours. As the loose bounds of the nodes of a level
+ * are known, a query does not walk down from the root: on every level holding objects it goes
+ * straight to the few nodes whose loose bounds overlap the range. Objects too far outside the
+ * field for even the root are kept in a separate list that every query checks.
+ */
+
+public class LooseQuadTree extends SpatialIndex {
+
+  private static final int MAX_DEPTH = 12;
+
+  final int minX;
+  final int minY;
+  final int width;
+  final int height;
+  final int depth;
+  final int overflow;
+  final int[] levelCounts;
+  // loose bounds of the columns and rows of every level, level after level
+  final int[] looseMinX;
+  final int[] looseMaxX;
+  final int[] looseMinY;
+  final int[] looseMaxY;
+
+  /**
+   * creates an empty tree
+   * @param boundary is the field covered by the root
+   * @param depth is the level of the leaves, 0 for a tree with only the root
+   * @param maxObjects is the number of ids the tree can hold, from 0 to maxObjects - 1
+   */
+  LooseQuadTree(Rect boundary, int depth, int maxObjects) {
+    super(maxObjects, offset(checkDepth(depth) + 1) + 1);
+    this.minX = boundary.x - boundary.width / 2;
+    this.minY = boundary.y - boundary.height / 2;
+    // one more so that the far edge, which Rect contains, is inside the field
+    this.width = boundary.width + 1;
+    this.height = boundary.height + 1;
+    this.depth = depth;
+    this.overflow = offset(depth + 1);
+    this.levelCounts = new int[depth + 1];
+    this.looseMinX = new int[(2 << depth) - 1];
+    this.looseMaxX = new int[(2 << depth) - 1];
+    this.looseMinY = new int[(2 << depth) - 1];
+    this.looseMaxY = new int[(2 << depth) - 1];
+    for (int level = 0; level <= depth; level++) {
+      int cells = 1 << level;
+      for (int cell = 0; cell < cells; cell++) {
+        this.looseMinX[cells - 1 + cell] = looseMin(this.minX, this.width, cells, cell);
+        this.looseMaxX[cells - 1 + cell] = looseMax(this.minX, this.width, cells, cell);
+        this.looseMinY[cells - 1 + cell] = looseMin(this.minY, this.height, cells, cell);
+        this.looseMaxY[cells - 1 + cell] = looseMax(this.minY, this.height, cells, cell);
+      }
+    }
+  }
+
+  private static int checkDepth(int depth) {
+    if (depth < 0 || depth > MAX_DEPTH) {
+      throw new IllegalArgumentException("Depth must be from 0 to " + MAX_DEPTH + ": " + depth);
+    }
+    return depth;
+  }
+
+  /**
+   * the index of the first node of the level
+   */
+  private static int offset(int level) {
+    return ((1 << 2 * level) - 1) / 3;
+  }
+
+  @Override
+  void clear() {
+    super.clear();
+    Arrays.fill(this.levelCounts, 0);
+  }
+
+  @Override
+  int query(Rect r, int[] result) {
+    int queryMinX = r.x - r.width / 2;
+    int queryMaxX = r.x + r.width / 2;
+    int queryMinY = r.y - r.height / 2;
+    int queryMaxY = r.y + r.height / 2;
+    int found = collect(this.overflow, queryMinX, queryMinY, queryMaxX, queryMaxY, result, 0);
+    for (int level = 0; level <= this.depth; level++) {
+      if (this.levelCounts[level] == 0) {
+        continue;
+      }
+      int cells = 1 << level;
+      int firstColumn = firstCell(this.looseMaxX, cells, cell(queryMinX, this.minX, this.width, cells), queryMinX);
+      int lastColumn = lastCell(this.looseMinX, cells, cell(queryMaxX, this.minX, this.width, cells), queryMaxX);
+      int firstRow = firstCell(this.looseMaxY, cells, cell(queryMinY, this.minY, this.height, cells), queryMinY);
+      int lastRow = lastCell(this.looseMinY, cells, cell(queryMaxY, this.minY, this.height, cells), queryMaxY);
+      for (int row = firstRow; row <= lastRow; row++) {
+        int node = offset(level) + row * cells;
+        for (int column = firstColumn; column <= lastColumn; column++) {
+          if (this.heads[node + column] != ABSENT) {
+            found = collect(node + column, queryMinX, queryMinY, queryMaxX, queryMaxY, result, found);
+          }
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * the first cell of the level whose loose bounds end at or after the coordinate, starting the
+   * search from the cell holding it
+   */
+  private static int firstCell(int[] looseMax, int cells, int cell, int coordinate) {
+    while (cell > 0 && looseMax[cells - 2 + cell] >= coordinate) {
+      cell--;
+    }
+    while (cell < cells && looseMax[cells - 1 + cell] < coordinate) {
+      cell++;
+    }
+    return cell;
+  }
+
+  /**
+   * the last cell of the level whose loose bounds start at or before the coordinate, starting
+   * the search from the cell holding it
+   */
+  private static int lastCell(int[] looseMin, int cells, int cell, int coordinate) {
+    while (cell < cells - 1 && looseMin[cells + cell] <= coordinate) {
+      cell++;
+    }
+    while (cell >= 0 && looseMin[cells - 1 + cell] > coordinate) {
+      cell--;
+    }
+    return cell;
+  }
+
+  @Override
+  int bucketOf(int x, int y, int radius) {
+    int level = this.depth;
+    while (level > 0 && 2L * radius * (1 << level) > Math.min(this.width, this.height)) {
+      level--;
+    }
+    for (; level >= 0; level--) {
+      int cells = 1 << level;
+      int column = cell(x, this.minX, this.width, cells);
+      int row = cell(y, this.minY, this.height, cells);
+      if (x - radius >= this.looseMinX[cells - 1 + column] && x + radius <= this.looseMaxX[cells - 1 + column]
+          && y - radius >= this.looseMinY[cells - 1 + row] && y + radius <= this.looseMaxY[cells - 1 + row]) {
+        return offset(level) + row * cells + column;
+      }
+    }
+    return this.overflow;
+  }
+
+  @Override
+  void bucketChanged(int bucket, int delta) {
+    if (bucket != this.overflow) {
+      int level = 0;
+      while (offset(level + 1) <= bucket) {
+        level++;
+      }
+      this.levelCounts[level] += delta;
+    }
+  }
+
+  private static int cell(int coordinate, int min, int length, int cells) {
+    long cell = Math.floorDiv((coordinate - (long) min) * cells, length);
+    return (int) Math.min(Math.max(cell, 0), cells - 1);
+  }
+
+  private static int looseMin(int min, int length, int cells, int cell) {
+    return (int) (min + (long) cell * length / cells - length / (2 * cells));
+  }
+
+  private static int looseMax(int min, int length, int cells, int cell) {
+    return (int) (min + (long) (cell + 1) * length / cells + length / (2 * cells));
+  }
+}
@@ -0,0 +1,193 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.Arrays;
+
+/**
+ * The SpatialIndex class keeps track of objects identified by ids from 0 to a fixed maximum in
+ * flat primitive arrays, so objects can be inserted, removed and moved without rebuilding anything
+ * and queried without allocating. Every object has a centre and a radius, and lives in one bucket
+ * of the index, a cell of the grid or a node of the tree. The objects of a bucket form a doubly
+ * linked list threaded through the next and previous arrays, so moving an object between buckets
+ * is a constant time unlink and link.
+ */
+
+public abstract class SpatialIndex {
+
+  static final int ABSENT = -1;
+
+  final int[] xs;
+  final int[] ys;
+  final int[] radii;
+  final int[] bucket;
+  final int[] next;
+  final int[] prev;
+  final int[] heads;
+  int size;
+
+  SpatialIndex(int maxObjects, int buckets) {
+    this.xs = new int[maxObjects];
+    this.ys = new int[maxObjects];
+    this.radii = new int[maxObjects];
+    this.bucket = new int[maxObjects];
+    this.next = new int[maxObjects];
+    this.prev = new int[maxObjects];
+    this.heads = new int[buckets];
+    Arrays.fill(this.bucket, ABSENT);
+    Arrays.fill(this.heads, ABSENT);
+  }
+
+  /**
+   * adds an object to the index
+   * @param id is the id of the object, from 0 to the maximum number of objects - 1
+   * @param x is the x coordinate of its centre
+   * @param y is the y coordinate of its centre
+   * @param radius is the distance from the centre within which the object is found by queries
+   */
+  void insert(int id, int x, int y, int radius) {
+    if (this.bucket[id] != ABSENT) {
+      throw new IllegalArgumentException("Object " + id + " is already in the index");
+    }
+    if (radius < 0) {
+      throw new IllegalArgumentException("Radius must not be negative: " + radius);
+    }
+    this.xs[id] = x;
+    this.ys[id] = y;
+    this.radii[id] = radius;
+    link(id, bucketOf(x, y, radius));
+    this.size++;
+  }
+
+  /**
+   * removes an object from the index, if it is there
+   * @param id is the id of the object
+   */
+  void remove(int id) {
+    if (this.bucket[id] != ABSENT) {
+      unlink(id);
+      this.bucket[id] = ABSENT;
+      this.size--;
+    }
+  }
+
+  /**
+   * moves an object of the index to a new centre; it only changes bucket if the new centre is
+   * in another one
+   * @param id is the id of the object
+   * @param x is the new x coordinate of its centre
+   * @param y is the new y coordinate of its centre
+   */
+  void move(int id, int x, int y) {
+    if (this.bucket[id] == ABSENT) {
+      throw new IllegalArgumentException("Object " + id + " is not in the index");
+    }
+    int newBucket = bucketOf(x, y, this.radii[id]);
+    if (newBucket != this.bucket[id]) {
+      unlink(id);
+      link(id, newBucket);
+    }
+    this.xs[id] = x;
+    this.ys[id] = y;
+  }
+
+  boolean contains(int id) {
+    return this.bucket[id] != ABSENT;
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * removes all the objects from the index
+   */
+  void clear() {
+    Arrays.fill(this.bucket, ABSENT);
+    Arrays.fill(this.heads, ABSENT);
+    this.size = 0;
+  }
+
+  /**
+   * finds the objects whose bounding square, of side twice their radius around their centre,
+   * overlaps the range; for objects of radius 0 these are the points the range contains
+   * @param r is the range to look in
+   * @param result receives the ids of the objects found, as many as fit
+   * @return the number of objects found, which may be more than the length of result
+   */
+  abstract int query(Rect r, int[] result);
+
+  /**
+   * the bucket an object with this centre and radius belongs in
+   */
+  abstract int bucketOf(int x, int y, int radius);
+
+  /**
+   * called when objects are added to or removed from a bucket
+   */
+  void bucketChanged(int bucket, int delta) {
+  }
+
+  /**
+   * adds the objects of the bucket overlapping the range to result
+   * @return the number of objects found so far
+   */
+  int collect(int bucket, int minX, int minY, int maxX, int maxY, int[] result, int found) {
+    for (int id = this.heads[bucket]; id != ABSENT; id = this.next[id]) {
+      int radius = this.radii[id];
+      if (this.xs[id] - radius <= maxX && this.xs[id] + radius >= minX
+          && this.ys[id] - radius <= maxY && this.ys[id] + radius >= minY) {
+        if (found < result.length) {
+          result[found] = id;
+        }
+        found++;
+      }
+    }
+    return found;
+  }
+
+  private void link(int id, int newBucket) {
+    int head = this.heads[newBucket];
+    this.next[id] = head;
+    this.prev[id] = ABSENT;
+    if (head != ABSENT) {
+      this.prev[head] = id;
+    }
+    this.heads[newBucket] = id;
+    this.bucket[id] = newBucket;
+    bucketChanged(newBucket, 1);
+  }
+
+  private void unlink(int id) {
+    int oldBucket = this.bucket[id];
+    if (this.prev[id] != ABSENT) {
+      this.next[this.prev[id]] = this.next[id];
+    } else {
+      this.heads[oldBucket] = this.next[id];
+    }
+    if (this.next[id] != ABSENT) {
+      this.prev[this.next[id]] = this.prev[id];
+    }
+    bucketChanged(oldBucket, -1);
+  }
+}
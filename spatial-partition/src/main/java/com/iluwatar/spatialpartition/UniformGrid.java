@@ -0,0 +1,117 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+/**
+ * The UniformGrid class divides the field into square cells of the same size, each holding the
+ * objects whose centre lies in it; objects outside the field are kept in the border cells. A
+ * query looks at the cells its range covers, widened by the largest radius in the grid, so cells
+ * should be about the size of a typical query.
+ */
+
+public class UniformGrid extends SpatialIndex {
+
+  final int minX;
+  final int minY;
+  final int cellSize;
+  final int columns;
+  final int rows;
+  int maxRadius;
+
+  /**
+   * creates an empty grid
+   * @param boundary is the field covered by the grid
+   * @param cellSize is the length of the side of a cell
+   * @param maxObjects is the number of ids the grid can hold, from 0 to maxObjects - 1
+   */
+  UniformGrid(Rect boundary, int cellSize, int maxObjects) {
+    this(boundary.x - boundary.width / 2, boundary.y - boundary.height / 2, cellSize,
+        columns(boundary.width, cellSize), columns(boundary.height, cellSize), maxObjects);
+  }
+
+  private UniformGrid(int minX, int minY, int cellSize, int columns, int rows, int maxObjects) {
+    super(maxObjects, columns * rows);
+    this.minX = minX;
+    this.minY = minY;
+    this.cellSize = cellSize;
+    this.columns = columns;
+    this.rows = rows;
+  }
+
+  private static int columns(int length, int cellSize) {
+    if (cellSize <= 0) {
+      throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+    }
+    // one more so that the far edge, which Rect contains, gets a cell
+    return length / cellSize + 1;
+  }
+
+  @Override
+  void insert(int id, int x, int y, int radius) {
+    super.insert(id, x, y, radius);
+    this.maxRadius = Math.max(this.maxRadius, radius);
+  }
+
+  @Override
+  void clear() {
+    super.clear();
+    this.maxRadius = 0;
+  }
+
+  @Override
+  int query(Rect r, int[] result) {
+    int queryMinX = r.x - r.width / 2;
+    int queryMaxX = r.x + r.width / 2;
+    int queryMinY = r.y - r.height / 2;
+    int queryMaxY = r.y + r.height / 2;
+    int firstColumn = column(queryMinX - this.maxRadius);
+    int lastColumn = column(queryMaxX + this.maxRadius);
+    int firstRow = row(queryMinY - this.maxRadius);
+    int lastRow = row(queryMaxY + this.maxRadius);
+    int found = 0;
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        found = collect(row * this.columns + column, queryMinX, queryMinY, queryMaxX, queryMaxY,
+            result, found);
+      }
+    }
+    return found;
+  }
+
+  @Override
+  int bucketOf(int x, int y, int radius) {
+    return row(y) * this.columns + column(x);
+  }
+
+  private int column(int x) {
+    return clamp(Math.floorDiv(x - this.minX, this.cellSize), this.columns);
+  }
+
+  private int row(int y) {
+    return clamp(Math.floorDiv(y - this.minY, this.cellSize), this.rows);
+  }
+
+  private static int clamp(int cell, int cells) {
+    return Math.min(Math.max(cell, 0), cells - 1);
+  }
+}
@@ -0,0 +1,143 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Sepp�l�
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testing the SpatialIndex classes against a scan of all the objects.
+ */
+
+abstract class SpatialIndexTest {
+
+  static final Rect FIELD = new Rect(150, 150, 300, 300);
+
+  abstract SpatialIndex create(Rect field, int maxObjects);
+
+  @Test
+  void queryAfterUpdatesTest() {
+    int n = 500;
+    SpatialIndex index = create(FIELD, n);
+    int[] xs = new int[n];
+    int[] ys = new int[n];
+    int[] radii = new int[n];
+    boolean[] present = new boolean[n];
+    Random rand = new Random(42);
+    for (int i = 0; i < n; i++) {
+      xs[i] = rand.nextInt(300);
+      ys[i] = rand.nextInt(300);
+      radii[i] = rand.nextInt(10) == 0 ? rand.nextInt(100) : rand.nextInt(3);
+      index.insert(i, xs[i], ys[i], radii[i]);
+      present[i] = true;
+    }
+    int[] result = new int[n];
+    for (int step = 0; step < 2000; step++) {
+      int i = rand.nextInt(n);
+      if (!present[i]) {
+        index.insert(i, xs[i], ys[i], radii[i]);
+        present[i] = true;
+      } else if (rand.nextInt(10) == 0) {
+        index.remove(i);
+        present[i] = false;
+      } else {
+        // sometimes far off the field
+        int jump = rand.nextInt(20) == 0 ? 1000 : 10;
+        xs[i] += rand.nextInt(2 * jump + 1) - jump;
+        ys[i] += rand.nextInt(2 * jump + 1) - jump;
+        index.move(i, xs[i], ys[i]);
+      }
+      Rect range = new Rect(rand.nextInt(400) - 50, rand.nextInt(400) - 50, rand.nextInt(80), rand.nextInt(80));
+      int found = index.query(range, result);
+      int[] expected = scan(range, xs, ys, radii, present);
+      assertEquals(expected.length, found);
+      int[] actual = Arrays.copyOf(result, found);
+      Arrays.sort(actual);
+      assertArrayEquals(expected, actual);
+    }
+    int count = 0;
+    for (boolean p : present) {
+      count += p ? 1 : 0;
+    }
+    assertEquals(count, index.size());
+  }
+
+  @Test
+  void pointsMatchRectContainsTest() {
+    SpatialIndex index = create(FIELD, 4);
+    index.insert(0, 0, 0, 0);
+    index.insert(1, 300, 300, 0);
+    index.insert(2, 150, 150, 0);
+    index.insert(3, -5, 150, 0);
+    int[] result = new int[4];
+    assertEquals(4, index.query(new Rect(150, 150, 310, 310), result));
+    assertEquals(1, index.query(new Rect(150, 150, 0, 0), result));
+    assertEquals(2, result[0]);
+    assertEquals(1, index.query(new Rect(295, 295, 10, 10), result));
+    assertEquals(1, result[0]);
+    assertEquals(1, index.query(new Rect(-5, 150, 2, 2), result));
+    assertEquals(3, result[0]);
+  }
+
+  @Test
+  void queryCountsBeyondResultLengthTest() {
+    SpatialIndex index = create(FIELD, 10);
+    for (int i = 0; i < 10; i++) {
+      index.insert(i, 100 + i, 100, 1);
+    }
+    int[] result = new int[3];
+    assertEquals(10, index.query(new Rect(105, 100, 20, 2), result));
+  }
+
+  @Test
+  void insertRemoveTest() {
+    SpatialIndex index = create(FIELD, 2);
+    index.insert(0, 10, 10, 1);
+    assertThrows(IllegalArgumentException.class, () -> index.insert(0, 20, 20, 1));
+    assertThrows(IllegalArgumentException.class, () -> index.move(1, 20, 20));
+    assertTrue(index.contains(0));
+    index.remove(0);
+    index.remove(0);
+    assertFalse(index.contains(0));
+    assertEquals(0, index.size());
+    assertEquals(0, index.query(new Rect(10, 10, 4, 4), new int[2]));
+    index.insert(0, 20, 20, 1);
+    index.clear();
+    assertEquals(0, index.size());
+    assertEquals(0, index.query(FIELD, new int[2]));
+  }
+
+  private static int[] scan(Rect range, int[] xs, int[] ys, int[] radii, boolean[] present) {
+    int minX = range.x - range.width / 2;
+    int maxX = range.x + range.width / 2;
+    int minY = range.y - range.height / 2;
+    int maxY = range.y + range.height / 2;
+    return IntStream.range(0, xs.length)
+        .filter(i -> present[i] && xs[i] - radii[i] <= maxX && xs[i] + radii[i] >= minX
+            && ys[i] - radii[i] <= maxY && ys[i] + radii[i] >= minY)
+        .toArray();
+  }
+}
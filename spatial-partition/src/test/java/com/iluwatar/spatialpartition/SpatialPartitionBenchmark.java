@@ -0,0 +1,155 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Sepp�l�
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Frame benchmark moving 100000 bubbles, by default, on a 3000 x 3000 field and finding for every
+ * bubble the others within its radius. It compares rebuilding the index every frame, as the
+ * {@link QuadTree} of {@link App} has to, with moving the bubbles in a {@link LooseQuadTree} and a
+ * {@link UniformGrid}. Bubbles are not popped, and are indexed as points like in the QuadTree, so
+ * the new indexes must all find the same number of neighbours; the QuadTree finds fewer as it
+ * drops the bubbles that wander off the field. The optional arguments are the number of bubbles
+ * and of frames, 20 by default.
+ */
+
+public final class SpatialPartitionBenchmark {
+
+  private static final int FIELD_SIZE = 3000;
+  private static final long SEED = 42;
+
+  private SpatialPartitionBenchmark() {
+  }
+
+  /**
+   * Program entry point.
+   *
+   * @param args command line args
+   */
+  public static void main(String[] args) {
+    int numOfBubbles = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    int numOfFrames = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+    Rect field = new Rect(FIELD_SIZE / 2, FIELD_SIZE / 2, FIELD_SIZE, FIELD_SIZE);
+    for (int round = 0; round < 2; round++) {
+      // the first round warms up
+      System.out.println(round == 0 ? "warm-up" : "measured");
+      runQuadTree(field, numOfBubbles, numOfFrames);
+      run("LooseQuadTree rebuild", new LooseQuadTree(field, 8, numOfBubbles), false, numOfBubbles,
+          numOfFrames);
+      run("LooseQuadTree incremental", new LooseQuadTree(field, 8, numOfBubbles), true,
+          numOfBubbles, numOfFrames);
+      run("UniformGrid rebuild", new UniformGrid(field, 8, numOfBubbles), false, numOfBubbles,
+          numOfFrames);
+      run("UniformGrid incremental", new UniformGrid(field, 8, numOfBubbles), true, numOfBubbles,
+          numOfFrames);
+    }
+  }
+
+  private static Bubble[] bubbles(int numOfBubbles) {
+    Random rand = new Random(SEED);
+    Bubble[] bubbles = new Bubble[numOfBubbles];
+    for (int i = 0; i < numOfBubbles; i++) {
+      bubbles[i] = new Bubble(rand.nextInt(FIELD_SIZE), rand.nextInt(FIELD_SIZE), i, rand.nextInt(2) + 1);
+    }
+    return bubbles;
+  }
+
+  private static void moveAll(Bubble[] bubbles, Random rand) {
+    for (Bubble b : bubbles) {
+      b.x += rand.nextInt(3) - 1;
+      b.y += rand.nextInt(3) - 1;
+    }
+  }
+
+  private static void runQuadTree(Rect field, int numOfBubbles, int numOfFrames) {
+    Bubble[] bubbles = bubbles(numOfBubbles);
+    Random rand = new Random(SEED);
+    long updateNanos = 0;
+    long queryNanos = 0;
+    long found = 0;
+    for (int frame = 0; frame < numOfFrames; frame++) {
+      moveAll(bubbles, rand);
+      long start = System.nanoTime();
+      QuadTree qTree = new QuadTree(field, 4);
+      for (Bubble b : bubbles) {
+        qTree.insert(b);
+      }
+      long updated = System.nanoTime();
+      for (Bubble b : bubbles) {
+        Rect rect = new Rect(b.x, b.y, 2 * b.radius, 2 * b.radius);
+        found += qTree.query(rect, new ArrayList<Point>()).size();
+      }
+      updateNanos += updated - start;
+      queryNanos += System.nanoTime() - updated;
+    }
+    report("QuadTree rebuild", numOfFrames, updateNanos, queryNanos, found);
+  }
+
+  private static void run(String name, SpatialIndex index, boolean incremental, int numOfBubbles,
+      int numOfFrames) {
+    Bubble[] bubbles = bubbles(numOfBubbles);
+    Random rand = new Random(SEED);
+    int[] result = new int[64];
+    Rect rect = new Rect(0, 0, 0, 0);
+    for (Bubble b : bubbles) {
+      index.insert(b.id, b.x, b.y, 0);
+    }
+    long updateNanos = 0;
+    long queryNanos = 0;
+    long found = 0;
+    for (int frame = 0; frame < numOfFrames; frame++) {
+      moveAll(bubbles, rand);
+      long start = System.nanoTime();
+      if (incremental) {
+        for (Bubble b : bubbles) {
+          index.move(b.id, b.x, b.y);
+        }
+      } else {
+        index.clear();
+        for (Bubble b : bubbles) {
+          index.insert(b.id, b.x, b.y, 0);
+        }
+      }
+      long updated = System.nanoTime();
+      for (Bubble b : bubbles) {
+        // the same range as SpatialPartitionBubbles, without allocating
+        rect.x = b.x;
+        rect.y = b.y;
+        rect.width = 2 * b.radius;
+        rect.height = 2 * b.radius;
+        found += index.query(rect, result);
+      }
+      updateNanos += updated - start;
+      queryNanos += System.nanoTime() - updated;
+    }
+    report(name, numOfFrames, updateNanos, queryNanos, found);
+  }
+
+  private static void report(String name, int numOfFrames, long updateNanos, long queryNanos,
+      long found) {
+    System.out.println(name + ": update " + updateNanos / numOfFrames / 1000 + " us/frame, queries "
+        + queryNanos / numOfFrames / 1000 + " us/frame, " + found + " found");
+  }
+}
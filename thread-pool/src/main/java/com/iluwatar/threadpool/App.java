@@ -43,6 +43,9 @@ import java.util.concurrent.Executors;
  * into a {@link Worker} object that implements {@link Runnable}. We create an
  * {@link ExecutorService} with fixed number of threads (Thread Pool) and use them to execute the
  * {@link Worker}s.
+ * <p>
+ * The module also has a thread pool engine of its own, the {@link WorkStealingPool}, which can
+ * be used in place of the fixed thread pool.
  *
  */
 public class App {
@@ -0,0 +1,89 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+/**
+ * 
+ * PoolMetrics is a snapshot of the metrics of a {@link WorkStealingPool}
+ *
+ */
+public class PoolMetrics {
+
+  private final long completedTasks;
+  private final long stolenTasks;
+  private final long parks;
+  private final long totalQueueTimeNanos;
+  private final long maxQueueTimeNanos;
+  private final long totalRunTimeNanos;
+  private final long maxRunTimeNanos;
+
+  /**
+   * Constructor
+   */
+  public PoolMetrics(long completedTasks, long stolenTasks, long parks, long totalQueueTimeNanos,
+      long maxQueueTimeNanos, long totalRunTimeNanos, long maxRunTimeNanos) {
+    this.completedTasks = completedTasks;
+    this.stolenTasks = stolenTasks;
+    this.parks = parks;
+    this.totalQueueTimeNanos = totalQueueTimeNanos;
+    this.maxQueueTimeNanos = maxQueueTimeNanos;
+    this.totalRunTimeNanos = totalRunTimeNanos;
+    this.maxRunTimeNanos = maxRunTimeNanos;
+  }
+
+  public long getCompletedTasks() {
+    return completedTasks;
+  }
+
+  public long getStolenTasks() {
+    return stolenTasks;
+  }
+
+  public long getParks() {
+    return parks;
+  }
+
+  public long getAverageQueueTimeNanos() {
+    return completedTasks == 0 ? 0 : totalQueueTimeNanos / completedTasks;
+  }
+
+  public long getMaxQueueTimeNanos() {
+    return maxQueueTimeNanos;
+  }
+
+  public long getAverageRunTimeNanos() {
+    return completedTasks == 0 ? 0 : totalRunTimeNanos / completedTasks;
+  }
+
+  public long getMaxRunTimeNanos() {
+    return maxRunTimeNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("completed=%d stolen=%d parks=%d queueTime avg=%dus max=%dus "
+        + "runTime avg=%dus max=%dus", completedTasks, stolenTasks, parks,
+        getAverageQueueTimeNanos() / 1000, maxQueueTimeNanos / 1000,
+        getAverageRunTimeNanos() / 1000, maxRunTimeNanos / 1000);
+  }
+}
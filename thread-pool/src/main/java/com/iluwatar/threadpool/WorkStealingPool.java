@@ -0,0 +1,354 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 
+ * WorkStealingPool is a thread pool engine with a deque per worker thread. A worker pushes the
+ * tasks it submits itself onto its own deque and takes them back last in first out, while the
+ * tasks submitted by other threads go to a shared queue. An idle worker takes from its own deque,
+ * then from the shared queue and then steals first in first out from the other workers, so it
+ * takes the oldest and usually largest pieces of work.
+ * <p>
+ * Workers without work spin for a while before they park. The number of spins adapts: it grows
+ * when spinning found work and shrinks when the worker had to park anyway. The pool records the
+ * time each task waited in the queue and the time it ran, see {@link #getMetrics()}.
+ * <p>
+ * Tasks which block, like the sleeping {@link Worker}s, should not hold on to the workers. They
+ * can be run with {@link #executeBlocking(Runnable)} on a thread of their own each, taken from a
+ * cached pool of threads.
+ * <p>
+ * A task given to {@link #execute(Runnable)} which throws is logged and the worker carries on
+ * with the next task.
+ *
+ */
+public class WorkStealingPool extends AbstractExecutorService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WorkStealingPool.class);
+
+  private static final int MAX_SPINS = 64;
+  private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private static final int RUNNING = 0;
+  private static final int SHUTDOWN = 1;
+  private static final int STOP = 2;
+
+  private final WorkerThread[] workers;
+  private final ConcurrentLinkedQueue<TimedTask> submissions = new ConcurrentLinkedQueue<>();
+  private final ExecutorService blockingThreads;
+  private final AtomicInteger idleWorkers = new AtomicInteger();
+  private final CountDownLatch terminated;
+  private volatile int state = RUNNING;
+
+  private final LongAdder completedTasks = new LongAdder();
+  private final LongAdder stolenTasks = new LongAdder();
+  private final LongAdder parks = new LongAdder();
+  private final LongAdder totalQueueTime = new LongAdder();
+  private final LongAccumulator maxQueueTime = new LongAccumulator(Long::max, 0);
+  private final LongAdder totalRunTime = new LongAdder();
+  private final LongAccumulator maxRunTime = new LongAccumulator(Long::max, 0);
+
+  /**
+   * Constructor
+   *
+   * @param parallelism the number of worker threads
+   */
+  public WorkStealingPool(int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Invalid parallelism " + parallelism);
+    }
+    workers = new WorkerThread[parallelism];
+    terminated = new CountDownLatch(parallelism);
+    for (int i = 0; i < parallelism; i++) {
+      workers[i] = new WorkerThread(i);
+    }
+    blockingThreads = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "pool-blocking");
+      thread.setDaemon(true);
+      return thread;
+    });
+    for (WorkerThread worker : workers) {
+      worker.start();
+    }
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    if (command == null) {
+      throw new NullPointerException();
+    }
+    if (state != RUNNING) {
+      throw new RejectedExecutionException("Pool is shut down");
+    }
+    TimedTask task = new TimedTask(command);
+    Thread current = Thread.currentThread();
+    if (current instanceof WorkerThread && ((WorkerThread) current).pool() == this) {
+      ((WorkerThread) current).deque.addLast(task);
+    } else {
+      submissions.add(task);
+    }
+    if (idleWorkers.get() > 0) {
+      wakeUpWorker();
+    }
+  }
+
+  /**
+   * Runs a blocking task on a thread of its own instead of a worker, recording its metrics like
+   * the ones of the other tasks.
+   *
+   * @param command the blocking task
+   */
+  public void executeBlocking(Runnable command) {
+    if (state != RUNNING) {
+      throw new RejectedExecutionException("Pool is shut down");
+    }
+    TimedTask task = new TimedTask(command);
+    blockingThreads.execute(() -> run(task));
+  }
+
+  /**
+   * Gets a snapshot of the metrics of the tasks run so far.
+   *
+   * @return the metrics
+   */
+  public PoolMetrics getMetrics() {
+    return new PoolMetrics(completedTasks.sum(), stolenTasks.sum(), parks.sum(),
+        totalQueueTime.sum(), maxQueueTime.get(), totalRunTime.sum(), maxRunTime.get());
+  }
+
+  @Override
+  public void shutdown() {
+    if (state == RUNNING) {
+      state = SHUTDOWN;
+    }
+    blockingThreads.shutdown();
+    wakeUpAll();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    state = STOP;
+    List<Runnable> pending = new ArrayList<>();
+    TimedTask task;
+    while ((task = submissions.poll()) != null) {
+      pending.add(task.command);
+    }
+    for (WorkerThread worker : workers) {
+      while ((task = worker.deque.pollFirst()) != null) {
+        pending.add(task.command);
+      }
+      worker.interrupt();
+    }
+    blockingThreads.shutdownNow();
+    wakeUpAll();
+    return pending;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return state != RUNNING;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return terminated.getCount() == 0 && blockingThreads.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    if (!terminated.await(timeout, unit)) {
+      return false;
+    }
+    return blockingThreads.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+
+  private void run(TimedTask task) {
+    long start = System.nanoTime();
+    try {
+      task.command.run();
+    } catch (Throwable t) {
+      // a failing task must not take its worker down with it
+      LOGGER.error("Task " + task.command + " failed", t);
+    } finally {
+      long end = System.nanoTime();
+      long queueTime = start - task.submitted;
+      long runTime = end - start;
+      completedTasks.increment();
+      totalQueueTime.add(queueTime);
+      maxQueueTime.accumulate(queueTime);
+      totalRunTime.add(runTime);
+      maxRunTime.accumulate(runTime);
+    }
+  }
+
+  private void wakeUpWorker() {
+    for (WorkerThread worker : workers) {
+      if (worker.parked && worker.unpark()) {
+        return;
+      }
+    }
+  }
+
+  private void wakeUpAll() {
+    for (WorkerThread worker : workers) {
+      worker.unpark();
+    }
+  }
+
+  private boolean hasQueuedTasks() {
+    if (!submissions.isEmpty()) {
+      return true;
+    }
+    for (WorkerThread worker : workers) {
+      if (!worker.deque.isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A task with the time it was submitted.
+   */
+  private static final class TimedTask {
+
+    private final Runnable command;
+    private final long submitted = System.nanoTime();
+
+    TimedTask(Runnable command) {
+      this.command = command;
+    }
+  }
+
+  /**
+   * A worker thread with its own deque.
+   */
+  private final class WorkerThread extends Thread {
+
+    private final ConcurrentLinkedDeque<TimedTask> deque = new ConcurrentLinkedDeque<>();
+    private volatile boolean parked;
+    private int spins = MAX_SPINS / 8;
+
+    WorkerThread(int index) {
+      super("pool-worker-" + index);
+      setDaemon(true);
+    }
+
+    WorkStealingPool pool() {
+      return WorkStealingPool.this;
+    }
+
+    /**
+     * Unparks the worker if it is parked, returning whether it was.
+     */
+    boolean unpark() {
+      if (parked) {
+        parked = false;
+        LockSupport.unpark(this);
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (state != STOP) {
+          TimedTask task = findTask();
+          if (task != null) {
+            WorkStealingPool.this.run(task);
+          } else if (state == SHUTDOWN && !hasQueuedTasks()) {
+            return;
+          } else {
+            idle();
+          }
+        }
+      } finally {
+        terminated.countDown();
+      }
+    }
+
+    private TimedTask findTask() {
+      TimedTask task = deque.pollLast();
+      if (task == null) {
+        task = submissions.poll();
+      }
+      if (task == null && workers.length > 1) {
+        int start = ThreadLocalRandom.current().nextInt(workers.length);
+        for (int i = 0; i < workers.length && task == null; i++) {
+          WorkerThread victim = workers[(start + i) % workers.length];
+          if (victim != this) {
+            task = victim.deque.pollFirst();
+          }
+        }
+        if (task != null) {
+          stolenTasks.increment();
+        }
+      }
+      return task;
+    }
+
+    /**
+     * Spins for the adaptive number of rounds looking for work, then parks until woken up.
+     */
+    private void idle() {
+      for (int i = 0; i < spins; i++) {
+        if (hasQueuedTasks()) {
+          spins = Math.min(spins * 2, MAX_SPINS);
+          return;
+        }
+        Thread.yield();
+      }
+      spins = Math.max(spins / 2, 1);
+      idleWorkers.incrementAndGet();
+      parked = true;
+      // a task submitted after this check sees the worker as parked and wakes it up
+      if (!hasQueuedTasks() && state == RUNNING) {
+        parks.increment();
+        LockSupport.parkNanos(this, PARK_NANOS);
+      }
+      parked = false;
+      idleWorkers.decrementAndGet();
+    }
+  }
+}
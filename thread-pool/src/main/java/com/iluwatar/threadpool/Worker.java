@@ -42,7 +42,7 @@ public class Worker implements Runnable {
 
   @Override
   public void run() {
-    LOGGER.info("{} processing {}", Thread.currentThread().getName(), task.toString());
+    LOGGER.debug("{} processing {}", Thread.currentThread().getName(), task);
     try {
       Thread.sleep(task.getTimeMs());
     } catch (InterruptedException e) {
@@ -0,0 +1,142 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Benchmark running mixed short and long {@link PotatoPeelingTask}s and {@link CoffeeMakingTask}s
+ * on a fixed thread pool and on the {@link WorkStealingPool}. The CPU bound rounds burn a
+ * microsecond for every millisecond of a task, and split the long tasks into subtasks submitted
+ * from the workers. The blocking round sleeps like the {@link Worker}. The optional arguments are
+ * the number of threads, 8 by default, and the number of tasks, 10000 by default.
+ */
+public final class ThreadPoolBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ThreadPoolBenchmark.class);
+
+  private static final int SPLIT_TIME_MS = 400;
+
+  private ThreadPoolBenchmark() {
+  }
+
+  /**
+   * Program entry point
+   *
+   * @param args command line args
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+    int taskCount = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+    List<Task> tasks = new ArrayList<>();
+    Random random = new Random(1);
+    for (int i = 0; i < taskCount; i++) {
+      // mostly short tasks with a few long ones
+      int amount = random.nextInt(10) == 0 ? 5 + random.nextInt(10) : 1 + random.nextInt(2);
+      tasks.add(i % 2 == 0 ? new PotatoPeelingTask(amount) : new CoffeeMakingTask(amount));
+    }
+
+    for (int round = 0; round < 3; round++) {
+      ExecutorService fixed = Executors.newFixedThreadPool(threads);
+      long fixedNanos = runCpuBound(tasks, fixed);
+      fixed.shutdown();
+      WorkStealingPool pool = new WorkStealingPool(threads);
+      long stealingNanos = runCpuBound(tasks, pool);
+      pool.shutdown();
+      LOGGER.info("CPU bound, {} tasks on {} threads: fixed pool {} ms, work stealing pool {} ms ({})",
+          taskCount, threads, fixedNanos / 1_000_000, stealingNanos / 1_000_000, pool.getMetrics());
+    }
+
+    List<Task> blockingTasks = tasks.subList(0, Math.min(100, tasks.size()));
+    ExecutorService fixed = Executors.newFixedThreadPool(threads);
+    long fixedNanos = runBlocking(blockingTasks, fixed::execute);
+    fixed.shutdown();
+    WorkStealingPool pool = new WorkStealingPool(threads);
+    long blockingNanos = runBlocking(blockingTasks, pool::executeBlocking);
+    pool.shutdown();
+    LOGGER.info("Blocking, {} tasks on {} threads: fixed pool {} ms, blocking mode {} ms ({})",
+        blockingTasks.size(), threads, fixedNanos / 1_000_000, blockingNanos / 1_000_000,
+        pool.getMetrics());
+  }
+
+  private static long runCpuBound(List<Task> tasks, ExecutorService executor)
+      throws InterruptedException {
+    int parts = 0;
+    for (Task task : tasks) {
+      parts += partsOf(task);
+    }
+    CountDownLatch done = new CountDownLatch(parts);
+    long start = System.nanoTime();
+    for (Task task : tasks) {
+      executor.execute(() -> {
+        int taskParts = partsOf(task);
+        // the long tasks are split, the subtasks are submitted from the worker
+        for (int i = 1; i < taskParts; i++) {
+          executor.execute(() -> {
+            burn(SPLIT_TIME_MS);
+            done.countDown();
+          });
+        }
+        burn(task.getTimeMs() - (taskParts - 1) * SPLIT_TIME_MS);
+        done.countDown();
+      });
+    }
+    done.await();
+    return System.nanoTime() - start;
+  }
+
+  private static long runBlocking(List<Task> tasks, Consumer<Runnable> executor)
+      throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(tasks.size());
+    long start = System.nanoTime();
+    for (Task task : tasks) {
+      executor.accept(() -> {
+        new Worker(task).run();
+        done.countDown();
+      });
+    }
+    done.await();
+    return System.nanoTime() - start;
+  }
+
+  private static int partsOf(Task task) {
+    return Math.max(1, task.getTimeMs() / SPLIT_TIME_MS);
+  }
+
+  private static void burn(int timeMs) {
+    long end = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(timeMs);
+    while (System.nanoTime() < end) {
+      // busy
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.time.Duration.ofMillis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link WorkStealingPool}
+ */
+public class WorkStealingPoolTest {
+
+  @Test
+  public void testAllSubmittedTasksRun() {
+    assertTimeout(ofMillis(10000), () -> {
+      final WorkStealingPool pool = new WorkStealingPool(4);
+      final AtomicInteger counter = new AtomicInteger();
+      for (int i = 0; i < 10000; i++) {
+        pool.execute(counter::incrementAndGet);
+      }
+      pool.shutdown();
+      assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+      assertEquals(10000, counter.get());
+      assertEquals(10000, pool.getMetrics().getCompletedTasks());
+      assertThrows(RejectedExecutionException.class, () -> pool.execute(counter::incrementAndGet));
+    });
+  }
+
+  @Test
+  public void testFailingTasksDoNotKillWorkers() {
+    assertTimeout(ofMillis(5000), () -> {
+      final WorkStealingPool pool = new WorkStealingPool(2);
+      for (int i = 0; i < 4; i++) {
+        pool.execute(() -> {
+          throw new IllegalStateException("task failure");
+        });
+      }
+      final CountDownLatch ran = new CountDownLatch(10);
+      for (int i = 0; i < 10; i++) {
+        pool.execute(ran::countDown);
+      }
+      assertTrue(ran.await(2, TimeUnit.SECONDS));
+      pool.shutdown();
+      assertTrue(pool.awaitTermination(1, TimeUnit.SECONDS));
+      assertEquals(14, pool.getMetrics().getCompletedTasks());
+    });
+  }
+
+  @Test
+  public void testTasksSubmittedByWorkersAreStolen() {
+    assertTimeout(ofMillis(10000), () -> {
+      final WorkStealingPool pool = new WorkStealingPool(4);
+      final int subtasks = 2000;
+      final CountDownLatch done = new CountDownLatch(subtasks);
+      pool.execute(() -> {
+        for (int i = 0; i < subtasks; i++) {
+          pool.execute(() -> {
+            final long end = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(50);
+            while (System.nanoTime() < end) {
+              Thread.yield();
+            }
+            done.countDown();
+          });
+        }
+      });
+      done.await();
+      assertTrue(pool.getMetrics().getStolenTasks() > 0);
+      pool.shutdown();
+      assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    });
+  }
+
+  @Test
+  public void testInvokeAllReturnsResults() {
+    assertTimeout(ofMillis(10000), () -> {
+      final WorkStealingPool pool = new WorkStealingPool(2);
+      final List<Callable<Integer>> tasks = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        final int value = i;
+        tasks.add(() -> value * 2);
+      }
+      final List<Future<Integer>> results = pool.invokeAll(tasks);
+      for (int i = 0; i < 100; i++) {
+        assertEquals(i * 2, (int) results.get(i).get());
+      }
+      pool.shutdown();
+    });
+  }
+
+  @Test
+  public void testBlockingTasksDoNotHoldWorkers() {
+    assertTimeout(ofMillis(5000), () -> {
+      final WorkStealingPool pool = new WorkStealingPool(1);
+      final CountDownLatch done = new CountDownLatch(10);
+      for (int i = 0; i < 10; i++) {
+        pool.executeBlocking(() -> {
+          new Worker(new CoffeeMakingTask(1)).run();
+          done.countDown();
+        });
+      }
+      // ten coffees of 100 ms each are made side by side, not one after the other
+      assertTrue(done.await(900, TimeUnit.MILLISECONDS));
+      pool.shutdown();
+      assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+      final PoolMetrics metrics = pool.getMetrics();
+      assertEquals(10, metrics.getCompletedTasks());
+      assertTrue(metrics.getAverageRunTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+    });
+  }
+
+  @Test
+  public void testIdleWorkersWakeUpForNewTasks() {
+    assertTimeout(ofMillis(5000), () -> {
+      final WorkStealingPool pool = new WorkStealingPool(2);
+      for (int round = 0; round < 20; round++) {
+        Thread.sleep(5);
+        final CountDownLatch done = new CountDownLatch(1);
+        pool.execute(done::countDown);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+      }
+      assertTrue(pool.getMetrics().getParks() > 0);
+      pool.shutdownNow();
+    });
+  }
+}
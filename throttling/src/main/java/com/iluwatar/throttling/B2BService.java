@@ -25,6 +25,7 @@ package com.iluwatar.throttling;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.iluwatar.throttling.timer.PermitThrottler;
 import com.iluwatar.throttling.timer.Throttler;
 
 import java.util.concurrent.ThreadLocalRandom;
@@ -36,18 +37,37 @@ class B2BService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(B2BService.class);
   private final CallsCount callsCount;
+  private final PermitThrottler permitThrottler;
 
   public B2BService(Throttler timer, CallsCount callsCount) {
     this.callsCount = callsCount;
+    this.permitThrottler = null;
     timer.start();
   }
 
+  /**
+   * Creates a service that leaves the decision whether a call is within the quota of a tenant
+   * to the throttler.
+   */
+  public B2BService(PermitThrottler throttler) {
+    this.callsCount = null;
+    this.permitThrottler = throttler;
+    throttler.start();
+  }
+
   /**
    *
    * @return customer id which is randomly generated
    */
   public int dummyCustomerApi(Tenant tenant) {
     String tenantName = tenant.getName();
+    if (permitThrottler != null) {
+      if (!permitThrottler.tryAcquire(tenant)) {
+        LOGGER.error("API access per second limit reached for: {}", tenantName);
+        return -1;
+      }
+      return getRandomCustomerId();
+    }
     long count = callsCount.getCount(tenantName);
     LOGGER.debug("Counter for {} : {} ", tenant.getName(), count);
     if (count >= tenant.getAllowedCallsPerSecond()) {
@@ -0,0 +1,110 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.quota;
+
+import com.iluwatar.throttling.Tenant;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link QuotaCoordinator} keeping the leases in memory, standing in for a shared store when all
+ * the nodes run in one JVM. Every tenant's quota is guarded by its own lock, and the leases are
+ * forgotten as soon as a later period is asked for.
+ */
+public class InMemoryQuotaCoordinator implements QuotaCoordinator {
+
+  private final ConcurrentHashMap<String, TenantQuota> quotas = new ConcurrentHashMap<>();
+
+  @Override
+  public int lease(String nodeId, Tenant tenant, long period, int permits) {
+    TenantQuota quota = quotas.computeIfAbsent(tenant.getName(), name -> new TenantQuota());
+    synchronized (quota) {
+      if (!quota.moveTo(period) || permits <= 0) {
+        return 0;
+      }
+      int granted = Math.min(permits, tenant.getAllowedCallsPerSecond() - quota.leased);
+      if (granted > 0) {
+        quota.leased += granted;
+        quota.leasedByNode.merge(nodeId, granted, Integer::sum);
+      }
+      return Math.max(granted, 0);
+    }
+  }
+
+  @Override
+  public void release(String nodeId, Tenant tenant, long period, int permits) {
+    TenantQuota quota = quotas.get(tenant.getName());
+    if (quota == null) {
+      return;
+    }
+    synchronized (quota) {
+      if (quota.period != period) {
+        return;
+      }
+      int held = quota.leasedByNode.getOrDefault(nodeId, 0);
+      int released = Math.min(Math.max(permits, 0), held);
+      quota.leased -= released;
+      quota.leasedByNode.put(nodeId, held - released);
+    }
+  }
+
+  /**
+   * Returns the number of permits of the tenant leased for the period and not given back.
+   */
+  public int leased(Tenant tenant, long period) {
+    TenantQuota quota = quotas.get(tenant.getName());
+    if (quota == null) {
+      return 0;
+    }
+    synchronized (quota) {
+      return quota.period == period ? quota.leased : 0;
+    }
+  }
+
+  /**
+   * Leases of one tenant in the latest period asked for.
+   */
+  private static final class TenantQuota {
+    private long period = Long.MIN_VALUE;
+    private int leased;
+    private final Map<String, Integer> leasedByNode = new HashMap<>();
+
+    /**
+     * Starts the period if it is later than the current one.
+     * @return false if the period is already over.
+     */
+    boolean moveTo(long newPeriod) {
+      if (newPeriod < period) {
+        return false;
+      }
+      if (newPeriod > period) {
+        period = newPeriod;
+        leased = 0;
+        leasedByNode.clear();
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,236 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.quota;
+
+import com.iluwatar.throttling.Tenant;
+import com.iluwatar.throttling.timer.PermitThrottler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Throttler for one node of a service running on several nodes, which together must keep every
+ * tenant within its allowed calls per second. The node leases slices of the tenant's quota for
+ * the current second from a {@link QuotaCoordinator} and takes permits from its slice with a CAS,
+ * talking to the coordinator only when a slice runs out. Every rebalance interval it gives back
+ * the permits of its slices beyond what it used in the last interval, so that busier nodes can
+ * lease them.
+ */
+public class LeasedQuotaThrottler implements PermitThrottler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LeasedQuotaThrottler.class);
+
+  private static final long MILLIS_PER_PERIOD = 1000;
+
+  private final String nodeId;
+  private final QuotaCoordinator coordinator;
+  private final double sliceFraction;
+  private final long rebalanceMillis;
+  private final LongSupplier clock;
+  private final ConcurrentHashMap<String, Lease> leases = new ConcurrentHashMap<>();
+  private ScheduledExecutorService rebalancer;
+
+  /**
+   * Creates the throttler of a node.
+   * @param nodeId the name of the node, unique among the nodes sharing the coordinator.
+   * @param coordinator the coordinator handing out the quota.
+   * @param sliceFraction the fraction of a tenant's quota leased at once, between 0 and 1.
+   * @param rebalanceMillis how often unused permits are given back, in milliseconds.
+   */
+  public LeasedQuotaThrottler(String nodeId, QuotaCoordinator coordinator, double sliceFraction,
+      long rebalanceMillis) {
+    this(nodeId, coordinator, sliceFraction, rebalanceMillis, System::currentTimeMillis);
+  }
+
+  LeasedQuotaThrottler(String nodeId, QuotaCoordinator coordinator, double sliceFraction,
+      long rebalanceMillis, LongSupplier clock) {
+    if (!(sliceFraction > 0 && sliceFraction <= 1)) {
+      throw new IllegalArgumentException("Slice fraction must be in (0, 1]: " + sliceFraction);
+    }
+    this.nodeId = nodeId;
+    this.coordinator = coordinator;
+    this.sliceFraction = sliceFraction;
+    this.rebalanceMillis = rebalanceMillis;
+    this.clock = clock;
+  }
+
+  /**
+   * Starts giving back unused permits every rebalance interval.
+   */
+  @Override
+  public synchronized void start() {
+    if (rebalancer == null) {
+      rebalancer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "quota-rebalancer-" + nodeId);
+        thread.setDaemon(true);
+        return thread;
+      });
+      rebalancer.scheduleWithFixedDelay(this::rebalance, rebalanceMillis, rebalanceMillis,
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stops rebalancing and gives back all the permits the node still holds.
+   */
+  public synchronized void stop() {
+    if (rebalancer != null) {
+      rebalancer.shutdownNow();
+      rebalancer = null;
+    }
+    long period = currentPeriod();
+    for (Lease lease : leases.values()) {
+      lease.giveBack(period, 0);
+    }
+  }
+
+  @Override
+  public boolean tryAcquire(Tenant tenant, int permits) {
+    long period = currentPeriod();
+    Lease lease = leases.get(tenant.getName());
+    if (lease == null) {
+      lease = leases.computeIfAbsent(tenant.getName(), name -> new Lease(tenant, period));
+    }
+    return lease.take(period, permits) || lease.renewAndTake(period, permits);
+  }
+
+  /**
+   * Gives back, for every tenant, the permits beyond those used since the last rebalance.
+   */
+  void rebalance() {
+    long period = currentPeriod();
+    for (Lease lease : leases.values()) {
+      try {
+        lease.giveBack(period, lease.usedSinceRebalance(period));
+      } catch (RuntimeException e) {
+        LOGGER.error("Rebalancing the quota of {} failed", lease.tenant.getName(), e);
+      }
+    }
+  }
+
+  private long currentPeriod() {
+    return Math.floorDiv(clock.getAsLong(), MILLIS_PER_PERIOD);
+  }
+
+  /**
+   * The slices of one tenant's quota held by this node. The period and the permits left are
+   * packed in one atomic long so that taking permits is a single CAS. Only the low 32 bits of the
+   * period are kept, periods that far apart never meet in one lease.
+   */
+  private final class Lease extends AtomicLong {
+    private static final long serialVersionUID = 1L;
+    private final transient Tenant tenant;
+    private final int sliceSize;
+    // guarded by this
+    private int leasedInPeriod;
+    private int usedAtRebalance;
+    private long rebalancePeriod = Long.MIN_VALUE;
+
+    Lease(Tenant tenant, long period) {
+      super(pack(period - 1, 0));
+      this.tenant = tenant;
+      this.sliceSize = Math.max(1, (int) Math.ceil(tenant.getAllowedCallsPerSecond() * sliceFraction));
+    }
+
+    boolean take(long period, int permits) {
+      for (;;) {
+        long state = get();
+        int left = left(state);
+        if (!isPeriod(state, period) || left < permits) {
+          return false;
+        }
+        if (compareAndSet(state, pack(period, left - permits))) {
+          return true;
+        }
+      }
+    }
+
+    synchronized boolean renewAndTake(long period, int permits) {
+      if (take(period, permits)) {
+        return true;
+      }
+      int granted = coordinator.lease(nodeId, tenant, period, Math.max(permits, sliceSize));
+      if (!isPeriod(get(), period)) {
+        leasedInPeriod = 0;
+      }
+      leasedInPeriod += granted;
+      for (;;) {
+        long state = get();
+        int left = (isPeriod(state, period) ? left(state) : 0) + granted;
+        boolean taken = left >= permits;
+        if (compareAndSet(state, pack(period, taken ? left - permits : left))) {
+          return taken;
+        }
+      }
+    }
+
+    /**
+     * The number of permits used in the period since the last call.
+     */
+    synchronized int usedSinceRebalance(long period) {
+      long state = get();
+      int used = isPeriod(state, period) ? leasedInPeriod - left(state) : 0;
+      int usedBefore = rebalancePeriod == period ? usedAtRebalance : 0;
+      rebalancePeriod = period;
+      usedAtRebalance = used;
+      return used - usedBefore;
+    }
+
+    /**
+     * Gives back the permits left in the period beyond the given reserve.
+     */
+    synchronized void giveBack(long period, int reserve) {
+      for (;;) {
+        long state = get();
+        int left = left(state);
+        if (!isPeriod(state, period) || left <= reserve) {
+          return;
+        }
+        int kept = Math.max(reserve, 0);
+        if (compareAndSet(state, pack(period, kept))) {
+          leasedInPeriod -= left - kept;
+          coordinator.release(nodeId, tenant, period, left - kept);
+          return;
+        }
+      }
+    }
+  }
+
+  private static long pack(long period, int left) {
+    return (long) (int) period << 32 | left & 0xFFFFFFFFL;
+  }
+
+  private static boolean isPeriod(long state, long period) {
+    return (int) (state >>> 32) == (int) period;
+  }
+
+  private static int left(long state) {
+    return (int) state;
+  }
+}
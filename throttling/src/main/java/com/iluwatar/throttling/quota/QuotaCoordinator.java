@@ -0,0 +1,53 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.quota;
+
+import com.iluwatar.throttling.Tenant;
+
+/**
+ * Hands out slices of every tenant's quota to the nodes of a service, so that the nodes together
+ * allow no more than {@link Tenant#getAllowedCallsPerSecond()} calls per period of one second. A
+ * period is identified by the number of seconds since the epoch.
+ */
+public interface QuotaCoordinator {
+
+  /**
+   * Leases up to the given number of permits from the tenant's quota for the period.
+   * @param nodeId the node asking.
+   * @param tenant the tenant whose quota is leased.
+   * @param period the period the permits are for.
+   * @param permits the number of permits wanted.
+   * @return the number of permits leased, 0 if the quota of the period is used up or the period
+   *         is over.
+   */
+  int lease(String nodeId, Tenant tenant, long period, int permits);
+
+  /**
+   * Gives back permits a node leased for the period but will not use.
+   * @param nodeId the node giving the permits back.
+   * @param tenant the tenant whose quota they belong to.
+   * @param period the period they were leased for.
+   * @param permits the number of permits given back.
+   */
+  void release(String nodeId, Tenant tenant, long period, int permits);
+}
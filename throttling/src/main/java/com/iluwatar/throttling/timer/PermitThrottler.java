@@ -0,0 +1,49 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.timer;
+
+import com.iluwatar.throttling.Tenant;
+
+/**
+ * A {@link Throttler} that decides by itself whether a call of a tenant is within its quota,
+ * instead of relying on a {@link com.iluwatar.throttling.CallsCount} that is reset periodically.
+ */
+public interface PermitThrottler extends Throttler {
+
+  /**
+   * Takes the given number of permits from the quota of the tenant, if they are available.
+   * @param tenant the tenant making the call.
+   * @param permits the number of permits the call needs.
+   * @return true if the permits were taken and the call may proceed.
+   */
+  boolean tryAcquire(Tenant tenant, int permits);
+
+  /**
+   * Takes a single permit from the quota of the tenant, if it is available.
+   * @param tenant the tenant making the call.
+   * @return true if the permit was taken and the call may proceed.
+   */
+  default boolean tryAcquire(Tenant tenant) {
+    return tryAcquire(tenant, 1);
+  }
+}
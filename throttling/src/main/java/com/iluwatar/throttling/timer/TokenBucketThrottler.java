@@ -0,0 +1,169 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.timer;
+
+import com.iluwatar.throttling.Tenant;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Implementation of throttler interface with a token bucket per tenant that refills at the
+ * tenant's allowed calls per second, holding at most burst seconds worth of calls. There is no
+ * timer thread: a bucket is a single atomic long with the time at which it will be full
+ * again, read from the monotonic {@link System#nanoTime()} clock and advanced with a CAS by every
+ * call that takes permits, so calls never race a reset and no window boundary lets a tenant burst
+ * past its bucket. Within any period of t seconds a tenant gets at most
+ * {@code allowedCallsPerSecond * (t + burst)} calls. A bucket always holds at least one permit,
+ * and with a burst of 0 it holds exactly one: calls are then spaced evenly and every period of
+ * one second gets at most {@code allowedCallsPerSecond} calls, which is the default. Larger
+ * bursts let idle tenants catch up, at the cost of up to {@code allowedCallsPerSecond * burst}
+ * extra calls in a second.
+ */
+public class TokenBucketThrottler implements PermitThrottler {
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+  private final double burst;
+  private final LongSupplier clock;
+
+  /**
+   * Creates a throttler without burst, so no one second period gets more than the quota.
+   */
+  public TokenBucketThrottler() {
+    this(0.0);
+  }
+
+  /**
+   * Creates a throttler whose buckets hold the given number of seconds worth of calls.
+   * @param burst the burst in seconds, 0 or more.
+   */
+  public TokenBucketThrottler(double burst) {
+    this(burst, System::nanoTime);
+  }
+
+  TokenBucketThrottler(double burst, LongSupplier clock) {
+    if (!(burst >= 0)) {
+      throw new IllegalArgumentException("Burst must not be negative: " + burst);
+    }
+    this.burst = burst;
+    this.clock = clock;
+  }
+
+  /**
+   * The buckets refill lazily, so there is nothing to start.
+   */
+  @Override
+  public void start() {
+    // no timer needed
+  }
+
+  @Override
+  public boolean tryAcquire(Tenant tenant, int permits) {
+    return bucket(tenant).reserve(permits, clock.getAsLong(), 0L) == 0L;
+  }
+
+  /**
+   * Takes the given number of permits from the quota of the tenant, waiting for them if they
+   * will be available within the timeout. Permits that are waited for are reserved right away,
+   * so later calls queue up behind this one.
+   * @param tenant the tenant making the call.
+   * @param permits the number of permits the call needs.
+   * @param timeout the maximum time to wait.
+   * @param unit the time unit of the timeout argument.
+   * @return true if the permits were taken, false if they would not be available in time.
+   * @throws InterruptedException if interrupted while waiting, the permits stay taken.
+   */
+  public boolean acquire(Tenant tenant, int permits, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    long now = clock.getAsLong();
+    long wait = bucket(tenant).reserve(permits, now, Math.max(0L, unit.toNanos(timeout)));
+    if (wait < 0) {
+      return false;
+    }
+    long deadline = now + wait;
+    for (long remaining = wait; remaining > 0; remaining = deadline - clock.getAsLong()) {
+      LockSupport.parkNanos(this, remaining);
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+    return true;
+  }
+
+  private Bucket bucket(Tenant tenant) {
+    Bucket bucket = buckets.get(tenant.getName());
+    if (bucket == null) {
+      bucket = buckets.computeIfAbsent(tenant.getName(),
+          name -> new Bucket(tenant.getAllowedCallsPerSecond(), burst));
+    }
+    return bucket;
+  }
+
+  /**
+   * Token bucket kept as the time at which it will be full again, i.e. when all permits taken
+   * so far would have been refilled. It extends {@link AtomicLong} to save an indirection.
+   */
+  private static final class Bucket extends AtomicLong {
+    private static final long serialVersionUID = 1L;
+    private final long nanosPerPermit;
+    private final long capacityNanos;
+
+    Bucket(int allowedCallsPerSecond, double burst) {
+      super(Long.MIN_VALUE / 2);
+      // rounded up, so the refill never outpaces the quota
+      this.nanosPerPermit = allowedCallsPerSecond <= 0 ? 0L
+          : (NANOS_PER_SECOND + allowedCallsPerSecond - 1) / allowedCallsPerSecond;
+      this.capacityNanos = Math.max(Math.round(burst * NANOS_PER_SECOND), nanosPerPermit);
+    }
+
+    /**
+     * Takes the permits if they are available now or will be within maxWait.
+     * @return how long the caller has to wait for the permits it took, or -1 if none were taken.
+     */
+    long reserve(int permits, long now, long maxWait) {
+      if (nanosPerPermit == 0L || permits < 1) {
+        return permits < 1 ? 0L : -1L;
+      }
+      long cost = nanosPerPermit * permits;
+      if (cost > capacityNanos) {
+        return -1L;
+      }
+      for (;;) {
+        long current = get();
+        long next = Math.max(current, now) + cost;
+        long wait = next - now - capacityNanos;
+        if (wait > maxWait) {
+          return -1L;
+        }
+        if (compareAndSet(current, next)) {
+          return Math.max(wait, 0L);
+        }
+      }
+    }
+  }
+}
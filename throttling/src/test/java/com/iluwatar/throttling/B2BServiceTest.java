@@ -23,6 +23,7 @@
 package com.iluwatar.throttling;
 
 import com.iluwatar.throttling.timer.Throttler;
+import com.iluwatar.throttling.timer.TokenBucketThrottler;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
@@ -48,4 +49,18 @@ public class B2BServiceTest {
     long counter = callsCount.getCount(tenant.getName());
     assertEquals(2, counter, "Counter limit must be reached");
   }
+
+  @Test
+  public void dummyCustomerApiWithTokenBucketTest() {
+    Tenant tenant = new Tenant("testTenant", 2, callsCount);
+    B2BService service = new B2BService(new TokenBucketThrottler(1.0));
+
+    int allowed = 0;
+    for (int i = 0; i < 5; i++) {
+      if (service.dummyCustomerApi(tenant) != -1) {
+        allowed++;
+      }
+    }
+    assertEquals(2, allowed, "Bucket must be emptied");
+  }
 }
@@ -0,0 +1,116 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling;
+
+import com.iluwatar.throttling.timer.TokenBucketThrottler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark of the cost of a throttling check for calls spread over many tenants, comparing the
+ * {@link TokenBucketThrottler} with the check {@link B2BService} makes against a {@link CallsCount}.
+ * The optional arguments are the number of tenants, 10000 by default, and of threads, 4 by default.
+ */
+public final class ThrottlerBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ThrottlerBenchmark.class);
+
+  private static final long DURATION_MILLIS = 1000;
+
+  private ThrottlerBenchmark() {
+  }
+
+  /**
+   * Program entry point
+   * @param args command line args
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int tenantCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+    CallsCount callsCount = new CallsCount();
+    Tenant[] tenants = new Tenant[tenantCount];
+    for (int i = 0; i < tenantCount; i++) {
+      tenants[i] = new Tenant("tenant" + i, 1000, callsCount);
+    }
+    TokenBucketThrottler throttler = new TokenBucketThrottler();
+    for (int run = 0; run < 3; run++) {
+      long bucketChecks = measure(threads, () -> {
+        Tenant tenant = tenants[ThreadLocalRandom.current().nextInt(tenantCount)];
+        return throttler.tryAcquire(tenant);
+      });
+      long countChecks = measure(threads, () -> {
+        Tenant tenant = tenants[ThreadLocalRandom.current().nextInt(tenantCount)];
+        if (callsCount.getCount(tenant.getName()) >= tenant.getAllowedCallsPerSecond()) {
+          return false;
+        }
+        callsCount.incrementCount(tenant.getName());
+        return true;
+      });
+      LOGGER.info("{} tenants, {} threads: TokenBucketThrottler {} checks/s ({} ns each), CallsCount {} checks/s",
+          tenantCount, threads, bucketChecks, 1_000_000_000L / bucketChecks, countChecks);
+      callsCount.reset();
+    }
+  }
+
+  /**
+   * Returns the number of checks per second made by all threads together.
+   */
+  private static long measure(int threads, Check check) throws InterruptedException {
+    LongAdder checks = new LongAdder();
+    LongAdder allowed = new LongAdder();
+    long end = System.nanoTime() + DURATION_MILLIS * 1_000_000L;
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      workers.add(new Thread(() -> {
+        long count = 0;
+        long passed = 0;
+        while ((count & 0xfff) != 0 || System.nanoTime() < end) {
+          if (check.allowed()) {
+            passed++;
+          }
+          count++;
+        }
+        checks.add(count);
+        allowed.add(passed);
+      }));
+    }
+    workers.forEach(Thread::start);
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    LOGGER.debug("{} of {} calls allowed", allowed.sum(), checks.sum());
+    return checks.sum() * 1000 / DURATION_MILLIS;
+  }
+
+  /**
+   * A throttling check.
+   */
+  private interface Check {
+    boolean allowed();
+  }
+}
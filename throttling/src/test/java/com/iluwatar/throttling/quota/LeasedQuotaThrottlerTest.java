@@ -0,0 +1,164 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.quota;
+
+import com.iluwatar.throttling.CallsCount;
+import com.iluwatar.throttling.Tenant;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LeasedQuotaThrottlerTest to test nodes sharing a tenant's quota through one coordinator.
+ */
+public class LeasedQuotaThrottlerTest {
+
+  private static final int NODES = 4;
+  private static final int THREADS_PER_NODE = 2;
+
+  private final AtomicLong clock = new AtomicLong();
+  private final InMemoryQuotaCoordinator coordinator = new InMemoryQuotaCoordinator();
+
+  @Test
+  public void globalLimitHoldsAcrossNodesTest() throws InterruptedException {
+    Tenant tenant = new Tenant("testTenant", 1000, new CallsCount());
+    List<LeasedQuotaThrottler> nodes = new ArrayList<>();
+    for (int i = 0; i < NODES; i++) {
+      nodes.add(new LeasedQuotaThrottler("node" + i, coordinator, 0.05, 100, clock::get));
+    }
+    // at most the unused rest of one slice of 50 permits stays on every node
+    int tolerance = NODES * 50;
+    for (int period = 0; period < 3; period++) {
+      clock.set(period * 1000L + 500);
+      AtomicInteger allowed = new AtomicInteger();
+      List<Thread> threads = new ArrayList<>();
+      for (LeasedQuotaThrottler node : nodes) {
+        for (int i = 0; i < THREADS_PER_NODE; i++) {
+          threads.add(new Thread(() -> {
+            for (int call = 0; call < 1000; call++) {
+              if (node.tryAcquire(tenant)) {
+                allowed.incrementAndGet();
+              }
+            }
+          }));
+        }
+      }
+      threads.forEach(Thread::start);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      assertTrue(allowed.get() <= 1000, "allowed " + allowed.get());
+      assertTrue(allowed.get() >= 1000 - tolerance, "allowed " + allowed.get());
+      assertEquals(1000, coordinator.leased(tenant, period));
+    }
+  }
+
+  @Test
+  public void rebalanceMovesUnusedQuotaTest() {
+    Tenant tenant = new Tenant("testTenant", 100, new CallsCount());
+    LeasedQuotaThrottler busy = new LeasedQuotaThrottler("busy", coordinator, 0.5, 100, clock::get);
+    LeasedQuotaThrottler idle = new LeasedQuotaThrottler("idle", coordinator, 0.5, 100, clock::get);
+
+    assertTrue(idle.tryAcquire(tenant));
+    assertEquals(50, takeAll(busy, tenant));
+
+    // the idle node keeps what it used since the last rebalance
+    idle.rebalance();
+    assertEquals(48, takeAll(busy, tenant));
+    assertTrue(idle.tryAcquire(tenant));
+    assertFalse(idle.tryAcquire(tenant));
+
+    idle.rebalance();
+    busy.rebalance();
+    assertEquals(0, takeAll(busy, tenant));
+    assertEquals(100, coordinator.leased(tenant, 0));
+  }
+
+  @Test
+  public void stopGivesBackEverythingTest() {
+    Tenant tenant = new Tenant("testTenant", 10, new CallsCount());
+    LeasedQuotaThrottler first = new LeasedQuotaThrottler("first", coordinator, 1.0, 100, clock::get);
+    LeasedQuotaThrottler second = new LeasedQuotaThrottler("second", coordinator, 1.0, 100, clock::get);
+
+    assertTrue(first.tryAcquire(tenant, 3));
+    assertFalse(second.tryAcquire(tenant));
+    first.stop();
+    assertEquals(7, takeAll(second, tenant));
+  }
+
+  @Test
+  public void leasesExpireWithThePeriodTest() {
+    Tenant tenant = new Tenant("testTenant", 10, new CallsCount());
+    LeasedQuotaThrottler node = new LeasedQuotaThrottler("node", coordinator, 0.5, 100, clock::get);
+
+    assertEquals(10, takeAll(node, tenant));
+    clock.set(999);
+    assertFalse(node.tryAcquire(tenant));
+    clock.set(1000);
+    assertEquals(10, takeAll(node, tenant));
+    assertFalse(node.tryAcquire(tenant, 11));
+  }
+
+  @Test
+  public void periodsBeyond2038Test() {
+    Tenant tenant = new Tenant("testTenant", 10, new CallsCount());
+    AtomicInteger leaseCalls = new AtomicInteger();
+    InMemoryQuotaCoordinator counting = new InMemoryQuotaCoordinator() {
+      @Override
+      public int lease(String nodeId, Tenant tenant, long period, int permits) {
+        leaseCalls.incrementAndGet();
+        return super.lease(nodeId, tenant, period, permits);
+      }
+    };
+    long period = (1L << 31) + 1;
+    clock.set(period * 1000 + 500);
+    LeasedQuotaThrottler first = new LeasedQuotaThrottler("first", counting, 0.5, 100, clock::get);
+    LeasedQuotaThrottler second = new LeasedQuotaThrottler("second", counting, 0.5, 100, clock::get);
+
+    // the permits of a slice are taken without asking the coordinator
+    for (int i = 0; i < 5; i++) {
+      assertTrue(first.tryAcquire(tenant));
+    }
+    assertEquals(1, leaseCalls.get());
+
+    assertTrue(first.tryAcquire(tenant, 2));
+    first.stop(); // gives back the 3 permits left of the second slice
+    assertEquals(3, takeAll(second, tenant));
+    assertEquals(10, counting.leased(tenant, period));
+  }
+
+  private static int takeAll(LeasedQuotaThrottler node, Tenant tenant) {
+    int taken = 0;
+    while (node.tryAcquire(tenant)) {
+      taken++;
+    }
+    return taken;
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.timer;
+
+import com.iluwatar.throttling.CallsCount;
+import com.iluwatar.throttling.Tenant;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TokenBucketThrottlerTest to test the token bucket throttler against a manual clock.
+ */
+public class TokenBucketThrottlerTest {
+
+  private final AtomicLong clock = new AtomicLong();
+  private final Tenant tenant = new Tenant("testTenant", 10, new CallsCount());
+
+  @Test
+  public void burstThenRefillTest() {
+    TokenBucketThrottler throttler = new TokenBucketThrottler(1.0, clock::get);
+    for (int i = 0; i < 10; i++) {
+      assertTrue(throttler.tryAcquire(tenant));
+    }
+    assertFalse(throttler.tryAcquire(tenant));
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+    assertTrue(throttler.tryAcquire(tenant, 2));
+    assertFalse(throttler.tryAcquire(tenant));
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    assertTrue(throttler.tryAcquire(tenant, 10));
+    assertFalse(throttler.tryAcquire(tenant, 11));
+  }
+
+  @Test
+  public void noWindowGetsMoreThanTheQuotaTest() {
+    TokenBucketThrottler throttler = new TokenBucketThrottler(0.0, clock::get);
+    List<Long> allowedAt = new ArrayList<>();
+    // one call every millisecond for three seconds
+    for (int i = 0; i < 3000; i++) {
+      if (throttler.tryAcquire(tenant)) {
+        allowedAt.add(clock.get());
+      }
+      clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    assertEquals(30, allowedAt.size());
+    // any eleven calls span more than a second
+    for (int i = 10; i < allowedAt.size(); i++) {
+      assertTrue(allowedAt.get(i) - allowedAt.get(i - 10) >= TimeUnit.SECONDS.toNanos(1));
+    }
+  }
+
+  @Test
+  public void burstAddsToTheQuotaTest() {
+    TokenBucketThrottler throttler = new TokenBucketThrottler(0.5, clock::get);
+    int allowed = 0;
+    // one call every millisecond for a second
+    for (int i = 0; i < 1000; i++) {
+      if (throttler.tryAcquire(tenant)) {
+        allowed++;
+      }
+      clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    // a burst of 5 calls, then one every 100 ms from 100 ms on: within quota * (1 + burst)
+    assertEquals(14, allowed);
+  }
+
+  @Test
+  public void veryHighRatesAreNotRoundedToZeroTest() {
+    Tenant huge = new Tenant("hugeTenant", Integer.MAX_VALUE, new CallsCount());
+    TokenBucketThrottler throttler = new TokenBucketThrottler(0.0, clock::get);
+    assertTrue(throttler.tryAcquire(huge));
+    assertFalse(throttler.tryAcquire(huge));
+    clock.addAndGet(1);
+    assertTrue(throttler.tryAcquire(huge));
+  }
+
+  @Test
+  public void acquireWaitsWithinTimeoutTest() throws InterruptedException {
+    Tenant fast = new Tenant("fastTenant", 100, new CallsCount());
+    TokenBucketThrottler throttler = new TokenBucketThrottler(0.01);
+    assertTrue(throttler.tryAcquire(fast));
+    assertFalse(throttler.acquire(fast, 1, 1, TimeUnit.MILLISECONDS));
+    long start = System.nanoTime();
+    assertTrue(throttler.acquire(fast, 1, 1, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(5));
+  }
+
+  @Test
+  public void tenantWithoutQuotaTest() {
+    TokenBucketThrottler throttler = new TokenBucketThrottler(1.0, clock::get);
+    assertFalse(throttler.tryAcquire(new Tenant("blocked", 0, new CallsCount())));
+  }
+
+  @Test
+  public void concurrentCallsTakeExactlyTheBucketTest() throws InterruptedException {
+    Tenant busy = new Tenant("busyTenant", 1000, new CallsCount());
+    TokenBucketThrottler throttler = new TokenBucketThrottler(1.0, clock::get);
+    AtomicInteger allowed = new AtomicInteger();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < 1000; i++) {
+          if (throttler.tryAcquire(busy)) {
+            allowed.incrementAndGet();
+          }
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(1000, allowed.get());
+  }
+}